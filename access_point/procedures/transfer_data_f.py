@@ -13,7 +13,8 @@ def transfer_data(config: Config) -> None:
     of all known sensor stations to the server backend. Upon successful transfer
     measurements are deleted from the local filestorage.
     """
-    backend = Server(config.backend_address, config.token)
+    backend = Server(config.backend_address, config.token,
+                     binary_transfer=config.binary_transfer)
     database = Database(DB_FILENAME)
 
     # get data
@@ -1,5 +1,8 @@
 import requests
 import json
+import struct
+import calendar
+import uuid
 import functools
 import logging
 
@@ -19,6 +22,59 @@ def describe_not_ok_response(r: requests.Response) -> str:
     """
     return f'Got response [{r.status_code}] from "{r.request.method} {r.url}"'
 
+def _varint(value: int) -> bytes:
+    out = bytearray()
+    while value & ~0x7F:
+        out.append((value & 0x7F) | 0x80)
+        value >>= 7
+    out.append(value)
+    return bytes(out)
+
+def _zigzag(value: int) -> bytes:
+    return _varint(value << 1 if value >= 0 else ((-value) << 1) - 1)
+
+def _utf(value: str) -> bytes:
+    encoded = value.encode('utf-8')
+    return struct.pack('>H', len(encoded)) + encoded
+
+def encode_binary_transfer(station_data: dict[str, dict[str, bool, Optional[int]]],
+                           measurements: list[dict[str, Union[str, datetime, int, None]]]) -> bytes:
+    """
+    Encodes the data of a transfer in the compact binary format of the backend
+    (see SensorDataBinaryCodec in the backend for the layout).
+    Measurements are grouped by sensor station and sensor, timestamps are stored
+    as second deltas and values as float32.
+
+    :param station_data: Same as for `Server.transfer_data`
+    :param measurements: Same as for `Server.transfer_data`
+    """
+    out = bytearray(b'PHSD')
+    out.append(1)
+    out += _varint(len(station_data))
+    for adr, status in station_data.items():
+        out += _utf(adr)
+        out.append(1 if status.get('connection_alive') else 0)
+        out += _varint(status.get('dip_id') or 0)
+
+        series: dict[str, list[dict]] = {}
+        for m in measurements:
+            if m.get('sensor_station_address') == adr:
+                series.setdefault(m.get('sensor_name'), []).append(m)
+        out += _varint(len(series))
+        for sensor_name, readings in series.items():
+            out += _utf(sensor_name)
+            out += _utf(readings[0].get('unit') or '')
+            times = [calendar.timegm(m.get('timestamp').timetuple()) for m in readings]
+            out += struct.pack('>q', times[0])
+            out += _varint(len(readings))
+            previous = times[0]
+            for time in times:
+                out += _zigzag(time - previous)
+                previous = time
+            out += struct.pack(f'>{len(readings)}f', *[m.get('value') for m in readings])
+            out += bytes(ord((m.get('alarm') or 'n')[0]) for m in readings)
+    return bytes(out)
+
 class TokenDeclinedError(Exception):
     """
     Token has been declined/revoked by the backend.
@@ -41,14 +97,19 @@ class Server:
     # status codes that get interpreted as getting locked
     _LOCKED_STATUS_CODES = [401, 403]
 
-    def __init__(self, address: str, token=None) -> None:
+    # content type of the compact binary transfer format
+    _BINARY_CONTENT_TYPE = 'application/vnd.plant-health.sensor-data'
+
+    def __init__(self, address: str, token=None, binary_transfer: bool = False) -> None:
         """
         Initializes the backend handler.
 
         :param address: The URL or IP at which the backend can be reached
         :param token: An authentication token to use for communication with the backend
+        :param binary_transfer: Send sensor data in the compact binary format instead of JSON
         """
         self.address = address
+        self.binary_transfer = binary_transfer
         self._client = requests.Session()
         self._token = None  # necessary due to updating headers with setting token
         self.token = token
@@ -263,6 +324,11 @@ class Server:
         :raises TokenDeclinedError: If the token is not accepted anymore
         :raises ConnectionError: If the request fails
         """
+        if self.binary_transfer:
+            self._post_transfer(encode_binary_transfer(station_data, measurements),
+                                {'Content-Type': self._BINARY_CONTENT_TYPE})
+            return
+
         # setup entries for each known sensor station
         data = [{'bdAddress': adr,
                  'connected': status.get('connection_alive'),
@@ -284,11 +350,23 @@ class Server:
             # update data structure
             data[index]['sensorData'] = sensor_data
 
+        self._post_transfer(json.dumps(data).encode('utf-8'),
+                            {'Content-Type': 'application/json'})
+
+    def _post_transfer(self, body: bytes, headers: dict[str, str]) -> None:
+        """
+        Sends an encoded transfer to the backend.
+
+        :raises TokenDeclinedError: If the token is not accepted anymore
+        :raises ConnectionError: If the request fails
+        """
         # send request
+        # the batch id lets the backend recognize retries of the same transfer
         try:
             response = self._client.post(
                 self._get_endpoint_url('transfer-data'),
-                json=data
+                data=body,
+                headers={**headers, 'X-Batch-Id': str(uuid.uuid4())}
             )
         except (requests.ConnectTimeout, requests.ReadTimeout) as e:
             raise ConnectionError(f'Request timed out: {e}')
@@ -297,7 +375,8 @@ class Server:
         
         if response.status_code in self._LOCKED_STATUS_CODES:
             self.token = None
-        elif not response.status_code == 200:
+        # 202: backend queued the data and writes it asynchronously
+        elif response.status_code not in [200, 202]:
             raise ConnectionError(describe_not_ok_response(response))
 
     def report_found_sensor_station(self, sensor_stations: list[dict[str, Union[str, int]]]) -> None:
@@ -132,6 +132,7 @@ def test_transfer_data(requests_mock: Mocker):
                             'timestamp': timestamp,
                             'value': 56.78,
                             'alarm': 'h'}])
+    assert requests_mock.last_request.headers.get('X-Batch-Id')
     sent = requests_mock.last_request.json()
     assert sent[0]['bdAddress'] == 'adr 1'
     assert sent[0]['connected'] == True
@@ -149,3 +150,24 @@ def test_transfer_data(requests_mock: Mocker):
     assert sent[1]['bdAddress'] == 'adr 2'
     assert sent[1]['connected'] == False
     assert sent[1]['dipSwitchId'] == None
+
+def test_transfer_data_binary(requests_mock: Mocker):
+    """sensor data can be transferred in the compact binary format"""
+    backend = Server(URL, TOKEN, binary_transfer=True)
+    requests_mock.post(f'{URL}/transfer-data',
+                       request_headers=REQUIRED_HEADERS)
+    timestamp = datetime(2023, 5, 6, 17, 34, 44)
+    backend.transfer_data({'adr 1': {'connection_alive': True,
+                                      'dip_id': 1}},
+                          [{'sensor_station_address': 'adr 1',
+                            'sensor_name': 'sensor 1',
+                            'unit': '%',
+                            'timestamp': timestamp,
+                            'value': -12.5,
+                            'alarm': 'n'}])
+    request = requests_mock.last_request
+    assert request.headers.get('Content-Type') == 'application/vnd.plant-health.sensor-data'
+    assert request.headers.get('X-Batch-Id')
+    sent = request.body
+    assert sent[:5] == b'PHSD\x01'
+    assert sent.endswith(b'\xc1\x48\x00\x00n')
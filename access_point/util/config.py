@@ -56,6 +56,7 @@ class Config(object):
         self._last_data_collect = datetime.now()    # not stored in config file
 
         self._debug = False
+        self._binary_transfer = False
 
     @property
     def uuid(self):
@@ -111,6 +112,11 @@ class Config(object):
         """Flag to indicate if debugging output shall be included in the logfiles."""
         return self._debug
 
+    @property
+    def binary_transfer(self):
+        """Flag to indicate if sensor data is sent in the compact binary format instead of JSON."""
+        return self._binary_transfer
+
     def update(
             self,
             uuid: str=None,
@@ -122,6 +128,7 @@ class Config(object):
             transfer_data_interval:int=None,
             scan_active:bool=None,
             debug:bool=None,
+            binary_transfer:bool=None,
             **kwargs
         ) -> None:
         """
@@ -147,7 +154,8 @@ class Config(object):
                                  collect_data_interval,
                                  transfer_data_interval,
                                  scan_active,
-                                 debug)
+                                 debug,
+                                 binary_transfer)
             self._save()
 
     def _set_new_values(self,
@@ -159,7 +167,8 @@ class Config(object):
                         collect_data_interval:int,
                         transfer_data_interval:int,
                         scan_active:bool,
-                        debug:bool) -> None:
+                        debug:bool,
+                        binary_transfer:bool) -> None:
         """Sets new values."""
         self._uuid = uuid if uuid else self._uuid
         self._room_name = room_name if room_name else self._room_name
@@ -173,6 +182,7 @@ class Config(object):
         self._scan_active = scan_active if scan_active is not None else self._scan_active
 
         self._debug = debug if debug is not None else self._debug
+        self._binary_transfer = binary_transfer if binary_transfer is not None else self._binary_transfer
 
     def reset_token(self):
         """Resets the token."""
@@ -222,6 +232,7 @@ class Config(object):
             transfer_data_interval:int=None,
             scan_active:bool=None,
             debug:bool=None,
+            binary_transfer:bool=None,
             **kwargs
         ):
         """
@@ -237,7 +248,8 @@ class Config(object):
         self._validation_access_point_info(uuid,
                                            room_name,
                                            scan_active,
-                                           debug)
+                                           debug,
+                                           binary_transfer)
 
         self._validate_intervals(get_config_interval,
                                  collect_data_interval,
@@ -292,7 +304,8 @@ class Config(object):
                                       uuid:str=None,
                                       room_name:str=None,
                                       scan_active:bool=None,
-                                      debug:bool=None,):
+                                      debug:bool=None,
+                                      binary_transfer:bool=None):
         """
         Sub-method for _validate()
         :raises ValueError: If validation fails
@@ -305,6 +318,8 @@ class Config(object):
             raise ValueError(describe_wrong_type('scan_active', bool))
         if debug and not isinstance(debug, bool):
             raise ValueError(describe_wrong_type('debug', bool))
+        if binary_transfer is not None and not isinstance(binary_transfer, bool):
+            raise ValueError(describe_wrong_type('binary_transfer', bool))
         
         if uuid and not validators.uuid(uuid):
             raise ValueError('Expected a valid UUID for uuid')
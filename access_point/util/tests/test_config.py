@@ -75,4 +75,17 @@ def test_set_transfer_interval_lower_than_collect_interval():
     config = Config(TEST_CONF_FILENAME('in'))
     with pytest.raises(ValueError):
         collect_data_interval_seconds = int(config.collect_data_interval.total_seconds())
-        config.update(transfer_data_interval=collect_data_interval_seconds - 1)
\ No newline at end of file
+        config.update(transfer_data_interval=collect_data_interval_seconds - 1)
+
+def test_binary_transfer_is_off_by_default():
+    """Sensor data is sent as JSON unless the binary format is enabled in the configuration"""
+    with open(TEST_CONF_FILENAME('out'), 'w+') as f:
+        f.write(f'backend_address: http://old.com')
+    config = Config(TEST_CONF_FILENAME('out'))
+    assert config.binary_transfer is False
+    config.update(binary_transfer=True)
+    assert Config(TEST_CONF_FILENAME('out')).binary_transfer is True
+    try:
+        os.remove(TEST_CONF_FILENAME('out'))
+    except:
+        pass
@@ -24,6 +24,9 @@ import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
 import at.ac.uibk.plant_health.repositories.*;
 import at.ac.uibk.plant_health.service.PersonService;
+import at.ac.uibk.plant_health.service.RecentReadingsStore;
+import at.ac.uibk.plant_health.service.SensorDataBucketService;
+import at.ac.uibk.plant_health.service.SensorDataRollupService;
 import at.ac.uibk.plant_health.service.SensorStationService;
 
 @Component
@@ -43,6 +46,12 @@ public class DumpConfig {
 	private SensorLimitsRepository sensorLimitsRepository;
 	@Autowired
 	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
 
 	@EventListener(ApplicationReadyEvent.class)
 	public void loadDatabaseDump() {
@@ -192,7 +201,13 @@ public class DumpConfig {
 
 		sensorStationRepository.saveAll(sensorStations);
 		sensorStations.forEach(s -> sensorLimitsRepository.saveAll(s.getSensorLimits()));
-		sensorStations.forEach(s -> sensorDataRepository.saveAll(s.getSensorData()));
+		if (sensorDataBucketService.isEnabled()) {
+			sensorStations.forEach(s -> sensorDataBucketService.add(s, s.getSensorData()));
+		} else {
+			sensorStations.forEach(s -> sensorDataRepository.saveAll(s.getSensorData()));
+		}
+		sensorStations.forEach(s -> sensorDataRollupService.add(s, s.getSensorData()));
+		sensorStations.forEach(s -> recentReadingsStore.add(s.getDeviceId(), s.getSensorData()));
 		sensorStations.forEach(
 				s
 				-> sensorStationPersonReferenceRepository.saveAll(
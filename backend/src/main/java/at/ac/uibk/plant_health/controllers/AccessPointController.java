@@ -3,8 +3,11 @@ package at.ac.uibk.plant_health.controllers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,9 +20,16 @@ import at.ac.uibk.plant_health.models.exceptions.ServiceException;
 import at.ac.uibk.plant_health.models.rest_responses.*;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.service.AccessPointService;
+import at.ac.uibk.plant_health.service.DeviceListService;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
+import at.ac.uibk.plant_health.service.SensorDataIngestQueue;
+import at.ac.uibk.plant_health.service.SensorStationStreamReader;
+import at.ac.uibk.plant_health.service.TransferBatchCache;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
@@ -27,6 +37,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 public class AccessPointController {
 	@Autowired
 	private AccessPointService accessPointService;
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private SensorDataIngestQueue sensorDataIngestQueue;
+	@Autowired
+	private SensorStationStreamReader sensorStationStreamReader;
+	@Autowired
+	private TransferBatchCache transferBatchCache;
 
 	@Operation(summary = "Register an Access Point")
 	@ApiResponses({
@@ -81,11 +99,7 @@ public class AccessPointController {
 	public RestResponseEntity
 	getAccessPoints() {
 		try {
-			var response = new AccessPointListResponse(accessPointService.findAllAccessPoints());
-			accessPointService.setAccessPointSensorStationsReported(
-					accessPointService.findAllAccessPoints()
-			);
-			return response.toEntity();
+			return new AccessPointListResponse(deviceListService.getAccessPoints()).toEntity();
 		} catch (ServiceException e) {
 			return MessageResponse.builder()
 					.statusCode(e.getStatusCode())
@@ -157,10 +171,21 @@ public class AccessPointController {
 		accessPointService.setLastConnection(accessPoint);
 		// This cannot fail because the AccessPoint has to exist and be unlocked.
 		// If that were not the case the Security Chain would not have authenticated the request.
-		return new AccessPointConfigResponse(accessPoint).toEntity();
+		// The Principal is detached, it is loaded again with what the Config shows.
+		return new AccessPointConfigResponse(
+					   accessPointService.findConfig(accessPoint.getDeviceId())
+		)
+				.toEntity();
 	}
 
-	@Operation(summary = "Send found sensor stations to Access Point")
+	@Operation(
+			summary = "Send found sensor stations to Access Point",
+			requestBody = @RequestBody(
+					content = @Content(array = @ArraySchema(
+											   schema = @Schema(implementation = SensorStation.class)
+									   ))
+			)
+	)
 	@ApiResponses({
 		@ApiResponse(
 				responseCode = "200", description = "Sensor Stations successfully added",
@@ -178,9 +203,17 @@ public class AccessPointController {
 	)
 	@PrincipalRequired(AccessPoint.class)
 	public RestResponseEntity
-	foundSensorStations(
-			AccessPoint accessPoint, @RequestBody final List<SensorStation> sensorStations
-	) {
+	foundSensorStations(AccessPoint accessPoint, final InputStream body) {
+		List<SensorStation> sensorStations;
+		try {
+			sensorStations = sensorStationStreamReader.readAll(body);
+		} catch (ServiceException e) {
+			return MessageResponse.builder()
+					.statusCode(e.getStatusCode())
+					.message(e.getMessage())
+					.toEntity();
+		}
+
 		// This cannot fail because the AccessPoint has to exist and be unlocked.
 		// If that were not the case the Security Chain would not have authenticated the request.
 		// Saving the Sensor Stations can not fail because of the Structure of the Method
@@ -269,13 +302,33 @@ public class AccessPointController {
 				.toEntity();
 	}
 
-	@Operation(summary = "Transfer data from Access Point to Server")
+	@Operation(
+			summary = "Transfer data from Access Point to Server",
+			requestBody = @RequestBody(content = {
+				@Content(
+						mediaType = MediaType.APPLICATION_JSON_VALUE,
+						array = @ArraySchema(schema = @Schema(implementation = SensorStation.class))
+				)
+				, @Content(
+						  mediaType = SensorDataBinaryCodec.MEDIA_TYPE_VALUE,
+						  schema = @Schema(type = "string", format = "binary")
+				  )
+			})
+	)
 	@ApiResponses({
 		@ApiResponse(
 				responseCode = "200", description = "Data successfully transfered",
 				content = @Content(schema = @Schema(implementation = MessageResponse.class))
 		)
 		,
+				@ApiResponse(
+						responseCode = "202", description = "Data queued for writing",
+						content = @Content(schema = @Schema(implementation = MessageResponse.class))
+				),
+				@ApiResponse(
+						responseCode = "429", description = "Ingest queue is full",
+						content = @Content(schema = @Schema(implementation = MessageResponse.class))
+				),
 				@ApiResponse(
 						responseCode = "400", description = "Data could not be transfered",
 						content = @Content(schema = @Schema(implementation = MessageResponse.class))
@@ -285,11 +338,25 @@ public class AccessPointController {
 	@PrincipalRequired(AccessPoint.class)
 	public RestResponseEntity
 	transferData(
-			final AccessPoint accessPoint, @RequestBody final List<SensorStation> sensorStationList
+			final AccessPoint accessPoint, final InputStream body,
+			@RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false)
+			final String contentType,
+			@RequestHeader(name = HttpHeaders.CONTENT_LENGTH, required = false)
+			final Long contentLength,
+			@RequestHeader(name = TransferBatchCache.BATCH_ID_HEADER, required = false)
+			final String batchId
 	) {
+		long length = contentLength == null ? -1 : contentLength;
+		if (sensorDataIngestQueue.isEnabled()) {
+			return queueData(accessPoint, body, contentType, length, batchId);
+		}
+
+		// The Body is parsed while it is written, so large Transfers are never held in Memory.
+		int written;
 		try {
-			accessPointService.setLastConnection(accessPoint);
-			accessPointService.setSensorStationData(sensorStationList, accessPoint);
+			written = accessPointService.setSensorStationData(
+					body, contentType, length, accessPoint, batchId
+			);
 		} catch (ServiceException e) {
 			return MessageResponse.builder()
 					.statusCode(e.getStatusCode())
@@ -299,7 +366,66 @@ public class AccessPointController {
 
 		return MessageResponse.builder()
 				.statusCode(200)
-				.message("Successfully transfered data")
+				.message("Successfully transfered " + written + " SensorData")
+				.toEntity();
+	}
+
+	private RestResponseEntity
+	queueData(
+			final AccessPoint accessPoint, final InputStream body, final String contentType,
+			final long contentLength, final String batchId
+	) {
+		try {
+			// A Retry of a written Batch does not have to be queued again.
+			if (batchId != null && transferBatchCache.begin(accessPoint, batchId) != null) {
+				return MessageResponse.builder()
+						.statusCode(202)
+						.message("Accepted 0 SensorData")
+						.toEntity();
+			}
+		} catch (ServiceException e) {
+			return MessageResponse.builder()
+					.statusCode(e.getStatusCode())
+					.message(e.getMessage())
+					.toEntity();
+		}
+
+		int queued;
+		try {
+			// NOTE: Queued Transfers are held in Memory until they are written, the Size of the
+			//       Queue is bounded by swa.ingest.async.capacity.
+			List<SensorStation> sensorStationList =
+					sensorStationStreamReader.readAll(body, contentType, contentLength);
+			accessPointService.setLastConnection(accessPoint);
+			queued = sensorDataIngestQueue.offer(accessPoint, sensorStationList, batchId);
+		} catch (ServiceException e) {
+			if (batchId != null) transferBatchCache.abort(accessPoint, batchId);
+			return MessageResponse.builder()
+					.statusCode(e.getStatusCode())
+					.message(e.getMessage())
+					.toEntity();
+		}
+
+		// The Batch is completed by the Queue once it has been written.
+		if (queued < 0) {
+			if (batchId != null) transferBatchCache.abort(accessPoint, batchId);
+			HttpHeaders headers = new HttpHeaders();
+			headers.set(
+					HttpHeaders.RETRY_AFTER,
+					String.valueOf(sensorDataIngestQueue.getRetryAfterSeconds())
+			);
+			return new RestResponseEntity(
+					MessageResponse.builder()
+							.statusCode(429)
+							.message("Too many transfers, try again later")
+							.build(),
+					headers
+			);
+		}
+
+		return MessageResponse.builder()
+				.statusCode(202)
+				.message("Accepted " + queued + " SensorData")
 				.toEntity();
 	}
 
@@ -354,7 +480,7 @@ public class AccessPointController {
 	getAccessPointSensorStations(@RequestParam("accessPointId") final UUID accessPointId) {
 		try {
 			return new AdminSensorStationsResponse(
-						   accessPointService.getAccessPointSensorStations(accessPointId)
+						   deviceListService.getSensorStations(accessPointId)
 			)
 					.toEntity();
 		} catch (ServiceException e) {
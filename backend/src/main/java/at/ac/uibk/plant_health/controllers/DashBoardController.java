@@ -14,6 +14,8 @@ import at.ac.uibk.plant_health.models.rest_responses.*;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
 import at.ac.uibk.plant_health.service.AccessPointService;
+import at.ac.uibk.plant_health.service.DashboardCache;
+import at.ac.uibk.plant_health.service.DashboardCache.Dashboard;
 import at.ac.uibk.plant_health.service.PersonService;
 import at.ac.uibk.plant_health.service.SensorStationPersonReferenceService;
 import at.ac.uibk.plant_health.service.SensorStationService;
@@ -34,6 +36,8 @@ public class DashBoardController {
 	private SensorStationPersonReferenceService sensorStationPersonReferenceService;
 	@Autowired
 	private AccessPointService accessPointService;
+	@Autowired
+	private DashboardCache dashboardCache;
 
 	@Operation(summary = "Get dashboard data")
 	@ApiResponses(
@@ -90,19 +94,8 @@ public class DashBoardController {
 	public RestResponseEntity
 	getDashboard(Person person) {
 		try {
-			if (person.getPermissions().contains(Permission.ADMIN))
-				return new AdminDashBoardResponse(
-							   sensorStationService.findAll(),
-							   accessPointService.findAllAccessPoints(), personService.getPersons(),
-							   person
-				)
-						.toEntity();
-			if (person.getPermissions().contains(Permission.GARDENER)) {
-				return new GardenerDashBoardResponse(sensorStationService.findAll(), person)
-						.toEntity();
-			}
-
-			return new UserDashBoardResponse(person).toEntity();
+			return dashboardCache.get(person.getPersonId(), () -> buildDashboard(person))
+					.toEntity();
 		} catch (ServiceException e) {
 			return MessageResponse.builder()
 					.statusCode(e.getStatusCode())
@@ -111,6 +104,43 @@ public class DashBoardController {
 		}
 	}
 
+	/**
+	 * Build the Dashboard of a Person, together with the SensorStations it shows.
+	 */
+	private Dashboard buildDashboard(Person person) {
+		// The Principal is detached, the SensorStations are loaded again for the Response.
+		if (person.getPermissions().contains(Permission.ADMIN)) {
+			AdminDashBoardResponse response = new AdminDashBoardResponse(
+					personService.countPersons(), sensorStationService.countConnected(),
+					accessPointService.countConnected(),
+					sensorStationService.findInDashboard(person)
+			);
+			return new Dashboard(
+					response, Dashboard.sensorStationIds(response.getSensorStations()), true
+			);
+		}
+		if (person.getPermissions().contains(Permission.GARDENER)) {
+			GardenerDashBoardResponse response = new GardenerDashBoardResponse(
+					sensorStationService.findAssigned(person),
+					sensorStationService.findInDashboard(person), person
+			);
+			return new Dashboard(
+					response,
+					Dashboard.sensorStationIds(
+							response.getAssignedSensorStations(),
+							response.getAddedSensorStations()
+					),
+					false
+			);
+		}
+
+		UserDashBoardResponse response =
+				new UserDashBoardResponse(sensorStationService.findInDashboard(person));
+		return new Dashboard(
+				response, Dashboard.sensorStationIds(response.getSensorStations()), false
+		);
+	}
+
 	@Operation(summary = "Add sensor station to dashboard")
 	@ApiResponse(
 			responseCode = "200", description = "Successfully added sensor station to dashboard",
@@ -1,5 +1,7 @@
 package at.ac.uibk.plant_health.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
@@ -9,21 +11,35 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 import at.ac.uibk.plant_health.models.annotations.AnyPermission;
 import at.ac.uibk.plant_health.models.annotations.PrincipalRequired;
 import at.ac.uibk.plant_health.models.annotations.PublicEndpoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
 import at.ac.uibk.plant_health.models.plant.SensorLimits;
 import at.ac.uibk.plant_health.models.plant.SensorStationPicture;
 import at.ac.uibk.plant_health.models.rest_responses.*;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.service.DeviceListService;
+import at.ac.uibk.plant_health.service.RecentReadingsStore;
+import at.ac.uibk.plant_health.service.SensorDataExportService;
+import at.ac.uibk.plant_health.service.SensorDataExportService.Format;
+import at.ac.uibk.plant_health.service.SensorDataPageService;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Cursor;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Page;
+import at.ac.uibk.plant_health.service.SensorDataRollupService;
 import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.LargestTriangleThreeBuckets;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer.Slice;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -33,6 +49,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 public class SensorStationController {
 	@Autowired
 	private SensorStationService sensorStationService;
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
+	@Autowired
+	private SensorDataExportService sensorDataExportService;
+	@Autowired
+	private SensorDataPageService sensorDataPageService;
+	@Autowired
+	private ObjectMapper objectMapper;
 
 	@Operation(summary = "Get all available sensor stations to be added to dashboard")
 	@ApiResponse(
@@ -46,7 +74,8 @@ public class SensorStationController {
 	public RestResponseEntity
 	getSensorStations(Person person) {
 		try {
-			return new SensorStationsResponse(sensorStationService.findAll(), person).toEntity();
+			return new SensorStationsResponse(deviceListService.getAvailableSensorStations(person))
+					.toEntity();
 		} catch (ServiceException e) {
 			return MessageResponse.builder()
 					.statusCode(e.getStatusCode())
@@ -66,7 +95,8 @@ public class SensorStationController {
 	public RestResponseEntity
 	getAllSensorStations() {
 		try {
-			return new AdminSensorStationsResponse(sensorStationService.findAll()).toEntity();
+			return new AdminSensorStationsResponse(deviceListService.getSensorStations())
+					.toEntity();
 		} catch (ServiceException e) {
 			return MessageResponse.builder()
 					.statusCode(e.getStatusCode())
@@ -87,7 +117,7 @@ public class SensorStationController {
 	getSensorStation(Person person, @RequestParam("sensorStationId") final UUID sensorStationId) {
 		try {
 			return new SensorStationDetailResponse(
-						   sensorStationService.findById(sensorStationId), person
+						   sensorStationService.findDetail(sensorStationId), person
 			)
 					.toEntity();
 		} catch (ServiceException e) {
@@ -229,12 +259,43 @@ public class SensorStationController {
 			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam("from"
 			) final LocalDateTime from,
 			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam("to"
-			) final LocalDateTime to
+			) final LocalDateTime to,
+			@RequestParam(value = "resolution", required = false, defaultValue = "raw"
+			) final String resolution,
+			@RequestParam(value = "maxPoints", required = false) final Integer maxPoints
 	) {
 		try {
-			sensorStationService.isDeleted(sensorStationService.findById(sensorStationId));
+			if (maxPoints != null && maxPoints < LargestTriangleThreeBuckets.MIN_POINTS)
+				throw new ServiceException(
+						"maxPoints has to be at least " + LargestTriangleThreeBuckets.MIN_POINTS,
+						400
+				);
+			SensorStation sensorStation =
+					sensorStationService.findWithSensorLimits(sensorStationId);
+			sensorStationService.isDeleted(sensorStation);
+			Optional<Resolution> rollup = sensorDataRollupService.resolve(resolution, from, to);
+			if (rollup.isPresent()) {
+				return new SensorStationDataResponse(
+							   sensorStation, rollup.get(),
+							   sensorDataRollupService.getRollups(
+									   sensorStation, rollup.get(), from, to
+							   ),
+							   from, to, maxPoints
+				)
+						.toEntity();
+			}
+			Optional<Map<Sensor, Slice>> recent =
+					recentReadingsStore.find(sensorStation.getDeviceId(), from, to);
+			if (recent.isPresent()) {
+				return new SensorStationDataResponse(
+							   sensorStation, recent.get(), from, to, maxPoints
+				)
+						.toEntity();
+			}
 			return new SensorStationDataResponse(
-						   sensorStationService.findById(sensorStationId), from, to
+						   sensorStation,
+						   sensorStationService.getSensorData(sensorStation, from, to), from, to,
+						   maxPoints
 			)
 					.toEntity();
 		} catch (ServiceException e) {
@@ -245,6 +306,114 @@ public class SensorStationController {
 		}
 	}
 
+	@Operation(summary = "Get one page of the sensor data of a sensor")
+	@ApiResponse(
+			responseCode = "200", description = "Successfully retrieved sensor data page",
+			content = @Content(schema = @Schema(implementation = SensorDataPageResponse.class))
+	)
+	@ReadOperation
+	@AnyPermission({Permission.GARDENER, Permission.ADMIN, Permission.USER})
+	@PrincipalRequired(Person.class)
+	@GetMapping("/get-sensor-data-page")
+	public RestResponseEntity
+	getSensorDataPage(
+			Person person,
+			@RequestParam(value = "sensorStationId", required = false) final UUID sensorStationId,
+			@RequestParam(value = "sensorId", required = false) final Integer sensorId,
+			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam(
+					value = "from", required = false
+			) final LocalDateTime from,
+			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam(
+					value = "to", required = false
+			) final LocalDateTime to,
+			@RequestParam(value = "cursor", required = false) final String cursor,
+			@RequestParam(value = "limit", required = false, defaultValue = "1000"
+			) final int limit
+	) {
+		try {
+			// The Cursor of a following Page carries the SensorStation, Sensor and Window.
+			Cursor position;
+			if (cursor != null) {
+				position = Cursor.decode(cursor);
+			} else if (sensorStationId != null && sensorId != null) {
+				position = Cursor.first(sensorStationId, sensorId, from, to);
+			} else {
+				throw new ServiceException("sensorStationId and sensorId or cursor required", 400);
+			}
+			SensorStation sensorStation = sensorStationService.findById(position.sensorStationId());
+			sensorStationService.isDeleted(sensorStation);
+			Page page = sensorDataPageService.getPage(sensorStation, position, limit);
+			return new SensorDataPageResponse(
+						   sensorStation, page.sensor(), page.readings(),
+						   page.next() == null ? null : page.next().encode()
+			)
+					.toEntity();
+		} catch (ServiceException e) {
+			return MessageResponse.builder()
+					.statusCode(e.getStatusCode())
+					.message(e.getMessage())
+					.toEntity();
+		}
+	}
+
+	@Operation(summary = "Export sensor station data as NDJSON or CSV")
+	@ApiResponse(
+			responseCode = "200", description = "Streams the sensor station data",
+			content = @Content(schema = @Schema(implementation = String.class))
+	)
+	@ReadOperation
+	@AnyPermission({Permission.GARDENER, Permission.ADMIN, Permission.USER})
+	@PrincipalRequired(Person.class)
+	@GetMapping("/export-sensor-station-data")
+	public ResponseEntity<StreamingResponseBody>
+	exportSensorStationData(
+			Person person, @RequestParam("sensorStationId") final UUID sensorStationId,
+			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam("from"
+			) final LocalDateTime from,
+			@DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") @RequestParam("to"
+			) final LocalDateTime to,
+			@RequestParam(value = "format", required = false, defaultValue = "ndjson"
+			) final String format,
+			@RequestParam(value = "gzip", required = false, defaultValue = "false"
+			) final boolean gzip
+	) {
+		try {
+			Format exportFormat = Format.parse(format);
+			SensorStation sensorStation = sensorStationService.findById(sensorStationId);
+			sensorStationService.isDeleted(sensorStation);
+
+			// Written after the Handler returned, without a Content-Length (so it is chunked).
+			StreamingResponseBody body = out -> {
+				if (!gzip) {
+					sensorDataExportService.export(sensorStation, from, to, exportFormat, out);
+					return;
+				}
+				GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+				sensorDataExportService.export(
+						sensorStation, from, to, exportFormat, compressed
+				);
+				compressed.finish();
+			};
+			ResponseEntity.BodyBuilder response =
+					ResponseEntity.ok()
+							.contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+							.header(HttpHeaders.CONTENT_DISPOSITION,
+									"attachment; filename=\"" + sensorStationId + "."
+											+ exportFormat.getExtension() + "\"");
+			if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+			return response.body(body);
+		} catch (ServiceException e) {
+			// The Body of a streamed Response is streamed as well, it holds the usual Message.
+			MessageResponse message = MessageResponse.builder()
+											  .statusCode(e.getStatusCode())
+											  .message(e.getMessage())
+											  .build();
+			return ResponseEntity.status(e.getStatusCode())
+					.contentType(MediaType.APPLICATION_JSON)
+					.body(out -> objectMapper.writeValue(out, message));
+		}
+	}
+
 	@Operation(summary = "Upload sensor station picture")
 	@ApiResponse(
 			responseCode = "200", description = "Successfully uploaded sensor station picture",
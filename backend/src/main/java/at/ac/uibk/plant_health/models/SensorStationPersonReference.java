@@ -16,7 +16,13 @@ import lombok.*;
 @Getter
 @Setter
 @Entity
-@Table(name = "sensor_station_person_reference")
+@Table(
+		name = "sensor_station_person_reference",
+		// Serves the References of a Person and the Check for a Reference to a SensorStation.
+		indexes = @Index(
+				name = "idx_reference_person_station", columnList = "person_id, sensor_station_id"
+		)
+)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 public class SensorStationPersonReference implements Serializable {
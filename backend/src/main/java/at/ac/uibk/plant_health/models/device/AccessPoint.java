@@ -19,6 +19,18 @@ import lombok.*;
 @Table(name = "access_point")
 // NOTE: This changes the name of the "id"-Column inherited from Device to "access_point_id"
 @AttributeOverride(name = "id", column = @Column(name = "access_point_id"))
+// Config of the AccessPoint (AccessPointConfigResponse), the Limits are fetched afterwards. The
+// Gardeners are fetched too, Persons can not be loaded lazily.
+@NamedEntityGraph(
+		name = "AccessPoint.config",
+		attributeNodes = @NamedAttributeNode(value = "sensorStations", subgraph = "sensorStation"),
+		subgraphs = @NamedSubgraph(
+				name = "sensorStation",
+				attributeNodes = {
+						@NamedAttributeNode("accessPoint"), @NamedAttributeNode("gardener")
+				}
+		)
+)
 public class AccessPoint extends Device {
 	@JdbcTypeCode(SqlTypes.UUID)
 	@Column(name = "self_assigned_id", unique = true)
@@ -42,7 +54,7 @@ public class AccessPoint extends Device {
 	@Column(name = "access_token")
 	private UUID accessToken = null;
 
-	@OneToMany(fetch = FetchType.EAGER, mappedBy = "accessPoint")
+	@OneToMany(fetch = FetchType.LAZY, mappedBy = "accessPoint")
 	private List<SensorStation> sensorStations = new ArrayList<>();
 
 	@JdbcTypeCode(SqlTypes.TIMESTAMP)
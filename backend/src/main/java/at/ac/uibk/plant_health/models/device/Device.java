@@ -6,6 +6,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 import at.ac.uibk.plant_health.models.IdentifiedEntity;
@@ -40,6 +41,12 @@ public abstract class Device implements UserDetails, IdentifiedEntity {
 	@JdbcTypeCode(SqlTypes.BOOLEAN)
 	@Column(name = "is_deleted", nullable = false)
 	private boolean isDeleted = false;
+
+	// When the Device was deleted (null for Devices deleted before this was recorded).
+	@JsonIgnore
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	@Column(name = "deleted_at")
+	private LocalDateTime deletedAt = null;
 	// endregion
 
 	// region equals, hashCode, toString
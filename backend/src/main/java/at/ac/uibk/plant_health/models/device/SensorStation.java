@@ -1,9 +1,8 @@
 package at.ac.uibk.plant_health.models.device;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-import org.hibernate.annotations.Fetch;
-import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,9 +23,52 @@ import lombok.*;
 @Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PUBLIC)
-@Table(name = "sensor_station")
+@Table(
+		name = "sensor_station",
+		// Serve the SensorStations of a Gardener and the unlocked ones a Person can add.
+		indexes = {
+				@Index(
+						name = "idx_sensor_station_gardener", columnList = "gardener_id, is_deleted"
+				),
+				@Index(name = "idx_sensor_station_state", columnList = "is_deleted, is_unlocked")
+		}
+)
 // NOTE: This changes the name of the "id"-Column inherited from Device to "sensor_station_id"
 @AttributeOverride(name = "id", column = @Column(name = "sensor_station_id"))
+// The Collections are lazy, every Use Case loads what it shows with one of these Graphs (the
+// other Collections are fetched for all SensorStations at once, see SensorStationRepository).
+// Lists and Dashboards (SensorStationBaseResponse)
+@NamedEntityGraph(
+		name = "SensorStation.summary",
+		attributeNodes = {
+				@NamedAttributeNode("accessPoint"),
+				@NamedAttributeNode(value = "gardener", subgraph = "person")
+		},
+		subgraphs = @NamedSubgraph(
+				name = "person", attributeNodes = @NamedAttributeNode("permissions")
+		)
+)
+// Detail View (SensorStationDetailResponse), only one List can be fetched with them
+@NamedEntityGraph(
+		name = "SensorStation.detail",
+		attributeNodes = {
+				@NamedAttributeNode("accessPoint"),
+				@NamedAttributeNode(value = "gardener", subgraph = "person"),
+				@NamedAttributeNode(value = "sensorLimits", subgraph = "limits")
+		},
+		subgraphs = {
+				@NamedSubgraph(
+						name = "person", attributeNodes = @NamedAttributeNode("permissions")
+				),
+				@NamedSubgraph(
+						name = "limits",
+						attributeNodes = {
+								@NamedAttributeNode("sensor"),
+								@NamedAttributeNode(value = "gardener", subgraph = "person")
+						}
+				)
+		}
+)
 public class SensorStation extends Device implements Serializable {
 	@Column(name = "bd_address", unique = true)
 	@JdbcTypeCode(SqlTypes.NVARCHAR)
@@ -45,7 +87,6 @@ public class SensorStation extends Device implements Serializable {
 	private boolean reported = false;
 
 	@JsonIgnore
-	@Fetch(FetchMode.SELECT)
 	@OneToOne()
 	@JoinColumn(name = "gardener_id")
 	private Person gardener = null;
@@ -55,17 +96,26 @@ public class SensorStation extends Device implements Serializable {
 	@JoinColumn(name = "access_point_id")
 	private AccessPoint accessPoint;
 
-	@OneToMany(mappedBy = "sensorStation", fetch = FetchType.EAGER)
+	// NOTE: Only used to receive the SensorData of a Transfer. Stored SensorData is never loaded
+	//       through this Collection, but queried by Time Range from the SensorDataRepository.
+	@JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+	@OneToMany(mappedBy = "sensorStation", fetch = FetchType.LAZY)
 	private List<SensorData> sensorData = new ArrayList<>();
 
-	@OneToMany(mappedBy = "sensorStation", fetch = FetchType.EAGER, orphanRemoval = true)
+	// The newest SensorData of every Sensor (used for the current Alarms), not mapped, as it is
+	// looked up per Sensor in the Primary Key (see SensorStationService#loadNewestSensorData).
+	@JsonIgnore
+	@Transient
+	private List<SensorData> newestSensorData = new ArrayList<>();
+
+	@OneToMany(mappedBy = "sensorStation", fetch = FetchType.LAZY, orphanRemoval = true)
 	private List<SensorLimits> sensorLimits = new ArrayList<>();
 
-	@OneToMany(fetch = FetchType.EAGER, mappedBy = "sensorStation", orphanRemoval = true)
+	@OneToMany(fetch = FetchType.LAZY, mappedBy = "sensorStation", orphanRemoval = true)
 	private List<SensorStationPersonReference> sensorStationPersonReferences = new ArrayList<>();
 
 	@OneToMany(
-			fetch = FetchType.EAGER, mappedBy = "sensorStation", orphanRemoval = true,
+			fetch = FetchType.LAZY, mappedBy = "sensorStation", orphanRemoval = true,
 			cascade = CascadeType.ALL
 	)
 	private List<SensorStationPicture> sensorStationPictures = new ArrayList<>();
@@ -88,8 +138,8 @@ public class SensorStation extends Device implements Serializable {
 	@Override
 	public String toString() {
 		return "SensorStation [bdAddress=" + bdAddress + ", name=" + name + ", dipSwitchId="
-				+ dipSwitchId + ", accessPoint=" + accessPoint + ", sensorStationPersonReferences="
-				+ sensorStationPersonReferences + ", connected: " + isConnected() + "]";
+				+ dipSwitchId + ", accessPoint=" + accessPoint + ", connected: " + isConnected()
+				+ "]";
 	}
 
 	@Override
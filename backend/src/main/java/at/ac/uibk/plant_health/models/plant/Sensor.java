@@ -5,7 +5,6 @@ import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.UUID;
 
 import jakarta.persistence.*;
 import lombok.*;
@@ -16,11 +15,12 @@ import lombok.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 public class Sensor implements Serializable {
+	// A small Integer, so every SensorData only references its Sensor with two Bytes.
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
-	@JdbcTypeCode(SqlTypes.NVARCHAR)
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@JdbcTypeCode(SqlTypes.SMALLINT)
 	@Column(name = "sensor_id", nullable = false)
-	private UUID sensorId;
+	private Integer sensorId;
 
 	@JdbcTypeCode(SqlTypes.NVARCHAR)
 	@Column(name = "sensor_type", nullable = false, unique = true)
@@ -2,13 +2,14 @@ package at.ac.uibk.plant_health.models.plant;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
 
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 import at.ac.uibk.plant_health.models.device.SensorStation;
@@ -20,14 +21,37 @@ import lombok.*;
 @Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
-public class SensorData implements Serializable {
-	@Id
-	@Column(name = "sensor_data_id", nullable = false)
-	@GeneratedValue(strategy = GenerationType.AUTO)
+@Table(
+		name = "sensor_data",
+		// The Primary Key (SensorStation, Sensor, Time Stamp) serves Time Ranges of a single
+		// Sensor, this one those of a whole Station.
+		indexes = @Index(
+				name = "idx_sensor_data_station_time", columnList = "sensor_station_id, time_stamp"
+		)
+)
+public class SensorData implements Serializable, Persistable<SensorData.Key> {
+	// NOTE: One Reading per Sensor and Point in Time, so resent Transfers can not duplicate Data.
+	//       The Key is ordered by Time within every Sensor, so Inserts append to the End of its
+	//       Range of the clustered Index instead of being scattered by random IDs.
+	@EmbeddedId
 	@JsonIgnore
-	private UUID sensorDataId;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Key id = new Key();
 
-	@Column(name = "time_stamp", nullable = false)
+	// NOTE: The Associations and the Time Stamp are read-only Views of the Key, which is filled
+	//       from them before the Reading is inserted. Unlike @MapsId, this does not cascade the
+	//       Insert to the (shared and detached) Sensors.
+	@JsonIgnore
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "sensor_station_id", nullable = false, insertable = false, updatable = false)
+	private SensorStation sensorStation;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "sensor_id", nullable = false, insertable = false, updatable = false)
+	private Sensor sensor;
+
+	@Column(name = "time_stamp", nullable = false, insertable = false, updatable = false)
 	@JdbcTypeCode(SqlTypes.TIMESTAMP)
 	@JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
 	private LocalDateTime timeStamp;
@@ -36,30 +60,66 @@ public class SensorData implements Serializable {
 	@Column(name = "sensor_value", nullable = false)
 	private float value;
 
-	@JdbcTypeCode(SqlTypes.NVARCHAR)
+	@Convert(converter = AlarmConverter.class)
+	@JdbcTypeCode(SqlTypes.TINYINT)
 	@Column(name = "sensor_alarm", nullable = false)
 	private String alarm;
 
-	@JdbcTypeCode(SqlTypes.BOOLEAN)
-	@Column(name = "above_limit", nullable = false)
-	private boolean aboveLimit;
-
-	@JdbcTypeCode(SqlTypes.BOOLEAN)
-	@Column(name = "below_limit", nullable = false)
-	private boolean belowLimit;
-
-	@ManyToOne
-	@JoinColumn(name = "sensor_id", nullable = false)
-	private Sensor sensor;
-
+	@Transient
 	@JsonIgnore
-	@ManyToOne(optional = false)
-	@JoinColumn(name = "sensor_station_id", nullable = false)
-	private SensorStation sensorStation;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private boolean isNew = true;
+
+	/**
+	 * The Primary Key of a SensorData.
+	 * Hibernate orders the Columns of the Key by the Names of their Attributes, so the Key is
+	 * clustered by SensorStation (deviceId), Sensor and Time Stamp.
+	 */
+	@Data
+	@Embeddable
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable {
+		@JdbcTypeCode(SqlTypes.NVARCHAR)
+		@Column(name = "sensor_station_id", nullable = false)
+		private UUID deviceId;
+
+		@JdbcTypeCode(SqlTypes.SMALLINT)
+		@Column(name = "sensor_id", nullable = false)
+		private Integer sensorId;
+
+		@JdbcTypeCode(SqlTypes.TIMESTAMP)
+		@Column(name = "time_stamp", nullable = false)
+		private LocalDateTime timeStamp;
+	}
 
-	@JdbcTypeCode(SqlTypes.BOOLEAN)
-	@Column(name = "is_deleted", nullable = false)
-	private boolean isDeleted = false;
+	/**
+	 * Stores the Alarm as a single Byte: 0 (none), 1 (above the upper Limit) or 2 (below the
+	 * lower Limit).
+	 */
+	@Converter
+	public static class AlarmConverter implements AttributeConverter<String, Byte> {
+		@Override
+		public Byte convertToDatabaseColumn(String alarm) {
+			if (alarm == null) return 0;
+			return switch (alarm) {
+				case "h" -> (byte) 1;
+				case "l" -> (byte) 2;
+				default -> (byte) 0;
+			};
+		}
+
+		@Override
+		public String convertToEntityAttribute(Byte code) {
+			if (code == null) return "n";
+			return switch (code) {
+				case 1 -> "h";
+				case 2 -> "l";
+				default -> "n";
+			};
+		}
+	}
 
 	public SensorData(
 			LocalDateTime timeStamp, float value, String alarm, Sensor sensor,
@@ -68,41 +128,42 @@ public class SensorData implements Serializable {
 		this.timeStamp = timeStamp;
 		this.value = value;
 		this.alarm = alarm;
-		switch (alarm) {
-			case "h" -> {
-				this.aboveLimit = true;
-				this.belowLimit = false;
-			}
-			case "l" -> {
-				this.aboveLimit = false;
-				this.belowLimit = true;
-			}
-			default -> {
-				this.aboveLimit = false;
-				this.belowLimit = false;
-			}
-		}
-
 		this.sensor = sensor;
 		this.sensorStation = sensorStation;
 	}
 
-	public void setAlarm(String alarm) {
-		this.alarm = alarm;
-		switch (alarm) {
-			case "h" -> {
-				this.aboveLimit = true;
-				this.belowLimit = false;
-			}
-			case "l" -> {
-				this.aboveLimit = false;
-				this.belowLimit = true;
-			}
-			default -> {
-				this.aboveLimit = false;
-				this.belowLimit = false;
-			}
-		}
+	public boolean isAboveLimit() {
+		return "h".equals(alarm);
+	}
+
+	public boolean isBelowLimit() {
+		return "l".equals(alarm);
+	}
+
+	@Override
+	@JsonIgnore
+	public Key getId() {
+		return id;
+	}
+
+	// Readings are only ever inserted, so saving one never has to check if it exists first.
+	@Override
+	@JsonIgnore
+	public boolean isNew() {
+		return isNew;
+	}
+
+	// The Database only stores Microseconds, the Key has to match the stored Row to find it again.
+	@PrePersist
+	void fillKey() {
+		this.timeStamp = timeStamp.truncatedTo(ChronoUnit.MICROS);
+		this.id = new Key(sensorStation.getDeviceId(), sensor.getSensorId(), timeStamp);
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.isNew = false;
 	}
 
 	@Override
@@ -128,9 +189,8 @@ public class SensorData implements Serializable {
 	@Override
 	public String toString() {
 		return "SensorData{"
-				+ "timeStamp=" + timeStamp + ", value=" + value + ", aboveLimit=" + aboveLimit
-				+ ", belowLimit=" + belowLimit + ", alarm='" + alarm + '\'' + ", sensor=" + sensor
-				+ ", isDeleted=" + isDeleted + '}';
+				+ "timeStamp=" + timeStamp + ", value=" + value + ", alarm='" + alarm + '\''
+				+ ", sensor=" + sensor + '}';
 	}
 
 }
\ No newline at end of file
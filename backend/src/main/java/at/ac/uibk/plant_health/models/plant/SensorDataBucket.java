@@ -0,0 +1,181 @@
+package at.ac.uibk.plant_health.models.plant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * All SensorData of one Sensor of a SensorStation inside one Hour, packed into a single Row.
+ * <br/>
+ * Every Reading takes 8 Bytes of the {@code readings} Column: its Offset from the Start of the
+ * Hour in Milliseconds (22 Bits) together with its Alarm (2 Bits) and the Bits of its Value.
+ * The Readings are kept ordered by Time, so new Readings are appended to the End. The Number of
+ * Readings and their Minimum and Maximum are stored as Columns, so Buckets can be skipped without
+ * unpacking them.
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(
+		name = "sensor_data_bucket",
+		uniqueConstraints = @UniqueConstraint(
+				name = "uk_sensor_data_bucket",
+				columnNames = {"sensor_station_id", "hour_start", "sensor_id"}
+		)
+)
+public class SensorDataBucket implements Serializable {
+	public static final Duration SPAN = Duration.ofHours(1);
+	private static final int READING_BYTES = 8;
+	private static final SensorData.AlarmConverter ALARMS = new SensorData.AlarmConverter();
+
+	@Id
+	@Column(name = "bucket_id", nullable = false)
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	@JsonIgnore
+	private UUID bucketId;
+
+	@JsonIgnore
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "sensor_station_id", nullable = false)
+	private SensorStation sensorStation;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "sensor_id", nullable = false)
+	private Sensor sensor;
+
+	@Column(name = "hour_start", nullable = false)
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	private LocalDateTime hourStart;
+
+	@Column(name = "reading_count", nullable = false)
+	private int count;
+
+	@Column(name = "min_sensor_value", nullable = false)
+	private float minValue;
+
+	@Column(name = "max_sensor_value", nullable = false)
+	private float maxValue;
+
+	@Lob
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Column(name = "readings", nullable = false, length = 16_777_215)
+	private byte[] readings = new byte[0];
+
+	public SensorDataBucket(SensorStation sensorStation, Sensor sensor, LocalDateTime hourStart) {
+		this.sensorStation = sensorStation;
+		this.sensor = sensor;
+		this.hourStart = hourStart;
+	}
+
+	/**
+	 * @return The Start of the Bucket the given Time Stamp belongs to.
+	 */
+	public static LocalDateTime truncate(LocalDateTime timeStamp) {
+		return timeStamp.truncatedTo(ChronoUnit.HOURS);
+	}
+
+	/**
+	 * Add a Reading to the Bucket.
+	 *
+	 * @param timeStamp The Time Stamp of the Reading (inside the Hour of the Bucket), it is kept
+	 *     with a Resolution of one Millisecond.
+	 * @param value The Value of the Reading.
+	 * @param alarm The Alarm of the Reading ("n", "h" or "l").
+	 * @return false if the Bucket already holds a Reading at the same Time.
+	 */
+	public boolean add(LocalDateTime timeStamp, float value, String alarm) {
+		int offset = (int) ChronoUnit.MILLIS.between(hourStart, timeStamp);
+		if (offset < 0 || offset >= SPAN.toMillis())
+			throw new IllegalArgumentException("Time Stamp is outside of the Bucket");
+
+		// Readings usually arrive in Order, so the Position is searched from the End.
+		ByteBuffer packed = ByteBuffer.wrap(readings);
+		int index = count;
+		while (index > 0 && offsetAt(packed, index - 1) > offset) index--;
+		if (index > 0 && offsetAt(packed, index - 1) == offset) return false;
+
+		byte[] grown = new byte[readings.length + READING_BYTES];
+		System.arraycopy(readings, 0, grown, 0, index * READING_BYTES);
+		ByteBuffer.wrap(grown, index * READING_BYTES, READING_BYTES)
+				.putInt(offset << 2 | ALARMS.convertToDatabaseColumn(alarm))
+				.putFloat(value);
+		System.arraycopy(
+				readings, index * READING_BYTES, grown, (index + 1) * READING_BYTES,
+				(count - index) * READING_BYTES
+		);
+		this.readings = grown;
+
+		if (count == 0 || value < minValue) this.minValue = value;
+		if (count == 0 || value > maxValue) this.maxValue = value;
+		this.count++;
+		return true;
+	}
+
+	/**
+	 * Unpack the Readings strictly between {@code from} and {@code to}.
+	 *
+	 * @return The Readings as (never persisted) SensorData, ordered by Time Stamp.
+	 */
+	public List<SensorData> getReadings(LocalDateTime from, LocalDateTime to) {
+		List<SensorData> sensorData = new ArrayList<>(count);
+		ByteBuffer packed = ByteBuffer.wrap(readings);
+		for (int i = 0; i < count; i++) {
+			LocalDateTime timeStamp = hourStart.plus(offsetAt(packed, i), ChronoUnit.MILLIS);
+			if (timeStamp.isAfter(from) && timeStamp.isBefore(to))
+				sensorData.add(readingAt(packed, i));
+		}
+		return sensorData;
+	}
+
+	/**
+	 * @return The newest Reading of the Bucket as (never persisted) SensorData.
+	 */
+	public SensorData getNewest() {
+		return readingAt(ByteBuffer.wrap(readings), count - 1);
+	}
+
+	/**
+	 * Unpack the newest of the packed Readings of a Bucket that was not loaded as a whole.
+	 *
+	 * @return The newest Reading as (never persisted) SensorData without SensorStation.
+	 */
+	public static SensorData
+	newest(LocalDateTime hourStart, Sensor sensor, byte[] readings, int count) {
+		return readingAt(ByteBuffer.wrap(readings), count - 1, hourStart, sensor, null);
+	}
+
+	private SensorData readingAt(ByteBuffer packed, int index) {
+		return readingAt(packed, index, hourStart, sensor, sensorStation);
+	}
+
+	private static SensorData readingAt(
+			ByteBuffer packed, int index, LocalDateTime hourStart, Sensor sensor,
+			SensorStation sensorStation
+	) {
+		int head = packed.getInt(index * READING_BYTES);
+		return new SensorData(
+				hourStart.plus(head >>> 2, ChronoUnit.MILLIS),
+				packed.getFloat(index * READING_BYTES + 4),
+				ALARMS.convertToEntityAttribute((byte) (head & 0x3)), sensor, sensorStation
+		);
+	}
+
+	private static int offsetAt(ByteBuffer packed, int index) {
+		return packed.getInt(index * READING_BYTES) >>> 2;
+	}
+}
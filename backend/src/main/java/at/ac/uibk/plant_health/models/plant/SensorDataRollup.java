@@ -0,0 +1,169 @@
+package at.ac.uibk.plant_health.models.plant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Aggregate of all SensorData of one Sensor of a SensorStation inside one Bucket (a Minute, Hour
+ * or Day). The Rollups are updated together with the SensorData, so Charts over long Time Ranges
+ * can be drawn from a few hundred Rollups instead of every single Reading.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(
+		name = "sensor_data_rollup",
+		uniqueConstraints = @UniqueConstraint(
+				name = "uk_sensor_data_rollup_bucket",
+				columnNames = {"sensor_station_id", "resolution", "bucket_start", "sensor_id"}
+		)
+)
+public class SensorDataRollup implements Serializable {
+	public enum Resolution {
+		MINUTE(ChronoUnit.MINUTES),
+		HOUR(ChronoUnit.HOURS),
+		DAY(ChronoUnit.DAYS);
+
+		private final ChronoUnit unit;
+
+		Resolution(ChronoUnit unit) {
+			this.unit = unit;
+		}
+
+		/**
+		 * @return The Start of the Bucket the given Time Stamp belongs to.
+		 */
+		public LocalDateTime truncate(LocalDateTime timeStamp) {
+			return timeStamp.truncatedTo(unit);
+		}
+
+		public Duration getDuration() {
+			return unit.getDuration();
+		}
+	}
+
+	@Id
+	@Column(name = "rollup_id", nullable = false)
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	@JsonIgnore
+	private UUID rollupId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "resolution", nullable = false, length = 8)
+	private Resolution resolution;
+
+	@Column(name = "bucket_start", nullable = false)
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	private LocalDateTime bucketStart;
+
+	@ManyToOne
+	@JoinColumn(name = "sensor_id", nullable = false)
+	private Sensor sensor;
+
+	@JsonIgnore
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "sensor_station_id", nullable = false)
+	private SensorStation sensorStation;
+
+	@Column(name = "min_sensor_value", nullable = false)
+	private float minValue;
+
+	@Column(name = "max_sensor_value", nullable = false)
+	private float maxValue;
+
+	@Column(name = "sum_sensor_value", nullable = false)
+	private double sumValue;
+
+	@Column(name = "reading_count", nullable = false)
+	private int count;
+
+	@Column(name = "first_time_stamp", nullable = false)
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	private LocalDateTime firstTimeStamp;
+
+	@Column(name = "first_sensor_value", nullable = false)
+	private float firstValue;
+
+	@Column(name = "last_time_stamp", nullable = false)
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	private LocalDateTime lastTimeStamp;
+
+	@Column(name = "last_sensor_value", nullable = false)
+	private float lastValue;
+
+	@Column(name = "above_limit_count", nullable = false)
+	private int aboveLimitCount;
+
+	@Column(name = "below_limit_count", nullable = false)
+	private int belowLimitCount;
+
+	public SensorDataRollup(
+			Resolution resolution, LocalDateTime bucketStart, Sensor sensor,
+			SensorStation sensorStation
+	) {
+		this.resolution = resolution;
+		this.bucketStart = bucketStart;
+		this.sensor = sensor;
+		this.sensorStation = sensorStation;
+	}
+
+	/**
+	 * Add a Reading to this Rollup.
+	 * Every Reading must only be added once, Readings may be added in any Order.
+	 */
+	public void add(SensorData data) {
+		float value = data.getValue();
+		LocalDateTime timeStamp = data.getTimeStamp();
+		if (count == 0) {
+			minValue = value;
+			maxValue = value;
+			firstTimeStamp = timeStamp;
+			firstValue = value;
+			lastTimeStamp = timeStamp;
+			lastValue = value;
+		} else {
+			minValue = Math.min(minValue, value);
+			maxValue = Math.max(maxValue, value);
+			if (timeStamp.isBefore(firstTimeStamp)) {
+				firstTimeStamp = timeStamp;
+				firstValue = value;
+			}
+			if (!timeStamp.isBefore(lastTimeStamp)) {
+				lastTimeStamp = timeStamp;
+				lastValue = value;
+			}
+		}
+		sumValue += value;
+		count++;
+		if (data.isAboveLimit()) aboveLimitCount++;
+		if (data.isBelowLimit()) belowLimitCount++;
+	}
+
+	/**
+	 * Forget all Readings, so the Rollup can be recomputed from the raw SensorData.
+	 */
+	public void clear() {
+		count = 0;
+		sumValue = 0;
+		aboveLimitCount = 0;
+		belowLimitCount = 0;
+	}
+
+	public double getAverage() {
+		return count == 0 ? 0 : sumValue / count;
+	}
+}
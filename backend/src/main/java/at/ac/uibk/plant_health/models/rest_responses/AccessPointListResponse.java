@@ -4,8 +4,9 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.UUID;
 
-import at.ac.uibk.plant_health.models.device.AccessPoint;
-import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository.AccessPointRow;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRow;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
@@ -14,15 +15,12 @@ import lombok.experimental.SuperBuilder;
 public class AccessPointListResponse extends RestResponse {
 	private final List<InnerAccessPoint> accessPoints;
 
-	public AccessPointListResponse(List<AccessPoint> accessPoints) {
-		this.accessPoints = accessPoints.stream()
-									.filter(ap -> !ap.isDeleted())
-									.map(InnerAccessPoint::new)
-									.toList();
+	public AccessPointListResponse(List<InnerAccessPoint> accessPoints) {
+		this.accessPoints = accessPoints;
 	}
 
 	@Getter
-	private static class InnerAccessPoint implements Serializable {
+	public static class InnerAccessPoint implements Serializable {
 		private final UUID accessPointId;
 		private final UUID selfAssignedId;
 		private final String roomName;
@@ -32,30 +30,35 @@ public class AccessPointListResponse extends RestResponse {
 		private final int transferInterval;
 		private final List<AccessPointListResponseSensorStation> sensorStations;
 
-		public InnerAccessPoint(AccessPoint accessPoint) {
+		/**
+		 * @param connected The Connection State of the AccessPoint.
+		 * @param sensorStations The SensorStations of the AccessPoint that are not deleted.
+		 */
+		public InnerAccessPoint(
+				AccessPointRow accessPoint, boolean connected,
+				List<AccessPointListResponseSensorStation> sensorStations
+		) {
 			this.accessPointId = accessPoint.getDeviceId();
 			this.selfAssignedId = accessPoint.getSelfAssignedId();
 			this.roomName = accessPoint.getRoomName();
 			this.unlocked = accessPoint.isUnlocked();
 			this.scanActive = accessPoint.getScanActive();
-			this.connected = accessPoint.isConnected();
+			this.connected = connected;
 			this.transferInterval = accessPoint.getTransferInterval();
-			this.sensorStations = accessPoint.getSensorStations()
-										  .stream()
-										  .filter(s -> !s.isDeleted())
-										  .map(AccessPointListResponseSensorStation::new)
-										  .toList();
+			this.sensorStations = sensorStations;
 		}
 	}
 
 	@Getter
-	private static class AccessPointListResponseSensorStation
+	public static class AccessPointListResponseSensorStation
 			extends SensorStationBaseResponse implements Serializable {
 		private final boolean reported;
 
-		public AccessPointListResponseSensorStation(SensorStation sensorStation) {
-			super(sensorStation);
-			this.reported = sensorStation.isReported();
+		public AccessPointListResponseSensorStation(
+				SensorStationRow sensorStation, Person gardener, List<AlarmResponse> alarms
+		) {
+			super(sensorStation, gardener, alarms);
+			this.reported = sensorStation.reported();
 		}
 	}
-}
\ No newline at end of file
+}
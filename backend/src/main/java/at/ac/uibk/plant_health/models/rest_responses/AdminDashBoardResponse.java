@@ -3,10 +3,7 @@ package at.ac.uibk.plant_health.models.rest_responses;
 import java.io.Serializable;
 import java.util.*;
 
-import at.ac.uibk.plant_health.models.SensorStationPersonReference;
-import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
-import at.ac.uibk.plant_health.models.user.Person;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
@@ -17,22 +14,19 @@ public class AdminDashBoardResponse extends RestResponse implements Serializable
 	private final int numOfConnectedSensorStations;
 	private final int numOfConnectedAccessPoints;
 	private final List<SensorStationBaseResponse> sensorStations;
+	/**
+	 * @param numOfUsers The Number of Persons.
+	 * @param numOfConnectedSensorStations The Number of connected, not deleted SensorStations.
+	 * @param numOfConnectedAccessPoints The Number of connected, not deleted AccessPoints.
+	 * @param sensorStations The SensorStations the Admin added to the Dashboard.
+	 */
 	public AdminDashBoardResponse(
-			List<SensorStation> sensorStationList, List<AccessPoint> accessPointList,
-			List<Person> personList, Person person
+			long numOfUsers, long numOfConnectedSensorStations, long numOfConnectedAccessPoints,
+			List<SensorStation> sensorStations
 	) {
-		this.numOfUsers = personList.size();
-		this.numOfConnectedSensorStations = (int) sensorStationList.stream()
-													.filter(s -> !s.isDeleted() && s.isConnected())
-													.count();
-		this.numOfConnectedAccessPoints = (int) accessPointList.stream()
-												  .filter(a -> !a.isDeleted() && a.isConnected())
-												  .count();
-		this.sensorStations = person.getSensorStationPersonReferences()
-									  .stream()
-									  .filter(SensorStationPersonReference::isInDashboard)
-									  .map(SensorStationPersonReference::getSensorStation)
-									  .map(SensorStationBaseResponse::new)
-									  .toList();
+		this.numOfUsers = Math.toIntExact(numOfUsers);
+		this.numOfConnectedSensorStations = Math.toIntExact(numOfConnectedSensorStations);
+		this.numOfConnectedAccessPoints = Math.toIntExact(numOfConnectedAccessPoints);
+		this.sensorStations = sensorStations.stream().map(SensorStationBaseResponse::new).toList();
 	}
 }
@@ -3,7 +3,6 @@ package at.ac.uibk.plant_health.models.rest_responses;
 import java.io.Serializable;
 import java.util.*;
 
-import at.ac.uibk.plant_health.models.SensorStationPersonReference;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.user.Person;
 import lombok.Getter;
@@ -14,26 +13,22 @@ public class GardenerDashBoardResponse extends RestResponse implements Serializa
 	private final List<SensorStationDetailResponse.SensorStationInnerResponse>
 			assignedSensorStations;
 	private final List<SensorStationBaseResponse> addedSensorStations;
-	public GardenerDashBoardResponse(List<SensorStation> allSensorStation, Person person) {
+	/**
+	 * @param assignedSensorStations The SensorStations the Gardener is assigned to.
+	 * @param addedSensorStations The SensorStations the Gardener added to the Dashboard.
+	 */
+	public GardenerDashBoardResponse(
+			List<SensorStation> assignedSensorStations, List<SensorStation> addedSensorStations,
+			Person person
+	) {
 		this.assignedSensorStations =
-				allSensorStation.stream()
-						.filter(s -> {
-							if (s.getGardener() != null)
-								return s.getGardener().equals(person);
-							else
-								return false;
-						})
-						.filter(s -> !s.isDeleted())
+				assignedSensorStations.stream()
 						.map(sensorStation
 							 -> new SensorStationDetailResponse.SensorStationInnerResponse(
 									 sensorStation, person
 							 ))
 						.toList();
-		this.addedSensorStations = person.getSensorStationPersonReferences()
-										   .stream()
-										   .filter(SensorStationPersonReference::isInDashboard)
-										   .map(SensorStationPersonReference::getSensorStation)
-										   .map(SensorStationBaseResponse::new)
-										   .toList();
+		this.addedSensorStations =
+				addedSensorStations.stream().map(SensorStationBaseResponse::new).toList();
 	}
 }
@@ -0,0 +1,45 @@
+package at.ac.uibk.plant_health.models.rest_responses;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@SuperBuilder
+public class SensorDataPageResponse extends RestResponse implements Serializable {
+	private final UUID sensorStationId;
+	private final Integer sensorId;
+	private final String sensorType;
+	private final String sensorUnit;
+	private final List<SensorStationDataResponse.TimeStampedSensorData> values;
+	/**
+	 * The opaque Cursor of the next Page, null if this is the last one.
+	 */
+	private final String nextCursor;
+
+	/**
+	 * @param sensorStation The SensorStation the Readings belong to.
+	 * @param sensor The Sensor the Readings belong to.
+	 * @param readings The Readings of the Page, ordered by Time Stamp.
+	 * @param nextCursor The Cursor of the next Page, null if this is the last one.
+	 */
+	public SensorDataPageResponse(
+			SensorStation sensorStation, Sensor sensor, List<SensorData> readings,
+			String nextCursor
+	) {
+		this.sensorStationId = sensorStation.getDeviceId();
+		this.sensorId = sensor.getSensorId();
+		this.sensorType = sensor.getType();
+		this.sensorUnit = sensor.getUnit();
+		this.values = readings.stream()
+							  .map(SensorStationDataResponse.TimeStampedSensorData::new)
+							  .toList();
+		this.nextCursor = nextCursor;
+	}
+}
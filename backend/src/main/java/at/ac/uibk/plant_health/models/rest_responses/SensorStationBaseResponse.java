@@ -9,6 +9,7 @@ import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.plant.Sensor;
 import at.ac.uibk.plant_health.models.plant.SensorData;
 import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRow;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
@@ -45,7 +46,7 @@ public class SensorStationBaseResponse extends RestResponse implements Serializa
 		}
 		//-----------------------------------------------------------------------------------------
 		this.dipSwitchId = sensorStation.getDipSwitchId();
-		this.alarms = sensorStation.getSensorData()
+		this.alarms = sensorStation.getNewestSensorData()
 							  .stream()
 							  .map(SensorData::getSensor)
 							  .distinct()
@@ -57,14 +58,48 @@ public class SensorStationBaseResponse extends RestResponse implements Serializa
 		this.deleted = sensorStation.isDeleted();
 	}
 
+	/**
+	 * Build the Response from the Columns of a SensorStation read without loading it.
+	 *
+	 * @param gardener The Gardener of the SensorStation.
+	 * @param alarms The Alarms of the newest Readings of the SensorStation.
+	 */
+	public SensorStationBaseResponse(
+			SensorStationRow sensorStation, Person gardener, List<AlarmResponse> alarms
+	) {
+		this.sensorStationId = sensorStation.deviceId();
+		this.bdAddress = sensorStation.bdAddress();
+		this.name = sensorStation.name();
+		if (sensorStation.accessPointId() != null) {
+			this.roomName = sensorStation.roomName();
+			this.transferInterval = sensorStation.transferInterval();
+			this.accessPointUnlocked = sensorStation.accessPointUnlocked();
+		} else {
+			this.roomName = null;
+			this.transferInterval = 0;
+			this.accessPointUnlocked = true;
+		}
+		this.dipSwitchId = sensorStation.dipSwitchId();
+		this.alarms = alarms;
+		this.gardener = gardener;
+		this.unlocked = sensorStation.unlocked();
+		this.connected = sensorStation.connected();
+		this.deleted = sensorStation.deleted();
+	}
+
 	@Getter
 	public static class AlarmResponse implements Serializable {
 		private final Sensor sensor;
 		private final String alarm;
 
+		public AlarmResponse(Sensor sensor, String alarm) {
+			this.sensor = sensor;
+			this.alarm = alarm;
+		}
+
 		public AlarmResponse(Sensor sensor, SensorStation sensorStation) {
 			this.sensor = sensor;
-			this.alarm = sensorStation.getSensorData()
+			this.alarm = sensorStation.getNewestSensorData()
 								 .stream()
 								 .filter(d -> d.getSensor().equals(sensor))
 								 .max(Comparator.comparing(SensorData::getTimeStamp))
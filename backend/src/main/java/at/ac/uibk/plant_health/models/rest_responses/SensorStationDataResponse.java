@@ -1,6 +1,8 @@
 package at.ac.uibk.plant_health.models.rest_responses;
 
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -9,7 +11,12 @@ import java.util.*;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.plant.Sensor;
 import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
 import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.util.LargestTriangleThreeBuckets;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer.Slice;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
@@ -20,41 +27,128 @@ import lombok.experimental.SuperBuilder;
 public class SensorStationDataResponse extends RestResponse implements Serializable {
 	private final List<InnerSensors> data;
 	private final UUID sensorStationId;
+	private final String resolution;
+
+	/**
+	 * @param sensorStation The SensorStation the Data belongs to.
+	 * @param sensorData The SensorData between from and to, ordered by Time Stamp.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param maxPoints The maximum Number of Points per Sensor, null to return all of them.
+	 */
 	public SensorStationDataResponse(
-			SensorStation sensorStation, LocalDateTime from, LocalDateTime to
+			SensorStation sensorStation, List<SensorData> sensorData, LocalDateTime from,
+			LocalDateTime to, Integer maxPoints
 	) {
 		this.sensorStationId = sensorStation.getDeviceId();
-		if (!sensorStation.isDeleted()) {
-			this.data = sensorStation.getSensorData()
-								.stream()
-								.filter(sensorData
-										-> sensorData.getTimeStamp().isAfter(from)
-												&& sensorData.getTimeStamp().isBefore(to))
-								.collect(groupingBy(SensorData::getSensor))
-								.entrySet()
-								.stream()
-								.map(entry -> new InnerSensors(entry, sensorStation, from, to))
-								.toList();
-
-		} else {
-			this.data = null;
-		}
+		this.resolution = "raw";
+		this.data = group(
+				sensorStation,
+				sensorData.stream().collect(groupingBy(
+						SensorData::getSensor, mapping(TimeStampedSensorData::new, toList())
+				)),
+				from, to, maxPoints
+		);
+	}
+
+	/**
+	 * @param sensorStation The SensorStation the Readings belong to.
+	 * @param recent The Readings between from and to held in Memory, per Sensor.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param maxPoints The maximum Number of Points per Sensor, null to return all of them.
+	 */
+	public SensorStationDataResponse(
+			SensorStation sensorStation, Map<Sensor, Slice> recent, LocalDateTime from,
+			LocalDateTime to, Integer maxPoints
+	) {
+		this.sensorStationId = sensorStation.getDeviceId();
+		this.resolution = "raw";
+		Map<Sensor, List<TimeStampedSensorData>> values = new LinkedHashMap<>();
+		recent.forEach((sensor, slice) -> {
+			// Downsampled on the primitive Arrays, so only the kept Points are created.
+			long[] times = slice.epochSeconds();
+			float[] sliceValues = slice.values();
+			int[] kept = maxPoints == null
+					? null
+					: LargestTriangleThreeBuckets.select(
+							slice.size(), i -> times[i], i -> sliceValues[i], maxPoints
+					);
+			int size = kept == null ? slice.size() : kept.length;
+			List<TimeStampedSensorData> points = new ArrayList<>(size);
+			for (int j = 0; j < size; j++) {
+				int i = kept == null ? j : kept[j];
+				points.add(new TimeStampedSensorData(
+						ReadingRingBuffer.toTimeStamp(times[i]), sliceValues[i],
+						slice.alarms()[i]
+				));
+			}
+			values.put(sensor, points);
+		});
+		this.data = group(sensorStation, values, from, to, null);
+	}
+
+	/**
+	 * @param sensorStation The SensorStation the Rollups belong to.
+	 * @param resolution The Resolution of the Rollups.
+	 * @param rollups The Rollups of the Buckets overlapping the Window, ordered by Bucket.
+	 * @param from The Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param maxPoints The maximum Number of Points per Sensor, null to return all of them.
+	 */
+	public SensorStationDataResponse(
+			SensorStation sensorStation, Resolution resolution, List<SensorDataRollup> rollups,
+			LocalDateTime from, LocalDateTime to, Integer maxPoints
+	) {
+		this.sensorStationId = sensorStation.getDeviceId();
+		this.resolution = resolution.name().toLowerCase();
+		this.data = group(
+				sensorStation,
+				rollups.stream().collect(groupingBy(
+						SensorDataRollup::getSensor, mapping(TimeStampedSensorData::new, toList())
+				)),
+				from, to, maxPoints
+		);
+	}
+
+	private static List<InnerSensors> group(
+			SensorStation sensorStation, Map<Sensor, List<TimeStampedSensorData>> values,
+			LocalDateTime from, LocalDateTime to, Integer maxPoints
+	) {
+		if (sensorStation.isDeleted()) return null;
+		if (maxPoints != null) values.replaceAll((sensor, points) -> downsample(points, maxPoints));
+		return values.entrySet()
+				.stream()
+				.map(entry -> new InnerSensors(entry, sensorStation, from, to))
+				.toList();
+	}
+
+	private static List<TimeStampedSensorData>
+	downsample(List<TimeStampedSensorData> points, int maxPoints) {
+		if (points.size() <= maxPoints) return points;
+		int[] kept = LargestTriangleThreeBuckets.select(
+				points.size(), i -> ReadingRingBuffer.toEpochSecond(points.get(i).timeStamp),
+				i -> points.get(i).value, maxPoints
+		);
+		List<TimeStampedSensorData> downsampled = new ArrayList<>(kept.length);
+		for (int i : kept) downsampled.add(points.get(i));
+		return downsampled;
 	}
 
 	@Getter
 	private static class InnerSensors implements Serializable {
-		private final UUID sensorId;
+		private final Integer sensorId;
 		private final String sensorType;
 		private final String sensorUnit;
 		private final List<TimeStampedSensorData> values;
 		private final List<SensorLimits> sensorLimits;
 		public InnerSensors(
-				Map.Entry<Sensor, List<SensorData>> sensorData, SensorStation sensorStation,
-				LocalDateTime from, LocalDateTime to
+				Map.Entry<Sensor, List<TimeStampedSensorData>> values,
+				SensorStation sensorStation, LocalDateTime from, LocalDateTime to
 		) {
-			this.sensorId = sensorData.getKey().getSensorId();
-			this.sensorType = sensorData.getKey().getType();
-			this.sensorUnit = sensorData.getKey().getUnit();
+			this.sensorId = values.getKey().getSensorId();
+			this.sensorType = values.getKey().getType();
+			this.sensorUnit = values.getKey().getUnit();
 
 			this.sensorLimits =
 					sensorStation.getSensorLimits()
@@ -62,22 +156,21 @@ public class SensorStationDataResponse extends RestResponse implements Serializa
 							.filter(limit
 									-> limit.getTimeStamp().isAfter(from)
 											&& limit.getTimeStamp().isBefore(to))
-							.filter(limit -> limit.getSensor().equals(sensorData.getKey()))
+							.filter(limit -> limit.getSensor().equals(values.getKey()))
 							.sorted(Comparator.comparing(SensorLimits::getTimeStamp))
 							.toList();
 
-			this.values = sensorData.getValue()
-								  .stream()
-								  .sorted(Comparator.comparing(SensorData::getTimeStamp))
-								  .map(TimeStampedSensorData::new)
-								  .toList();
+			// Already ordered by the Query.
+			this.values = values.getValue();
 		}
 	}
 
 	@Getter
-	private static class TimeStampedSensorData implements Serializable {
+	static class TimeStampedSensorData implements Serializable {
 		private final LocalDateTime timeStamp;
 		private final double value;
+		private final double min;
+		private final double max;
 		private final boolean isAboveLimit;
 		private final boolean isBelowLimit;
 		private final String alarm;
@@ -85,9 +178,37 @@ public class SensorStationDataResponse extends RestResponse implements Serializa
 		public TimeStampedSensorData(SensorData sensorData) {
 			this.timeStamp = sensorData.getTimeStamp();
 			this.value = sensorData.getValue();
+			this.min = sensorData.getValue();
+			this.max = sensorData.getValue();
 			this.isAboveLimit = sensorData.isAboveLimit();
 			this.isBelowLimit = sensorData.isBelowLimit();
 			this.alarm = sensorData.getAlarm();
 		}
+
+		public TimeStampedSensorData(LocalDateTime timeStamp, float value, byte alarm) {
+			this.timeStamp = timeStamp;
+			this.value = value;
+			this.min = value;
+			this.max = value;
+			this.isAboveLimit = alarm == 'h';
+			this.isBelowLimit = alarm == 'l';
+			this.alarm = String.valueOf((char) alarm);
+		}
+
+		/**
+		 * One Point per Bucket: the Average of its Readings, flagged if any of them was outside
+		 * of the Limits.
+		 */
+		public TimeStampedSensorData(SensorDataRollup rollup) {
+			this.timeStamp = rollup.getBucketStart();
+			this.value = rollup.getAverage();
+			this.min = rollup.getMinValue();
+			this.max = rollup.getMaxValue();
+			this.isAboveLimit = rollup.getAboveLimitCount() > 0;
+			this.isBelowLimit = rollup.getBelowLimitCount() > 0;
+			if (isAboveLimit) this.alarm = "h";
+			else if (isBelowLimit) this.alarm = "l";
+			else this.alarm = "n";
+		}
 	}
 }
@@ -33,7 +33,7 @@ public class SensorStationDetailResponse extends RestResponse implements Seriali
 		public SensorStationInnerResponse(SensorStation sensorStation, Person person) {
 			super(sensorStation);
 			this.sensorLimits =
-					sensorStation.getSensorData()
+					sensorStation.getNewestSensorData()
 							.stream()
 							.map(SensorData::getSensor)
 							.distinct()
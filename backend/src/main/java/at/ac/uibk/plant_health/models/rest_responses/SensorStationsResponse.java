@@ -3,9 +3,7 @@ package at.ac.uibk.plant_health.models.rest_responses;
 import java.io.Serializable;
 import java.util.*;
 
-import at.ac.uibk.plant_health.models.device.SensorStation;
-import at.ac.uibk.plant_health.models.plant.SensorStationPicture;
-import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRow;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
@@ -13,18 +11,12 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class SensorStationsResponse extends RestResponse implements Serializable {
 	private final List<SensorStationsInnerResponse> sensorStations;
-	public SensorStationsResponse(List<SensorStation> sensorStations, Person person) {
+	/**
+	 * @param sensorStations The SensorStations the Person can add to the Dashboard.
+	 */
+	public SensorStationsResponse(List<SensorStationRow> sensorStations) {
 		this.sensorStations =
-				sensorStations.stream()
-						.filter(s
-								-> !s.isDeleted() && s.isUnlocked()
-										&& s.getAccessPoint().isUnlocked())
-						.filter(s
-								-> person.getSensorStationPersonReferences().stream().noneMatch(
-										r -> r.getSensorStation().equals(s)
-								))
-						.map(SensorStationsInnerResponse::new)
-						.toList();
+				sensorStations.stream().map(SensorStationsInnerResponse::new).toList();
 	}
 
 	@Getter
@@ -35,10 +27,10 @@ public class SensorStationsResponse extends RestResponse implements Serializable
 		// newest picture for the response interface in frontend
 		// because it gets fetched in a separate request
 		private final String newestPicture = "";
-		public SensorStationsInnerResponse(SensorStation sensorStation) {
-			this.sensorStationId = sensorStation.getDeviceId();
-			this.roomName = sensorStation.getAccessPoint().getRoomName();
-			this.name = sensorStation.getName();
+		public SensorStationsInnerResponse(SensorStationRow sensorStation) {
+			this.sensorStationId = sensorStation.deviceId();
+			this.roomName = sensorStation.roomName();
+			this.name = sensorStation.name();
 		}
 	}
 }
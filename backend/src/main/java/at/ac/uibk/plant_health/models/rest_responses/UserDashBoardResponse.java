@@ -3,8 +3,7 @@ package at.ac.uibk.plant_health.models.rest_responses;
 import java.io.Serializable;
 import java.util.*;
 
-import at.ac.uibk.plant_health.models.SensorStationPersonReference;
-import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.models.device.SensorStation;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 
@@ -13,12 +12,7 @@ import lombok.experimental.SuperBuilder;
 public class UserDashBoardResponse extends RestResponse implements Serializable {
 	private final List<SensorStationBaseResponse> sensorStations;
 
-	public UserDashBoardResponse(Person person) {
-		this.sensorStations = person.getSensorStationPersonReferences()
-									  .stream()
-									  .filter(SensorStationPersonReference::isInDashboard)
-									  .map(SensorStationPersonReference::getSensorStation)
-									  .map(SensorStationBaseResponse::new)
-									  .toList();
+	public UserDashBoardResponse(List<SensorStation> sensorStations) {
+		this.sensorStations = sensorStations.stream().map(SensorStationBaseResponse::new).toList();
 	}
 }
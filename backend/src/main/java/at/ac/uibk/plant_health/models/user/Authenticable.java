@@ -97,7 +97,7 @@ public abstract class Authenticable implements UserDetails, IdentifiedEntity, Cr
 	private LocalDateTime tokenCreationDate = null;
 
 	@JsonProperty(access = JsonProperty.Access.READ_WRITE)
-	@ElementCollection(targetClass = GrantedAuthority.class, fetch = FetchType.EAGER)
+	@ElementCollection(targetClass = GrantedAuthority.class, fetch = FetchType.LAZY)
 	@CollectionTable(name = "permission", joinColumns = @JoinColumn(name = "auth_id"))
 	@Column(name = "permission", nullable = false)
 	@Convert(converter = GrantedAuthorityConverter.class)
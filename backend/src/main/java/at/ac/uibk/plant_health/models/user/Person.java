@@ -1,5 +1,6 @@
 package at.ac.uibk.plant_health.models.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -27,6 +28,8 @@ import lombok.experimental.SuperBuilder;
 @Table(name = "person")
 // NOTE: This changes the name of the "id"-Column inherited from Authenticable to "person_id"
 @AttributeOverride(name = "id", column = @Column(name = "person_id"))
+// Authentication and every Person shown in a Response (the Permissions are part of it)
+@NamedEntityGraph(name = "Person.auth", attributeNodes = @NamedAttributeNode("permissions"))
 public class Person extends Authenticable implements Serializable {
 	public Person(
 			String username, String email, String passwdHash, UUID token,
@@ -51,8 +54,10 @@ public class Person extends Authenticable implements Serializable {
 	@JsonProperty(access = JsonProperty.Access.READ_WRITE)
 	private String email;
 
+	// NOTE: Not serialized, the References are lazy and a Person is shown without them.
+	@JsonIgnore
 	@Builder.Default
-	@OneToMany(fetch = FetchType.EAGER, mappedBy = "person")
+	@OneToMany(fetch = FetchType.LAZY, mappedBy = "person")
 	private List<SensorStationPersonReference> sensorStationPersonReferences = new ArrayList<>();
 
 	public void addSensorStationReference(SensorStationPersonReference s) {
@@ -1,10 +1,14 @@
 package at.ac.uibk.plant_health.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,15 +27,78 @@ public interface AccessPointRepository extends CrudRepository<AccessPoint, UUID>
 
 	Optional<AccessPoint> findByDeviceId(UUID deviceId);
 
+	/**
+	 * Find an AccessPoint with its SensorStations (their Limits are loaded in Batches).
+	 */
+	@EntityGraph("AccessPoint.config")
+	Optional<AccessPoint> findConfigByDeviceId(UUID deviceId);
+
 	Optional<AccessPoint> findBySelfAssignedId(UUID selfAssignedId);
 
 	Optional<AccessPoint> findByRoomName(String roomName);
 
+	long countByIsConnectedTrueAndIsDeletedFalse();
+
+	/**
+	 * Lightweight View of the Connection State of an AccessPoint.
+	 */
+	interface ConnectionRef {
+		UUID getDeviceId();
+		LocalDateTime getLastConnection();
+		int getTransferInterval();
+	}
+
+	/**
+	 * The Columns of an AccessPoint shown in the List, without its SensorStations.
+	 */
+	interface AccessPointRow {
+		UUID getDeviceId();
+		UUID getSelfAssignedId();
+		String getRoomName();
+		boolean isUnlocked();
+		boolean getScanActive();
+		boolean isConnected();
+		int getTransferInterval();
+	}
+
+	@Query("""
+		SELECT a.deviceId AS deviceId, a.selfAssignedId AS selfAssignedId,
+			a.roomName AS roomName, a.isUnlocked AS unlocked, a.scanActive AS scanActive,
+			a.isConnected AS connected, a.transferInterval AS transferInterval
+		FROM AccessPoint a
+		WHERE a.isDeleted = false""")
+	List<AccessPointRow> findRows();
+
+	@Query("""
+		SELECT a.deviceId AS deviceId, a.lastConnection AS lastConnection,
+			a.transferInterval AS transferInterval
+		FROM AccessPoint a
+		WHERE a.isConnected = true""")
+	List<ConnectionRef> findConnectedRefs();
+
+	/**
+	 * Find the AccessPoints that were deleted before the given Time (or at an unknown Time) and
+	 * are no longer referenced by any SensorStation.
+	 */
+	@Query("""
+		SELECT a.deviceId FROM AccessPoint a
+		WHERE a.isDeleted = true AND (a.deletedAt IS NULL OR a.deletedAt < :before)
+			AND NOT EXISTS (SELECT s FROM SensorStation s WHERE s.accessPoint = a)""")
+	List<UUID> findIdsDeletedBefore(@Param("before") LocalDateTime before);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE AccessPoint a SET a.isConnected = false WHERE a.deviceId IN :deviceIds")
+	int updateDisconnected(@Param("deviceIds") Collection<UUID> deviceIds);
+
 	@Transactional
 	@Modifying
 	@Query("""
-		UPDATE #{#entityName}
-		SET isConnected = false
-		WHERE lastConnection < SUBTIME(CURRENT_TIME, MAKETIME(0,FLOOR(5*transferInterval/60),MOD(5*transferInterval,60)))""")
-	int updateIsConnectedByLastConnection();
+		UPDATE AccessPoint a
+		SET a.lastConnection = :lastConnection, a.isConnected = true
+		WHERE a.deviceId IN :deviceIds""")
+	int updateLastConnection(
+			@Param("deviceIds") Collection<UUID> deviceIds,
+			@Param("lastConnection") LocalDateTime lastConnection
+	);
 }
@@ -1,5 +1,6 @@
 package at.ac.uibk.plant_health.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -15,14 +16,27 @@ import at.ac.uibk.plant_health.models.annotations.AuditLogAnnotation;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
 
+// Persons are always loaded with their Permissions (for the Authentication and the Responses).
 public interface PersonRepository extends CrudRepository<Person, UUID> {
 	@Override
+	@EntityGraph("Person.auth")
 	List<Person> findAll();
 
+	@Override
+	@EntityGraph("Person.auth")
+	Optional<Person> findById(UUID id);
+
+	@Override
+	@EntityGraph("Person.auth")
+	List<Person> findAllById(Iterable<UUID> ids);
+
+	@EntityGraph("Person.auth")
 	List<Person> findAllByPermissionsIsContaining(Permission permission);
 
+	@EntityGraph("Person.auth")
 	Optional<Person> findByUsernameAndToken(String username, UUID token);
 
+	@EntityGraph("Person.auth")
 	Optional<Person> findByUsername(String username);
 
 	@Transactional
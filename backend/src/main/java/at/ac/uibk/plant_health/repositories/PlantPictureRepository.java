@@ -11,6 +11,8 @@ public interface PlantPictureRepository extends CrudRepository<SensorStationPict
 	@Override
 	List<SensorStationPicture> findAll();
 
+	List<SensorStationPicture> findBySensorStation(SensorStation sensorStation);
+
 	SensorStationPicture findDistinctFirstBySensorStationOrderByTimeStampDesc(
 			SensorStation sensorStation
 	);
@@ -0,0 +1,151 @@
+package at.ac.uibk.plant_health.repositories;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataBucket;
+import jakarta.persistence.QueryHint;
+
+public interface SensorDataBucketRepository extends CrudRepository<SensorDataBucket, UUID> {
+	/**
+	 * The packed Readings of the newest Bucket of a Sensor of a SensorStation.
+	 */
+	record NewestBucket(
+			UUID sensorStationId, Sensor sensor, LocalDateTime hourStart, int count,
+			byte[] readings
+	) {
+		/**
+		 * @return The newest Reading as (never persisted) SensorData without SensorStation.
+		 */
+		public SensorData newest() {
+			return SensorDataBucket.newest(hourStart, sensor, readings, count);
+		}
+	}
+
+	/**
+	 * Find the newest Bucket of every Sensor of the given SensorStations, see
+	 * {@link SensorDataRepository#findNewest(Collection)}.
+	 */
+	@Query("""
+		SELECT new at.ac.uibk.plant_health.repositories.SensorDataBucketRepository$NewestBucket(
+			b.sensorStation.deviceId, b.sensor, b.hourStart, b.count, b.readings
+		)
+		FROM SensorDataBucket b
+		WHERE (b.sensorStation.deviceId, b.sensor.sensorId, b.hourStart) IN (
+			SELECT newest.sensorStation.deviceId, newest.sensor.sensorId, MAX(newest.hourStart)
+			FROM SensorDataBucket newest
+			WHERE newest.sensorStation.deviceId IN :sensorStationIds
+			GROUP BY newest.sensorStation.deviceId, newest.sensor.sensorId
+		)""")
+	List<NewestBucket> findNewest(@Param("sensorStationIds") Collection<UUID> sensorStationIds);
+
+	/**
+	 * Find the Buckets of a SensorStation whose Hour starts in {@code [from, to)}.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param from The inclusive Start of the first Bucket.
+	 * @param to The exclusive End of the Window.
+	 * @return The Buckets with their Sensors, ordered by Hour.
+	 */
+	@Query("""
+		SELECT b FROM SensorDataBucket b JOIN FETCH b.sensor
+		WHERE b.sensorStation.deviceId = :sensorStationId
+			AND b.hourStart >= :from AND b.hourStart < :to
+		ORDER BY b.hourStart""")
+	List<SensorDataBucket> findInWindow(
+			@Param("sensorStationId") UUID sensorStationId, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	/**
+	 * Stream all Buckets whose Hour starts at or after {@code from}.
+	 * Has to be consumed inside a Transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Query("""
+		SELECT b FROM SensorDataBucket b JOIN FETCH b.sensor
+		WHERE b.hourStart >= :from
+		ORDER BY b.hourStart""")
+	Stream<SensorDataBucket> streamFrom(@Param("from") LocalDateTime from);
+
+	/**
+	 * Stream the Buckets of a SensorStation whose Hour starts in {@code [from, to)}.
+	 * Has to be consumed inside a Transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	@Query("""
+		SELECT b FROM SensorDataBucket b JOIN FETCH b.sensor
+		WHERE b.sensorStation.deviceId = :sensorStationId
+			AND b.hourStart >= :from AND b.hourStart < :to
+		ORDER BY b.hourStart""")
+	Stream<SensorDataBucket> streamInWindow(
+			@Param("sensorStationId") UUID sensorStationId, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	/**
+	 * Find the oldest Buckets of one Sensor of a SensorStation whose Hour starts in
+	 * {@code [from, to)}.
+	 *
+	 * @return The Buckets with their Sensors, ordered by Hour.
+	 */
+	@Query("""
+		SELECT b FROM SensorDataBucket b JOIN FETCH b.sensor
+		WHERE b.sensorStation.deviceId = :sensorStationId AND b.sensor.sensorId = :sensorId
+			AND b.hourStart >= :from AND b.hourStart < :to
+		ORDER BY b.hourStart""")
+	List<SensorDataBucket> findPage(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable
+	);
+
+	@Query("""
+		SELECT b.sensorStation.deviceId AS sensorStationId, b.sensor.sensorId AS sensorId,
+			MIN(b.hourStart) AS first, MAX(b.hourStart) AS last
+		FROM SensorDataBucket b
+		GROUP BY b.sensorStation.deviceId, b.sensor.sensorId""")
+	List<SensorDataRepository.SeriesRange> findSeriesRanges();
+
+	/**
+	 * The Number of Readings in the Bucket of one Hour.
+	 */
+	interface HourCount {
+		LocalDateTime getHourStart();
+		int getCount();
+	}
+
+	@Query("""
+		SELECT b.hourStart AS hourStart, b.count AS count FROM SensorDataBucket b
+		WHERE b.sensorStation.deviceId = :sensorStationId AND b.sensor.sensorId = :sensorId
+			AND b.hourStart >= :from AND b.hourStart < :to""")
+	List<HourCount> findCounts(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to
+	);
+
+	@Query("SELECT b.bucketId FROM SensorDataBucket b WHERE b.hourStart < :before")
+	List<UUID> findIdsBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+	@Query("""
+		SELECT b.bucketId FROM SensorDataBucket b
+		WHERE b.sensorStation.deviceId = :sensorStationId""")
+	List<UUID>
+	findIdsBySensorStation(@Param("sensorStationId") UUID sensorStationId, Pageable pageable);
+
+	@Modifying
+	@Query("DELETE FROM SensorDataBucket b WHERE b.bucketId IN :ids")
+	int deleteByIds(@Param("ids") Collection<UUID> ids);
+}
@@ -1,13 +1,317 @@
 package at.ac.uibk.plant_health.repositories;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import at.ac.uibk.plant_health.models.plant.Sensor;
 import at.ac.uibk.plant_health.models.plant.SensorData;
+import jakarta.persistence.QueryHint;
 
-public interface SensorDataRepository extends CrudRepository<SensorData, UUID> {
+public interface SensorDataRepository extends CrudRepository<SensorData, SensorData.Key> {
 	@Override
 	List<SensorData> findAll();
+
+	/**
+	 * The newest Reading of a Sensor of a SensorStation.
+	 */
+	record NewestReading(
+			UUID sensorStationId, Sensor sensor, LocalDateTime timeStamp, String alarm
+	) {}
+
+	/**
+	 * Find the newest Reading of every Sensor of the given SensorStations. The grouped Subquery
+	 * seeks to the End of every Sensor in the Primary Key once, the Readings are then read by
+	 * their Key, so the Cost does not grow with the History.
+	 */
+	@Query("""
+		SELECT new at.ac.uibk.plant_health.repositories.SensorDataRepository$NewestReading(
+			d.sensorStation.deviceId, d.sensor, d.timeStamp, d.alarm
+		)
+		FROM SensorData d
+		WHERE (d.sensorStation.deviceId, d.sensor.sensorId, d.timeStamp) IN (
+			SELECT newest.sensorStation.deviceId, newest.sensor.sensorId, MAX(newest.timeStamp)
+			FROM SensorData newest
+			WHERE newest.sensorStation.deviceId IN :sensorStationIds
+			GROUP BY newest.sensorStation.deviceId, newest.sensor.sensorId
+		)""")
+	List<NewestReading>
+	findNewest(@Param("sensorStationIds") Collection<UUID> sensorStationIds);
+
+	/**
+	 * The Columns of the unique Key of a SensorData (together with the SensorStation).
+	 */
+	interface ReadingKey {
+		Integer getSensorId();
+		LocalDateTime getTimeStamp();
+	}
+
+	@Query("""
+		SELECT d.sensor.sensorId AS sensorId, d.timeStamp AS timeStamp
+		FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.timeStamp BETWEEN :from AND :to""")
+	List<ReadingKey> findReadingKeys(
+			@Param("sensorStationId") UUID sensorStationId, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	/**
+	 * The Columns of a SensorData needed to draw it (without loading the Entity).
+	 */
+	interface RecentReading {
+		UUID getSensorStationId();
+		Integer getSensorId();
+		LocalDateTime getTimeStamp();
+		float getValue();
+		String getAlarm();
+	}
+
+	/**
+	 * Stream all SensorData newer than {@code from}, ordered by Time Stamp.
+	 * Has to be consumed inside a Transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("""
+		SELECT d.sensorStation.deviceId AS sensorStationId, d.sensor.sensorId AS sensorId,
+			d.timeStamp AS timeStamp, d.value AS value, d.alarm AS alarm
+		FROM SensorData d
+		WHERE d.timeStamp > :from
+		ORDER BY d.timeStamp""")
+	Stream<RecentReading> streamRecent(@Param("from") LocalDateTime from);
+
+	/**
+	 * The Columns of a SensorData needed to export it or return it in Pages.
+	 */
+	interface ExportedReading {
+		Integer getSensorId();
+		LocalDateTime getTimeStamp();
+		float getValue();
+		String getAlarm();
+	}
+
+	/**
+	 * Stream the SensorData of a SensorStation strictly between {@code from} and {@code to},
+	 * ordered by Time Stamp. Has to be consumed inside a Transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("""
+		SELECT d.sensor.sensorId AS sensorId, d.timeStamp AS timeStamp, d.value AS value,
+			d.alarm AS alarm
+		FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId
+			AND d.timeStamp > :from AND d.timeStamp < :to
+		ORDER BY d.timeStamp""")
+	Stream<ExportedReading> streamInWindow(
+			@Param("sensorStationId") UUID sensorStationId, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	/**
+	 * Find the oldest SensorData of one Sensor of a SensorStation strictly between {@code after}
+	 * and {@code to}. Seeks into the Primary Key, so every Page costs the same, no matter how
+	 * many Readings lie before it.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @param after The exclusive Start of the Page (the Time Stamp of the last Reading of the
+	 *         previous Page).
+	 * @param to The exclusive End of the Window.
+	 * @param pageable The Size of the Page (only the first Page is ever requested).
+	 * @return The SensorData, ordered by Time Stamp.
+	 */
+	// Ordered by the whole Primary Key, so the Index is read in Order even by Databases that do
+	// not see that the leading Columns are fixed (H2 would sort the rest of the Window).
+	@Query("""
+		SELECT d.sensor.sensorId AS sensorId, d.timeStamp AS timeStamp, d.value AS value,
+			d.alarm AS alarm
+		FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp > :after AND d.timeStamp < :to
+		ORDER BY d.sensorStation.deviceId, d.sensor.sensorId, d.timeStamp""")
+	List<ExportedReading> findPage(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("after") LocalDateTime after, @Param("to") LocalDateTime to, Pageable pageable
+	);
+
+	/**
+	 * A Sensor of a SensorStation.
+	 */
+	interface Series {
+		UUID getSensorStationId();
+		Integer getSensorId();
+	}
+
+	@Query("""
+		SELECT DISTINCT d.sensorStation.deviceId AS sensorStationId, d.sensor.sensorId AS sensorId
+		FROM SensorData d
+		WHERE d.timeStamp < :before""")
+	List<Series> findSeriesBefore(@Param("before") LocalDateTime before);
+
+	/**
+	 * A Sensor of a SensorStation together with the Time Stamps of its oldest and newest Reading.
+	 */
+	interface SeriesRange extends Series {
+		LocalDateTime getFirst();
+		LocalDateTime getLast();
+	}
+
+	@Query("""
+		SELECT d.sensorStation.deviceId AS sensorStationId, d.sensor.sensorId AS sensorId,
+			MIN(d.timeStamp) AS first, MAX(d.timeStamp) AS last
+		FROM SensorData d
+		GROUP BY d.sensorStation.deviceId, d.sensor.sensorId""")
+	List<SeriesRange> findSeriesRanges();
+
+	/**
+	 * The Number of Readings of a Series on one Day.
+	 */
+	interface DayCount {
+		LocalDate getDay();
+		long getCount();
+	}
+
+	/**
+	 * Count the SensorData of one Sensor of a SensorStation per Day in {@code [from, to)}.
+	 */
+	@Query("""
+		SELECT extract(date from d.timeStamp) AS day, COUNT(d) AS count
+		FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp >= :from AND d.timeStamp < :to
+		GROUP BY extract(date from d.timeStamp)""")
+	List<DayCount> countPerDay(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to
+	);
+
+	/**
+	 * The Columns of a SensorData needed to archive it.
+	 */
+	interface ArchivedReading {
+		LocalDateTime getTimeStamp();
+		float getValue();
+		String getAlarm();
+	}
+
+	/**
+	 * Stream the SensorData of one Sensor of a SensorStation older than {@code before}, ordered
+	 * by Time Stamp. Has to be consumed inside a Transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("""
+		SELECT d.timeStamp AS timeStamp, d.value AS value, d.alarm AS alarm
+		FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp < :before
+		ORDER BY d.timeStamp""")
+	Stream<ArchivedReading> streamBefore(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("before") LocalDateTime before
+	);
+
+	/**
+	 * Find the Time Stamps of the oldest SensorData of one Sensor of a SensorStation before
+	 * {@code before}, one Page at a Time.
+	 */
+	@Query("""
+		SELECT d.timeStamp FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp < :before
+		ORDER BY d.timeStamp""")
+	List<LocalDateTime> findTimeStampsBefore(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("before") LocalDateTime before, Pageable pageable
+	);
+
+	/**
+	 * Find the Time Stamps of the SensorData of one Sensor of a SensorStation, one Page at a
+	 * Time.
+	 */
+	@Query("""
+		SELECT d.timeStamp FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+		ORDER BY d.timeStamp""")
+	List<LocalDateTime> findTimeStamps(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			Pageable pageable
+	);
+
+	@Query("""
+		SELECT DISTINCT d.sensor.sensorId FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId""")
+	List<Integer> findSensorIds(@Param("sensorStationId") UUID sensorStationId);
+
+	@Modifying
+	@Query("""
+		DELETE FROM SensorData d
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp IN :timeStamps""")
+	int deleteReadings(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("timeStamps") Collection<LocalDateTime> timeStamps
+	);
+
+	/**
+	 * Find the SensorData of a SensorStation strictly between {@code from} and {@code to}.
+	 * Only the Rows inside the Window are read (see the Indexes of {@link SensorData}).
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The SensorData with their Sensors, ordered by Time Stamp.
+	 */
+	@Query("""
+		SELECT d FROM SensorData d JOIN FETCH d.sensor
+		WHERE d.sensorStation.deviceId = :sensorStationId
+			AND d.timeStamp > :from AND d.timeStamp < :to
+		ORDER BY d.timeStamp""")
+	List<SensorData> findInWindow(
+			@Param("sensorStationId") UUID sensorStationId, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	/**
+	 * Find the SensorData of one Sensor of a SensorStation in {@code [from, to)}.
+	 *
+	 * @return The SensorData with their Sensors.
+	 */
+	@Query("""
+		SELECT d FROM SensorData d JOIN FETCH d.sensor
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp >= :from AND d.timeStamp < :to""")
+	List<SensorData> findInRange(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to
+	);
+
+	/**
+	 * Find the SensorData of one Sensor of a SensorStation strictly between {@code from} and
+	 * {@code to}.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The SensorData, ordered by Time Stamp.
+	 */
+	@Query("""
+		SELECT d FROM SensorData d JOIN FETCH d.sensor
+		WHERE d.sensorStation.deviceId = :sensorStationId AND d.sensor.sensorId = :sensorId
+			AND d.timeStamp > :from AND d.timeStamp < :to
+		ORDER BY d.timeStamp""")
+	List<SensorData> findInWindow(
+			@Param("sensorStationId") UUID sensorStationId, @Param("sensorId") Integer sensorId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to
+	);
 }
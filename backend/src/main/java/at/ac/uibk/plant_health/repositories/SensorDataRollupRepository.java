@@ -0,0 +1,55 @@
+package at.ac.uibk.plant_health.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
+
+public interface SensorDataRollupRepository extends CrudRepository<SensorDataRollup, UUID> {
+	/**
+	 * Find the Rollups of a SensorStation whose Bucket starts in {@code [from, to)}.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param resolution The Resolution of the Rollups.
+	 * @param from The inclusive Start of the first Bucket.
+	 * @param to The exclusive End of the Window.
+	 * @return The Rollups with their Sensors, ordered by Bucket.
+	 */
+	@Query("""
+		SELECT r FROM SensorDataRollup r JOIN FETCH r.sensor
+		WHERE r.sensorStation.deviceId = :sensorStationId AND r.resolution = :resolution
+			AND r.bucketStart >= :from AND r.bucketStart < :to
+		ORDER BY r.bucketStart""")
+	List<SensorDataRollup> findInWindow(
+			@Param("sensorStationId") UUID sensorStationId,
+			@Param("resolution") Resolution resolution, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to
+	);
+
+	@Query("""
+		SELECT r.rollupId FROM SensorDataRollup r
+		WHERE r.resolution = :resolution AND r.bucketStart < :before""")
+	List<UUID> findIdsBefore(
+			@Param("resolution") Resolution resolution, @Param("before") LocalDateTime before,
+			Pageable pageable
+	);
+
+	@Query("""
+		SELECT r.rollupId FROM SensorDataRollup r
+		WHERE r.sensorStation.deviceId = :sensorStationId""")
+	List<UUID>
+	findIdsBySensorStation(@Param("sensorStationId") UUID sensorStationId, Pageable pageable);
+
+	@Modifying
+	@Query("DELETE FROM SensorDataRollup r WHERE r.rollupId IN :ids")
+	int deleteByIds(@Param("ids") Collection<UUID> ids);
+}
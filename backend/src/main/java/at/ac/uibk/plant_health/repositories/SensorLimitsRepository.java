@@ -1,13 +1,41 @@
 package at.ac.uibk.plant_health.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.models.user.Person;
 
 public interface SensorLimitsRepository extends CrudRepository<SensorLimits, UUID> {
 	@Override
 	List<SensorLimits> findAll();
+
+	@Query("""
+		SELECT l.sensorLimitsId FROM SensorLimits l
+		WHERE l.isDeleted = true AND l.timeStamp < :before""")
+	List<UUID> findIdsDeletedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+	@Query("""
+		SELECT l.sensorLimitsId FROM SensorLimits l
+		WHERE l.sensorStation.deviceId = :sensorStationId""")
+	List<UUID>
+	findIdsBySensorStation(@Param("sensorStationId") UUID sensorStationId, Pageable pageable);
+
+	@Modifying
+	@Query("DELETE FROM SensorLimits l WHERE l.sensorLimitsId IN :ids")
+	int deleteByIds(@Param("ids") Collection<UUID> ids);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE SensorLimits l SET l.gardener = null WHERE l.gardener = :gardener")
+	int clearGardener(@Param("gardener") Person gardener);
 }
@@ -4,11 +4,10 @@ import org.springframework.data.repository.CrudRepository;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 import at.ac.uibk.plant_health.models.plant.Sensor;
 
-public interface SensorRepository extends CrudRepository<Sensor, UUID> {
+public interface SensorRepository extends CrudRepository<Sensor, Integer> {
 	@Override
 	List<Sensor> findAll();
 
@@ -26,4 +26,9 @@ public interface SensorStationPersonReferenceRepository
 	)
 	int
 	deleteByPersonAndSensorStation(Person person, SensorStation sensorStation);
+
+	@Transactional
+	@Modifying
+	@Query("delete from SensorStationPersonReference s where s.person = ?1")
+	int deleteByPerson(Person person);
 }
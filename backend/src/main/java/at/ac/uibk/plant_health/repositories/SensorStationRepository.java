@@ -1,11 +1,19 @@
 package at.ac.uibk.plant_health.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.user.Person;
 
@@ -18,8 +26,172 @@ public interface SensorStationRepository extends CrudRepository<SensorStation, U
 
 	List<SensorStation> findByIsUnlockedAndIsDeleted(boolean isUnlocked, boolean isDeleted);
 
+	long countByIsConnectedTrueAndIsDeletedFalse();
+
+	/**
+	 * Find a SensorStation with everything but the Collections its Detail View fetches afterwards.
+	 */
+	@EntityGraph("SensorStation.detail")
+	Optional<SensorStation> findDetailByDeviceId(UUID deviceId);
+
+	/**
+	 * Find a SensorStation with its Limits (shown together with its Readings). The other
+	 * Attributes keep their Fetch Type, AccessPoints and Persons can not be proxied.
+	 */
+	@EntityGraph(
+			attributePaths = {"sensorLimits", "sensorLimits.sensor"},
+			type = EntityGraph.EntityGraphType.LOAD
+	)
+	Optional<SensorStation> findWithSensorLimitsByDeviceId(UUID deviceId);
+
+	/**
+	 * Find the SensorStations a Gardener is assigned to (served by idx_sensor_station_gardener).
+	 */
+	@EntityGraph("SensorStation.detail")
+	List<SensorStation> findByGardenerAndIsDeletedFalse(Person gardener);
+
+	// region Collections of loaded SensorStations
+	// Every Query initializes one Collection of all given SensorStations of the Session, also the
+	// empty ones (Batch Fetching only initializes Collections that have Rows, the empty ones are
+	// loaded one by one).
+
+	@Query("select s from SensorStation s left join fetch s.sensorLimits l "
+		   + "left join fetch l.sensor where s in ?1")
+	List<SensorStation> fetchSensorLimits(Collection<SensorStation> sensorStations);
+
+	@Query("select s from SensorStation s left join fetch s.sensorStationPersonReferences "
+		   + "where s in ?1")
+	List<SensorStation>
+	fetchSensorStationPersonReferences(Collection<SensorStation> sensorStations);
+
+	@Query("select s from SensorStation s left join fetch s.sensorStationPictures where s in ?1")
+	List<SensorStation> fetchSensorStationPictures(Collection<SensorStation> sensorStations);
+	// endregion
+
+	/**
+	 * The Columns of a SensorStation shown in the Lists, read without loading the SensorStation
+	 * and any of its Collections. The Columns of the AccessPoint are null if there is none.
+	 */
+	record SensorStationRow(
+			UUID deviceId, String bdAddress, int dipSwitchId, String name, boolean unlocked,
+			boolean connected, boolean deleted, boolean reported, UUID gardenerId,
+			UUID accessPointId, String roomName, Integer transferInterval,
+			Boolean accessPointUnlocked
+	) {}
+
+	String SELECT_ROWS = """
+		SELECT new at.ac.uibk.plant_health.repositories.SensorStationRepository$SensorStationRow(
+			s.deviceId, s.bdAddress, s.dipSwitchId, s.name, s.isUnlocked, s.isConnected,
+			s.isDeleted, s.reported, g.id, a.deviceId, a.roomName, a.transferInterval,
+			a.isUnlocked
+		)
+		FROM SensorStation s LEFT JOIN s.accessPoint a LEFT JOIN s.gardener g
+		""";
+
+	@Query(SELECT_ROWS + "WHERE s.isDeleted = false")
+	List<SensorStationRow> findRows();
+
+	@Query(SELECT_ROWS + "WHERE s.isDeleted = false AND a.deviceId = :accessPointId")
+	List<SensorStationRow> findRowsByAccessPointId(@Param("accessPointId") UUID accessPointId);
+
+	@Query(SELECT_ROWS + "WHERE s.isDeleted = false AND a.isDeleted = false")
+	List<SensorStationRow> findRowsOfAccessPoints();
+
+	/**
+	 * Find the unlocked SensorStations of unlocked AccessPoints the Person has no Reference to.
+	 */
+	@Query(SELECT_ROWS + """
+		WHERE s.isDeleted = false AND s.isUnlocked = true AND a.isUnlocked = true
+			AND NOT EXISTS (
+				SELECT r.id FROM SensorStationPersonReference r
+				WHERE r.sensorStation = s AND r.person = :person
+			)""")
+	List<SensorStationRow> findAvailableRowsFor(@Param("person") Person person);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE SensorStation s SET s.reported = true WHERE s.deviceId IN :deviceIds")
+	int updateReported(@Param("deviceIds") Collection<UUID> deviceIds);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE SensorStation s SET s.gardener = null WHERE s.gardener = :gardener")
+	int clearGardener(@Param("gardener") Person gardener);
+
 	Optional<SensorStation> findByBdAddress(String bdAddress);
 
+	/**
+	 * Lightweight View of a SensorStation that does not load any of its Collections.
+	 */
+	interface SensorStationRef {
+		UUID getDeviceId();
+		String getBdAddress();
+		boolean isUnlocked();
+		boolean isConnected();
+		// The Transfer Interval of the AccessPoint (null if there is none).
+		Integer getTransferInterval();
+	}
+
+	@Query("""
+		SELECT s.deviceId AS deviceId, s.bdAddress AS bdAddress,
+			s.isUnlocked AS unlocked, s.isConnected AS connected,
+			a.transferInterval AS transferInterval
+		FROM SensorStation s LEFT JOIN s.accessPoint a
+		WHERE s.bdAddress IN :bdAddresses""")
+	List<SensorStationRef>
+	findRefsByBdAddressIn(@Param("bdAddresses") Collection<String> bdAddresses);
+
+	@Query("""
+		SELECT s.deviceId AS deviceId, s.bdAddress AS bdAddress,
+			s.isUnlocked AS unlocked, s.isConnected AS connected,
+			a.transferInterval AS transferInterval
+		FROM SensorStation s LEFT JOIN s.accessPoint a
+		WHERE a.deviceId = :accessPointId""")
+	List<SensorStationRef> findRefsByAccessPointId(@Param("accessPointId") UUID accessPointId);
+
+	@Query("""
+		SELECT s.deviceId AS deviceId, s.bdAddress AS bdAddress,
+			s.isUnlocked AS unlocked, s.isConnected AS connected,
+			a.transferInterval AS transferInterval
+		FROM SensorStation s LEFT JOIN s.accessPoint a
+		WHERE s.isConnected = true""")
+	List<SensorStationRef> findConnectedRefs();
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE SensorStation s SET s.isConnected = :connected WHERE s.deviceId = :deviceId")
+	int updateIsConnected(@Param("deviceId") UUID deviceId, @Param("connected") boolean connected);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE SensorStation s SET s.isConnected = false WHERE s.deviceId IN :deviceIds")
+	int updateDisconnected(@Param("deviceIds") Collection<UUID> deviceIds);
+
+	@Transactional
+	@Modifying
+	@Query("""
+		UPDATE SensorStation s
+		SET s.dipSwitchId = :dipSwitchId, s.accessPoint = :accessPoint, s.isConnected = :connected
+		WHERE s.deviceId = :deviceId""")
+	int updateFound(
+			@Param("deviceId") UUID deviceId, @Param("dipSwitchId") int dipSwitchId,
+			@Param("accessPoint") AccessPoint accessPoint, @Param("connected") boolean connected
+	);
+
+	/**
+	 * Find the SensorStations that were deleted before the given Time (or at an unknown Time).
+	 */
+	@Query("""
+		SELECT s.deviceId FROM SensorStation s
+		WHERE s.isDeleted = true AND (s.deletedAt IS NULL OR s.deletedAt < :before)""")
+	List<UUID> findIdsDeletedBefore(@Param("before") LocalDateTime before);
+
+	default List<SensorStation> findInDashboard(Person person) {
+		return findBySensorStationPersonReferences_PersonAndSensorStationPersonReferences_InDashboardTrue(
+				person
+		);
+	}
+
 	default List<SensorStation> findNewForGardener(Person gardener) {
 		return findByGardenerAndSensorStationPersonReferences_PersonAndIsUnlockedTrueAndIsDeletedFalseAndSensorStationPersonReferences_IsAssignedFalseAndSensorStationPersonReferences_InDashboardFalse(
 				gardener, gardener
@@ -41,4 +213,10 @@ public interface SensorStationRepository extends CrudRepository<SensorStation, U
 	findByIsUnlockedTrueAndIsDeletedFalseAndSensorStationPersonReferences_PersonAndSensorStationPersonReferences_InDashboardFalse(
 			Person person
 	);
+
+	@EntityGraph("SensorStation.summary")
+	List<SensorStation>
+	findBySensorStationPersonReferences_PersonAndSensorStationPersonReferences_InDashboardTrue(
+			Person person
+	);
 }
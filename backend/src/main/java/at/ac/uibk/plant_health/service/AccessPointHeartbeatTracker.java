@@ -0,0 +1,114 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-Memory Table of the last Time every AccessPoint contacted the Server.
+ * <br/>
+ * AccessPoints poll the Server every few Seconds, writing {@code lastConnection} on every
+ * Request would turn every Poll into a Row Update. Instead, Heartbeats are only recorded here and
+ * {@link #flush()} writes all AccessPoints seen since the last Flush with a single Update.
+ * The Connection State of an AccessPoint is read from this Table, the Database is only consulted
+ * for AccessPoints that have not been seen since the Server started.
+ */
+@Slf4j
+@Service
+public class AccessPointHeartbeatTracker {
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private DisconnectDetector disconnectDetector;
+
+	private final ConcurrentMap<UUID, Long> lastSeen = new ConcurrentHashMap<>();
+	private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+	// Used to convert the monotonic Heartbeat Times into Time Stamps.
+	private final long startNanos = System.nanoTime();
+	private final LocalDateTime startTime = LocalDateTime.now();
+
+	/**
+	 * Record that the given AccessPoint has just contacted the Server.
+	 */
+	public void beat(AccessPoint accessPoint) {
+		UUID deviceId = accessPoint.getDeviceId();
+		lastSeen.put(deviceId, System.nanoTime());
+		pending.add(deviceId);
+		disconnectDetector.accessPointHeartbeat(deviceId, accessPoint.getTransferInterval());
+	}
+
+	/**
+	 * Overwrite {@code isConnected} and {@code lastConnection} of the given AccessPoint with the
+	 * In-Memory State, if it has been seen since the Server started.
+	 *
+	 * @param accessPoint The AccessPoint loaded from the Database.
+	 * @return The given AccessPoint.
+	 */
+	public AccessPoint apply(AccessPoint accessPoint) {
+		Long seen = lastSeen.get(accessPoint.getDeviceId());
+		if (seen == null) return accessPoint;
+
+		accessPoint.setConnected(isConnected(seen, accessPoint.getTransferInterval()));
+		accessPoint.setLastConnection(toTime(seen));
+		return accessPoint;
+	}
+
+	/**
+	 * The In-Memory Connection State of an AccessPoint that was not loaded as an Entity.
+	 *
+	 * @param connected The Connection State stored in the Database.
+	 * @return The In-Memory State if the AccessPoint has been seen since the Server started,
+	 *     otherwise the stored one.
+	 */
+	public boolean isConnected(UUID deviceId, int transferInterval, boolean connected) {
+		Long seen = lastSeen.get(deviceId);
+		return seen == null ? connected : isConnected(seen, transferInterval);
+	}
+
+	private static boolean isConnected(long seen, int transferInterval) {
+		long timeout = TimeUnit.SECONDS.toNanos(
+				(long) DisconnectDetector.MISSED_INTERVALS * transferInterval
+		);
+		return System.nanoTime() - seen < timeout;
+	}
+
+	/**
+	 * Write the Heartbeats recorded since the last Flush to the Database.
+	 *
+	 * @return The Number of AccessPoints that were updated.
+	 */
+	public int flush() {
+		List<UUID> deviceIds = new ArrayList<>(pending.size());
+		for (UUID deviceId : pending) {
+			// A Heartbeat arriving after the Removal is kept for the next Flush.
+			if (pending.remove(deviceId)) deviceIds.add(deviceId);
+		}
+		if (deviceIds.isEmpty()) return 0;
+
+		try {
+			return accessPointRepository.updateLastConnection(deviceIds, LocalDateTime.now());
+		} catch (RuntimeException e) {
+			pending.addAll(deviceIds);
+			log.warn("Could not write Heartbeats of {} AccessPoints", deviceIds.size(), e);
+			return 0;
+		}
+	}
+
+	private LocalDateTime toTime(long nanos) {
+		return startTime.plus(nanos - startNanos, ChronoUnit.NANOS);
+	}
+}
@@ -2,11 +2,11 @@ package at.ac.uibk.plant_health.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -15,6 +15,8 @@ import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.exceptions.ServiceException;
 import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRef;
 
 @Service
 public class AccessPointService {
@@ -22,6 +24,18 @@ public class AccessPointService {
 	private AccessPointRepository accessPointRepository;
 	@Autowired
 	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private TransferBatchCache transferBatchCache;
+	@Autowired
+	private AccessPointHeartbeatTracker heartbeatTracker;
+	@Autowired
+	private DisconnectDetector disconnectDetector;
+	@Autowired
+	private DashboardCache dashboardCache;
 
 	/**
 	 * Find the AccessPoint with the given ID.
@@ -34,7 +48,27 @@ public class AccessPointService {
 		if (maybeAccessPoint.isEmpty()) {
 			throw new ServiceException("Could not find AccessPoint", 404);
 		}
-		return maybeAccessPoint.get();
+		return heartbeatTracker.apply(maybeAccessPoint.get());
+	}
+
+	/**
+	 * Find the AccessPoint with the SensorStations and Limits its Config shows.
+	 * @param id
+	 * @return
+	 * @throws ServiceException
+	 */
+	@Transactional(readOnly = true)
+	public AccessPoint findConfig(UUID id) throws ServiceException {
+		Optional<AccessPoint> maybeAccessPoint =
+				this.accessPointRepository.findConfigByDeviceId(id);
+		if (maybeAccessPoint.isEmpty()) {
+			throw new ServiceException("Could not find AccessPoint", 404);
+		}
+		AccessPoint accessPoint = maybeAccessPoint.get();
+		// The Graph fetches the SensorStations, their Limits are fetched with one more Query.
+		if (!accessPoint.getSensorStations().isEmpty())
+			sensorStationRepository.fetchSensorLimits(accessPoint.getSensorStations());
+		return heartbeatTracker.apply(accessPoint);
 	}
 
 	/**
@@ -49,15 +83,18 @@ public class AccessPointService {
 		if (maybeAccessPoint.isEmpty()) {
 			throw new ServiceException("Could not find AccessPoint", 404);
 		}
-		return maybeAccessPoint.get();
+		return heartbeatTracker.apply(maybeAccessPoint.get());
 	}
 
 	/**
-	 * Update the lastConnection of the given AccessPoint.
-	 * @return
+	 * Write the Heartbeats of all AccessPoints seen since the last Flush to the Database.
+	 * @return The number of AccessPoints that were updated.
 	 */
-	public int updateLastConnection() {
-		return this.accessPointRepository.updateIsConnectedByLastConnection();
+	public int flushHeartbeats() {
+		int flushed = heartbeatTracker.flush();
+		// The Number of connected AccessPoints is counted in the Database.
+		if (flushed > 0) dashboardCache.inventoryChanged();
+		return flushed;
 	}
 
 	/**
@@ -65,7 +102,19 @@ public class AccessPointService {
 	 * @return List of AccessPoints
 	 */
 	public List<AccessPoint> findAllAccessPoints() {
-		return accessPointRepository.findAll();
+		List<AccessPoint> accessPoints = accessPointRepository.findAll();
+		accessPoints.forEach(heartbeatTracker::apply);
+		return accessPoints;
+	}
+
+	/**
+	 * Count the connected AccessPoints that are not deleted, without loading them.
+	 * Connections are counted as written by the last Heartbeat Flush, Disconnects as soon as the
+	 * DisconnectDetector noticed them.
+	 * @return The number of connected AccessPoints
+	 */
+	public long countConnected() {
+		return accessPointRepository.countByIsConnectedTrueAndIsDeletedFalse();
 	}
 
 	/**
@@ -105,6 +154,7 @@ public class AccessPointService {
 		}
 		AccessPoint accessPoint = new AccessPoint(selfAssignedId, roomName, false);
 		save(accessPoint);
+		dashboardCache.inventoryChanged();
 		//		setLastConnection(findBySelfAssignedId(selfAssignedId));
 	}
 
@@ -183,6 +233,7 @@ public class AccessPointService {
 		}
 		accessPoint.setUnlocked(unlocked);
 		save(accessPoint);
+		dashboardCache.sensorStationsChanged(sensorStationIds(deviceId));
 	}
 
 	/**
@@ -194,14 +245,32 @@ public class AccessPointService {
 	public void foundNewSensorStation(
 			AccessPoint accessPoint, List<SensorStation> sensorStationList
 	) throws ServiceException {
+		// Resolve all known SensorStations with a single Query instead of one per SensorStation.
+		Set<String> bdAddresses = new HashSet<>();
+		for (SensorStation sensorStation : sensorStationList) {
+			if (sensorStation.getBdAddress() != null) bdAddresses.add(sensorStation.getBdAddress());
+		}
+		Map<String, SensorStationRef> known = new HashMap<>();
+		if (!bdAddresses.isEmpty()) {
+			sensorStationRepository.findRefsByBdAddressIn(bdAddresses)
+					.forEach(ref -> known.put(ref.getBdAddress(), ref));
+		}
+
 		for (SensorStation sensorStation : sensorStationList) {
-			if (sensorStationService.sensorStationExists(sensorStation.getBdAddress()) != null) {
-				SensorStation dbSensorStation =
-						sensorStationService.findByBdAddress(sensorStation.getBdAddress());
-				dbSensorStation.setDipSwitchId(sensorStation.getDipSwitchId());
-				dbSensorStation.setAccessPoint(accessPoint);
-				dbSensorStation.setConnected(sensorStation.isConnected());
-				sensorStationService.save(dbSensorStation);
+			SensorStationRef ref = known.get(sensorStation.getBdAddress());
+			if (ref != null) {
+				sensorStationRepository.updateFound(
+						ref.getDeviceId(), sensorStation.getDipSwitchId(), accessPoint,
+						sensorStation.isConnected()
+				);
+				dashboardCache.sensorStationChanged(ref.getDeviceId());
+				if (sensorStation.isConnected()) {
+					disconnectDetector.sensorStationHeartbeat(
+							ref.getDeviceId(), accessPoint.getTransferInterval()
+					);
+				} else {
+					disconnectDetector.sensorStationDisconnected(ref.getDeviceId());
+				}
 				continue;
 			}
 			sensorStation.setConnected(false);
@@ -213,6 +282,7 @@ public class AccessPointService {
 		accessPoint.setScanActive(false);
 		setLastConnection(accessPoint);
 		save(accessPoint);
+		dashboardCache.inventoryChanged();
 	}
 
 	/**
@@ -254,27 +324,21 @@ public class AccessPointService {
 		accessPoint.setRoomName(roomName);
 		accessPoint.setTransferInterval(transferInterval);
 		save(accessPoint);
+		dashboardCache.sensorStationsChanged(sensorStationIds(deviceId));
 	}
 
 	/**
 	 * Set data of list of SensorStations.
 	 * @param sensorStations List of SensorStations to set data for.
+	 * @return The number of SensorData rows that were written.
 	 * @throws ServiceException if sensorData could not be set.
 	 */
-	public void setSensorStationData(List<SensorStation> sensorStations, AccessPoint accessPoint)
+	public int setSensorStationData(List<SensorStation> sensorStations, AccessPoint accessPoint)
 			throws ServiceException {
 		try {
-			System.out.println(sensorStations);
-			for (SensorStation sensorStation : sensorStations) {
-				SensorStation dbSensorStation =
-						sensorStationService.findByBdAddress(sensorStation.getBdAddress());
-				if (!dbSensorStation.isUnlocked())
-					throw new ServiceException("SensorStation is locked", 409);
-				sensorStationService.addSensorData(dbSensorStation, sensorStation.getSensorData());
-				dbSensorStation.setConnected(sensorStation.isConnected());
-				sensorStationService.save(dbSensorStation);
-			}
+			int written = sensorDataIngestService.ingest(sensorStations);
 			setLastConnection(accessPoint);
+			return written;
 		} catch (ServiceException s) {
 			throw s;
 		} catch (Exception e) {
@@ -282,14 +346,47 @@ public class AccessPointService {
 		}
 	}
 
+	/**
+	 * Set data of SensorStations read directly from the Request Body.
+	 * A Batch that has already been written is not written again.
+	 * @param body SensorStations and their data (JSON or binary).
+	 * @param contentType The Content-Type of the body.
+	 * @param contentLength The Content-Length of the body (-1 if unknown).
+	 * @param batchId Id the AccessPoint assigned to the Transfer (may be null).
+	 * @return The number of new SensorData rows that were written.
+	 * @throws ServiceException if sensorData could not be set.
+	 */
+	public int setSensorStationData(
+			InputStream body, String contentType, long contentLength, AccessPoint accessPoint,
+			String batchId
+	) throws ServiceException {
+		setLastConnection(accessPoint);
+		if (batchId != null) {
+			Integer written = transferBatchCache.begin(accessPoint, batchId);
+			if (written != null) return 0;
+		}
+
+		try {
+			int written =
+					sensorDataIngestService.ingest(body, contentType, contentLength, accessPoint);
+			if (batchId != null) transferBatchCache.complete(accessPoint, batchId, written);
+			return written;
+		} catch (Exception e) {
+			if (batchId != null) transferBatchCache.abort(accessPoint, batchId);
+			if (e instanceof ServiceException s) throw s;
+			throw new ServiceException("Could not set SensorStation data.", 500);
+		}
+	}
+
 	/**
 	 * Set the last connection of the AccessPoint to now.
+	 * The AccessPoint is not saved, its Heartbeat is written by the next Flush.
 	 * @param accesspoint
 	 */
 	public void setLastConnection(AccessPoint accesspoint) {
 		accesspoint.setLastConnection(LocalDateTime.now());
 		accesspoint.setConnected(true);
-		save(accesspoint);
+		heartbeatTracker.beat(accesspoint);
 	}
 
 	/**
@@ -308,39 +405,21 @@ public class AccessPointService {
 			throw new ServiceException("AccessPoint already deleted", 404);
 		}
 		accessPoint.setDeleted(true);
+		accessPoint.setDeletedAt(LocalDateTime.now());
 		accessPoint.setUnlocked(false);
 		accessPoint.setSelfAssignedId(null);
 		accessPoint.setAccessToken(null);
-		for (SensorStation sensorStation : accessPoint.getSensorStations()) {
-			sensorStationService.deleteSensorStation(sensorStation.getDeviceId());
+		for (UUID sensorStationId : sensorStationIds(accessPointId)) {
+			sensorStationService.deleteSensorStation(sensorStationId);
 		}
 		accessPointRepository.save(accessPoint);
+		dashboardCache.inventoryChanged();
 	}
 
-	/**
-	 * Get all SensorStations of an AccessPoint
-	 * @param accessPointId
-	 * @throws ServiceException
-	 */
-	public List<SensorStation> getAccessPointSensorStations(UUID accessPointId)
-			throws ServiceException {
-		AccessPoint accessPoint = findById(accessPointId);
-		return accessPoint.getSensorStations();
-	}
-
-	/**
-	 * Set all new sensor stations of an access point to reported
-	 * @param accessPoints
-	 * @throws ServiceException
-	 */
-	public void setAccessPointSensorStationsReported(List<AccessPoint> accessPoints)
-			throws ServiceException {
-		for (AccessPoint accessPoint : accessPoints) {
-			for (SensorStation sensorStation : accessPoint.getSensorStations()) {
-				if (sensorStation.isReported()) continue;
-				sensorStation.setReported(true);
-				sensorStationService.save(sensorStation);
-			}
-		}
+	private List<UUID> sensorStationIds(UUID accessPointId) {
+		return sensorStationRepository.findRefsByAccessPointId(accessPointId)
+				.stream()
+				.map(SensorStationRef::getDeviceId)
+				.toList();
 	}
 }
@@ -0,0 +1,247 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import at.ac.uibk.plant_health.models.rest_responses.RestResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-Person Cache of the Dashboard Responses.
+ * <br/>
+ * Every Entry remembers the SensorStations it shows, so a Change of a SensorStation (new
+ * Readings, Limits, Lock, Gardener, Pictures) only drops the Dashboards showing it. Dashboard
+ * Changes of a Person drop the Dashboard of that Person, and Changes of the Number of Devices or
+ * Persons drop the Admin Dashboards (they show the Counts). Changes inside a Transaction are
+ * dropped again after the Commit, and a Dashboard built while a Change that drops it happened is
+ * not cached, so a Dashboard is never cached with uncommitted or outdated Data.
+ * <br/>
+ * The Cache holds at most {@code swa.dashboard.cache.max-size} Dashboards (the least recently
+ * used ones are evicted) for at most {@code swa.dashboard.cache.ttl}, which bounds how long
+ * Changes made without the Services (e.g. direct Updates of the Database) go unseen.
+ */
+@Service
+public class DashboardCache {
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${swa.dashboard.cache.enabled:true}")
+	private boolean enabled;
+	@Value("${swa.dashboard.cache.max-size:1000}")
+	private int maxSize;
+	@Value("${swa.dashboard.cache.ttl:5m}")
+	private Duration ttl;
+
+	/**
+	 * A built Dashboard.
+	 *
+	 * @param response The Response of the Dashboard.
+	 * @param sensorStationIds The SensorStations the Dashboard shows.
+	 * @param admin Whether the Dashboard shows the Number of Devices and Persons.
+	 */
+	public record Dashboard(RestResponse response, Set<UUID> sensorStationIds, boolean admin) {
+		/**
+		 * Collect the SensorStations of the Lists shown by a Dashboard.
+		 */
+		@SafeVarargs
+		public static Set<UUID>
+		sensorStationIds(List<? extends SensorStationBaseResponse>... lists) {
+			Set<UUID> ids = new HashSet<>();
+			for (List<? extends SensorStationBaseResponse> list : lists) {
+				list.forEach(s -> ids.add(s.getSensorStationId()));
+			}
+			return ids;
+		}
+	}
+
+	private record Entry(Dashboard dashboard, long expires) {}
+
+	private record Invalidation(long generation, UUID personId, Predicate<Entry> dropped) {
+		boolean drops(UUID personId, Entry entry) {
+			return personId.equals(this.personId) || (dropped != null && dropped.test(entry));
+		}
+	}
+
+	// Invalidations kept to check Dashboards that were being built while they happened.
+	private static final int RECENT_INVALIDATIONS = 256;
+
+	private final Map<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+			return size() > maxSize;
+		}
+	};
+	// Incremented by every Invalidation.
+	private final AtomicLong generation = new AtomicLong();
+	private final Deque<Invalidation> recent = new ArrayDeque<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private Timer rebuild;
+
+	@PostConstruct
+	public void init() {
+		FunctionCounter.builder("swa.dashboard.cache.hits", hits, AtomicLong::get)
+				.description("Dashboards answered from the Cache")
+				.register(meterRegistry);
+		FunctionCounter.builder("swa.dashboard.cache.misses", misses, AtomicLong::get)
+				.description("Dashboards that had to be built")
+				.register(meterRegistry);
+		Gauge.builder("swa.dashboard.cache.hit.ratio", this, DashboardCache::hitRatio)
+				.description("Share of the Dashboards answered from the Cache")
+				.register(meterRegistry);
+		Gauge.builder("swa.dashboard.cache.size", this, DashboardCache::size)
+				.description("Number of cached Dashboards")
+				.register(meterRegistry);
+		this.rebuild = Timer.builder("swa.dashboard.cache.rebuild")
+							   .description("Duration of building a Dashboard")
+							   .register(meterRegistry);
+	}
+
+	/**
+	 * Get the cached Dashboard of a Person or build it.
+	 *
+	 * @param personId The ID of the Person.
+	 * @param build Builds the Dashboard of the Person.
+	 * @return The Response of the Dashboard.
+	 */
+	public RestResponse get(UUID personId, Supplier<Dashboard> build) {
+		long now = System.nanoTime();
+		if (enabled) {
+			Entry entry;
+			synchronized (entries) {
+				entry = entries.get(personId);
+			}
+			if (entry != null && entry.expires() - now > 0) {
+				hits.incrementAndGet();
+				return entry.dashboard().response();
+			}
+		}
+		misses.incrementAndGet();
+
+		long started = generation.get();
+		Dashboard dashboard = build.get();
+		long built = System.nanoTime();
+		rebuild.record(Duration.ofNanos(built - now));
+
+		if (enabled) {
+			Entry entry = new Entry(dashboard, built + ttl.toNanos());
+			synchronized (entries) {
+				if (!droppedSince(started, personId, entry)) entries.put(personId, entry);
+			}
+		}
+		return dashboard.response();
+	}
+
+	/**
+	 * Whether an Invalidation since the given Generation would have dropped the Entry, so it may
+	 * have been built from outdated Data. Must hold the Lock of the Entries.
+	 */
+	private boolean droppedSince(long started, UUID personId, Entry entry) {
+		if (generation.get() == started) return false;
+		// The Invalidations since then are no longer all known.
+		if (recent.isEmpty() || recent.peekFirst().generation() > started + 1) return true;
+		for (Invalidation invalidation : recent) {
+			if (invalidation.generation() > started && invalidation.drops(personId, entry))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Drop the Dashboards showing a SensorStation.
+	 */
+	public void sensorStationChanged(UUID sensorStationId) {
+		invalidate(entry -> entry.dashboard().sensorStationIds().contains(sensorStationId));
+	}
+
+	/**
+	 * Drop the Dashboards showing any of the SensorStations.
+	 */
+	public void sensorStationsChanged(Collection<UUID> sensorStationIds) {
+		if (sensorStationIds.isEmpty()) return;
+		Set<UUID> changed = Set.copyOf(sensorStationIds);
+		invalidate(entry -> {
+			for (UUID id : entry.dashboard().sensorStationIds()) {
+				if (changed.contains(id)) return true;
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Drop the Dashboard of a Person (e.g. a SensorStation was added to or removed from it).
+	 */
+	public void personChanged(UUID personId) {
+		invalidate(personId, null);
+	}
+
+	/**
+	 * Drop the Dashboards showing the Number of Devices or Persons.
+	 */
+	public void inventoryChanged() {
+		invalidate(entry -> entry.dashboard().admin());
+	}
+
+	/**
+	 * Drop all Dashboards (e.g. a Person shown on other Dashboards changed).
+	 */
+	public void clear() {
+		invalidate(entry -> true);
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public double hitRatio() {
+		long hit = hits.get();
+		long total = hit + misses.get();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	private void invalidate(Predicate<Entry> dropped) {
+		invalidate(null, dropped);
+	}
+
+	private void invalidate(UUID personId, Predicate<Entry> dropped) {
+		Runnable drop = () -> {
+			synchronized (entries) {
+				recent.addLast(
+						new Invalidation(generation.incrementAndGet(), personId, dropped)
+				);
+				if (recent.size() > RECENT_INVALIDATIONS) recent.removeFirst();
+				if (personId != null) entries.remove(personId);
+				if (dropped != null) entries.values().removeIf(dropped);
+			}
+		};
+		drop.run();
+		// A Dashboard built before the Commit would still see the old Data.
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(
+					new TransactionSynchronization() {
+						@Override
+						public void afterCommit() {
+							drop.run();
+						}
+					}
+			);
+		}
+	}
+}
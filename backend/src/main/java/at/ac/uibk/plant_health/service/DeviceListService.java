@@ -0,0 +1,164 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.rest_responses.AccessPointListResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse.AlarmResponse;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository.AccessPointRow;
+import at.ac.uibk.plant_health.repositories.PersonRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRow;
+
+/**
+ * Read Model of the Lists of SensorStations and AccessPoints.
+ * <br/>
+ * The Lists only show a few Columns of every Device, so they are read as Rows instead of loading
+ * the Entities with all their Collections. The Alarms of the newest Readings and the Gardeners
+ * are read with one Query for all SensorStations of a List.
+ */
+@Service
+public class DeviceListService {
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private PersonRepository personRepository;
+	@Autowired
+	private AccessPointHeartbeatTracker heartbeatTracker;
+	@Autowired
+	private DashboardCache dashboardCache;
+
+	/**
+	 * Get all SensorStations that are not deleted.
+	 */
+	public List<SensorStationBaseResponse> getSensorStations() {
+		return toResponses(sensorStationRepository.findRows());
+	}
+
+	/**
+	 * Get the SensorStations of an AccessPoint that are not deleted.
+	 *
+	 * @throws ServiceException If the AccessPoint does not exist.
+	 */
+	public List<SensorStationBaseResponse> getSensorStations(UUID accessPointId)
+			throws ServiceException {
+		if (!accessPointRepository.existsById(accessPointId))
+			throw new ServiceException("Could not find AccessPoint", 404);
+		return toResponses(sensorStationRepository.findRowsByAccessPointId(accessPointId));
+	}
+
+	/**
+	 * Get the SensorStations a Person can add to the Dashboard: unlocked, not deleted, of an
+	 * unlocked AccessPoint and not yet referenced by the Person.
+	 */
+	public List<SensorStationRow> getAvailableSensorStations(Person person) {
+		return sensorStationRepository.findAvailableRowsFor(person);
+	}
+
+	/**
+	 * Get all AccessPoints that are not deleted with their SensorStations, and mark the shown
+	 * SensorStations as reported.
+	 */
+	public List<AccessPointListResponse.InnerAccessPoint> getAccessPoints() {
+		List<SensorStationRow> sensorStations = sensorStationRepository.findRowsOfAccessPoints();
+		Map<UUID, List<AlarmResponse>> alarms = findAlarms(sensorStations);
+		Map<UUID, Person> gardeners = findGardeners(sensorStations);
+
+		Map<UUID, List<AccessPointListResponse.AccessPointListResponseSensorStation>>
+				byAccessPoint = new HashMap<>();
+		List<UUID> reported = new ArrayList<>();
+		for (SensorStationRow sensorStation : sensorStations) {
+			byAccessPoint.computeIfAbsent(sensorStation.accessPointId(), id -> new ArrayList<>())
+					.add(new AccessPointListResponse.AccessPointListResponseSensorStation(
+							sensorStation, gardeners.get(sensorStation.gardenerId()),
+							alarms.getOrDefault(sensorStation.deviceId(), List.of())
+					));
+			if (!sensorStation.reported()) reported.add(sensorStation.deviceId());
+		}
+
+		List<AccessPointListResponse.InnerAccessPoint> accessPoints = new ArrayList<>();
+		for (AccessPointRow accessPoint : accessPointRepository.findRows()) {
+			boolean connected = heartbeatTracker.isConnected(
+					accessPoint.getDeviceId(), accessPoint.getTransferInterval(),
+					accessPoint.isConnected()
+			);
+			accessPoints.add(new AccessPointListResponse.InnerAccessPoint(
+					accessPoint, connected,
+					byAccessPoint.getOrDefault(accessPoint.getDeviceId(), List.of())
+			));
+		}
+
+		// The Response still shows them as new, they are reported from the next one on.
+		if (!reported.isEmpty()) {
+			sensorStationRepository.updateReported(reported);
+			dashboardCache.sensorStationsChanged(reported);
+		}
+		return accessPoints;
+	}
+
+	private List<SensorStationBaseResponse> toResponses(List<SensorStationRow> sensorStations) {
+		Map<UUID, List<AlarmResponse>> alarms = findAlarms(sensorStations);
+		Map<UUID, Person> gardeners = findGardeners(sensorStations);
+		List<SensorStationBaseResponse> responses = new ArrayList<>(sensorStations.size());
+		for (SensorStationRow sensorStation : sensorStations) {
+			responses.add(new SensorStationBaseResponse(
+					sensorStation, gardeners.get(sensorStation.gardenerId()),
+					alarms.getOrDefault(sensorStation.deviceId(), List.of())
+			));
+		}
+		return responses;
+	}
+
+	/**
+	 * Find the Alarm of the newest Reading of every Sensor of the SensorStations, whether it is
+	 * stored as a Row, in a Bucket or in the Archive.
+	 *
+	 * @return The Alarms by the ID of their SensorStation, ordered by Sensor.
+	 */
+	private Map<UUID, List<AlarmResponse>> findAlarms(List<SensorStationRow> sensorStations) {
+		if (sensorStations.isEmpty()) return Map.of();
+		List<UUID> ids = sensorStations.stream().map(SensorStationRow::deviceId).toList();
+
+		Map<UUID, Map<Sensor, SensorData>> newest = sensorStationService.findNewestSensorData(ids);
+
+		Map<UUID, List<AlarmResponse>> alarms = new HashMap<>();
+		newest.forEach((sensorStationId, bySensor) -> {
+			List<AlarmResponse> list = new ArrayList<>(bySensor.size());
+			bySensor.entrySet()
+					.stream()
+					.sorted(Comparator.comparing(e -> e.getKey().getSensorId()))
+					.forEach(e -> list.add(new AlarmResponse(e.getKey(), e.getValue().getAlarm())));
+			alarms.put(sensorStationId, list);
+		});
+		return alarms;
+	}
+
+	/**
+	 * Find the Gardeners of the SensorStations.
+	 *
+	 * @return The Gardeners by their ID.
+	 */
+	private Map<UUID, Person> findGardeners(List<SensorStationRow> sensorStations) {
+		Set<UUID> ids = new HashSet<>();
+		sensorStations.forEach(s -> {
+			if (s.gardenerId() != null) ids.add(s.gardenerId());
+		});
+		// A HashMap, so SensorStations without a Gardener (null) can be looked up.
+		Map<UUID, Person> gardeners = new HashMap<>();
+		if (ids.isEmpty()) return gardeners;
+		personRepository.findAllById(ids).forEach(p -> gardeners.put(p.getPersonId(), p));
+		return gardeners;
+	}
+}
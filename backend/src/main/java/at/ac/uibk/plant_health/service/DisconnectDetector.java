@@ -0,0 +1,150 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Detects AccessPoints and SensorStations that stopped sending Data.
+ * <br/>
+ * Every Device that is connected has a Deadline of {@value MISSED_INTERVALS} Transfer Intervals
+ * in a {@link TimingWheel}, which is moved back on every Heartbeat. {@link #expire(long)} only
+ * writes the Devices whose Deadline has actually passed, so the Work per Tick does not depend on
+ * the Number of Devices and a Device is marked as disconnected within one Tick of its Deadline.
+ */
+@Slf4j
+@Service
+public class DisconnectDetector {
+	// A Device counts as disconnected after missing this many Transfer Intervals.
+	public static final int MISSED_INTERVALS = 5;
+	// Transfer Interval used for SensorStations without an AccessPoint.
+	private static final int DEFAULT_TRANSFER_INTERVAL = 60;
+	private static final int SLOTS = 4096;
+
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private DashboardCache dashboardCache;
+
+	@Value("${swa.scheduling.disconnect.tick.in.seconds:1}")
+	private int tickSeconds;
+
+	private TimingWheel<UUID> accessPoints;
+	private TimingWheel<UUID> sensorStations;
+
+	@PostConstruct
+	public void init() {
+		long now = System.nanoTime();
+		Duration tick = Duration.ofSeconds(tickSeconds);
+		this.accessPoints = new TimingWheel<>(tick, SLOTS, now);
+		this.sensorStations = new TimingWheel<>(tick, SLOTS, now);
+	}
+
+	/**
+	 * Arm the Deadlines of all Devices that are connected according to the Database, so
+	 * Devices that went away while the Server was down are still detected.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		long now = System.nanoTime();
+		LocalDateTime nowTime = LocalDateTime.now();
+		List<AccessPointRepository.ConnectionRef> connectedAccessPoints =
+				accessPointRepository.findConnectedRefs();
+		for (AccessPointRepository.ConnectionRef accessPoint : connectedAccessPoints) {
+			long since = accessPoint.getLastConnection() == null
+					? 0
+					: Duration.between(accessPoint.getLastConnection(), nowTime).toNanos();
+			accessPoints.schedule(
+					accessPoint.getDeviceId(),
+					now - since + timeout(accessPoint.getTransferInterval())
+			);
+		}
+		List<SensorStationRepository.SensorStationRef> connectedSensorStations =
+				sensorStationRepository.findConnectedRefs();
+		connectedSensorStations.forEach(
+				s -> sensorStationHeartbeat(s.getDeviceId(), s.getTransferInterval())
+		);
+		log.info(
+				"Watching {} AccessPoints and {} SensorStations for Disconnects",
+				accessPoints.size(), sensorStations.size()
+		);
+	}
+
+	/**
+	 * Move the Deadline of the AccessPoint back by {@value MISSED_INTERVALS} Transfer Intervals.
+	 */
+	public void accessPointHeartbeat(UUID deviceId, int transferInterval) {
+		accessPoints.schedule(deviceId, System.nanoTime() + timeout(transferInterval));
+	}
+
+	/**
+	 * Move the Deadline of the SensorStation back by {@value MISSED_INTERVALS} Transfer Intervals
+	 * of its AccessPoint.
+	 *
+	 * @param transferInterval The Transfer Interval of the AccessPoint (may be null).
+	 */
+	public void sensorStationHeartbeat(UUID deviceId, Integer transferInterval) {
+		int interval = transferInterval == null ? DEFAULT_TRANSFER_INTERVAL : transferInterval;
+		sensorStations.schedule(deviceId, System.nanoTime() + timeout(interval));
+	}
+
+	/**
+	 * Stop watching the SensorStation (e.g. because its AccessPoint reported it as disconnected).
+	 */
+	public void sensorStationDisconnected(UUID deviceId) {
+		sensorStations.cancel(deviceId);
+	}
+
+	/**
+	 * Mark all Devices whose Deadline has passed as disconnected.
+	 *
+	 * @param nowNanos The current {@link System#nanoTime()}.
+	 * @return The Number of Devices that were marked as disconnected.
+	 */
+	public int expire(long nowNanos) {
+		int disconnected = 0;
+		List<UUID> expiredAccessPoints = accessPoints.advance(nowNanos);
+		if (!expiredAccessPoints.isEmpty()) {
+			try {
+				disconnected += accessPointRepository.updateDisconnected(expiredAccessPoints);
+				dashboardCache.inventoryChanged();
+			} catch (RuntimeException e) {
+				log.warn("Could not disconnect {} AccessPoints", expiredAccessPoints.size(), e);
+				expiredAccessPoints.forEach(id -> accessPoints.schedule(id, nowNanos));
+			}
+		}
+		List<UUID> expiredSensorStations = sensorStations.advance(nowNanos);
+		if (!expiredSensorStations.isEmpty()) {
+			try {
+				disconnected += sensorStationRepository.updateDisconnected(expiredSensorStations);
+				dashboardCache.sensorStationsChanged(expiredSensorStations);
+				dashboardCache.inventoryChanged();
+			} catch (RuntimeException e) {
+				log.warn("Could not disconnect {} SensorStations", expiredSensorStations.size(), e);
+				expiredSensorStations.forEach(id -> sensorStations.schedule(id, nowNanos));
+			}
+		}
+		if (disconnected > 0) log.info("Marked {} Devices as disconnected", disconnected);
+		return disconnected;
+	}
+
+	private static long timeout(int transferInterval) {
+		return TimeUnit.SECONDS.toNanos((long) MISSED_INTERVALS * transferInterval);
+	}
+}
@@ -38,6 +38,9 @@ public class PersonService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
+	@Autowired
+	private DashboardCache dashboardCache;
+
 	/**
 	 * Gets a list of all persons in the repository
 	 *
@@ -47,6 +50,15 @@ public class PersonService {
 		return personRepository.findAll();
 	}
 
+	/**
+	 * Counts the persons in the repository without loading them
+	 *
+	 * @return number of persons
+	 */
+	public long countPersons() {
+		return personRepository.count();
+	}
+
 	public List<Person> getGardener() {
 		return personRepository.findAllByPermissionsIsContaining(Permission.GARDENER);
 	}
@@ -131,7 +143,9 @@ public class PersonService {
 	@AuditLogAnnotation(successMessage = "Created Person {person.id}")
 	public boolean create(Person person) {
 		if (person != null && person.getPersonId() == null) {
-			return save(person) != null;
+			if (save(person) == null) return false;
+			dashboardCache.inventoryChanged();
+			return true;
 		} else {
 			return false;
 		}
@@ -181,6 +195,8 @@ public class PersonService {
 			if (password != null) person.setPassword(password);
 
 			save(person);
+			// The Person is also shown on the Dashboards of others (e.g. as Gardener).
+			dashboardCache.clear();
 			return true;
 		}
 
@@ -231,28 +247,12 @@ public class PersonService {
 			}
 			Person person = maybePerson.get();
 
-			sensorStationRepository.findAll()
-					.stream()
-					.filter(st -> st.getGardener() != null)
-					.filter(st -> st.getGardener().equals(person))
-					.forEach(st -> {
-						st.setGardener(null);
-						sensorStationRepository.save(st);
-					});
-
-			sensorLimitsRepository.findAll()
-					.stream()
-					.filter(sl -> sl.getGardener() != null)
-					.filter(sl -> sl.getGardener().equals(person))
-					.forEach(sl -> {
-						sl.setGardener(null);
-						sensorLimitsRepository.save(sl);
-					});
+			sensorStationRepository.clearGardener(person);
+			sensorLimitsRepository.clearGardener(person);
 
-			sensorStationPersonReferenceRepository.deleteAll(
-					person.getSensorStationPersonReferences()
-			);
+			sensorStationPersonReferenceRepository.deleteByPerson(person);
 			this.personRepository.deleteById(personId);
+			dashboardCache.clear();
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -0,0 +1,245 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.RecentReading;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer.Slice;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-Memory Store of the Readings of the last {@code swa.recent.horizon} (24 Hours by Default).
+ * <br/>
+ * Every Sensor of a SensorStation has a {@link ReadingRingBuffer}, so the Readings are held in
+ * primitive Arrays instead of SensorData Objects. The Store is warmed from the Database on
+ * Startup and afterwards filled with every committed Reading, so Charts inside the Horizon
+ * never have to go to the Database. Readings are kept with a Resolution of one Second.
+ */
+@Slf4j
+@Service
+public class RecentReadingsStore {
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorRepository sensorRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${swa.recent.enabled:true}")
+	private boolean enabled;
+	@Value("${swa.recent.horizon:24h}")
+	private Duration horizon;
+	@Value("${swa.recent.initial-capacity:64}")
+	private int initialCapacity;
+
+	private record Series(Sensor sensor, ReadingRingBuffer buffer) {}
+
+	private final ConcurrentMap<UUID, ConcurrentMap<Integer, Series>> sensorStations =
+			new ConcurrentHashMap<>();
+
+	// All Readings newer than this are in Memory (null until the Store has been warmed).
+	private volatile LocalDateTime warmedFrom;
+
+	@PostConstruct
+	public void init() {
+		Gauge.builder("swa.recent.readings", this, RecentReadingsStore::size)
+				.description("Number of Readings held in Memory")
+				.register(meterRegistry);
+		Gauge.builder("swa.recent.memory", this, RecentReadingsStore::memoryBytes)
+				.description("Bytes used by the Buffers of the Readings held in Memory")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("swa.recent.series", sensorStations, RecentReadingsStore::countSeries)
+				.description("Number of Sensors with Readings in Memory")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Load the Readings inside the Horizon from the Database.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warm() {
+		if (!enabled) return;
+		LocalDateTime from = LocalDateTime.now().minus(horizon);
+		long cutoff = ReadingRingBuffer.toEpochSecond(from);
+		Map<Integer, Sensor> sensors = new HashMap<>();
+		sensorRepository.findAll().forEach(s -> sensors.put(s.getSensorId(), s));
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		int loaded = Objects.requireNonNull(readOnly.execute(status -> {
+			int count = 0;
+			if (sensorDataBucketService.isEnabled()) {
+				try (Stream<SensorData> readings = sensorDataBucketService.streamRecent(from)) {
+					for (SensorData data : (Iterable<SensorData>) readings::iterator) {
+						add(data.getSensorStation().getDeviceId(), data.getSensor(),
+							data.getTimeStamp(), data.getValue(), data.getAlarm(), cutoff);
+						count++;
+					}
+				}
+				return count;
+			}
+			try (Stream<RecentReading> readings = sensorDataRepository.streamRecent(from)) {
+				for (RecentReading reading : (Iterable<RecentReading>) readings::iterator) {
+					// Sensors created since the Sensors were read are looked up once.
+					Sensor sensor = sensors.computeIfAbsent(
+							reading.getSensorId(),
+							id -> sensorRepository.findById(id).orElseThrow()
+					);
+					add(reading.getSensorStationId(), sensor, reading.getTimeStamp(),
+						reading.getValue(), reading.getAlarm(), cutoff);
+					count++;
+				}
+			}
+			return count;
+		}));
+		this.warmedFrom = from;
+		log.info("Loaded {} Readings of the last {} into Memory", loaded, horizon);
+	}
+
+	/**
+	 * Add committed Readings of one SensorStation.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param readings The Readings, with their Sensors set.
+	 */
+	public void add(UUID sensorStationId, Collection<SensorData> readings) {
+		if (!enabled || readings.isEmpty()) return;
+		long cutoff = ReadingRingBuffer.toEpochSecond(LocalDateTime.now().minus(horizon));
+		for (SensorData data : readings) {
+			add(sensorStationId, data.getSensor(), data.getTimeStamp(), data.getValue(),
+				data.getAlarm(), cutoff);
+		}
+	}
+
+	private void add(
+			UUID sensorStationId, Sensor sensor, LocalDateTime timeStamp, float value,
+			String alarm, long cutoff
+	) {
+		long epochSecond = ReadingRingBuffer.toEpochSecond(timeStamp);
+		if (epochSecond < cutoff) return;
+		Map<Integer, Series> series =
+				sensorStations.computeIfAbsent(sensorStationId, id -> new ConcurrentHashMap<>());
+		Series s = series.computeIfAbsent(
+				sensor.getSensorId(),
+				id -> new Series(sensor, new ReadingRingBuffer(initialCapacity))
+		);
+		synchronized (s.buffer()) {
+			s.buffer().add(epochSecond, value, toAlarm(alarm));
+			s.buffer().evictBefore(cutoff);
+		}
+	}
+
+	/**
+	 * Get the Readings of a SensorStation strictly between {@code from} and {@code to}, if the
+	 * whole Window lies inside the Horizon.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The Readings of every Sensor with Readings in the Window or an empty Optional if
+	 *     the Window has to be read from the Database.
+	 */
+	public Optional<Map<Sensor, Slice>>
+	find(UUID sensorStationId, LocalDateTime from, LocalDateTime to) {
+		if (!covers(from)) return Optional.empty();
+		Map<Sensor, Slice> slices = new LinkedHashMap<>();
+		Map<Integer, Series> series = sensorStations.get(sensorStationId);
+		if (series == null) return Optional.of(slices);
+		long fromSecond = ReadingRingBuffer.toEpochSecond(from);
+		long toSecond = ReadingRingBuffer.toEpochSecond(to);
+		for (Series s : series.values()) {
+			Slice slice;
+			synchronized (s.buffer()) {
+				slice = s.buffer().slice(fromSecond, toSecond);
+			}
+			if (slice.size() > 0) slices.put(s.sensor(), slice);
+		}
+		return Optional.of(slices);
+	}
+
+	/**
+	 * @return Whether all Readings after the given Time are held in Memory.
+	 */
+	public boolean covers(LocalDateTime from) {
+		LocalDateTime warmed = warmedFrom;
+		if (!enabled || warmed == null) return false;
+		LocalDateTime horizonStart = LocalDateTime.now().minus(horizon);
+		return !from.isBefore(warmed) && !from.isBefore(horizonStart);
+	}
+
+	/**
+	 * Drop the Readings that left the Horizon, also of Sensors that stopped sending.
+	 * Empty Buffers are kept, removing them could lose a concurrently added Reading.
+	 *
+	 * @return The Number of dropped Readings.
+	 */
+	public int evict() {
+		long cutoff = ReadingRingBuffer.toEpochSecond(LocalDateTime.now().minus(horizon));
+		int evicted = 0;
+		for (ConcurrentMap<Integer, Series> series : sensorStations.values()) {
+			for (Series s : series.values()) {
+				synchronized (s.buffer()) {
+					evicted += s.buffer().evictBefore(cutoff);
+				}
+			}
+		}
+		return evicted;
+	}
+
+	public long size() {
+		long size = 0;
+		for (ConcurrentMap<Integer, Series> series : sensorStations.values()) {
+			for (Series s : series.values()) {
+				synchronized (s.buffer()) {
+					size += s.buffer().size();
+				}
+			}
+		}
+		return size;
+	}
+
+	public long memoryBytes() {
+		long bytes = 0;
+		for (ConcurrentMap<Integer, Series> series : sensorStations.values()) {
+			for (Series s : series.values()) {
+				synchronized (s.buffer()) {
+					bytes += s.buffer().memoryBytes();
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private static int countSeries(Map<UUID, ConcurrentMap<Integer, Series>> sensorStations) {
+		return sensorStations.values().stream().mapToInt(Map::size).sum();
+	}
+
+	private static byte toAlarm(String alarm) {
+		return (byte) (alarm == null || alarm.isEmpty() ? 'n' : alarm.charAt(0));
+	}
+}
@@ -0,0 +1,265 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import at.ac.uibk.plant_health.models.plant.SensorDataBucket;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
+import at.ac.uibk.plant_health.repositories.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retention Policy for the SensorData and soft-deleted Entities (disabled unless
+ * {@code swa.retention.enabled}).
+ * <br/>
+ * The Data moves through Tiers: raw Readings are kept for {@code swa.retention.raw-readings}
+ * (unless they are moved to the {@link SensorDataArchive} before, which keeps its Blocks), the
+ * Minute and Hour Rollups for {@code swa.retention.minute-rollups} and
+ * {@code swa.retention.hour-rollups} and the Day Rollups forever. Before raw Readings are
+ * removed, the Rollups of their Days are backfilled, so Readings stored before the Rollups existed
+ * are rolled up and not lost.
+ * <br/>
+ * SensorStations deleted more than {@code swa.retention.deleted-grace} ago lose their Readings,
+ * Rollups and Limits (the SensorStation itself is kept, so References to it stay valid), deleted
+ * AccessPoints without SensorStations and deleted SensorLimits are removed.
+ * <br/>
+ * Everything is deleted in Chunks of {@code swa.retention.chunk-size} Rows, each in its own short
+ * Transaction and followed by a Pause of {@code swa.retention.pause}, so Ingest is never blocked
+ * for long. The Progress is published as the Counter {@code swa.retention.deleted}.
+ */
+@Slf4j
+@Service
+public class RetentionService {
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataBucketRepository sensorDataBucketRepository;
+	@Autowired
+	private SensorDataRollupRepository sensorDataRollupRepository;
+	@Autowired
+	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${swa.retention.enabled:false}")
+	private boolean enabled;
+	@Value("${swa.retention.raw-readings:365d}")
+	private Duration rawReadings;
+	@Value("${swa.retention.minute-rollups:30d}")
+	private Duration minuteRollups;
+	@Value("${swa.retention.hour-rollups:730d}")
+	private Duration hourRollups;
+	@Value("${swa.retention.deleted-grace:30d}")
+	private Duration deletedGrace;
+	@Value("${swa.retention.chunk-size:1000}")
+	private int chunkSize;
+	@Value("${swa.retention.pause:50ms}")
+	private Duration pause;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private TransactionTemplate transaction;
+
+	@PostConstruct
+	public void init() {
+		this.transaction = new TransactionTemplate(transactionManager);
+		Gauge.builder("swa.retention.running", running, r -> r.get() ? 1 : 0)
+				.description("1 while the Retention Policy is applied")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return The Time before which raw Readings are removed (null if the Retention Policy is
+	 *     disabled).
+	 */
+	public LocalDateTime getRawReadingsCutoff() {
+		return enabled ? LocalDateTime.now().minus(rawReadings) : null;
+	}
+
+	/**
+	 * Apply the configured Retention Policy.
+	 * Does nothing if it is disabled or already being applied.
+	 *
+	 * @return The Number of deleted Rows.
+	 */
+	public long apply() {
+		if (!enabled || !running.compareAndSet(false, true)) return 0;
+		try {
+			long start = System.nanoTime();
+			LocalDateTime now = LocalDateTime.now();
+			long deleted = purgeReadings(now.minus(rawReadings))
+					+ purgeRollups(Resolution.MINUTE, now.minus(minuteRollups))
+					+ purgeRollups(Resolution.HOUR, now.minus(hourRollups))
+					+ compactDeleted(now.minus(deletedGrace));
+			log.info(
+					"Applied Retention Policy: deleted {} Rows in {} s", deleted,
+					Duration.ofNanos(System.nanoTime() - start).toSeconds()
+			);
+			return deleted;
+		} finally {
+			running.set(false);
+		}
+	}
+
+	/**
+	 * Delete all raw Readings (Rows and Buckets) before the given Time, after their Rollups have
+	 * been backfilled.
+	 *
+	 * @return The Number of deleted Rows.
+	 */
+	public long purgeReadings(LocalDateTime before) {
+		long deleted = 0;
+		for (SensorDataRepository.Series series : sensorDataRepository.findSeriesBefore(before)) {
+			UUID sensorStationId = series.getSensorStationId();
+			Integer sensorId = series.getSensorId();
+			List<LocalDateTime> oldest = sensorDataRepository.findTimeStampsBefore(
+					sensorStationId, sensorId, before, PageRequest.of(0, 1)
+			);
+			if (!oldest.isEmpty()) {
+				sensorDataRollupService.backfill(sensorStationId, sensorId, oldest.get(0), before);
+			}
+			deleted += purge(
+					"readings",
+					page
+					-> sensorDataRepository.findTimeStampsBefore(
+							sensorStationId, sensorId, before, page
+					),
+					timeStamps
+					-> sensorDataRepository.deleteReadings(sensorStationId, sensorId, timeStamps)
+			);
+		}
+		// Only whole Hours are removed, a Bucket starting before the Hour of the Cutoff ends
+		// before the Cutoff.
+		LocalDateTime hour = SensorDataBucket.truncate(before);
+		List<SensorDataRepository.SeriesRange> bucketSeries =
+				sensorDataBucketRepository.findSeriesRanges();
+		for (SensorDataRepository.SeriesRange range : bucketSeries) {
+			if (!range.getFirst().isBefore(hour)) continue;
+			sensorDataRollupService.backfill(
+					range.getSensorStationId(), range.getSensorId(), range.getFirst(), hour
+			);
+		}
+		deleted += purge(
+				"buckets", page -> sensorDataBucketRepository.findIdsBefore(hour, page),
+				sensorDataBucketRepository::deleteByIds
+		);
+		return deleted;
+	}
+
+	/**
+	 * Delete all Rollups of the given Resolution starting before the given Time.
+	 *
+	 * @return The Number of deleted Rows.
+	 */
+	public long purgeRollups(Resolution resolution, LocalDateTime before) {
+		return purge(
+				"rollups",
+				page -> sensorDataRollupRepository.findIdsBefore(resolution, before, page),
+				sensorDataRollupRepository::deleteByIds
+		);
+	}
+
+	/**
+	 * Compact the Entities that were deleted before the given Time.
+	 *
+	 * @return The Number of deleted Rows.
+	 */
+	public long compactDeleted(LocalDateTime before) {
+		long deleted = 0;
+		for (UUID id : sensorStationRepository.findIdsDeletedBefore(before)) {
+			for (Integer sensorId : sensorDataRepository.findSensorIds(id)) {
+				deleted += purge(
+						"readings", page -> sensorDataRepository.findTimeStamps(id, sensorId, page),
+						timeStamps -> sensorDataRepository.deleteReadings(id, sensorId, timeStamps)
+				);
+			}
+			deleted += purge(
+					"buckets", page -> sensorDataBucketRepository.findIdsBySensorStation(id, page),
+					sensorDataBucketRepository::deleteByIds
+			);
+			deleted += purge(
+					"rollups", page -> sensorDataRollupRepository.findIdsBySensorStation(id, page),
+					sensorDataRollupRepository::deleteByIds
+			);
+			deleted += purge(
+					"limits", page -> sensorLimitsRepository.findIdsBySensorStation(id, page),
+					sensorLimitsRepository::deleteByIds
+			);
+		}
+		deleted += purge(
+				"limits", page -> sensorLimitsRepository.findIdsDeletedBefore(before, page),
+				sensorLimitsRepository::deleteByIds
+		);
+		// Only a few AccessPoints are ever deleted, they are removed in a single Chunk.
+		List<UUID> accessPoints = accessPointRepository.findIdsDeletedBefore(before);
+		if (!accessPoints.isEmpty()) {
+			transaction.executeWithoutResult(status -> {
+				accessPointRepository.deleteAllById(accessPoints);
+			});
+			counter("access-points").increment(accessPoints.size());
+			deleted += accessPoints.size();
+		}
+		return deleted;
+	}
+
+	/**
+	 * Delete Rows Chunk by Chunk until none are left.
+	 *
+	 * @param kind The Kind of the Rows (the Tag of the Counter).
+	 * @param find Finds the Keys of the next Chunk.
+	 * @param delete Deletes the Rows with the given Keys.
+	 * @return The Number of deleted Rows.
+	 */
+	private <K> long purge(
+			String kind, Function<Pageable, List<K>> find, Function<List<K>, Integer> delete
+	) {
+		Counter counter = counter(kind);
+		long total = 0;
+		while (!Thread.currentThread().isInterrupted()) {
+			int deleted = Objects.requireNonNull(transaction.execute(status -> {
+				List<K> keys = find.apply(PageRequest.of(0, chunkSize));
+				return keys.isEmpty() ? 0 : delete.apply(keys);
+			}));
+			if (deleted == 0) break;
+			counter.increment(deleted);
+			total += deleted;
+			try {
+				Thread.sleep(pause.toMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return total;
+	}
+
+	private Counter counter(String kind) {
+		return Counter.builder("swa.retention.deleted")
+				.description("Rows deleted by the Retention Policy")
+				.tag("kind", kind)
+				.register(meterRegistry);
+	}
+}
@@ -1,13 +1,19 @@
 package at.ac.uibk.plant_health.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 @Profile("!test")
@@ -17,13 +23,68 @@ import lombok.extern.slf4j.Slf4j;
 public class SchedulingService {
 	@Autowired
 	private AccessPointService accessPointService;
+	@Autowired
+	private DisconnectDetector disconnectDetector;
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private RetentionService retentionService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+
+	@Value("${swa.rollup.backfill.enabled:true}")
+	private boolean backfillRollups;
+
+	// Long-running Jobs get their own Thread, so they never delay the short Ticks of the
+	// Scheduler (e.g. the Disconnect Detection). They run one after the other.
+	private final ExecutorService maintenance = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "maintenance");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@PreDestroy
+	public void shutdown() {
+		maintenance.shutdownNow();
+	}
+
+	@Scheduled(fixedDelayString = "${swa.scheduling.rate.in.seconds}", timeUnit = TimeUnit.SECONDS)
+	public void flushAccessPointHeartbeats() {
+		int lastConnected = accessPointService.flushHeartbeats();
+		log.info("Scheduled Flush of AccessPoint Heartbeats: {} changed", lastConnected);
+	}
+
+	@Scheduled(
+			fixedRateString = "${swa.scheduling.disconnect.tick.in.seconds:1}",
+			timeUnit = TimeUnit.SECONDS
+	)
+	public void checkConnections() {
+		disconnectDetector.expire(System.nanoTime());
+	}
 
 	@Scheduled(fixedDelayString = "${swa.scheduling.rate.in.seconds}", timeUnit = TimeUnit.SECONDS)
-	public void checkAccessPointConnections() {
-		int lastConnected = accessPointService.updateLastConnection();
-		log.info(
-				"Scheduled Check if AccessPoints are still connected: " + lastConnected
-				+ " changed\n"
-		);
+	public void evictRecentReadings() {
+		recentReadingsStore.evict();
+	}
+
+	/**
+	 * Roll up the Readings stored without Rollups once after Startup, in the Background so the
+	 * Application is available in the meantime.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillRollups() {
+		if (backfillRollups) maintenance.execute(sensorDataRollupService::backfill);
+	}
+
+	@Scheduled(cron = "${swa.archive.cron:0 30 3 * * *}")
+	public void archiveSensorData() {
+		maintenance.execute(sensorDataArchive::archive);
+	}
+
+	@Scheduled(cron = "${swa.retention.cron:0 0 4 * * *}")
+	public void applyRetention() {
+		maintenance.execute(retentionService::apply);
 	}
-}
\ No newline at end of file
+}
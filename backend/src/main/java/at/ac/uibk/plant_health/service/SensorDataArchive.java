@@ -0,0 +1,415 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.ArchivedReading;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+import at.ac.uibk.plant_health.util.BlockSegmentStore;
+import at.ac.uibk.plant_health.util.BlockSegmentStore.BlockRef;
+import at.ac.uibk.plant_health.util.GorillaBlock;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional Archive of historical SensorData (disabled unless {@code swa.archive.enabled}).
+ * <br/>
+ * Readings older than {@code swa.archive.after} are moved out of the Database into one
+ * compressed {@link GorillaBlock} per SensorStation, Sensor and Day, which is appended to a
+ * {@link BlockSegmentStore}. Queries for raw SensorData merge the archived Blocks with the
+ * Readings still in the Database. Archived Readings keep a Resolution of one Second.
+ */
+@Slf4j
+@Service
+public class SensorDataArchive {
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorRepository sensorRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${swa.archive.enabled:false}")
+	private boolean enabled;
+	@Value("${swa.archive.path:archive/}")
+	private String path;
+	@Value("${swa.archive.after:30d}")
+	private Duration after;
+	@Value("${swa.archive.segment-size:64MB}")
+	private DataSize segmentSize;
+
+	private static final long SECONDS_PER_DAY = Duration.ofDays(1).toSeconds();
+	private static final int DELETE_BATCH_SIZE = 1000;
+
+	private BlockSegmentStore store;
+	private final ConcurrentMap<UUID, List<BlockRef>> blocks = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, Sensor> sensors = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() throws IOException {
+		if (!enabled) return;
+		store = new BlockSegmentStore(Path.of(path), segmentSize.toBytes());
+		List<BlockRef> existing = store.open();
+		existing.forEach(this::index);
+		log.info("Opened Archive at {} with {} Blocks", path, existing.size());
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		if (store != null) store.close();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Archive all Readings older than {@code swa.archive.after}.
+	 *
+	 * @return The Number of archived Readings.
+	 */
+	public int archive() {
+		return archive(LocalDateTime.now().minus(after));
+	}
+
+	/**
+	 * Archive all Readings of the Days before the given Time. Only whole Days are archived, so
+	 * every Block is closed.
+	 *
+	 * @return The Number of archived Readings.
+	 */
+	public int archive(LocalDateTime before) {
+		if (!enabled) return 0;
+		LocalDateTime cutoff = before.truncatedTo(ChronoUnit.DAYS);
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		int archived = 0;
+		for (SensorDataRepository.Series series : sensorDataRepository.findSeriesBefore(cutoff)) {
+			archived += Objects.requireNonNull(transaction.execute(
+					status
+					-> archive(series.getSensorStationId(), series.getSensorId(), cutoff)
+			));
+		}
+		if (archived > 0) log.info("Archived {} Readings older than {}", archived, cutoff);
+		return archived;
+	}
+
+	private int archive(UUID sensorStationId, int sensorId, LocalDateTime cutoff) {
+		List<LocalDateTime> archived = new ArrayList<>();
+		try (Stream<ArchivedReading> readings =
+					 sensorDataRepository.streamBefore(sensorStationId, sensorId, cutoff)) {
+			GorillaBlock.Encoder block = null;
+			long day = 0;
+			long start = 0;
+			long end = 0;
+			for (ArchivedReading reading : (Iterable<ArchivedReading>) readings::iterator) {
+				long second = ReadingRingBuffer.toEpochSecond(reading.getTimeStamp());
+				if (block != null && Math.floorDiv(second, SECONDS_PER_DAY) != day) {
+					append(sensorStationId, sensorId, start, end, block);
+					block = null;
+				}
+				if (block == null) {
+					block = new GorillaBlock.Encoder();
+					day = Math.floorDiv(second, SECONDS_PER_DAY);
+					start = second;
+				}
+				block.add(second, reading.getValue(), toAlarm(reading.getAlarm()));
+				end = second;
+				archived.add(reading.getTimeStamp());
+			}
+			if (block != null) append(sensorStationId, sensorId, start, end, block);
+			// The Blocks have to be durable before their Rows are deleted.
+			store.sync();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		// Only the archived Rows are deleted, not Readings inserted in the meantime.
+		for (int i = 0; i < archived.size(); i += DELETE_BATCH_SIZE) {
+			sensorDataRepository.deleteReadings(
+					sensorStationId, sensorId,
+					archived.subList(i, Math.min(i + DELETE_BATCH_SIZE, archived.size()))
+			);
+		}
+		return archived.size();
+	}
+
+	private void append(
+			UUID sensorStationId, int sensorId, long start, long end, GorillaBlock.Encoder block
+	) throws IOException {
+		// If the Deletion fails, the Readings are both archived and in the Database for a while,
+		// which merge() tolerates.
+		index(store.append(
+				sensorStationId, sensorId, start, end, block.count(), block.toByteArray()
+		));
+	}
+
+	private void index(BlockRef block) {
+		blocks.computeIfAbsent(block.sensorStationId(), id -> new CopyOnWriteArrayList<>())
+				.add(block);
+	}
+
+	/**
+	 * Find the archived Readings of a SensorStation strictly between {@code from} and {@code to}.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The archived Readings (not stored in the Database), ordered by Block.
+	 */
+	public List<SensorData>
+	find(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		List<BlockRef> refs = blocks.get(sensorStation.getDeviceId());
+		if (!enabled || refs == null) return List.of();
+		long fromSecond = ReadingRingBuffer.toEpochSecond(from);
+		long toSecond = ReadingRingBuffer.toEpochSecond(to);
+		List<SensorData> found = new ArrayList<>();
+		for (BlockRef ref : refs) {
+			if (ref.overlaps(fromSecond, toSecond))
+				decode(sensorStation, ref, fromSecond, toSecond, found);
+		}
+		return found;
+	}
+
+	/**
+	 * Stream the archived Readings of a SensorStation strictly between {@code from} and
+	 * {@code to}. Only the Blocks of one Day are decoded at a Time.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The archived Readings, ordered by Time Stamp.
+	 */
+	public Stream<SensorData>
+	stream(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		List<BlockRef> refs = blocks.get(sensorStation.getDeviceId());
+		if (!enabled || refs == null) return Stream.empty();
+		long fromSecond = ReadingRingBuffer.toEpochSecond(from);
+		long toSecond = ReadingRingBuffer.toEpochSecond(to);
+		SortedMap<Long, List<BlockRef>> days = new TreeMap<>();
+		for (BlockRef ref : refs) {
+			if (!ref.overlaps(fromSecond, toSecond)) continue;
+			long day = Math.floorDiv(ref.start(), SECONDS_PER_DAY);
+			days.computeIfAbsent(day, d -> new ArrayList<>()).add(ref);
+		}
+		return days.values().stream().flatMap(day -> {
+			List<SensorData> found = new ArrayList<>();
+			for (BlockRef ref : day) decode(sensorStation, ref, fromSecond, toSecond, found);
+			// The Blocks of one Day hold different Sensors, so their Readings are interleaved.
+			found.sort(Comparator.comparing(SensorData::getTimeStamp));
+			return found.stream();
+		});
+	}
+
+	/**
+	 * Find the oldest archived Readings of one Sensor of a SensorStation strictly between
+	 * {@code after} and {@code to}. Only the Blocks up to the one holding the last Reading are
+	 * decoded.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @param after The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param limit The maximum Number of Readings.
+	 * @return The archived Readings, ordered by Time Stamp.
+	 */
+	public List<SensorData> findAfter(
+			SensorStation sensorStation, Integer sensorId, LocalDateTime after, LocalDateTime to,
+			int limit
+	) {
+		List<BlockRef> refs = blocks.get(sensorStation.getDeviceId());
+		if (!enabled || refs == null) return List.of();
+		long fromSecond = ReadingRingBuffer.toEpochSecond(after);
+		long toSecond = ReadingRingBuffer.toEpochSecond(to);
+		List<BlockRef> matching = new ArrayList<>();
+		for (BlockRef ref : refs) {
+			if (ref.sensorId() == sensorId && ref.overlaps(fromSecond, toSecond)) matching.add(ref);
+		}
+		matching.sort(Comparator.comparingLong(BlockRef::start));
+		List<SensorData> found = new ArrayList<>();
+		for (BlockRef ref : matching) {
+			if (found.size() >= limit) break;
+			decode(sensorStation, ref, fromSecond, toSecond, found);
+		}
+		// Archived Readings have a Resolution of one Second, the exclusive Start may lie within it.
+		found.removeIf(data -> !data.getTimeStamp().isAfter(after));
+		return found.size() > limit ? found.subList(0, limit) : found;
+	}
+
+	/**
+	 * Find the newest archived Reading of every Sensor of a SensorStation. Only the newest Block
+	 * of every Sensor is decoded.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param skippedSensorIds The IDs of the Sensors that still have Readings in the Database,
+	 *     which are newer than their archived ones.
+	 * @return The newest archived Readings (without SensorStation).
+	 */
+	public List<SensorData> findNewest(UUID sensorStationId, Set<Integer> skippedSensorIds) {
+		List<BlockRef> refs = blocks.get(sensorStationId);
+		if (!enabled || refs == null) return List.of();
+		Map<Integer, BlockRef> newest = new HashMap<>();
+		for (BlockRef ref : refs) {
+			if (skippedSensorIds.contains(ref.sensorId())) continue;
+			newest.merge(ref.sensorId(), ref, (a, b) -> a.end() < b.end() ? b : a);
+		}
+		List<SensorData> found = new ArrayList<>();
+		for (BlockRef ref : newest.values()) {
+			List<SensorData> readings = new ArrayList<>();
+			decode(null, ref, ref.start() - 1, ref.end() + 1, readings);
+			readings.stream()
+					.max(Comparator.comparing(SensorData::getTimeStamp))
+					.ifPresent(found::add);
+		}
+		return found;
+	}
+
+	/**
+	 * Merge archived and stored Readings, both ordered by Time Stamp, into one ordered Sequence.
+	 * A Reading that is both archived and in the Database (of the same Sensor within the same
+	 * Second) is only returned once.
+	 *
+	 * @param archived The archived Readings.
+	 * @param stored The Readings read from the Database.
+	 * @return The merged Readings, read lazily from both.
+	 */
+	public static Iterator<SensorData>
+	mergeOrdered(Iterator<SensorData> archived, Iterator<SensorData> stored) {
+		return new Iterator<>() {
+			private SensorData nextArchived = archived.hasNext() ? archived.next() : null;
+			private SensorData nextStored = stored.hasNext() ? stored.next() : null;
+			private SensorData next;
+			// Archived Readings come first within their Second.
+			private long second = Long.MIN_VALUE;
+			private final Set<Integer> archivedInSecond = new HashSet<>();
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && (nextArchived != null || nextStored != null)) {
+					SensorData data;
+					boolean isArchived = nextStored == null
+							|| (nextArchived != null
+								&& !nextArchived.getTimeStamp().isAfter(nextStored.getTimeStamp()));
+					if (isArchived) {
+						data = nextArchived;
+						nextArchived = archived.hasNext() ? archived.next() : null;
+					} else {
+						data = nextStored;
+						nextStored = stored.hasNext() ? stored.next() : null;
+					}
+
+					long epochSecond = ReadingRingBuffer.toEpochSecond(data.getTimeStamp());
+					if (epochSecond != second) {
+						second = epochSecond;
+						archivedInSecond.clear();
+					}
+					Integer sensorId = data.getSensor().getSensorId();
+					if (isArchived) archivedInSecond.add(sensorId);
+					else if (archivedInSecond.contains(sensorId)) continue;
+					next = data;
+				}
+				return next != null;
+			}
+
+			@Override
+			public SensorData next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				SensorData data = next;
+				next = null;
+				return data;
+			}
+		};
+	}
+
+	private void decode(
+			SensorStation sensorStation, BlockRef ref, long fromSecond, long toSecond,
+			List<SensorData> found
+	) {
+		Sensor sensor = sensors.computeIfAbsent(
+				ref.sensorId(), id -> sensorRepository.findById(id).orElseThrow()
+		);
+		GorillaBlock.Decoder decoder;
+		try {
+			decoder = new GorillaBlock.Decoder(store.read(ref), ref.count());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		while (decoder.next()) {
+			long second = decoder.epochSecond();
+			if (second <= fromSecond || second >= toSecond) continue;
+			found.add(new SensorData(
+					ReadingRingBuffer.toTimeStamp(second), decoder.value(),
+					String.valueOf((char) decoder.alarm()), sensor, sensorStation
+			));
+		}
+	}
+
+	/**
+	 * Merge the archived Readings of a SensorStation into the Readings read from the Database.
+	 * A Reading that is both archived and in the Database is only returned once.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param stored The Readings of the Window read from the Database.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return All Readings of the Window, ordered by Time Stamp.
+	 */
+	public List<SensorData> merge(
+			SensorStation sensorStation, List<SensorData> stored, LocalDateTime from,
+			LocalDateTime to
+	) {
+		List<SensorData> archived = find(sensorStation, from, to);
+		if (archived.isEmpty()) return stored;
+
+		record Key(Integer sensorId, long epochSecond) {}
+		Set<Key> seen = new HashSet<>();
+		for (SensorData data : stored) {
+			seen.add(new Key(
+					data.getSensor().getSensorId(),
+					ReadingRingBuffer.toEpochSecond(data.getTimeStamp())
+			));
+		}
+		List<SensorData> merged = new ArrayList<>(stored.size() + archived.size());
+		for (SensorData data : archived) {
+			Key key = new Key(
+					data.getSensor().getSensorId(),
+					ReadingRingBuffer.toEpochSecond(data.getTimeStamp())
+			);
+			if (seen.add(key)) merged.add(data);
+		}
+		merged.addAll(stored);
+		merged.sort(Comparator.comparing(SensorData::getTimeStamp));
+		return merged;
+	}
+
+	/**
+	 * @return The Number of archived Blocks.
+	 */
+	public int countBlocks() {
+		return blocks.values().stream().mapToInt(List::size).sum();
+	}
+
+	private static byte toAlarm(String alarm) {
+		return (byte) (alarm == null || alarm.isEmpty() ? 'n' : alarm.charAt(0));
+	}
+}
@@ -0,0 +1,274 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+
+/**
+ * Compact binary Encoding of a Transfer ({@value MEDIA_TYPE_VALUE}).
+ * <br/>
+ * The Readings are grouped per SensorStation and Sensor and stored column by column, so a
+ * Reading only costs a few Bytes instead of a whole JSON-Object:
+ * <pre>
+ * transfer := "PHSD" version:u8 stationCount:varint station*
+ * station  := bdAddress:utf connected:u8 dipSwitchId:varint sensorCount:varint series*
+ * series   := type:utf unit:utf base:i64 count:varint
+ *             delta:zigzag-varint[count]   (Seconds since the previous Reading or base)
+ *             value:f32[count]
+ *             alarm:u8[count]              ('n', 'l' or 'h')
+ * </pre>
+ * All Numbers are big-endian, {@code utf} is the Format of {@link DataOutput#writeUTF(String)}
+ * and {@code base} is the Time Stamp of the Readings in Seconds since 1970-01-01T00:00:00.
+ */
+@Service
+public class SensorDataBinaryCodec {
+	public static final String MEDIA_TYPE_VALUE = "application/vnd.plant-health.sensor-data";
+	public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+	private static final byte[] MAGIC = {'P', 'H', 'S', 'D'};
+	private static final int VERSION = 1;
+	// Upper Bound for Counts. A Count is also checked against the Bytes left in the Body and the
+	// Columns are grown while they are read, so a corrupt Count alone allocates nothing.
+	private static final int MAX_COUNT = 1 << 24;
+	// Smallest encoded Size of a SensorStation, a Series and a Reading.
+	private static final int MIN_STATION_SIZE = 5;
+	private static final int MIN_SERIES_SIZE = 13;
+	private static final int MIN_READING_SIZE = 6;
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * Read all SensorStations from the given Stream.
+	 * Only the Columns of one Series are held in Memory at a Time.
+	 *
+	 * @param in The Request Body.
+	 * @param handler The Handler that receives the SensorStations and their Data.
+	 * @return The Number of SensorStations that were read.
+	 * @throws ServiceException If the Body is not valid or the Handler rejected an Element.
+	 */
+	public int read(InputStream in, SensorStationStreamReader.Handler handler)
+			throws ServiceException {
+		return read(in, -1, handler);
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream of known Length.
+	 * Only the Columns of one Series are held in Memory at a Time.
+	 *
+	 * @param in The Request Body.
+	 * @param length The Content-Length of the Body (-1 if unknown).
+	 * @param handler The Handler that receives the SensorStations and their Data.
+	 * @return The Number of SensorStations that were read.
+	 * @throws ServiceException If the Body is not valid or the Handler rejected an Element.
+	 */
+	public int read(InputStream in, long length, SensorStationStreamReader.Handler handler)
+			throws ServiceException {
+		try {
+			Body body = new Body(new BufferedInputStream(in), length);
+			DataInputStream data = new DataInputStream(body);
+			byte[] magic = new byte[MAGIC.length];
+			data.readFully(magic);
+			if (!Arrays.equals(magic, MAGIC) || data.readUnsignedByte() != VERSION)
+				throw invalid();
+
+			int sensorStations = readCount(data, body, MIN_STATION_SIZE);
+			for (int i = 0; i < sensorStations; i++) readStation(data, body, handler);
+			if (data.read() != -1) throw invalid();
+			return sensorStations;
+		} catch (IOException | DateTimeException e) {
+			// Also thrown for Time Stamps outside of the Range of a LocalDateTime.
+			throw invalid();
+		}
+	}
+
+	private void readStation(
+			DataInputStream data, Body body, SensorStationStreamReader.Handler handler
+	) throws IOException, ServiceException {
+		SensorStation sensorStation = new SensorStation(data.readUTF(), 0);
+		sensorStation.setConnected(data.readUnsignedByte() != 0);
+		sensorStation.setDipSwitchId(readCount(data, body, 0));
+		handler.startStation(sensorStation);
+
+		int series = readCount(data, body, MIN_SERIES_SIZE);
+		for (int i = 0; i < series; i++) {
+			Sensor sensor = new Sensor(data.readUTF(), data.readUTF());
+			long time = data.readLong();
+			int count = readCount(data, body, MIN_READING_SIZE);
+
+			long[] timeStamps = new long[Math.min(count, INITIAL_CAPACITY)];
+			for (int j = 0; j < count; j++) {
+				time += readZigZag(data);
+				if (j == timeStamps.length)
+					timeStamps = Arrays.copyOf(timeStamps, Math.min(2 * j, count));
+				timeStamps[j] = time;
+			}
+			float[] values = new float[Math.min(count, INITIAL_CAPACITY)];
+			for (int j = 0; j < count; j++) {
+				if (j == values.length) values = Arrays.copyOf(values, Math.min(2 * j, count));
+				values[j] = data.readFloat();
+			}
+
+			for (int j = 0; j < count; j++) {
+				String alarm = alarm(data.readUnsignedByte());
+				handler.reading(new SensorData(
+						LocalDateTime.ofEpochSecond(timeStamps[j], 0, ZoneOffset.UTC), values[j],
+						alarm, sensor, null
+				));
+			}
+		}
+
+		sensorStation.setSensorData(new ArrayList<>());
+		handler.endStation(sensorStation);
+	}
+
+	/**
+	 * Encode the given SensorStations and their SensorData.
+	 *
+	 * @param sensorStations The SensorStations to encode.
+	 * @param out The Stream to write to.
+	 */
+	public void write(List<SensorStation> sensorStations, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.write(MAGIC);
+		data.writeByte(VERSION);
+		writeVarInt(data, sensorStations.size());
+
+		for (SensorStation sensorStation : sensorStations) {
+			data.writeUTF(sensorStation.getBdAddress());
+			data.writeByte(sensorStation.isConnected() ? 1 : 0);
+			writeVarInt(data, sensorStation.getDipSwitchId());
+
+			Map<String, List<SensorData>> series = new LinkedHashMap<>();
+			for (SensorData sensorData : sensorStation.getSensorData()) {
+				series.computeIfAbsent(sensorData.getSensor().getType(), t -> new ArrayList<>())
+						.add(sensorData);
+			}
+			writeVarInt(data, series.size());
+
+			for (List<SensorData> readings : series.values()) {
+				Sensor sensor = readings.get(0).getSensor();
+				data.writeUTF(sensor.getType());
+				data.writeUTF(sensor.getUnit() == null ? "" : sensor.getUnit());
+
+				long previous = readings.get(0).getTimeStamp().toEpochSecond(ZoneOffset.UTC);
+				data.writeLong(previous);
+				writeVarInt(data, readings.size());
+				for (SensorData reading : readings) {
+					long time = reading.getTimeStamp().toEpochSecond(ZoneOffset.UTC);
+					writeZigZag(data, time - previous);
+					previous = time;
+				}
+				for (SensorData reading : readings) data.writeFloat(reading.getValue());
+				for (SensorData reading : readings) data.writeByte(reading.getAlarm().charAt(0));
+			}
+		}
+		data.flush();
+	}
+
+	private static String alarm(int alarm) {
+		return switch (alarm) {
+			case 'n' -> "n";
+			case 'l' -> "l";
+			case 'h' -> "h";
+			default -> String.valueOf((char) alarm);
+		};
+	}
+
+	/**
+	 * Read a Count and check that the Rest of the Body can hold that many Elements.
+	 *
+	 * @param elementSize The smallest encoded Size of one Element (0 to not check it).
+	 */
+	private static int readCount(DataInputStream data, Body body, int elementSize)
+			throws IOException {
+		long count = readVarLong(data);
+		if (count < 0 || count > MAX_COUNT || count * elementSize > body.remaining())
+			throw invalid();
+		return (int) count;
+	}
+
+	private static long readZigZag(DataInputStream data) throws IOException {
+		long value = readVarLong(data);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static long readVarLong(DataInputStream data) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = data.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw invalid();
+	}
+
+	private static void writeZigZag(DataOutputStream data, long value) throws IOException {
+		writeVarLong(data, (value << 1) ^ (value >> 63));
+	}
+
+	private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+		writeVarLong(data, value & 0xFFFFFFFFL);
+	}
+
+	private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			data.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		data.writeByte((int) value);
+	}
+
+	private static ServiceException invalid() {
+		return new ServiceException("Invalid data", 400);
+	}
+
+	/**
+	 * The Request Body, counting the Bytes that have been read from it.
+	 */
+	private static class Body extends FilterInputStream {
+		private final long length;
+		private long position;
+
+		Body(InputStream in, long length) {
+			super(in);
+			this.length = length;
+		}
+
+		/**
+		 * @return The Number of Bytes left in the Body ({@link Long#MAX_VALUE} if unknown).
+		 */
+		long remaining() {
+			return length < 0 ? Long.MAX_VALUE : length - position;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) position++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) position += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			position += skipped;
+			return skipped;
+		}
+	}
+}
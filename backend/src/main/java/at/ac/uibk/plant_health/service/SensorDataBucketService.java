@@ -0,0 +1,278 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataBucket;
+import at.ac.uibk.plant_health.repositories.SensorDataBucketRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.Series;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Storage Mode that keeps the SensorData inside the Database, but packs all Readings of one Sensor
+ * of a SensorStation inside one Hour into a single {@link SensorDataBucket} Row.
+ * <br/>
+ * When {@code swa.buckets.enabled} is set, Readings are written to the Buckets instead of the
+ * sensor_data Table, so a Chart over a Day reads a few dozen Rows instead of thousands and the
+ * Indexes only hold one Entry per Hour and Sensor. The Rollups and the Recent Readings are kept
+ * exactly as before. Nothing is moved to the Archive, as it only reads the sensor_data Table.
+ * <br/>
+ * While the Buckets are enabled, every Reader only looks at the Buckets. Readings that are still
+ * stored as Rows (e.g. written before the Buckets were enabled) are therefore moved into their
+ * Buckets on Startup ({@code swa.buckets.migrate}), before any Request is accepted.
+ */
+@Slf4j
+@Service
+public class SensorDataBucketService {
+	@Autowired
+	private SensorDataBucketRepository sensorDataBucketRepository;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${swa.buckets.enabled:false}")
+	private boolean enabled;
+	@Value("${swa.buckets.migrate:true}")
+	private boolean migrate;
+
+	private static final int BUCKETS_PER_PAGE = 24;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Move all Readings that are stored as Rows into their Buckets.
+	 * Runs before the Web Server is started, so no Transfer can be written at the same Time.
+	 */
+	@PostConstruct
+	public void init() {
+		if (!enabled || !migrate) return;
+		long moved = 0;
+		for (Series series : sensorDataRepository.findSeriesRanges()) {
+			moved += migrate(series.getSensorStationId(), series.getSensorId());
+		}
+		if (moved > 0) log.info("Moved {} stored Readings into their Buckets", moved);
+	}
+
+	/**
+	 * Move the Readings of one Sensor of a SensorStation that are stored as Rows into their
+	 * Buckets, one Hour per Transaction. Readings that are already in their Bucket are only
+	 * deleted. Writes to the same SensorStation have to be serialized by the Caller.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @return The Number of Readings that were moved.
+	 */
+	public long migrate(UUID sensorStationId, Integer sensorId) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		long moved = 0;
+		while (true) {
+			Integer count = transaction.execute(status -> {
+				List<LocalDateTime> first = sensorDataRepository.findTimeStamps(
+						sensorStationId, sensorId, PageRequest.of(0, 1)
+				);
+				if (first.isEmpty()) return null;
+				LocalDateTime hour = SensorDataBucket.truncate(first.get(0));
+				List<SensorData> rows = sensorDataRepository.findInRange(
+						sensorStationId, sensorId, hour, hour.plus(SensorDataBucket.SPAN)
+				);
+				SensorStation sensorStation =
+						entityManager.getReference(SensorStation.class, sensorStationId);
+				int added = add(sensorStation, rows).size();
+				int deleted = sensorDataRepository.deleteReadings(
+						sensorStationId, sensorId,
+						rows.stream().map(SensorData::getTimeStamp).toList()
+				);
+				if (deleted == 0) {
+					log.warn("Could not move the Readings of Sensor {} of {}", sensorId, hour);
+					return null;
+				}
+				return added;
+			});
+			if (count == null) return moved;
+			moved += count;
+		}
+	}
+
+	/**
+	 * Add Readings of one SensorStation to their Buckets, ignoring Duplicates.
+	 * Writes to the same SensorStation have to be serialized by the Caller.
+	 *
+	 * @param sensorStation The SensorStation (a Reference is enough).
+	 * @param readings The Readings, with their Sensors set.
+	 * @return The Readings that were added.
+	 */
+	@Transactional
+	public List<SensorData> add(SensorStation sensorStation, Collection<SensorData> readings) {
+		if (readings.isEmpty()) return List.of();
+		LocalDateTime from = null;
+		LocalDateTime to = null;
+		for (SensorData data : readings) {
+			if (from == null || data.getTimeStamp().isBefore(from)) from = data.getTimeStamp();
+			if (to == null || data.getTimeStamp().isAfter(to)) to = data.getTimeStamp();
+		}
+
+		// The existing Buckets of all touched Hours are loaded with a single Query.
+		Map<Hour, SensorDataBucket> buckets = new HashMap<>();
+		List<SensorDataBucket> existing = sensorDataBucketRepository.findInWindow(
+				sensorStation.getDeviceId(), SensorDataBucket.truncate(from),
+				SensorDataBucket.truncate(to).plus(SensorDataBucket.SPAN)
+		);
+		for (SensorDataBucket bucket : existing) {
+			buckets.put(new Hour(bucket.getHourStart(), bucket.getSensor().getSensorId()), bucket);
+		}
+
+		List<SensorDataBucket> created = new ArrayList<>();
+		List<SensorData> added = new ArrayList<>(readings.size());
+		for (SensorData data : readings) {
+			Hour hour = new Hour(
+					SensorDataBucket.truncate(data.getTimeStamp()), data.getSensor().getSensorId()
+			);
+			SensorDataBucket bucket = buckets.computeIfAbsent(hour, h -> {
+				SensorDataBucket b =
+						new SensorDataBucket(sensorStation, data.getSensor(), h.start());
+				created.add(b);
+				return b;
+			});
+			if (bucket.add(data.getTimeStamp(), data.getValue(), data.getAlarm())) added.add(data);
+		}
+		// Changed Buckets are written when the Transaction commits.
+		sensorDataBucketRepository.saveAll(created);
+		return added;
+	}
+
+	/**
+	 * Find the SensorData of a SensorStation strictly between {@code from} and {@code to}.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The SensorData with their Sensors, ordered by Time Stamp.
+	 */
+	public List<SensorData>
+	find(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		List<SensorData> sensorData = new ArrayList<>();
+		List<SensorDataBucket> buckets = sensorDataBucketRepository.findInWindow(
+				sensorStation.getDeviceId(), SensorDataBucket.truncate(from), to
+		);
+		for (SensorDataBucket bucket : buckets) sensorData.addAll(bucket.getReadings(from, to));
+		// The Buckets of one Hour hold different Sensors, so their Readings are interleaved.
+		sensorData.sort(Comparator.comparing(SensorData::getTimeStamp));
+		return sensorData;
+	}
+
+	/**
+	 * Find the oldest SensorData of one Sensor of a SensorStation strictly between {@code after}
+	 * and {@code to}. Only the Buckets up to the one holding the last Reading are read.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @param after The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param limit The maximum Number of Readings.
+	 * @return The SensorData with their Sensors, ordered by Time Stamp.
+	 */
+	public List<SensorData> findAfter(
+			SensorStation sensorStation, Integer sensorId, LocalDateTime after, LocalDateTime to,
+			int limit
+	) {
+		List<SensorData> sensorData = new ArrayList<>();
+		LocalDateTime hour = SensorDataBucket.truncate(after);
+		while (sensorData.size() < limit) {
+			List<SensorDataBucket> buckets = sensorDataBucketRepository.findPage(
+					sensorStation.getDeviceId(), sensorId, hour, to,
+					PageRequest.of(0, BUCKETS_PER_PAGE)
+			);
+			for (SensorDataBucket bucket : buckets) {
+				if (sensorData.size() >= limit) break;
+				sensorData.addAll(bucket.getReadings(after, to));
+			}
+			if (buckets.size() < BUCKETS_PER_PAGE) break;
+			hour = buckets.get(buckets.size() - 1).getHourStart().plus(SensorDataBucket.SPAN);
+		}
+		return sensorData.size() > limit ? sensorData.subList(0, limit) : sensorData;
+	}
+
+	/**
+	 * Stream the SensorData of a SensorStation strictly between {@code from} and {@code to}.
+	 * Only the Buckets of one Hour are held at a Time, they are detached once they are unpacked.
+	 * Has to be consumed inside a Transaction.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The SensorData with their Sensors, ordered by Time Stamp.
+	 */
+	public Stream<SensorData>
+	stream(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		Stream<SensorDataBucket> buckets = sensorDataBucketRepository.streamInWindow(
+				sensorStation.getDeviceId(), SensorDataBucket.truncate(from), to
+		);
+		Iterator<SensorDataBucket> source = buckets.iterator();
+		Iterator<SensorData> readings = new Iterator<>() {
+			private SensorDataBucket next = source.hasNext() ? source.next() : null;
+			private Iterator<SensorData> hour = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!hour.hasNext() && next != null) {
+					LocalDateTime start = next.getHourStart();
+					List<SensorData> sensorData = new ArrayList<>();
+					while (next != null && next.getHourStart().equals(start)) {
+						sensorData.addAll(next.getReadings(from, to));
+						entityManager.detach(next);
+						next = source.hasNext() ? source.next() : null;
+					}
+					// The Buckets of one Hour hold different Sensors, so their Readings are
+					// interleaved.
+					sensorData.sort(Comparator.comparing(SensorData::getTimeStamp));
+					hour = sensorData.iterator();
+				}
+				return hour.hasNext();
+			}
+
+			@Override
+			public SensorData next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return hour.next();
+			}
+		};
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(readings, Spliterator.ORDERED), false)
+				.onClose(buckets::close);
+	}
+
+	/**
+	 * Stream the SensorData of all SensorStations newer than {@code from}.
+	 * Has to be consumed inside a Transaction.
+	 *
+	 * @return The SensorData with their Sensors and SensorStations (References) set.
+	 */
+	public Stream<SensorData> streamRecent(LocalDateTime from) {
+		LocalDateTime to = LocalDateTime.MAX;
+		return sensorDataBucketRepository.streamFrom(SensorDataBucket.truncate(from))
+				.flatMap(bucket -> bucket.getReadings(from, to).stream());
+	}
+
+	private record Hour(LocalDateTime start, Integer sensorId) {}
+}
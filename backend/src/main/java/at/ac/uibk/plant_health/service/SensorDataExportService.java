@@ -0,0 +1,249 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk Export of the raw SensorData of a SensorStation as NDJSON or CSV.
+ * <br/>
+ * The Readings are read from forward-only Cursors (the sensor_data Rows or the Buckets, merged
+ * with the Archive) and written Line by Line, so the Memory needed does not depend on the Length
+ * of the Window. The Throughput is published as the Counter {@code swa.export.rows} and the Timer
+ * {@code swa.export.duration}.
+ */
+@Slf4j
+@Service
+public class SensorDataExportService {
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorRepository sensorRepository;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static final DateTimeFormatter TIME_STAMP =
+			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private TransactionTemplate readOnly;
+
+	/**
+	 * The Formats SensorData can be exported in.
+	 */
+	@Getter
+	public enum Format {
+		NDJSON("application/x-ndjson", "ndjson"),
+		CSV("text/csv", "csv");
+
+		private final String contentType;
+		private final String extension;
+
+		Format(String contentType, String extension) {
+			this.contentType = contentType;
+			this.extension = extension;
+		}
+
+		/**
+		 * @throws ServiceException If the Format is unknown.
+		 */
+		public static Format parse(String format) throws ServiceException {
+			try {
+				return valueOf(format.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new ServiceException("Unknown format " + format, 400);
+			}
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+		this.readOnly = new TransactionTemplate(transactionManager);
+		this.readOnly.setReadOnly(true);
+	}
+
+	/**
+	 * Write the SensorData of a SensorStation strictly between {@code from} and {@code to}.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param from The exclusive Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @param format The Format to write.
+	 * @param out The Stream to write to, it is flushed but not closed.
+	 * @return The Number of exported Readings.
+	 * @throws IOException If the Stream can not be written (e.g. the Client went away).
+	 */
+	public long export(
+			SensorStation sensorStation, LocalDateTime from, LocalDateTime to, Format format,
+			OutputStream out
+	) throws IOException {
+		long start = System.nanoTime();
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE
+		);
+		long rows;
+		try {
+			rows = Objects.requireNonNull(readOnly.execute(status -> {
+				try (Stream<SensorData> archived =
+							 sensorDataArchive.stream(sensorStation, from, to);
+					 Stream<SensorData> stored = stream(sensorStation, from, to)) {
+					return write(archived.iterator(), stored.iterator(), format, writer);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+
+		Duration duration = Duration.ofNanos(System.nanoTime() - start);
+		Counter.builder("swa.export.rows")
+				.description("Readings written by Exports")
+				.tag("format", format.getExtension())
+				.register(meterRegistry)
+				.increment(rows);
+		Timer.builder("swa.export.duration")
+				.description("Duration of Exports")
+				.tag("format", format.getExtension())
+				.register(meterRegistry)
+				.record(duration);
+		log.info(
+				"Exported {} Readings of {} in {} ms ({} Readings/s)", rows,
+				sensorStation.getDeviceId(), duration.toMillis(),
+				rows * 1_000_000_000L / Math.max(1, duration.toNanos())
+		);
+		return rows;
+	}
+
+	/**
+	 * Stream the SensorData stored in the Database (not the Archive).
+	 */
+	private Stream<SensorData>
+	stream(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		if (sensorDataBucketService.isEnabled())
+			return sensorDataBucketService.stream(sensorStation, from, to);
+		Map<Integer, Sensor> sensors = new HashMap<>();
+		sensorRepository.findAll().forEach(s -> sensors.put(s.getSensorId(), s));
+		return sensorDataRepository.streamInWindow(sensorStation.getDeviceId(), from, to)
+				.map(reading -> {
+					// Sensors created since the Sensors were read are looked up once.
+					Sensor sensor = sensors.computeIfAbsent(
+							reading.getSensorId(),
+							id -> sensorRepository.findById(id).orElseThrow()
+					);
+					return new SensorData(
+							reading.getTimeStamp(), reading.getValue(), reading.getAlarm(), sensor,
+							sensorStation
+					);
+				});
+	}
+
+	/**
+	 * Merge the archived and the stored Readings (both ordered by Time Stamp) and write them.
+	 */
+	private static long write(
+			Iterator<SensorData> archived, Iterator<SensorData> stored, Format format,
+			Writer writer
+	) throws IOException {
+		if (format == Format.CSV) writer.write("timeStamp,sensorType,sensorUnit,value,alarm\n");
+		long rows = 0;
+		for (Iterator<SensorData> it = SensorDataArchive.mergeOrdered(archived, stored);
+			 it.hasNext();) {
+			SensorData data = it.next();
+			if (format == Format.CSV) writeCsv(data, writer);
+			else writeJson(data, writer);
+			rows++;
+		}
+		return rows;
+	}
+
+	private static void writeJson(SensorData data, Writer writer) throws IOException {
+		writer.write("{\"timeStamp\":\"");
+		writer.write(TIME_STAMP.format(data.getTimeStamp()));
+		writer.write("\",\"sensorType\":");
+		writeJsonString(data.getSensor().getType(), writer);
+		writer.write(",\"sensorUnit\":");
+		writeJsonString(data.getSensor().getUnit(), writer);
+		writer.write(",\"value\":");
+		// NaN and Infinity are not valid JSON Numbers.
+		float value = data.getValue();
+		writer.write(Float.isFinite(value) ? Float.toString(value) : "null");
+		writer.write(",\"alarm\":");
+		writeJsonString(data.getAlarm(), writer);
+		writer.write("}\n");
+	}
+
+	private static void writeJsonString(String value, Writer writer) throws IOException {
+		if (value == null) {
+			writer.write("null");
+			return;
+		}
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+		writer.write('"');
+	}
+
+	private static void writeCsv(SensorData data, Writer writer) throws IOException {
+		writer.write(TIME_STAMP.format(data.getTimeStamp()));
+		writer.write(',');
+		writeCsvField(data.getSensor().getType(), writer);
+		writer.write(',');
+		writeCsvField(data.getSensor().getUnit(), writer);
+		writer.write(',');
+		writer.write(Float.toString(data.getValue()));
+		writer.write(',');
+		writeCsvField(data.getAlarm(), writer);
+		writer.write('\n');
+	}
+
+	private static void writeCsvField(String value, Writer writer) throws IOException {
+		if (value == null) return;
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+			&& value.indexOf('\r') < 0) {
+			writer.write(value);
+			return;
+		}
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+}
@@ -0,0 +1,263 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded In-Process Queue for SensorData sent by AccessPoints.
+ * <br/>
+ * When enabled ({@code swa.ingest.async.enabled}), {@code /transfer-data} only validates the
+ * Payload and its SensorStations and appends it to this Queue. A Pool of Writer Threads drains
+ * the Queue in Batches and writes them using the {@link SensorDataIngestService}, so a slow
+ * Database no longer blocks the Request Threads. If the Queue is full, the Payload is rejected
+ * and the AccessPoint has to retry.
+ */
+@Slf4j
+@Service
+public class SensorDataIngestQueue {
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private TransferBatchCache transferBatchCache;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${swa.ingest.async.enabled:false}")
+	private boolean enabled;
+	@Value("${swa.ingest.async.capacity:1000}")
+	private int capacity;
+	@Value("${swa.ingest.async.writers:2}")
+	private int writers;
+	@Value("${swa.ingest.async.drain-size:20}")
+	private int drainSize;
+	@Value("${swa.ingest.async.retry-after:5}")
+	private int retryAfterSeconds;
+
+	private record IngestJob(
+			UUID accessPointId, String batchId, List<SensorStation> sensorStations, int readings,
+			long enqueued
+	) {}
+
+	private BlockingQueue<IngestJob> queue;
+	private ExecutorService writerPool;
+	private volatile boolean running;
+
+	private Timer drainLatency;
+	private Timer writeDuration;
+	private Counter rejected;
+	private Counter failed;
+
+	@PostConstruct
+	public void init() {
+		if (!enabled) return;
+
+		this.queue = new ArrayBlockingQueue<>(capacity);
+
+		Gauge.builder("swa.ingest.queue.depth", queue, BlockingQueue::size)
+				.description("Number of Transfers waiting to be written")
+				.register(meterRegistry);
+		Gauge.builder("swa.ingest.queue.capacity", queue, q -> capacity)
+				.description("Maximum Number of queued Transfers")
+				.register(meterRegistry);
+		this.drainLatency = Timer.builder("swa.ingest.queue.latency")
+									.description("Time until an accepted Transfer is stored")
+									.register(meterRegistry);
+		this.writeDuration = Timer.builder("swa.ingest.queue.drain")
+									 .description("Time needed to write one drained Batch")
+									 .register(meterRegistry);
+		this.rejected = Counter.builder("swa.ingest.queue.rejected")
+								.description("Transfers rejected because the Queue was full")
+								.register(meterRegistry);
+		this.failed = Counter.builder("swa.ingest.queue.failed")
+							  .description("Transfers that could not be written")
+							  .register(meterRegistry);
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.running = true;
+		this.writerPool = Executors.newFixedThreadPool(writers, r -> {
+			Thread thread = new Thread(r, "ingest-writer-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < writers; i++) writerPool.submit(this::drain);
+
+		log.info("Started asynchronous Ingest with Capacity {} and {} Writers", capacity, writers);
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		if (!enabled) return;
+
+		// Let the Writers empty the Queue before the Database goes away.
+		this.running = false;
+		writerPool.shutdown();
+		if (!writerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+			log.warn("Dropping {} queued Transfers on Shutdown", queue.size());
+			writerPool.shutdownNow();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public int getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	public int size() {
+		return enabled ? queue.size() : 0;
+	}
+
+	/**
+	 * Validate the Payload and its SensorStations and append it to the Queue.
+	 * <br/>
+	 * The Batch (if any) is completed in the {@link TransferBatchCache} once the Payload has been
+	 * written and aborted if it could not be written, so the AccessPoint can send it again.
+	 *
+	 * @param accessPoint The AccessPoint that sent the Data.
+	 * @param sensorStations The SensorStations (identified by their bdAddress) and their Data.
+	 * @param batchId The Id the AccessPoint assigned to the Transfer (may be null).
+	 * @return The Number of queued SensorData or -1 if the Queue is full.
+	 * @throws ServiceException If the Payload is invalid or a SensorStation could not be found or
+	 *     is locked (like the synchronous Ingest, before anything is accepted).
+	 */
+	public int
+	offer(AccessPoint accessPoint, List<SensorStation> sensorStations, String batchId)
+			throws ServiceException {
+		Map<String, SensorStationRef> refs = resolve(accessPoint, sensorStations);
+		int readings = 0;
+		for (SensorStation sensorStation : sensorStations) {
+			SensorStationRef ref = refs.get(sensorStation.getBdAddress());
+			if (ref == null) throw new ServiceException("Could not find SensorStation", 404);
+			if (!ref.isUnlocked()) throw new ServiceException("SensorStation is locked", 409);
+			List<SensorData> dataList = sensorStation.getSensorData();
+			if (dataList == null) throw new ServiceException("Invalid data", 400);
+			for (SensorData data : dataList) {
+				if (data.getSensor() == null || data.getSensor().getType() == null)
+					throw new ServiceException("Invalid data", 400);
+			}
+			readings += dataList.size();
+		}
+
+		IngestJob job = new IngestJob(
+				accessPoint.getDeviceId(), batchId, sensorStations, readings, System.nanoTime()
+		);
+		if (!queue.offer(job)) {
+			rejected.increment();
+			return -1;
+		}
+		return readings;
+	}
+
+	/**
+	 * Look up the SensorStations of the Payload: the ones of the AccessPoint with one Query, the
+	 * others (e.g. moved to another AccessPoint) by their bdAddress.
+	 *
+	 * @return The found SensorStations by their bdAddress.
+	 */
+	private Map<String, SensorStationRef>
+	resolve(AccessPoint accessPoint, List<SensorStation> sensorStations) {
+		Map<String, SensorStationRef> refs = new HashMap<>();
+		if (sensorStations.isEmpty()) return refs;
+		sensorStationRepository.findRefsByAccessPointId(accessPoint.getDeviceId())
+				.forEach(ref -> refs.put(ref.getBdAddress(), ref));
+		Set<String> missing = new HashSet<>();
+		for (SensorStation sensorStation : sensorStations) {
+			String bdAddress = sensorStation.getBdAddress();
+			if (bdAddress != null && !refs.containsKey(bdAddress)) missing.add(bdAddress);
+		}
+		if (!missing.isEmpty()) {
+			sensorStationRepository.findRefsByBdAddressIn(missing).forEach(
+					ref -> refs.put(ref.getBdAddress(), ref)
+			);
+		}
+		return refs;
+	}
+
+	private void drain() {
+		List<IngestJob> batch = new ArrayList<>(drainSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				IngestJob first = queue.poll(500, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+				batch.add(first);
+				queue.drainTo(batch, drainSize - 1);
+				write(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void write(List<IngestJob> batch) {
+		long start = System.nanoTime();
+		try {
+			List<SensorStation> sensorStations = new ArrayList<>();
+			for (IngestJob job : batch) sensorStations.addAll(job.sensorStations());
+			sensorDataIngestService.ingest(sensorStations);
+			batch.forEach(this::complete);
+		} catch (Exception e) {
+			// One bad Transfer (e.g. a locked SensorStation) must not discard the whole Batch.
+			if (batch.size() > 1) {
+				batch.forEach(this::writeSingle);
+			} else {
+				fail(batch.get(0), e);
+			}
+		}
+		writeDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		long now = System.nanoTime();
+		batch.forEach(job -> drainLatency.record(now - job.enqueued(), TimeUnit.NANOSECONDS));
+	}
+
+	private void writeSingle(IngestJob job) {
+		try {
+			sensorDataIngestService.ingest(job.sensorStations());
+			complete(job);
+		} catch (Exception e) {
+			fail(job, e);
+		}
+	}
+
+	private void complete(IngestJob job) {
+		if (job.batchId() != null)
+			transferBatchCache.complete(job.accessPointId(), job.batchId(), job.readings());
+	}
+
+	private void fail(IngestJob job, Exception e) {
+		failed.increment();
+		if (job.batchId() != null) transferBatchCache.abort(job.accessPointId(), job.batchId());
+		log.warn(
+				"Could not write queued SensorData of AccessPoint {}: {}", job.accessPointId(),
+				e.getMessage()
+		);
+	}
+}
@@ -0,0 +1,427 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRef;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for writing the SensorData sent by an AccessPoint to the Database.
+ * <br/>
+ * The Transfer is read on the calling Thread and cut into Chunks of {@code swa.ingest.batch-size}
+ * Readings per SensorStation. The Chunks are written by a bounded Pool of Writer Threads
+ * ({@code swa.ingest.parallel.threads}), each in its own Transaction using JDBC Batch Inserts, so
+ * the SensorStations of a Transfer are written in parallel. The Chunks of one SensorStation are
+ * written in Order, and Writes of concurrent Transfers to the same SensorStation are serialized
+ * by the {@link SensorStationLocks}. Readings that have already been stored are skipped, so a Transfer that
+ * failed halfway can safely be resent.
+ */
+@Slf4j
+@Service
+public class SensorDataIngestService {
+	@PersistenceContext
+	private EntityManager entityManager;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private SensorStationLocks sensorStationLocks;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private RetentionService retentionService;
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
+	@Autowired
+	private DisconnectDetector disconnectDetector;
+	@Autowired
+	private DashboardCache dashboardCache;
+	@Autowired
+	private SensorStationStreamReader sensorStationStreamReader;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${swa.ingest.batch-size:50}")
+	private int batchSize;
+	@Value("${swa.ingest.parallel.threads:4}")
+	private int threads;
+
+	private ExecutorService writerPool;
+	private TransactionTemplate transaction;
+
+	@PostConstruct
+	public void init() {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.writerPool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "ingest-station-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.transaction = new TransactionTemplate(transactionManager);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		writerPool.shutdown();
+	}
+
+	/**
+	 * Write the SensorData of all given SensorStations.
+	 * All SensorStations and their Data are validated before anything is written, so nothing is
+	 * written for a rejected Request.
+	 *
+	 * @param sensorStations The SensorStations (identified by their bdAddress) and their Data.
+	 * @return The Number of SensorData Rows that were written.
+	 * @throws ServiceException If the Data is invalid or a SensorStation could not be found or is
+	 *     locked.
+	 */
+	public int ingest(List<SensorStation> sensorStations) throws ServiceException {
+		Set<String> bdAddresses = new HashSet<>();
+		for (SensorStation sensorStation : sensorStations) {
+			if (sensorStation.getBdAddress() != null) bdAddresses.add(sensorStation.getBdAddress());
+		}
+		BatchWriter writer = new BatchWriter();
+		try {
+			if (!bdAddresses.isEmpty())
+				writer.resolved(sensorStationRepository.findRefsByBdAddressIn(bdAddresses));
+			for (SensorStation sensorStation : sensorStations) {
+				writer.lookUp(sensorStation.getBdAddress());
+				if (sensorStation.getSensorData() == null)
+					throw new ServiceException("Invalid data", 400);
+				for (SensorData data : sensorStation.getSensorData()) writer.check(data);
+			}
+			for (SensorStation sensorStation : sensorStations) {
+				writer.startStation(sensorStation);
+				for (SensorData data : sensorStation.getSensorData()) writer.reading(data);
+				writer.endStation(sensorStation);
+			}
+		} catch (RuntimeException e) {
+			writer.abort(e);
+		}
+		return writer.finish(sensorStations.size());
+	}
+
+	/**
+	 * Write the SensorData read from the given Request Body.
+	 * The Body is parsed while it is written, so it is never held in Memory as a whole.
+	 * <br/>
+	 * Unlike {@link #ingest(List)}, a SensorStation is only checked once it is reached in the
+	 * Body, so the Chunks of the SensorStations before a rejected one may already be committed.
+	 * They are skipped as Duplicates when the AccessPoint sends the Transfer again.
+	 *
+	 * @param in The Request Body (SensorStations with their Data).
+	 * @param contentType The Content-Type of the Body (JSON or the binary Format).
+	 * @param contentLength The Content-Length of the Body (-1 if unknown).
+	 * @param accessPoint The AccessPoint that sent the Body, its SensorStations are resolved with
+	 *     one Query up front (may be null).
+	 * @return The Number of SensorData Rows that were written.
+	 * @throws ServiceException If the Body is invalid or a SensorStation could not be found or is
+	 *     locked.
+	 */
+	public int
+	ingest(InputStream in, String contentType, long contentLength, AccessPoint accessPoint)
+			throws ServiceException {
+		BatchWriter writer = new BatchWriter();
+		int sensorStations = 0;
+		try {
+			// NOTE: The SensorStations of a Stream are only known once they have been read, but an
+			//       AccessPoint only sends Data of its own SensorStations.
+			if (accessPoint != null) {
+				UUID accessPointId = accessPoint.getDeviceId();
+				writer.resolved(sensorStationRepository.findRefsByAccessPointId(accessPointId));
+			}
+			sensorStations =
+					sensorStationStreamReader.read(in, contentType, contentLength, writer);
+		} catch (RuntimeException e) {
+			writer.abort(e);
+		}
+		return writer.finish(sensorStations);
+	}
+
+	/**
+	 * Hands the SensorData of one Transfer to the Writer Threads in Chunks.
+	 * Every SensorStation has its own Chain of Tasks, so its Chunks are written in Order while
+	 * different SensorStations are written in parallel. At most two Chunks per Writer Thread are
+	 * pending at a Time, so a large Transfer can not fill the Memory faster than it is written.
+	 * SensorStations are looked up as {@link SensorStationRef}s, the full Entity is never loaded.
+	 */
+	private class BatchWriter implements SensorStationStreamReader.Handler {
+		private final Map<String, SensorStationRef> sensorStations = new HashMap<>();
+		private final Map<UUID, CompletableFuture<Void>> chains = new HashMap<>();
+		// The last connected State written per SensorStation, the Refs only hold the one read
+		// before the Transfer.
+		private final Map<UUID, Boolean> connectedStates = new HashMap<>();
+		private final Semaphore pending = new Semaphore(2 * threads);
+		private final AtomicInteger written = new AtomicInteger();
+		private final AtomicInteger skipped = new AtomicInteger();
+		private final AtomicInteger batches = new AtomicInteger();
+		private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+		private List<SensorData> chunk = new ArrayList<>(batchSize);
+		private SensorStationRef current;
+		private CompletableFuture<Void> chain;
+
+		private void resolved(List<SensorStationRef> refs) {
+			refs.forEach(ref -> sensorStations.put(ref.getBdAddress(), ref));
+		}
+
+		/**
+		 * Find the SensorStation with the given bdAddress and check that it may send Data.
+		 */
+		private SensorStationRef lookUp(String bdAddress) throws ServiceException {
+			if (bdAddress == null) throw new ServiceException("Could not find SensorStation", 404);
+			SensorStationRef ref = sensorStations.get(bdAddress);
+			if (ref == null) {
+				// Not resolved up front (e.g. a SensorStation that moved to another AccessPoint).
+				List<SensorStationRef> refs =
+						sensorStationRepository.findRefsByBdAddressIn(List.of(bdAddress));
+				if (refs.isEmpty()) throw new ServiceException("Could not find SensorStation", 404);
+				ref = refs.get(0);
+				sensorStations.put(bdAddress, ref);
+			}
+			if (!ref.isUnlocked()) throw new ServiceException("SensorStation is locked", 409);
+			return ref;
+		}
+
+		private void check(SensorData data) throws ServiceException {
+			if (data.getTimeStamp() == null || data.getSensor() == null)
+				throw new ServiceException("Invalid data", 400);
+		}
+
+		@Override
+		public void startStation(SensorStation sensorStation) throws ServiceException {
+			current = lookUp(sensorStation.getBdAddress());
+			// A SensorStation that is sent twice continues its previous Chain.
+			chain = chains.getOrDefault(
+					current.getDeviceId(), CompletableFuture.completedFuture(null)
+			);
+		}
+
+		@Override
+		public void reading(SensorData data) throws ServiceException {
+			check(data);
+			data.setSensor(sensorTypeRegistry.getOrCreate(data.getSensor()));
+			chunk.add(data);
+			if (chunk.size() >= batchSize) submitChunk();
+		}
+
+		@Override
+		public void endStation(SensorStation sensorStation) throws ServiceException {
+			if (sensorStation.getSensorData() == null)
+				throw new ServiceException("Invalid data", 400);
+			submitChunk();
+
+			SensorStationRef ref = current;
+			boolean connected = sensorStation.isConnected();
+			if (connected) {
+				disconnectDetector.sensorStationHeartbeat(
+						ref.getDeviceId(), ref.getTransferInterval()
+				);
+			} else {
+				disconnectDetector.sensorStationDisconnected(ref.getDeviceId());
+			}
+			UUID deviceId = ref.getDeviceId();
+			Boolean previous = connectedStates.put(deviceId, connected);
+			if ((previous == null ? ref.isConnected() : previous) != connected) {
+				submit(() -> {
+					sensorStationRepository.updateIsConnected(deviceId, connected);
+					dashboardCache.sensorStationChanged(deviceId);
+					dashboardCache.inventoryChanged();
+				});
+			}
+		}
+
+		private void submitChunk() {
+			if (chunk.isEmpty()) return;
+			List<SensorData> readings = chunk;
+			chunk = new ArrayList<>(batchSize);
+			SensorStationRef ref = current;
+			submit(() -> {
+				List<SensorData> inserted =
+						transaction.execute(status -> writeChunk(ref, readings));
+				// Only committed Readings are put into Memory.
+				recentReadingsStore.add(ref.getDeviceId(), inserted);
+				if (!inserted.isEmpty()) dashboardCache.sensorStationChanged(ref.getDeviceId());
+			});
+		}
+
+		/**
+		 * Append a Task to the Chain of the current SensorStation.
+		 * The Task holds the Lock of the SensorStation while it runs.
+		 */
+		private void submit(Runnable task) {
+			try {
+				pending.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ServiceException("Could not set SensorStation data.", 500);
+			}
+			Lock lock = sensorStationLocks.get(current.getDeviceId());
+			chain = chain.thenRunAsync(() -> {
+				try {
+					// A failed Task only skips the remaining Tasks, it never completes the Chain
+					// exceptionally, so every Permit is released.
+					if (failure.get() != null) return;
+					lock.lock();
+					try {
+						task.run();
+					} finally {
+						lock.unlock();
+					}
+				} catch (RuntimeException e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					pending.release();
+				}
+			}, writerPool);
+			chains.put(current.getDeviceId(), chain);
+		}
+
+		/**
+		 * Store the given Readings of one SensorStation (as Rows or in Buckets, see
+		 * {@link SensorDataBucketService}), ignoring Duplicates, and add them to the Rollups.
+		 *
+		 * @return The Readings that were inserted.
+		 */
+		private List<SensorData> writeChunk(SensorStationRef ref, List<SensorData> readings) {
+			// A Proxy is enough to set the Foreign Key, it is only initialised on Access.
+			SensorStation reference =
+					entityManager.getReference(SensorStation.class, ref.getDeviceId());
+			List<SensorData> retained = withoutRetired(reference, readings);
+			List<SensorData> inserted = sensorDataBucketService.isEnabled()
+					? sensorDataBucketService.add(reference, retained)
+					: insertRows(reference, retained);
+			skipped.addAndGet(readings.size() - inserted.size());
+
+			if (!inserted.isEmpty()) {
+				// Same Transaction and Lock, so the Rollups always match the stored Readings.
+				sensorDataRollupService.add(reference, inserted);
+				written.addAndGet(inserted.size());
+				batches.incrementAndGet();
+			}
+			return inserted;
+		}
+
+		/**
+		 * Drop the Readings that have already been moved to the {@link SensorDataArchive} or
+		 * removed by the {@link RetentionService}. They are no longer in the Database, but still
+		 * part of the Rollups, so they must not be stored again.
+		 */
+		private List<SensorData>
+		withoutRetired(SensorStation reference, List<SensorData> readings) {
+			LocalDateTime cutoff = retentionService.getRawReadingsCutoff();
+			LocalDateTime from = readings.get(0).getTimeStamp();
+			LocalDateTime to = from;
+			for (SensorData data : readings) {
+				if (data.getTimeStamp().isBefore(from)) from = data.getTimeStamp();
+				if (data.getTimeStamp().isAfter(to)) to = data.getTimeStamp();
+			}
+			// Only Blocks overlapping the Chunk are decoded, which is none for recent Readings.
+			List<SensorData> archived =
+					sensorDataArchive.find(reference, from.minusSeconds(1), to.plusSeconds(1));
+			if (archived.isEmpty() && (cutoff == null || !from.isBefore(cutoff))) return readings;
+
+			// Archived Readings have a Resolution of one Second.
+			Set<Key> keys = new HashSet<>();
+			for (SensorData data : archived) {
+				keys.add(new Key(data.getSensor().getSensorId(), data.getTimeStamp()));
+			}
+			List<SensorData> retained = new ArrayList<>(readings.size());
+			for (SensorData data : readings) {
+				if (cutoff != null && data.getTimeStamp().isBefore(cutoff)) continue;
+				LocalDateTime second = data.getTimeStamp().truncatedTo(ChronoUnit.SECONDS);
+				if (keys.contains(new Key(data.getSensor().getSensorId(), second))) continue;
+				retained.add(data);
+			}
+			return retained;
+		}
+
+		/**
+		 * Insert the given Readings into the sensor_data Table, skipping those that are already
+		 * stored. The existing Keys are loaded with a single Query.
+		 */
+		private List<SensorData> insertRows(SensorStation reference, List<SensorData> readings) {
+			if (readings.isEmpty()) return List.of();
+			LocalDateTime from = readings.get(0).getTimeStamp();
+			LocalDateTime to = from;
+			for (SensorData data : readings) {
+				if (data.getTimeStamp().isBefore(from)) from = data.getTimeStamp();
+				if (data.getTimeStamp().isAfter(to)) to = data.getTimeStamp();
+			}
+			Set<Key> keys = new HashSet<>();
+			sensorDataRepository.findReadingKeys(reference.getDeviceId(), from, to)
+					.forEach(k -> keys.add(new Key(k.getSensorId(), k.getTimeStamp())));
+
+			List<SensorData> inserted = new ArrayList<>(readings.size());
+			for (SensorData data : readings) {
+				if (!keys.add(new Key(data.getSensor().getSensorId(), data.getTimeStamp())))
+					continue;
+				data.setSensorStation(reference);
+				entityManager.persist(data);
+				inserted.add(data);
+			}
+			return inserted;
+		}
+
+		/**
+		 * Stop writing after the Transfer could not be read completely.
+		 */
+		private void abort(RuntimeException e) {
+			failure.compareAndSet(null, e);
+		}
+
+		/**
+		 * Wait until all Chunks have been written.
+		 *
+		 * @return The Number of SensorData Rows that were written.
+		 * @throws ServiceException If the Transfer could not be read or written completely.
+		 */
+		private int finish(int sensorStations) throws ServiceException {
+			CompletableFuture.allOf(chains.values().toArray(CompletableFuture[] ::new)).join();
+
+			RuntimeException e = failure.get();
+			if (e instanceof ServiceException s) throw s;
+			if (e != null) {
+				log.warn("Could not write SensorData: {}", e.getMessage());
+				throw new ServiceException("Could not set SensorStation data.", 500);
+			}
+			log.info(
+					"Wrote {} SensorData Rows for {} SensorStations in {} Batches ({} Duplicates)",
+					written.get(), sensorStations, batches.get(), skipped.get()
+			);
+			return written.get();
+		}
+	}
+
+	private record Key(Integer sensorId, LocalDateTime timeStamp) {}
+}
@@ -0,0 +1,191 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.ExportedReading;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+
+/**
+ * Keyset Pagination of the raw SensorData of one Sensor of a SensorStation.
+ * <br/>
+ * A Page holds the oldest Readings after the last Reading of the previous Page, which is found by
+ * seeking into the Key (SensorStation, Sensor, Time Stamp) instead of skipping an Offset, so deep
+ * Pages cost the same as the first one. The Position is handed to the Client as an opaque
+ * {@link Cursor}, which also carries the Window, so the next Page only needs the Cursor.
+ */
+@Service
+public class SensorDataPageService {
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorRepository sensorRepository;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+
+	@Value("${swa.pagination.max-page-size:10000}")
+	private int maxPageSize;
+
+	/**
+	 * The Start of a Window without a Start.
+	 */
+	public static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+	/**
+	 * The End of a Window without an End (the largest Date MySQL can store).
+	 */
+	public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+	private static final byte CURSOR_VERSION = 1;
+	private static final int CURSOR_BYTES = 1 + 16 + 4 + 8 + 8;
+
+	/**
+	 * The Position of a Page: the Readings of a Sensor strictly between {@code after} and
+	 * {@code to}.
+	 */
+	public record Cursor(
+			UUID sensorStationId, Integer sensorId, LocalDateTime after, LocalDateTime to
+	) {
+		/**
+		 * The Cursor of the first Page of a Window.
+		 *
+		 * @param from The exclusive Start of the Window, null for no Start.
+		 * @param to The exclusive End of the Window, null for no End.
+		 */
+		public static Cursor
+		first(UUID sensorStationId, Integer sensorId, LocalDateTime from, LocalDateTime to) {
+			return new Cursor(
+					sensorStationId, sensorId, from == null ? MIN_TIME : from,
+					to == null ? MAX_TIME : to
+			);
+		}
+
+		/**
+		 * @return The URL-safe Token of the Cursor.
+		 */
+		public String encode() {
+			ByteBuffer buffer = ByteBuffer.allocate(CURSOR_BYTES)
+										.put(CURSOR_VERSION)
+										.putLong(sensorStationId.getMostSignificantBits())
+										.putLong(sensorStationId.getLeastSignificantBits())
+										.putInt(sensorId)
+										.putLong(toEpochMicros(after))
+										.putLong(toEpochMicros(to));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+		}
+
+		/**
+		 * @throws ServiceException If the Token is not a valid Cursor.
+		 */
+		public static Cursor decode(String token) throws ServiceException {
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+				if (buffer.remaining() != CURSOR_BYTES || buffer.get() != CURSOR_VERSION)
+					throw new ServiceException("Invalid cursor", 400);
+				return new Cursor(
+						new UUID(buffer.getLong(), buffer.getLong()), buffer.getInt(),
+						fromEpochMicros(buffer.getLong()), fromEpochMicros(buffer.getLong())
+				);
+			} catch (IllegalArgumentException | BufferUnderflowException e) {
+				throw new ServiceException("Invalid cursor", 400);
+			}
+		}
+
+		private static long toEpochMicros(LocalDateTime timeStamp) {
+			// ChronoUnit.MICROS.between counts Nanoseconds, which overflow long before MAX_TIME.
+			Instant instant = timeStamp.toInstant(ZoneOffset.UTC);
+			return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+		}
+
+		private static LocalDateTime fromEpochMicros(long micros) {
+			return LocalDateTime.ofInstant(
+					Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneOffset.UTC
+			);
+		}
+	}
+
+	/**
+	 * A Page of Readings.
+	 *
+	 * @param sensor The Sensor of the Readings.
+	 * @param readings The Readings, ordered by Time Stamp.
+	 * @param next The Cursor of the next Page, null if this is the last one.
+	 */
+	public record Page(Sensor sensor, List<SensorData> readings, Cursor next) {}
+
+	/**
+	 * Get the Page at a Cursor.
+	 *
+	 * @param sensorStation The SensorStation of the Cursor.
+	 * @param cursor The Position of the Page.
+	 * @param limit The Size of the Page, at most {@code swa.pagination.max-page-size}.
+	 * @return The Page.
+	 * @throws ServiceException If the Size is invalid or the Sensor does not exist.
+	 */
+	public Page getPage(SensorStation sensorStation, Cursor cursor, int limit)
+			throws ServiceException {
+		if (limit < 1 || limit > maxPageSize)
+			throw new ServiceException("limit has to be between 1 and " + maxPageSize, 400);
+		if (!sensorStation.getDeviceId().equals(cursor.sensorStationId()))
+			throw new ServiceException("Cursor belongs to another sensor station", 400);
+		Sensor sensor = sensorRepository.findById(cursor.sensorId()).orElse(null);
+		if (sensor == null) throw new ServiceException("Sensor not found", 404);
+
+		List<SensorData> archived = sensorDataArchive.findAfter(
+				sensorStation, sensor.getSensorId(), cursor.after(), cursor.to(), limit
+		);
+		List<SensorData> stored = findStored(sensorStation, sensor, cursor, limit);
+
+		List<SensorData> readings = new ArrayList<>(limit);
+		Iterator<SensorData> merged =
+				SensorDataArchive.mergeOrdered(archived.iterator(), stored.iterator());
+		while (readings.size() < limit && merged.hasNext()) readings.add(merged.next());
+
+		Cursor next = null;
+		if (readings.size() == limit) {
+			LocalDateTime last = readings.get(readings.size() - 1).getTimeStamp();
+			next = new Cursor(cursor.sensorStationId(), cursor.sensorId(), last, cursor.to());
+		}
+		return new Page(sensor, readings, next);
+	}
+
+	/**
+	 * Find the Readings of the Page stored in the Database (not the Archive).
+	 */
+	private List<SensorData>
+	findStored(SensorStation sensorStation, Sensor sensor, Cursor cursor, int limit) {
+		if (sensorDataBucketService.isEnabled()) {
+			return sensorDataBucketService.findAfter(
+					sensorStation, sensor.getSensorId(), cursor.after(), cursor.to(), limit
+			);
+		}
+		List<ExportedReading> rows = sensorDataRepository.findPage(
+				sensorStation.getDeviceId(), sensor.getSensorId(), cursor.after(), cursor.to(),
+				PageRequest.of(0, limit)
+		);
+		List<SensorData> stored = new ArrayList<>(rows.size());
+		for (ExportedReading reading : rows) {
+			stored.add(new SensorData(
+					reading.getTimeStamp(), reading.getValue(), reading.getAlarm(), sensor,
+					sensorStation
+			));
+		}
+		return stored;
+	}
+}
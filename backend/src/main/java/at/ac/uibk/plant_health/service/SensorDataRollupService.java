@@ -0,0 +1,318 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataBucket;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
+import at.ac.uibk.plant_health.repositories.SensorDataBucketRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataBucketRepository.HourCount;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.DayCount;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.SeriesRange;
+import at.ac.uibk.plant_health.repositories.SensorDataRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for the Minute, Hour and Day Rollups of the SensorData.
+ * <br/>
+ * Every newly stored Reading is added to the Rollups of its Buckets in the same Transaction, so
+ * the Rollups never have to be recomputed from the raw SensorData. Readings stored before the
+ * Rollups existed are rolled up by {@link #backfill()}.
+ */
+@Slf4j
+@Service
+public class SensorDataRollupService {
+	@Autowired
+	private SensorDataRollupRepository sensorDataRollupRepository;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataBucketRepository sensorDataBucketRepository;
+	@Autowired
+	private SensorStationLocks sensorStationLocks;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${swa.rollup.auto.min-points:100}")
+	private int autoMinPoints;
+
+	private TransactionTemplate transaction;
+
+	@PostConstruct
+	public void init() {
+		this.transaction = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Add newly stored Readings of one SensorStation to the Rollups.
+	 * Readings that are already part of the Rollups must not be added again, so Writes to the
+	 * same SensorStation have to be serialized by the Caller.
+	 *
+	 * @param sensorStation The SensorStation (a Reference is enough).
+	 * @param readings The new Readings, with their Sensors set.
+	 */
+	@Transactional
+	public void add(SensorStation sensorStation, Collection<SensorData> readings) {
+		if (readings.isEmpty()) return;
+		LocalDateTime from = null;
+		LocalDateTime to = null;
+		for (SensorData data : readings) {
+			if (from == null || data.getTimeStamp().isBefore(from)) from = data.getTimeStamp();
+			if (to == null || data.getTimeStamp().isAfter(to)) to = data.getTimeStamp();
+		}
+
+		for (Resolution resolution : Resolution.values()) {
+			// The existing Rollups of all touched Buckets are loaded with a single Query.
+			Map<Bucket, SensorDataRollup> rollups = new HashMap<>();
+			List<SensorDataRollup> existing = sensorDataRollupRepository.findInWindow(
+					sensorStation.getDeviceId(), resolution, resolution.truncate(from),
+					resolution.truncate(to).plus(resolution.getDuration())
+			);
+			for (SensorDataRollup rollup : existing) {
+				Bucket bucket =
+						new Bucket(rollup.getBucketStart(), rollup.getSensor().getSensorId());
+				rollups.put(bucket, rollup);
+			}
+
+			List<SensorDataRollup> created = new ArrayList<>();
+			for (SensorData data : readings) {
+				Bucket bucket = new Bucket(
+						resolution.truncate(data.getTimeStamp()), data.getSensor().getSensorId()
+				);
+				SensorDataRollup rollup = rollups.computeIfAbsent(bucket, b -> {
+					SensorDataRollup r = new SensorDataRollup(
+							resolution, b.start(), data.getSensor(), sensorStation
+					);
+					created.add(r);
+					return r;
+				});
+				rollup.add(data);
+			}
+			sensorDataRollupRepository.saveAll(created);
+		}
+	}
+
+	/**
+	 * Roll up all stored SensorData (in the sensor_data Table and the Buckets) whose Rollups are
+	 * missing, e.g. because it was stored before the Rollups existed.
+	 *
+	 * @return The Number of Days whose Rollups were rebuilt.
+	 */
+	public int backfill() {
+		// The Readings of a Series may be in the sensor_data Table and in the Buckets.
+		Map<Series, Range> ranges = new HashMap<>();
+		List<SeriesRange> found = new ArrayList<>(sensorDataRepository.findSeriesRanges());
+		found.addAll(sensorDataBucketRepository.findSeriesRanges());
+		for (SeriesRange range : found) {
+			ranges.merge(
+					new Series(range.getSensorStationId(), range.getSensorId()),
+					new Range(range.getFirst(), range.getLast()), Range::union
+			);
+		}
+
+		long start = System.nanoTime();
+		int days = 0;
+		for (Map.Entry<Series, Range> entry : ranges.entrySet()) {
+			Series series = entry.getKey();
+			Range range = entry.getValue();
+			days += backfill(
+					series.sensorStationId(), series.sensorId(), range.first(),
+					Resolution.DAY.truncate(range.last()).plusDays(1)
+			);
+		}
+		log.info(
+				"Backfilled the Rollups of {} Days in {} s", days,
+				Duration.ofNanos(System.nanoTime() - start).toSeconds()
+		);
+		return days;
+	}
+
+	/**
+	 * Roll up the stored SensorData of one Sensor of a SensorStation on every Day overlapping
+	 * {@code [from, to)} whose Day Rollup holds fewer Readings than are stored.
+	 * <br/>
+	 * The Rollups of such a Day are recomputed from its Readings in one Transaction. Days whose
+	 * raw Readings have been partially removed hold more Readings in their Rollups and are kept.
+	 *
+	 * @param sensorStationId The ID of the SensorStation.
+	 * @param sensorId The ID of the Sensor.
+	 * @param from The Start of the Window.
+	 * @param to The exclusive End of the Window.
+	 * @return The Number of Days whose Rollups were rebuilt.
+	 */
+	public int backfill(
+			UUID sensorStationId, Integer sensorId, LocalDateTime from, LocalDateTime to
+	) {
+		LocalDateTime first = Resolution.DAY.truncate(from);
+		LocalDateTime end = Resolution.DAY.truncate(to).equals(to)
+				? to
+				: Resolution.DAY.truncate(to).plusDays(1);
+
+		Map<LocalDateTime, Long> stored = new HashMap<>();
+		List<DayCount> dayCounts =
+				sensorDataRepository.countPerDay(sensorStationId, sensorId, first, end);
+		for (DayCount day : dayCounts)
+			stored.merge(day.getDay().atStartOfDay(), day.getCount(), Long::sum);
+		List<HourCount> hourCounts =
+				sensorDataBucketRepository.findCounts(sensorStationId, sensorId, first, end);
+		for (HourCount hour : hourCounts) {
+			LocalDateTime day = Resolution.DAY.truncate(hour.getHourStart());
+			stored.merge(day, (long) hour.getCount(), Long::sum);
+		}
+
+		Map<LocalDateTime, Long> rolledUp = new HashMap<>();
+		List<SensorDataRollup> dayRollups =
+				findRollups(sensorStationId, sensorId, Resolution.DAY, first, end);
+		for (SensorDataRollup rollup : dayRollups)
+			rolledUp.put(rollup.getBucketStart(), (long) rollup.getCount());
+
+		int days = 0;
+		for (Map.Entry<LocalDateTime, Long> day : stored.entrySet()) {
+			if (day.getValue() <= rolledUp.getOrDefault(day.getKey(), 0L)) continue;
+			// The Lock of the Ingest keeps new Readings of the SensorStation (e.g. of today) from
+			// being added to the Rollups while they are recomputed.
+			Lock lock = sensorStationLocks.get(sensorStationId);
+			lock.lock();
+			try {
+				transaction.executeWithoutResult(
+						status -> rebuild(sensorStationId, sensorId, day.getKey())
+				);
+			} finally {
+				lock.unlock();
+			}
+			days++;
+		}
+		return days;
+	}
+
+	/**
+	 * Recompute the Rollups of one Sensor of a SensorStation on one Day from its Readings.
+	 */
+	private void rebuild(UUID sensorStationId, Integer sensorId, LocalDateTime day) {
+		LocalDateTime end = day.plusDays(1);
+		List<SensorData> readings = new ArrayList<>(
+				sensorDataRepository.findInRange(sensorStationId, sensorId, day, end)
+		);
+		List<SensorDataBucket> buckets = sensorDataBucketRepository.findPage(
+				sensorStationId, sensorId, day, end, Pageable.unpaged()
+		);
+		for (SensorDataBucket bucket : buckets)
+			readings.addAll(bucket.getReadings(LocalDateTime.MIN, LocalDateTime.MAX));
+		if (readings.isEmpty()) return;
+
+		SensorStation sensorStation =
+				entityManager.getReference(SensorStation.class, sensorStationId);
+		for (Resolution resolution : Resolution.values()) {
+			Map<LocalDateTime, SensorDataRollup> rollups = new HashMap<>();
+			findRollups(sensorStationId, sensorId, resolution, day, end)
+					.forEach(rollup -> rollups.put(rollup.getBucketStart(), rollup));
+
+			// Existing Rollups are recomputed in place, so their unique Keys stay untouched.
+			Set<LocalDateTime> cleared = new HashSet<>();
+			List<SensorDataRollup> created = new ArrayList<>();
+			for (SensorData data : readings) {
+				LocalDateTime start = resolution.truncate(data.getTimeStamp());
+				SensorDataRollup rollup = rollups.computeIfAbsent(start, s -> {
+					SensorDataRollup r =
+							new SensorDataRollup(resolution, s, data.getSensor(), sensorStation);
+					created.add(r);
+					return r;
+				});
+				if (cleared.add(start)) rollup.clear();
+				rollup.add(data);
+			}
+			sensorDataRollupRepository.saveAll(created);
+		}
+	}
+
+	/**
+	 * Find the Rollups of a SensorStation for the Buckets overlapping the given Window.
+	 *
+	 * @param sensorStation The SensorStation.
+	 * @param resolution The Resolution of the Rollups.
+	 * @param from The Start of the Window (the Bucket containing it is included).
+	 * @param to The exclusive End of the Window.
+	 * @return The Rollups, ordered by Bucket.
+	 */
+	public List<SensorDataRollup> getRollups(
+			SensorStation sensorStation, Resolution resolution, LocalDateTime from,
+			LocalDateTime to
+	) {
+		return sensorDataRollupRepository.findInWindow(
+				sensorStation.getDeviceId(), resolution, resolution.truncate(from), to
+		);
+	}
+
+	/**
+	 * Parse the requested Resolution of a Chart.
+	 * {@code auto} picks the coarsest Resolution that still has at least
+	 * {@code swa.rollup.auto.min-points} Buckets in the Window.
+	 *
+	 * @param resolution {@code raw}, {@code minute}, {@code hour}, {@code day} or {@code auto}.
+	 * @param from The Start of the Window.
+	 * @param to The End of the Window.
+	 * @return The Resolution of the Rollups to use or an empty Optional for the raw SensorData.
+	 * @throws ServiceException If the Resolution is unknown.
+	 */
+	public Optional<Resolution> resolve(String resolution, LocalDateTime from, LocalDateTime to)
+			throws ServiceException {
+		if (resolution == null || resolution.equalsIgnoreCase("raw")) return Optional.empty();
+		if (resolution.equalsIgnoreCase("auto")) {
+			Duration window = Duration.between(from, to);
+			Resolution[] resolutions = Resolution.values();
+			for (int i = resolutions.length - 1; i >= 0; i--) {
+				if (window.dividedBy(resolutions[i].getDuration()) >= autoMinPoints)
+					return Optional.of(resolutions[i]);
+			}
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(Resolution.valueOf(resolution.toUpperCase()));
+		} catch (IllegalArgumentException e) {
+			throw new ServiceException("Invalid resolution", 400);
+		}
+	}
+
+	private record Bucket(LocalDateTime start, Integer sensorId) {}
+
+	private List<SensorDataRollup> findRollups(
+			UUID sensorStationId, Integer sensorId, Resolution resolution, LocalDateTime from,
+			LocalDateTime to
+	) {
+		return sensorDataRollupRepository.findInWindow(sensorStationId, resolution, from, to)
+				.stream()
+				.filter(rollup -> sensorId.equals(rollup.getSensor().getSensorId()))
+				.toList();
+	}
+
+	private record Series(UUID sensorStationId, Integer sensorId) {}
+
+	private record Range(LocalDateTime first, LocalDateTime last) {
+		Range union(Range other) {
+			return new Range(
+					first.isBefore(other.first) ? first : other.first,
+					last.isAfter(other.last) ? last : other.last
+			);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Striped Locks that serialize all Writes to the Readings and Rollups of a SensorStation
+ * ({@code swa.ingest.parallel.lock-stripes}).
+ * <br/>
+ * A Writer has to hold the Lock until its Transaction has committed, so the next Writer of the
+ * same SensorStation sees its Readings and Rollups.
+ */
+@Service
+public class SensorStationLocks {
+	@Value("${swa.ingest.parallel.lock-stripes:64}")
+	private int lockStripes;
+
+	private Lock[] stripes;
+
+	@PostConstruct
+	public void init() {
+		this.stripes = new Lock[lockStripes];
+		for (int i = 0; i < lockStripes; i++) stripes[i] = new ReentrantLock();
+	}
+
+	/**
+	 * @param deviceId The ID of the SensorStation.
+	 * @return The Lock of the SensorStation (shared with the other SensorStations of its Stripe).
+	 */
+	public Lock get(UUID deviceId) {
+		return stripes[Math.floorMod(deviceId.hashCode(), stripes.length)];
+	}
+}
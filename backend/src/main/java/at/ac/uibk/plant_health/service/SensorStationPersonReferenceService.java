@@ -28,6 +28,8 @@ public class SensorStationPersonReferenceService {
 	private PersonRepository personRepository;
 	@Autowired
 	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private DashboardCache dashboardCache;
 
 	public void addPlantToDashboard(Person person, SensorStation sensorStation)
 			throws ServiceException {
@@ -49,13 +51,11 @@ public class SensorStationPersonReferenceService {
 			Optional<Person> maybePerson = personService.findById(person.getPersonId());
 			if (maybePerson.isEmpty()) throw new ServiceException("Could not find person", 404);
 			person = maybePerson.get();
-			person.addSensorStationReference(reference);
-
-			SensorStation sensorStation1 =
-					sensorStationService.findById(sensorStation.getDeviceId());
-			sensorStation1.addSensorStationReference(reference);
+			sensorStationService.findById(sensorStation.getDeviceId());
 
 			sensorStationPersonReferenceRepository.save(reference);
+			dashboardCache.personChanged(person.getPersonId());
+			dashboardCache.sensorStationChanged(sensorStation.getDeviceId());
 		} catch (Exception e) {
 			log.error("Could not add sensor station to dashboard", e);
 			throw new ServiceException("Could not add sensor station to dashboard", 500);
@@ -82,6 +82,8 @@ public class SensorStationPersonReferenceService {
 			sensorStationPersonReferenceRepository.deleteByPersonAndSensorStation(
 					person, sensorStation
 			);
+			dashboardCache.personChanged(person.getPersonId());
+			dashboardCache.sensorStationChanged(sensorStation.getDeviceId());
 		} catch (Exception e) {
 			log.error("Could not remove sensor station from dashboard", e);
 			throw new ServiceException("Could not remove sensor station from dashboard", 500);
@@ -3,6 +3,7 @@ package at.ac.uibk.plant_health.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Files;
@@ -10,6 +11,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 import at.ac.uibk.plant_health.models.annotations.AuditLogAnnotation;
 import at.ac.uibk.plant_health.models.device.SensorStation;
@@ -21,7 +23,8 @@ import at.ac.uibk.plant_health.models.plant.SensorStationPicture;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
 import at.ac.uibk.plant_health.repositories.*;
-import jakarta.transaction.Transactional;
+import at.ac.uibk.plant_health.repositories.SensorDataBucketRepository.NewestBucket;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository.NewestReading;
 
 @Service
 public class SensorStationService {
@@ -30,17 +33,33 @@ public class SensorStationService {
 	@Autowired
 	private SensorDataRepository sensorDataRepository;
 	@Autowired
-	private SensorRepository sensorRepository;
+	private SensorDataBucketRepository sensorDataBucketRepository;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorStationLocks sensorStationLocks;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
 	@Autowired
 	private PlantPictureRepository plantPictureRepository;
 	@Autowired
 	private SensorStationPersonReferenceRepository sensorStationPersonReferenceRepository;
 	@Autowired
 	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
 	@Value("${swa.pictures.path}")
 	private String picturesPath;
 	@Autowired
 	private PersonService personService;
+	@Autowired
+	private DashboardCache dashboardCache;
 
 	private static final String NOT_FOUND_ERROR_MESSAGE = "Could not find SensorStation";
 
@@ -52,6 +71,115 @@ public class SensorStationService {
 		return maybeSensorStation.get();
 	}
 
+	/**
+	 * Find a SensorStation with everything its Detail View shows.
+	 */
+	@Transactional(readOnly = true)
+	public SensorStation findDetail(UUID id) throws ServiceException {
+		Optional<SensorStation> maybeSensorStation =
+				this.sensorStationRepository.findDetailByDeviceId(id);
+		if (maybeSensorStation.isEmpty()) {
+			throw new ServiceException(NOT_FOUND_ERROR_MESSAGE, 404);
+		}
+		return loadDetail(List.of(maybeSensorStation.get())).get(0);
+	}
+
+	/**
+	 * Find a SensorStation with its Limits, which are shown together with its Readings.
+	 */
+	public SensorStation findWithSensorLimits(UUID id) throws ServiceException {
+		Optional<SensorStation> maybeSensorStation =
+				this.sensorStationRepository.findWithSensorLimitsByDeviceId(id);
+		if (maybeSensorStation.isEmpty()) {
+			throw new ServiceException(NOT_FOUND_ERROR_MESSAGE, 404);
+		}
+		return maybeSensorStation.get();
+	}
+
+	/**
+	 * Load what the Lists and Dashboards show of the SensorStations while the Session is open.
+	 */
+	private List<SensorStation> loadSummary(List<SensorStation> sensorStations) {
+		return loadNewestSensorData(sensorStations);
+	}
+
+	/**
+	 * Set the newest Readings (shown as Alarms) of the SensorStations.
+	 *
+	 * @param sensorStations The SensorStations.
+	 * @return The same SensorStations.
+	 */
+	public List<SensorStation> loadNewestSensorData(List<SensorStation> sensorStations) {
+		if (sensorStations.isEmpty()) return sensorStations;
+		Map<UUID, Map<Sensor, SensorData>> newest = findNewestSensorData(
+				sensorStations.stream().map(SensorStation::getDeviceId).toList()
+		);
+		for (SensorStation sensorStation : sensorStations) {
+			Map<Sensor, SensorData> bySensor =
+					newest.getOrDefault(sensorStation.getDeviceId(), Map.of());
+			sensorStation.setNewestSensorData(new ArrayList<>(bySensor.values()));
+		}
+		return sensorStations;
+	}
+
+	/**
+	 * Find the newest Reading of every Sensor of the SensorStations, whether it is stored as a
+	 * Row, in a Bucket or in the Archive. Every Sensor is looked up once in the Primary Key, so
+	 * the Cost does not grow with the History of the SensorStations. Only Sensors without any
+	 * Readings left in the Database are looked up in the Archive.
+	 *
+	 * @param sensorStationIds The IDs of the SensorStations.
+	 * @return The newest Readings (only with Time Stamp, Alarm and Sensor set) by the ID of their
+	 *     SensorStation and their Sensor.
+	 */
+	public Map<UUID, Map<Sensor, SensorData>>
+	findNewestSensorData(Collection<UUID> sensorStationIds) {
+		Map<UUID, Map<Sensor, SensorData>> newest = new HashMap<>();
+		if (sensorStationIds.isEmpty()) return newest;
+		for (NewestReading reading : sensorDataRepository.findNewest(sensorStationIds)) {
+			keepNewest(
+					newest, reading.sensorStationId(),
+					new SensorData(
+							reading.timeStamp(), 0, reading.alarm(), reading.sensor(), null
+					)
+			);
+		}
+		for (NewestBucket bucket : sensorDataBucketRepository.findNewest(sensorStationIds)) {
+			keepNewest(newest, bucket.sensorStationId(), bucket.newest());
+		}
+		if (!sensorDataArchive.isEnabled()) return newest;
+		for (UUID sensorStationId : sensorStationIds) {
+			Set<Integer> stored = new HashSet<>();
+			newest.getOrDefault(sensorStationId, Map.of())
+					.keySet()
+					.forEach(sensor -> stored.add(sensor.getSensorId()));
+			for (SensorData archived : sensorDataArchive.findNewest(sensorStationId, stored)) {
+				keepNewest(newest, sensorStationId, archived);
+			}
+		}
+		return newest;
+	}
+
+	private static void keepNewest(
+			Map<UUID, Map<Sensor, SensorData>> newest, UUID sensorStationId, SensorData reading
+	) {
+		newest.computeIfAbsent(sensorStationId, id -> new HashMap<>())
+				.merge(reading.getSensor(), reading,
+					   (a, b) -> a.getTimeStamp().isBefore(b.getTimeStamp()) ? b : a);
+	}
+
+	/**
+	 * Load the Collections of the Detail View the Graph could not fetch (it can only fetch one
+	 * List) while the Session is open.
+	 */
+	private List<SensorStation> loadDetail(List<SensorStation> sensorStations) {
+		if (sensorStations.isEmpty()) return sensorStations;
+		loadSummary(sensorStations);
+		sensorStationRepository.fetchSensorStationPersonReferences(sensorStations);
+		sensorStationRepository.fetchSensorStationPictures(sensorStations);
+		return sensorStations;
+	}
+
 	public List<SensorStation> findAssociated(Person person) {
 		if (person.getPermissions().contains(Permission.GARDENER)) {
 			return sensorStationRepository.findNewForGardener(person);
@@ -60,10 +188,34 @@ public class SensorStationService {
 		}
 	}
 
+	/**
+	 * Find the SensorStations a Person added to the Dashboard, with what the Dashboard shows.
+	 */
+	@Transactional(readOnly = true)
+	public List<SensorStation> findInDashboard(Person person) {
+		return loadSummary(sensorStationRepository.findInDashboard(person));
+	}
+
 	public List<SensorStation> findAll() {
 		return sensorStationRepository.findAll();
 	}
 
+	/**
+	 * Find the SensorStations a Gardener is assigned to that are not deleted, with everything
+	 * their Detail View shows.
+	 */
+	@Transactional(readOnly = true)
+	public List<SensorStation> findAssigned(Person gardener) {
+		return loadDetail(sensorStationRepository.findByGardenerAndIsDeletedFalse(gardener));
+	}
+
+	/**
+	 * Count the connected SensorStations that are not deleted, without loading them.
+	 */
+	public long countConnected() {
+		return sensorStationRepository.countByIsConnectedTrueAndIsDeletedFalse();
+	}
+
 	public SensorStation findByBdAddress(String bdAddress) throws ServiceException {
 		if (bdAddress == null) {
 			throw new ServiceException(NOT_FOUND_ERROR_MESSAGE, 404);
@@ -82,11 +234,14 @@ public class SensorStationService {
 		return maybeSensorStation.orElse(null);
 	}
 	public SensorStation save(SensorStation sensorStation) throws ServiceException {
+		SensorStation saved;
 		try {
-			return sensorStationRepository.save(sensorStation);
+			saved = sensorStationRepository.save(sensorStation);
 		} catch (Exception e) {
 			throw new ServiceException("Could not save SensorStation", 500);
 		}
+		dashboardCache.sensorStationChanged(saved.getDeviceId());
+		return saved;
 	}
 
 	/**
@@ -121,7 +276,7 @@ public class SensorStationService {
 		if (!sensorStation.isUnlocked()) throw new ServiceException("SensorStation is locked", 403);
 		if (sensorStation.isDeleted()) throw new ServiceException("SensorStation is deleted", 403);
 		for (SensorLimits limit : sensorLimits) {
-			Optional<Sensor> maybeSensor = sensorRepository.findByType(limit.getSensor().getType());
+			Optional<Sensor> maybeSensor = sensorTypeRegistry.find(limit.getSensor().getType());
 			if (maybeSensor.isEmpty())
 				throw new ServiceException(
 						"Sensor " + limit.getSensor().getType() + " not found", 500
@@ -137,6 +292,7 @@ public class SensorStationService {
 				throw new ServiceException("Could not save sensor limits", 500);
 			}
 		}
+		dashboardCache.sensorStationChanged(sensorStation.getDeviceId());
 	}
 
 	/**
@@ -155,6 +311,8 @@ public class SensorStationService {
 		}
 		if (!Objects.isNull(transferInterval) && !Objects.isNull(sensorStation.getAccessPoint())) {
 			sensorStation.getAccessPoint().setTransferInterval(transferInterval);
+			// Saving the detached SensorStation does not save its AccessPoint.
+			accessPointRepository.save(sensorStation.getAccessPoint());
 		}
 		save(sensorStation);
 	}
@@ -179,6 +337,8 @@ public class SensorStationService {
 			throw new ServiceException("Person is not a gardener", 403);
 		sensorStation.setGardener(maybePerson.get());
 		save(sensorStation);
+		// The previous Gardener's Dashboard showed the SensorStation, the new one's did not.
+		dashboardCache.personChanged(personId);
 	}
 	/**
 	 * Get pictures of SensorStation
@@ -187,7 +347,7 @@ public class SensorStationService {
 	 */
 	public List<SensorStationPicture> getPictures(UUID sensorStationId) throws ServiceException {
 		SensorStation sensorStation = findById(sensorStationId);
-		return sensorStation.getSensorStationPictures();
+		return plantPictureRepository.findBySensorStation(sensorStation);
 	}
 
 	public SensorStationPicture getPicture(UUID pictureId) throws ServiceException {
@@ -214,13 +374,12 @@ public class SensorStationService {
 	 */
 	public void uploadPicture(MultipartFile picture, UUID sensorStationId) throws ServiceException {
 		SensorStation sensorStation = findById(sensorStationId);
-		SensorStationPicture plantPicture = null;
 		try {
 			String extension = Objects.requireNonNull(picture.getContentType()).split("/")[1];
 			String picturePath = picturesPath + UUID.randomUUID() + "." + extension;
 			Path path = Paths.get(picturePath);
 
-			plantPicture =
+			SensorStationPicture plantPicture =
 					new SensorStationPicture(sensorStation, picturePath, LocalDateTime.now());
 			plantPictureRepository.save(plantPicture);
 
@@ -229,11 +388,7 @@ public class SensorStationService {
 		} catch (Exception e) {
 			throw new ServiceException("Could not save picture", 500);
 		}
-
-		List<SensorStationPicture> sensorStationPictures = sensorStation.getSensorStationPictures();
-		sensorStationPictures.add(plantPicture);
-		sensorStation.setSensorStationPictures(sensorStationPictures);
-		save(sensorStation);
+		dashboardCache.sensorStationChanged(sensorStationId);
 	}
 
 	public byte[] convertPictureToByteArray(SensorStationPicture picture) throws ServiceException {
@@ -265,8 +420,7 @@ public class SensorStationService {
 			Path path = Paths.get(picture.getPicturePath());
 			Files.delete(path);
 			plantPictureRepository.delete(picture);
-			sensorStation.getSensorStationPictures().remove(picture);
-			save(sensorStation);
+			dashboardCache.sensorStationChanged(sensorStation.getDeviceId());
 		} catch (Exception e) {
 			throw new ServiceException("Failed to delete pictue of the server", 500);
 		}
@@ -280,14 +434,12 @@ public class SensorStationService {
 	public void deleteAllPictures(UUID sensorStationId) throws ServiceException {
 		SensorStation sensorStation = findById(sensorStationId);
 		List<SensorStationPicture> pictures =
-				new ArrayList<>(sensorStation.getSensorStationPictures());
+				plantPictureRepository.findBySensorStation(sensorStation);
 		try {
 			for (SensorStationPicture picture : pictures) {
 				deletePicture(picture);
-
-				sensorStation.getSensorStationPictures().remove(picture);
 			}
-			save(sensorStation);
+			dashboardCache.sensorStationChanged(sensorStationId);
 		} catch (Exception e) {
 			throw new ServiceException("Failed to delete picture of the server", 500);
 		}
@@ -317,17 +469,23 @@ public class SensorStationService {
 	public void addSensorData(SensorStation sensorStation, SensorData data)
 			throws ServiceException {
 		if (data == null || sensorStation == null) throw new ServiceException("Invalid data", 400);
-		Sensor sensor = data.getSensor();
-		Optional<Sensor> maybeSensor = sensorRepository.findByType(sensor.getType());
-		if (maybeSensor.isPresent()) {
-			sensor = maybeSensor.get();
-		} else {
-			sensor = sensorRepository.save(sensor);
-		}
-
-		data.setSensor(sensor);
+		data.setSensor(sensorTypeRegistry.getOrCreate(data.getSensor()));
 		data.setSensorStation(sensorStation);
-		this.sensorDataRepository.save(data);
+		// Serialized with the Ingest, so the Rollups always match the stored Readings.
+		Lock lock = sensorStationLocks.get(sensorStation.getDeviceId());
+		lock.lock();
+		try {
+			if (sensorDataBucketService.isEnabled()) {
+				if (sensorDataBucketService.add(sensorStation, List.of(data)).isEmpty()) return;
+			} else {
+				this.sensorDataRepository.save(data);
+			}
+			this.sensorDataRollupService.add(sensorStation, List.of(data));
+		} finally {
+			lock.unlock();
+		}
+		this.recentReadingsStore.add(sensorStation.getDeviceId(), List.of(data));
+		this.dashboardCache.sensorStationChanged(sensorStation.getDeviceId());
 	}
 
 	/**
@@ -350,6 +508,21 @@ public class SensorStationService {
 		}
 	}
 
+	/**
+	 * Get the sensor data of a sensor station strictly between from and to
+	 * @param sensorStation
+	 * @param from
+	 * @param to
+	 * @return the sensor data in the window (including archived data), ordered by time stamp
+	 */
+	public List<SensorData>
+	getSensorData(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		List<SensorData> stored = sensorDataBucketService.isEnabled()
+				? sensorDataBucketService.find(sensorStation, from, to)
+				: sensorDataRepository.findInWindow(sensorStation.getDeviceId(), from, to);
+		return sensorDataArchive.merge(sensorStation, stored, from, to);
+	}
+
 	/**
 	 * Check if sensor station is deleted
 	 * @param sensorStation
@@ -378,9 +551,12 @@ public class SensorStationService {
 			throw new ServiceException("Sensor station already deleted", 404);
 		}
 		sensorStation.setDeleted(true);
+		sensorStation.setDeletedAt(LocalDateTime.now());
 		sensorStation.setUnlocked(false);
 		sensorStation.setBdAddress(null);
 		sensorStation.setAccessPoint(null);
 		sensorStationRepository.save(sensorStation);
+		dashboardCache.sensorStationChanged(sensorStationId);
+		dashboardCache.inventoryChanged();
 	}
 }
@@ -0,0 +1,252 @@
+package at.ac.uibk.plant_health.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+
+/**
+ * Reads a JSON-Array of SensorStations (as sent by the AccessPoints) Token by Token.
+ * <br/>
+ * Instead of binding the whole Body to a {@code List<SensorStation>}, every SensorStation and
+ * every SensorData is handed to a {@link Handler} as soon as it has been read, so the Memory
+ * needed does not depend on the Size of the Request. Bodies sent as
+ * {@value SensorDataBinaryCodec#MEDIA_TYPE_VALUE} are decoded by the {@link SensorDataBinaryCodec}.
+ */
+@Service
+public class SensorStationStreamReader {
+	private static final String SENSOR_DATA_FIELD = "sensorData";
+
+	private final ObjectMapper objectMapper;
+	private final SensorDataBinaryCodec binaryCodec;
+
+	public SensorStationStreamReader(ObjectMapper objectMapper, SensorDataBinaryCodec binaryCodec) {
+		this.objectMapper = objectMapper;
+		this.binaryCodec = binaryCodec;
+	}
+
+	/**
+	 * Callbacks for the Elements of the Stream.
+	 */
+	public interface Handler {
+		/**
+		 * Called before the first SensorData of a SensorStation.
+		 *
+		 * @param sensorStation All Fields of the SensorStation read so far (without SensorData).
+		 */
+		void startStation(SensorStation sensorStation) throws ServiceException;
+
+		/**
+		 * Called for every SensorData of the current SensorStation.
+		 */
+		void reading(SensorData data) throws ServiceException;
+
+		/**
+		 * Called after the SensorStation has been read completely.
+		 *
+		 * @param sensorStation All Fields of the SensorStation. {@code sensorData} is empty
+		 *     (the Readings have already been handed out) or {@code null} if the Field was missing.
+		 */
+		void endStation(SensorStation sensorStation) throws ServiceException;
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream.
+	 *
+	 * @param in The Request Body.
+	 * @param handler The Handler that receives the SensorStations and their Data.
+	 * @return The Number of SensorStations that were read.
+	 * @throws ServiceException If the Body is not valid or the Handler rejected an Element.
+	 */
+	public int read(InputStream in, Handler handler) throws ServiceException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) throw invalid();
+
+			int sensorStations = 0;
+			JsonToken token;
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+				readStation(parser, handler);
+				sensorStations++;
+			}
+			if (token != JsonToken.END_ARRAY) throw invalid();
+			return sensorStations;
+		} catch (IOException e) {
+			throw invalid();
+		}
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream in the Format given by its Content-Type.
+	 * Bodies that are not in the {@link SensorDataBinaryCodec binary Format} are read as JSON.
+	 *
+	 * @param in The Request Body.
+	 * @param contentType The Content-Type of the Body (may be null).
+	 * @param handler The Handler that receives the SensorStations and their Data.
+	 * @return The Number of SensorStations that were read.
+	 * @throws ServiceException If the Body is not valid or the Handler rejected an Element.
+	 */
+	public int read(InputStream in, String contentType, Handler handler) throws ServiceException {
+		return read(in, contentType, -1, handler);
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream in the Format given by its Content-Type.
+	 * Bodies that are not in the {@link SensorDataBinaryCodec binary Format} are read as JSON.
+	 *
+	 * @param in The Request Body.
+	 * @param contentType The Content-Type of the Body (may be null).
+	 * @param contentLength The Content-Length of the Body (-1 if unknown), Counts in the binary
+	 *     Format that the Body can not hold are rejected before anything is allocated for them.
+	 * @param handler The Handler that receives the SensorStations and their Data.
+	 * @return The Number of SensorStations that were read.
+	 * @throws ServiceException If the Body is not valid or the Handler rejected an Element.
+	 */
+	public int read(InputStream in, String contentType, long contentLength, Handler handler)
+			throws ServiceException {
+		if (isBinary(contentType)) return binaryCodec.read(in, contentLength, handler);
+		return read(in, handler);
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream into a List.
+	 * Only meant for Bodies without large Amounts of SensorData.
+	 *
+	 * @param in The Request Body.
+	 * @return The SensorStations including their SensorData.
+	 * @throws ServiceException If the Body is not valid.
+	 */
+	public List<SensorStation> readAll(InputStream in) throws ServiceException {
+		return readAll(in, null);
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream into a List.
+	 * Only meant for Bodies without large Amounts of SensorData.
+	 *
+	 * @param in The Request Body.
+	 * @param contentType The Content-Type of the Body (may be null).
+	 * @return The SensorStations including their SensorData.
+	 * @throws ServiceException If the Body is not valid.
+	 */
+	public List<SensorStation> readAll(InputStream in, String contentType)
+			throws ServiceException {
+		return readAll(in, contentType, -1);
+	}
+
+	/**
+	 * Read all SensorStations from the given Stream into a List.
+	 * Only meant for Bodies without large Amounts of SensorData.
+	 *
+	 * @param in The Request Body.
+	 * @param contentType The Content-Type of the Body (may be null).
+	 * @param contentLength The Content-Length of the Body (-1 if unknown).
+	 * @return The SensorStations including their SensorData.
+	 * @throws ServiceException If the Body is not valid.
+	 */
+	public List<SensorStation>
+	readAll(InputStream in, String contentType, long contentLength) throws ServiceException {
+		List<SensorStation> sensorStations = new ArrayList<>();
+		read(in, contentType, contentLength, new Handler() {
+			private final List<SensorData> sensorData = new ArrayList<>();
+
+			@Override
+			public void startStation(SensorStation sensorStation) {
+				sensorData.clear();
+			}
+
+			@Override
+			public void reading(SensorData data) {
+				sensorData.add(data);
+			}
+
+			@Override
+			public void endStation(SensorStation sensorStation) {
+				if (sensorStation.getSensorData() != null)
+					sensorStation.setSensorData(new ArrayList<>(sensorData));
+				sensorStations.add(sensorStation);
+			}
+		});
+		return sensorStations;
+	}
+
+	private void readStation(JsonParser parser, Handler handler)
+			throws IOException, ServiceException {
+		ObjectNode fields = objectMapper.createObjectNode();
+		// NOTE: The AccessPoints send the bdAddress before the SensorData, only if another Client
+		//       does not, the SensorData of this SensorStation has to be buffered.
+		List<SensorData> buffered = null;
+		boolean started = false;
+		boolean hasSensorData = false;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+
+			if (!SENSOR_DATA_FIELD.equals(field)) {
+				fields.set(field, objectMapper.readTree(parser));
+				continue;
+			}
+			if (value == JsonToken.VALUE_NULL) continue;
+			if (value != JsonToken.START_ARRAY) throw invalid();
+
+			hasSensorData = true;
+			if (!started && fields.hasNonNull("bdAddress")) {
+				handler.startStation(toSensorStation(fields, false));
+				started = true;
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				SensorData data = objectMapper.readValue(parser, SensorData.class);
+				if (started) {
+					handler.reading(data);
+				} else {
+					if (buffered == null) buffered = new ArrayList<>();
+					buffered.add(data);
+				}
+			}
+			if (parser.currentToken() != JsonToken.END_ARRAY) throw invalid();
+		}
+		if (parser.currentToken() != JsonToken.END_OBJECT) throw invalid();
+
+		SensorStation sensorStation = toSensorStation(fields, hasSensorData);
+		if (!started) {
+			handler.startStation(sensorStation);
+			if (buffered != null) {
+				for (SensorData data : buffered) handler.reading(data);
+			}
+		}
+		handler.endStation(sensorStation);
+	}
+
+	private SensorStation toSensorStation(ObjectNode fields, boolean hasSensorData)
+			throws IOException {
+		SensorStation sensorStation = objectMapper.treeToValue(fields, SensorStation.class);
+		sensorStation.setSensorData(hasSensorData ? new ArrayList<>() : null);
+		return sensorStation;
+	}
+
+	private static boolean isBinary(String contentType) {
+		if (contentType == null) return false;
+		try {
+			return SensorDataBinaryCodec.MEDIA_TYPE.includes(MediaType.parseMediaType(contentType));
+		} catch (InvalidMediaTypeException e) {
+			return false;
+		}
+	}
+
+	private static ServiceException invalid() {
+		return new ServiceException("Invalid data", 400);
+	}
+}
@@ -0,0 +1,146 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-Memory Registry of all known {@link Sensor}s keyed by their Type.
+ * <br/>
+ * The Sensor Table only holds a handful of Rows, but it is consulted for every single
+ * SensorData and SensorLimit that is written. The Registry is loaded on Startup and afterwards
+ * only goes to the Database for Types it has not seen yet.
+ */
+@Slf4j
+@Service
+public class SensorTypeRegistry {
+	@Autowired
+	private SensorRepository sensorRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final ConcurrentMap<String, Sensor> sensors = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private TransactionTemplate newTransaction;
+
+	@PostConstruct
+	public void init() {
+		// NOTE: Sensors have to be created in their own Transaction, otherwise a rolled back
+		//       Transfer would leave a Sensor in the Registry that does not exist in the Database.
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		FunctionCounter.builder("swa.sensor.registry.hits", hits, AtomicLong::get)
+				.description("Sensor Lookups answered from Memory")
+				.register(meterRegistry);
+		FunctionCounter.builder("swa.sensor.registry.misses", misses, AtomicLong::get)
+				.description("Sensor Lookups that had to go to the Database")
+				.register(meterRegistry);
+		Gauge.builder("swa.sensor.registry.size", sensors, ConcurrentMap::size)
+				.description("Number of cached Sensor Types")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		sensorRepository.findAll().forEach(s -> sensors.putIfAbsent(s.getType(), s));
+		log.info("Loaded {} Sensor Types into the Registry", sensors.size());
+	}
+
+	/**
+	 * Find the Sensor with the given Type without creating it.
+	 *
+	 * @param type The Type of the Sensor.
+	 * @return The Sensor if it exists, empty otherwise.
+	 */
+	public Optional<Sensor> find(String type) {
+		if (type == null) return Optional.empty();
+
+		Sensor sensor = sensors.get(type);
+		if (sensor != null) {
+			hits.incrementAndGet();
+			return Optional.of(sensor);
+		}
+
+		misses.incrementAndGet();
+		Optional<Sensor> maybeSensor = sensorRepository.findByType(type);
+		return maybeSensor.map(s -> {
+			Sensor existing = sensors.putIfAbsent(type, s);
+			return existing != null ? existing : s;
+		});
+	}
+
+	/**
+	 * Find the Sensor with the same Type as the given Sensor and create it if it does not exist.
+	 * Concurrent Callers asking for the same new Type will only create it once.
+	 *
+	 * @param sensor The Sensor (only Type and Unit are used).
+	 * @return The persisted Sensor with the given Type.
+	 */
+	public Sensor getOrCreate(Sensor sensor) {
+		String type = sensor.getType();
+
+		Sensor cached = sensors.get(type);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+
+		// computeIfAbsent blocks concurrent Callers for the same Key until the Sensor is created.
+		return sensors.computeIfAbsent(type, t -> {
+			misses.incrementAndGet();
+			return newTransaction.execute(status -> findOrCreate(sensor));
+		});
+	}
+
+	private Sensor findOrCreate(Sensor sensor) {
+		Optional<Sensor> maybeSensor = sensorRepository.findByType(sensor.getType());
+		if (maybeSensor.isPresent()) return maybeSensor.get();
+
+		try {
+			Sensor created = sensorRepository.save(new Sensor(sensor.getType(), sensor.getUnit()));
+			log.info("Created new Sensor Type {}", created.getType());
+			return created;
+		} catch (DataIntegrityViolationException e) {
+			// Another Instance created the Sensor in the meantime.
+			return sensorRepository.findByType(sensor.getType()).orElseThrow(() -> e);
+		}
+	}
+
+	/**
+	 * Remove all cached Sensors (they will be reloaded lazily).
+	 */
+	public void invalidate() {
+		sensors.clear();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,121 @@
+package at.ac.uibk.plant_health.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+
+/**
+ * Short-lived Memory of the Transfers (identified by the Batch-Id Header of the AccessPoint)
+ * that have recently been written.
+ * <br/>
+ * A Retry of an already written Transfer is answered without touching the Database. The Cache
+ * only saves Work, Duplicates that are not found here are still skipped by the Ingest.
+ * <br/>
+ * The Cache holds at most {@code swa.ingest.idempotency.max-size} Batches: when it is full, the
+ * expired and then the oldest written Batches are forgotten. If all of them are still being
+ * processed, new Batches are rejected until some of them are done.
+ */
+@Service
+public class TransferBatchCache {
+	public static final String BATCH_ID_HEADER = "X-Batch-Id";
+
+	@Value("${swa.ingest.idempotency.ttl:10m}")
+	private Duration ttl;
+	@Value("${swa.ingest.idempotency.max-size:10000}")
+	private int maxSize;
+
+	private record Batch(boolean done, int written, long expires) {}
+
+	private final ConcurrentMap<String, Batch> batches = new ConcurrentHashMap<>();
+
+	/**
+	 * Mark the Batch as being processed.
+	 *
+	 * @param accessPoint The AccessPoint that sent the Batch.
+	 * @param batchId The Id the AccessPoint assigned to the Batch.
+	 * @return The Number of SensorData written for the Batch if it has already been processed,
+	 *     {@code null} if it has to be processed now.
+	 * @throws ServiceException If the Batch is currently being processed or too many Batches are.
+	 */
+	public Integer begin(AccessPoint accessPoint, String batchId) throws ServiceException {
+		long now = System.nanoTime();
+		String key = key(accessPoint.getDeviceId(), batchId);
+		if (batches.size() >= maxSize && !batches.containsKey(key)) {
+			evict(now);
+			if (batches.size() >= maxSize)
+				throw new ServiceException("Too many transfers, try again later", 429);
+		}
+
+		Batch started = new Batch(false, 0, now + ttl.toNanos());
+		Batch batch = batches.compute(key, (k, existing) -> {
+			if (existing == null || existing.expires() - now < 0) return started;
+			return existing;
+		});
+
+		if (batch == started) return null;
+		if (!batch.done()) throw new ServiceException("Batch is already being processed", 409);
+		return batch.written();
+	}
+
+	/**
+	 * Remember that the Batch has been written.
+	 */
+	public void complete(AccessPoint accessPoint, String batchId, int written) {
+		complete(accessPoint.getDeviceId(), batchId, written);
+	}
+
+	/**
+	 * Remember that the Batch of the AccessPoint with the given Id has been written.
+	 */
+	public void complete(UUID accessPointId, String batchId, int written) {
+		batches.put(
+				key(accessPointId, batchId),
+				new Batch(true, written, System.nanoTime() + ttl.toNanos())
+		);
+	}
+
+	/**
+	 * Forget the Batch, so it can be sent again (e.g. after it could not be written).
+	 */
+	public void abort(AccessPoint accessPoint, String batchId) {
+		abort(accessPoint.getDeviceId(), batchId);
+	}
+
+	/**
+	 * Forget the Batch of the AccessPoint with the given Id.
+	 */
+	public void abort(UUID accessPointId, String batchId) {
+		batches.remove(key(accessPointId, batchId));
+	}
+
+	/**
+	 * Forget the expired Batches and, if that is not enough, the oldest written ones, so a tenth
+	 * of the Cache is free again.
+	 */
+	private void evict(long now) {
+		batches.values().removeIf(batch -> batch.expires() - now < 0);
+		int excess = batches.size() - (maxSize - maxSize / 10);
+		if (excess <= 0) return;
+		batches.entrySet()
+				.stream()
+				.filter(entry -> entry.getValue().done())
+				.sorted(Comparator.comparingLong(entry -> entry.getValue().expires()))
+				.limit(excess)
+				.map(Map.Entry::getKey)
+				.toList()
+				.forEach(batches::remove);
+	}
+
+	private static String key(UUID accessPointId, String batchId) {
+		return accessPointId + ":" + batchId;
+	}
+}
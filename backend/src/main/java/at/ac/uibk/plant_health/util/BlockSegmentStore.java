@@ -0,0 +1,218 @@
+package at.ac.uibk.plant_health.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only Files of encoded Blocks of Readings ({@link GorillaBlock}).
+ * <br/>
+ * Blocks are appended to the newest Segment until it reaches its Size, then a new Segment is
+ * started. Every Block is preceded by a Header (SensorStation, Sensor, Time Range and Number of
+ * Readings), so the Index can be rebuilt by scanning the Headers. Blocks are read through
+ * memory-mapped Segments. A Block that was only partially written (e.g. on a Crash) is cut off
+ * when the Store is opened.
+ */
+public class BlockSegmentStore implements Closeable {
+	private static final int MAGIC = 0x53574143;
+	// Magic, SensorStation, Sensor, first and last Epoch Second, Number of Readings, Length
+	private static final int HEADER_BYTES = 4 + 16 + 4 + 8 + 8 + 4 + 4;
+	private static final String PREFIX = "segment-";
+	private static final String SUFFIX = ".blk";
+
+	/**
+	 * The Location of a Block inside a Segment.
+	 *
+	 * @param start The Epoch Second of the first Reading.
+	 * @param end The Epoch Second of the last Reading.
+	 * @param offset The Offset of the encoded Block (after its Header) inside the Segment.
+	 */
+	public record BlockRef(
+			UUID sensorStationId, int sensorId, long start, long end, int count, int segment,
+			long offset, int length
+	) {
+		public boolean overlaps(long fromExclusive, long toExclusive) {
+			return start < toExclusive && end > fromExclusive;
+		}
+	}
+
+	private final Path directory;
+	private final long segmentSize;
+	private final Map<Integer, MappedByteBuffer> mapped = new ConcurrentHashMap<>();
+	private FileChannel active;
+	private int activeSegment = -1;
+
+	public BlockSegmentStore(Path directory, long segmentSize) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Open the Store, creating its Directory if needed.
+	 *
+	 * @return The Blocks of all existing Segments in the Order they were written.
+	 */
+	public synchronized List<BlockRef> open() throws IOException {
+		Files.createDirectories(directory);
+		List<Integer> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.map(p -> p.getFileName().toString())
+							   .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+							   .map(n -> n.substring(PREFIX.length(), n.length() - SUFFIX.length()))
+							   .map(Integer::parseInt)
+							   .sorted()
+							   .toList();
+		}
+		List<BlockRef> blocks = new ArrayList<>();
+		for (int segment : segments) {
+			try (FileChannel channel = FileChannel.open(
+						 path(segment), StandardOpenOption.READ, StandardOpenOption.WRITE
+				 )) {
+				long valid = scan(segment, channel, blocks);
+				if (valid < channel.size()) channel.truncate(valid);
+			}
+		}
+		activeSegment = segments.isEmpty() ? -1 : segments.get(segments.size() - 1);
+		return blocks;
+	}
+
+	private long scan(int segment, FileChannel channel, List<BlockRef> blocks) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		long position = 0;
+		long size = channel.size();
+		while (position + HEADER_BYTES <= size) {
+			header.clear();
+			channel.read(header, position);
+			header.flip();
+			if (header.getInt() != MAGIC) break;
+			UUID sensorStationId = new UUID(header.getLong(), header.getLong());
+			int sensorId = header.getInt();
+			long start = header.getLong();
+			long end = header.getLong();
+			int count = header.getInt();
+			int length = header.getInt();
+			long offset = position + HEADER_BYTES;
+			if (length < 0 || offset + length > size) break;
+			blocks.add(new BlockRef(
+					sensorStationId, sensorId, start, end, count, segment, offset, length
+			));
+			position = offset + length;
+		}
+		return position;
+	}
+
+	/**
+	 * Append an encoded Block. It is only durable after {@link #sync()}.
+	 *
+	 * @return The Location of the Block.
+	 */
+	public synchronized BlockRef append(
+			UUID sensorStationId, int sensorId, long start, long end, int count, byte[] block
+	) throws IOException {
+		long size = HEADER_BYTES + block.length;
+		ensureCapacity(size);
+		long position = active.size();
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		buffer.putInt(MAGIC)
+				.putLong(sensorStationId.getMostSignificantBits())
+				.putLong(sensorStationId.getLeastSignificantBits())
+				.putInt(sensorId)
+				.putLong(start)
+				.putLong(end)
+				.putInt(count)
+				.putInt(block.length)
+				.put(block)
+				.flip();
+		while (buffer.hasRemaining()) active.write(buffer, position + buffer.position());
+		return new BlockRef(
+				sensorStationId, sensorId, start, end, count, activeSegment,
+				position + HEADER_BYTES, block.length
+		);
+	}
+
+	private void ensureCapacity(long size) throws IOException {
+		if (active == null) {
+			activeSegment = Math.max(activeSegment, 0);
+			active = openForAppend(activeSegment);
+		}
+		// A Block larger than a whole Segment gets a Segment of its own.
+		if (active.size() > 0 && active.size() + size > segmentSize) {
+			active.force(true);
+			active.close();
+			active = openForAppend(++activeSegment);
+		}
+	}
+
+	private FileChannel openForAppend(int segment) throws IOException {
+		return FileChannel.open(
+				path(segment), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE
+		);
+	}
+
+	/**
+	 * Flush the appended Blocks to Disk.
+	 */
+	public synchronized void sync() throws IOException {
+		if (active != null) active.force(true);
+	}
+
+	/**
+	 * @return A read-only View of the encoded Block.
+	 */
+	public ByteBuffer read(BlockRef block) throws IOException {
+		MappedByteBuffer segment = map(block.segment(), block.offset() + block.length());
+		return segment.slice((int) block.offset(), block.length()).asReadOnlyBuffer();
+	}
+
+	private MappedByteBuffer map(int segment, long minimumSize) throws IOException {
+		MappedByteBuffer buffer = mapped.get(segment);
+		if (buffer != null && buffer.capacity() >= minimumSize) return buffer;
+		return remap(segment, minimumSize);
+	}
+
+	private synchronized MappedByteBuffer remap(int segment, long minimumSize) throws IOException {
+		MappedByteBuffer buffer = mapped.get(segment);
+		// The active Segment grows, so its Mapping is renewed once it no longer covers a Block.
+		if (buffer == null || buffer.capacity() < minimumSize) {
+			try (FileChannel channel = FileChannel.open(path(segment), StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			mapped.put(segment, buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return The Number of Bytes of all Segments.
+	 */
+	public long sizeOnDisk() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			long size = 0;
+			for (Path file : (Iterable<Path>) files::iterator) size += Files.size(file);
+			return size;
+		}
+	}
+
+	private Path path(int segment) {
+		return directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX));
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		mapped.clear();
+		if (active != null) {
+			active.force(true);
+			active.close();
+			active = null;
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package at.ac.uibk.plant_health.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compressed Encoding of the Readings (Epoch Seconds, Values and Alarms) of one Sensor, as used by
+ * the Gorilla Time Series Database.
+ * <br/>
+ * Time Stamps are stored as Delta of Deltas, so Readings sent at a fixed Interval take a single
+ * Bit. Values are XORed with their Predecessor and only the meaningful Bits of the Result are
+ * stored, so an unchanged Value takes a single Bit as well. Alarms take one Bit unless they
+ * change.
+ */
+public final class GorillaBlock {
+	private GorillaBlock() {}
+
+	private static final byte[] ALARMS = {'n', 'h', 'l'};
+
+	/**
+	 * Encodes Readings in the Order of their Time Stamps.
+	 */
+	public static class Encoder {
+		private final BitWriter out = new BitWriter();
+		private int count;
+		private long previousTime;
+		private long previousDelta;
+		private int previousValue;
+		private int previousLeading = -1;
+		private int previousTrailing;
+		private int previousAlarm;
+
+		/**
+		 * @throws IllegalArgumentException If the Reading is older than the previous one.
+		 */
+		public void add(long epochSecond, float value, byte alarm) {
+			int bits = Float.floatToRawIntBits(value);
+			int alarmCode = alarmCode(alarm);
+			if (count == 0) {
+				out.write(epochSecond, 64);
+				out.write(bits, 32);
+				out.write(alarmCode, 2);
+			} else {
+				if (epochSecond < previousTime)
+					throw new IllegalArgumentException("Readings have to be added in Order");
+				long delta = epochSecond - previousTime;
+				writeTime(delta - previousDelta);
+				previousDelta = delta;
+				writeValue(bits ^ previousValue);
+				if (alarmCode == previousAlarm) {
+					out.write(0, 1);
+				} else {
+					out.write(1, 1);
+					out.write(alarmCode, 2);
+				}
+			}
+			previousTime = epochSecond;
+			previousValue = bits;
+			previousAlarm = alarmCode;
+			count++;
+		}
+
+		private void writeTime(long deltaOfDelta) {
+			if (deltaOfDelta == 0) {
+				out.write(0, 1);
+			} else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+				out.write(0b10, 2);
+				out.write(deltaOfDelta + 63, 7);
+			} else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+				out.write(0b110, 3);
+				out.write(deltaOfDelta + 255, 9);
+			} else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+				out.write(0b1110, 4);
+				out.write(deltaOfDelta + 2047, 12);
+			} else {
+				out.write(0b1111, 4);
+				out.write(deltaOfDelta, 64);
+			}
+		}
+
+		private void writeValue(int xor) {
+			if (xor == 0) {
+				out.write(0, 1);
+				return;
+			}
+			out.write(1, 1);
+			int leading = Integer.numberOfLeadingZeros(xor);
+			int trailing = Integer.numberOfTrailingZeros(xor);
+			if (previousLeading >= 0 && leading >= previousLeading
+				&& trailing >= previousTrailing) {
+				// The meaningful Bits fit into the Window of the previous Value.
+				out.write(0, 1);
+				out.write(xor >>> previousTrailing, 32 - previousLeading - previousTrailing);
+			} else {
+				int length = 32 - leading - trailing;
+				out.write(1, 1);
+				out.write(leading, 5);
+				out.write(length - 1, 5);
+				out.write(xor >>> trailing, length);
+				previousLeading = leading;
+				previousTrailing = trailing;
+			}
+		}
+
+		public int count() {
+			return count;
+		}
+
+		public byte[] toByteArray() {
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Decodes the Readings of a Block one by one.
+	 */
+	public static class Decoder {
+		private final BitReader in;
+		private final int count;
+		private int index;
+		private long time;
+		private long delta;
+		private int value;
+		private int leading;
+		private int trailing;
+		private int alarm;
+
+		/**
+		 * @param block The encoded Block (read from its Position to its Limit).
+		 * @param count The Number of Readings in the Block.
+		 */
+		public Decoder(ByteBuffer block, int count) {
+			this.in = new BitReader(block);
+			this.count = count;
+		}
+
+		/**
+		 * Advance to the next Reading.
+		 *
+		 * @return False if all Readings have been read.
+		 */
+		public boolean next() {
+			if (index >= count) return false;
+			if (index == 0) {
+				time = in.read(64);
+				value = (int) in.read(32);
+				alarm = (int) in.read(2);
+			} else {
+				delta += readTime();
+				time += delta;
+				readValue();
+				if (in.read(1) == 1) alarm = (int) in.read(2);
+			}
+			index++;
+			return true;
+		}
+
+		private long readTime() {
+			if (in.read(1) == 0) return 0;
+			if (in.read(1) == 0) return in.read(7) - 63;
+			if (in.read(1) == 0) return in.read(9) - 255;
+			if (in.read(1) == 0) return in.read(12) - 2047;
+			return in.read(64);
+		}
+
+		private void readValue() {
+			if (in.read(1) == 0) return;
+			if (in.read(1) == 1) {
+				leading = (int) in.read(5);
+				int length = (int) in.read(5) + 1;
+				trailing = 32 - leading - length;
+			}
+			int xor = (int) in.read(32 - leading - trailing) << trailing;
+			value ^= xor;
+		}
+
+		public long epochSecond() {
+			return time;
+		}
+
+		public float value() {
+			return Float.intBitsToFloat(value);
+		}
+
+		public byte alarm() {
+			return ALARMS[Math.min(alarm, ALARMS.length - 1)];
+		}
+	}
+
+	private static int alarmCode(byte alarm) {
+		return switch (alarm) {
+			case 'h' -> 1;
+			case 'l' -> 2;
+			default -> 0;
+		};
+	}
+
+	private static class BitWriter {
+		private byte[] bytes = new byte[256];
+		private int length;
+		private int current;
+		private int used;
+
+		/**
+		 * Write the lowest {@code bits} Bits of the given Value (most significant first).
+		 */
+		void write(long value, int bits) {
+			while (bits > 0) {
+				int take = Math.min(bits, 8 - used);
+				int chunk = (int) (value >>> (bits - take)) & ((1 << take) - 1);
+				current |= chunk << (8 - used - take);
+				used += take;
+				bits -= take;
+				if (used == 8) {
+					append((byte) current);
+					current = 0;
+					used = 0;
+				}
+			}
+		}
+
+		private void append(byte b) {
+			if (length == bytes.length) bytes = Arrays.copyOf(bytes, length * 2);
+			bytes[length++] = b;
+		}
+
+		byte[] toByteArray() {
+			byte[] result = Arrays.copyOf(bytes, length + (used > 0 ? 1 : 0));
+			if (used > 0) result[length] = (byte) current;
+			return result;
+		}
+	}
+
+	private static class BitReader {
+		private final ByteBuffer buffer;
+		private int position;
+		private int current;
+		private int available;
+
+		BitReader(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.position = buffer.position();
+		}
+
+		/**
+		 * Read the next {@code bits} Bits (at most 64) as an unsigned Value.
+		 */
+		long read(int bits) {
+			long result = 0;
+			while (bits > 0) {
+				if (available == 0) {
+					current = buffer.get(position++) & 0xFF;
+					available = 8;
+				}
+				int take = Math.min(bits, available);
+				long chunk = (current >>> (available - take)) & ((1 << take) - 1);
+				result = (result << take) | chunk;
+				available -= take;
+				bits -= take;
+			}
+			return result;
+		}
+	}
+}
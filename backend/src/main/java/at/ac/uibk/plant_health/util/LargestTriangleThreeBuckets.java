@@ -0,0 +1,86 @@
+package at.ac.uibk.plant_health.util;
+
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Downsampling of a Time Series with the Largest-Triangle-Three-Buckets Algorithm.
+ * <br/>
+ * The first and the last Point are always kept, the Points in between are split into Buckets of
+ * equal Size and from every Bucket the Point spanning the largest Triangle with the previously
+ * selected Point and the Average of the next Bucket is kept. Peaks and Valleys therefore survive
+ * the Downsampling, while flat Stretches are thinned out.
+ * <br/>
+ * The Series is read in one Pass (plus one Look-Ahead over the next Bucket) and nothing but the
+ * Array of the selected Indices is allocated.
+ */
+public final class LargestTriangleThreeBuckets {
+	private LargestTriangleThreeBuckets() {}
+
+	/**
+	 * The smallest Number of Points a Series can be downsampled to (the first, the last and one
+	 * in between).
+	 */
+	public static final int MIN_POINTS = 3;
+
+	/**
+	 * Select the Points to keep.
+	 *
+	 * @param size The Number of Points in the Series.
+	 * @param x The Time of the i-th Point, ascending.
+	 * @param y The Value of the i-th Point.
+	 * @param maxPoints The maximum Number of Points to keep.
+	 * @return The ascending Indices of the kept Points, all Indices if the Series is not longer
+	 *         than maxPoints.
+	 * @throws IllegalArgumentException If maxPoints is less than {@link #MIN_POINTS}.
+	 */
+	public static int[] select(
+			int size, IntToDoubleFunction x, IntToDoubleFunction y, int maxPoints
+	) {
+		if (maxPoints < MIN_POINTS)
+			throw new IllegalArgumentException("At least " + MIN_POINTS + " Points are required");
+		if (size <= maxPoints) {
+			int[] all = new int[size];
+			for (int i = 0; i < size; i++) all[i] = i;
+			return all;
+		}
+
+		int[] selected = new int[maxPoints];
+		double bucketSize = (double) (size - 2) / (maxPoints - 2);
+		int previous = 0;
+		for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+			int start = (int) (bucket * bucketSize) + 1;
+			int end = (int) ((bucket + 1) * bucketSize) + 1;
+			int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+
+			// The Average of the next Bucket (the last Point for the last Bucket).
+			double averageX = 0;
+			double averageY = 0;
+			for (int i = end; i < nextEnd; i++) {
+				averageX += x.applyAsDouble(i);
+				averageY += y.applyAsDouble(i);
+			}
+			averageX /= nextEnd - end;
+			averageY /= nextEnd - end;
+
+			double previousX = x.applyAsDouble(previous);
+			double previousY = y.applyAsDouble(previous);
+			double largestArea = -1;
+			int largest = start;
+			for (int i = start; i < end; i++) {
+				// Twice the Area of the Triangle, only used for Comparisons.
+				double area = Math.abs(
+						(previousX - averageX) * (y.applyAsDouble(i) - previousY)
+						- (previousX - x.applyAsDouble(i)) * (averageY - previousY)
+				);
+				if (area > largestArea) {
+					largestArea = area;
+					largest = i;
+				}
+			}
+			selected[bucket + 1] = largest;
+			previous = largest;
+		}
+		selected[maxPoints - 1] = size - 1;
+		return selected;
+	}
+}
@@ -0,0 +1,168 @@
+package at.ac.uibk.plant_health.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Time ordered Ring Buffer of Readings, kept in primitive Arrays (Epoch Seconds, Values and
+ * Alarms) instead of one Object per Reading.
+ * <br/>
+ * Readings are appended at the Tail and dropped from the Head once they are too old. Readings
+ * arriving out of Order are inserted at their Place, a second Reading for the same Second
+ * replaces the first one. The Buffer doubles its Capacity when it is full.
+ * <br/>
+ * Not thread-safe, Callers have to synchronize on the Buffer.
+ */
+public class ReadingRingBuffer {
+	private long[] times;
+	private float[] values;
+	private byte[] alarms;
+	private int mask;
+	private int head;
+	private int size;
+
+	/**
+	 * Readings between two Points in Time, copied out of the Buffer.
+	 */
+	public record Slice(long[] epochSeconds, float[] values, byte[] alarms) {
+		public int size() {
+			return epochSeconds.length;
+		}
+	}
+
+	/**
+	 * @param initialCapacity The initial Capacity, rounded up to a Power of two.
+	 */
+	public ReadingRingBuffer(int initialCapacity) {
+		int capacity = Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1;
+		this.times = new long[capacity];
+		this.values = new float[capacity];
+		this.alarms = new byte[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Add a Reading.
+	 *
+	 * @param epochSecond The Time of the Reading.
+	 * @param value The Value of the Reading.
+	 * @param alarm The Alarm of the Reading.
+	 */
+	public void add(long epochSecond, float value, byte alarm) {
+		if (size > 0 && epochSecond <= timeAt(size - 1)) {
+			int index = search(epochSecond);
+			if (timeAt(index) == epochSecond) {
+				set(index, epochSecond, value, alarm);
+				return;
+			}
+			if (size == times.length) grow();
+			for (int i = size; i > index; i--) {
+				int from = (head + i - 1) & mask;
+				set(i, times[from], values[from], alarms[from]);
+			}
+			set(index, epochSecond, value, alarm);
+			size++;
+			return;
+		}
+		if (size == times.length) grow();
+		set(size, epochSecond, value, alarm);
+		size++;
+	}
+
+	/**
+	 * Drop all Readings older than the given Time.
+	 *
+	 * @param epochSecond The Time of the oldest Reading to keep.
+	 * @return The Number of dropped Readings.
+	 */
+	public int evictBefore(long epochSecond) {
+		int count = search(epochSecond);
+		head = (head + count) & mask;
+		size -= count;
+		return count;
+	}
+
+	/**
+	 * Copy the Readings strictly between the given Times.
+	 */
+	public Slice slice(long fromExclusive, long toExclusive) {
+		int start = search(fromExclusive + 1);
+		int end = Math.max(start, search(toExclusive));
+		int length = end - start;
+		long[] t = new long[length];
+		float[] v = new float[length];
+		byte[] a = new byte[length];
+		for (int i = 0; i < length; i++) {
+			int index = (head + start + i) & mask;
+			t[i] = times[index];
+			v[i] = values[index];
+			a[i] = alarms[index];
+		}
+		return new Slice(t, v, a);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The Epoch Second of a Time Stamp (Time Stamps are stored without Time Zone).
+	 */
+	public static long toEpochSecond(LocalDateTime timeStamp) {
+		return timeStamp.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	public static LocalDateTime toTimeStamp(long epochSecond) {
+		return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * @return The Number of Bytes held by the Arrays of this Buffer.
+	 */
+	public long memoryBytes() {
+		return (long) times.length * (Long.BYTES + Float.BYTES + Byte.BYTES);
+	}
+
+	/**
+	 * @return The (logical) Index of the first Reading not older than the given Time.
+	 */
+	private int search(long epochSecond) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timeAt(mid) < epochSecond) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	private long timeAt(int index) {
+		return times[(head + index) & mask];
+	}
+
+	private void set(int index, long epochSecond, float value, byte alarm) {
+		int i = (head + index) & mask;
+		times[i] = epochSecond;
+		values[i] = value;
+		alarms[i] = alarm;
+	}
+
+	private void grow() {
+		int capacity = times.length << 1;
+		long[] t = new long[capacity];
+		float[] v = new float[capacity];
+		byte[] a = new byte[capacity];
+		for (int i = 0; i < size; i++) {
+			int index = (head + i) & mask;
+			t[i] = times[index];
+			v[i] = values[index];
+			a[i] = alarms[index];
+		}
+		this.times = t;
+		this.values = v;
+		this.alarms = a;
+		this.mask = capacity - 1;
+		this.head = 0;
+	}
+}
@@ -0,0 +1,134 @@
+package at.ac.uibk.plant_health.util;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hashed Timing Wheel for Deadlines that are re-armed far more often than they expire.
+ * <br/>
+ * Every Key sits in the Slot of the Tick its Deadline falls into. Re-arming a Key that is
+ * already scheduled only replaces its Deadline in a Map, the Key is moved to its new Slot once
+ * the old Slot comes up. A Heartbeat therefore costs a single Map Update and {@link #advance}
+ * only touches the Keys of the Slots that are due.
+ *
+ * @param <K> The Type of the Keys.
+ */
+public class TimingWheel<K> {
+	private final long tickNanos;
+	private final long origin;
+	private final List<Set<K>> slots;
+	private final ConcurrentMap<K, Long> deadlines = new ConcurrentHashMap<>();
+	// The next Tick that has not been processed yet.
+	private long tick = 0;
+
+	/**
+	 * @param tick The Resolution of the Wheel.
+	 * @param slotCount The Number of Slots, Deadlines further away take more than one Round.
+	 * @param nowNanos The current {@link System#nanoTime()}.
+	 */
+	public TimingWheel(Duration tick, int slotCount, long nowNanos) {
+		if (tick.isNegative() || tick.isZero() || slotCount <= 0)
+			throw new IllegalArgumentException("Invalid Timing Wheel");
+		this.tickNanos = tick.toNanos();
+		this.origin = nowNanos;
+		this.slots = new ArrayList<>(slotCount);
+		for (int i = 0; i < slotCount; i++) slots.add(new HashSet<>());
+	}
+
+	/**
+	 * Set the Deadline of the given Key, replacing any previous Deadline.
+	 *
+	 * @param key The Key.
+	 * @param deadlineNanos The Deadline in {@link System#nanoTime()}.
+	 */
+	public void schedule(K key, long deadlineNanos) {
+		Long previous = deadlines.put(key, deadlineNanos);
+		// NOTE: A later Deadline is picked up when the old Slot is processed, only new Keys and
+		//       earlier Deadlines have to be put into a Slot right away.
+		if (previous == null || deadlineNanos < previous) {
+			synchronized (this) {
+				slotOf(tickOf(deadlineNanos)).add(key);
+			}
+		}
+	}
+
+	/**
+	 * Remove the Deadline of the given Key.
+	 */
+	public void cancel(K key) {
+		// The Key is dropped from its Slot when the Slot is processed.
+		deadlines.remove(key);
+	}
+
+	public int size() {
+		return deadlines.size();
+	}
+
+	/**
+	 * Process all Ticks up to the given Time.
+	 *
+	 * @param nowNanos The current {@link System#nanoTime()}.
+	 * @return All Keys whose Deadline has passed, they are no longer scheduled.
+	 */
+	public synchronized List<K> advance(long nowNanos) {
+		List<K> expired = new ArrayList<>();
+		// Only Ticks that have completely passed are processed.
+		long target = Math.floorDiv(nowNanos - origin, tickNanos) - 1;
+		// Processing more than one Round would only visit the same Slots again.
+		if (target - tick >= slots.size()) tick = target - slots.size() + 1;
+
+		for (; tick <= target; tick++) {
+			Set<K> slot = slots.get(index(tick));
+			List<K> moved = new ArrayList<>();
+			for (Iterator<K> it = slot.iterator(); it.hasNext();) {
+				K key = it.next();
+				Long deadline = deadlines.get(key);
+				if (deadline == null) {
+					it.remove();
+					continue;
+				}
+				long due = tickOf(deadline);
+				if (due > target) {
+					if (index(due) != index(tick)) {
+						it.remove();
+						moved.add(key);
+					}
+					continue;
+				}
+				it.remove();
+				if (deadlines.remove(key, deadline)) {
+					expired.add(key);
+				} else if (deadlines.containsKey(key)) {
+					// Re-armed while it was expiring.
+					moved.add(key);
+				}
+			}
+			for (K key : moved) {
+				Long deadline = deadlines.get(key);
+				if (deadline == null) continue;
+				long due = tickOf(deadline);
+				if (due > target) {
+					slotOf(due).add(key);
+				} else if (deadlines.remove(key, deadline)) {
+					expired.add(key);
+				}
+			}
+		}
+		return expired;
+	}
+
+	private long tickOf(long deadlineNanos) {
+		// Deadlines that have already passed are processed with the next Tick.
+		return Math.max(Math.floorDiv(deadlineNanos - origin, tickNanos), tick);
+	}
+
+	private Set<K> slotOf(long tick) {
+		return slots.get(index(tick));
+	}
+
+	private int index(long tick) {
+		return (int) Math.floorMod(tick, (long) slots.size());
+	}
+}
@@ -0,0 +1,116 @@
+-- Moves an existing MySQL Database to the compact sensor_data Layout:
+--   * sensor.sensor_id becomes a SMALLINT instead of a UUID and every Table referencing a Sensor
+--     (sensor_data, sensor_limits, sensor_data_rollup) is remapped to the new IDs,
+--   * sensor_data is keyed by (sensor_station_id, sensor_id, time_stamp) instead of a random UUID,
+--     so InnoDB stores the Readings of a Series next to each other in Time Order,
+--   * the Alarm is stored as a TINYINT (0 = none, 1 = above, 2 = below Limit) and the redundant
+--     above_limit, below_limit and is_deleted Columns are dropped.
+--
+-- Run it once with the Backend stopped, before starting the new Version:
+--   mysql -u spring -p plant_health < compact_sensor_data.sql
+-- The Constraints keep the Names Hibernate generated for them, so "ddl-auto: update" does not
+-- add them a second Time.
+
+SET foreign_key_checks = 0;
+
+DELIMITER //
+
+CREATE PROCEDURE swa_drop_foreign_key(IN tbl VARCHAR(64), IN col VARCHAR(64), OUT fk VARCHAR(64))
+BEGIN
+	SET fk = NULL;
+	SELECT CONSTRAINT_NAME INTO fk FROM information_schema.KEY_COLUMN_USAGE
+	WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = tbl AND COLUMN_NAME = col
+		AND REFERENCED_TABLE_NAME IS NOT NULL
+	LIMIT 1;
+	IF fk IS NOT NULL THEN
+		SET @stmt = CONCAT('ALTER TABLE `', tbl, '` DROP FOREIGN KEY `', fk, '`');
+		PREPARE s FROM @stmt;
+		EXECUTE s;
+		DEALLOCATE PREPARE s;
+	END IF;
+END //
+
+CREATE PROCEDURE swa_remap_sensor_column(IN tbl VARCHAR(64), IN col VARCHAR(64))
+BEGIN
+	DECLARE fk VARCHAR(64);
+	IF EXISTS (SELECT 1 FROM information_schema.TABLES
+			   WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = tbl) THEN
+		CALL swa_drop_foreign_key(tbl, col, fk);
+		SET @stmt = CONCAT(
+			'UPDATE `', tbl, '` t JOIN swa_sensor_id_map m ON t.`', col, '` = m.old_id ',
+			'SET t.`', col, '` = m.new_id'
+		);
+		PREPARE s FROM @stmt;
+		EXECUTE s;
+		DEALLOCATE PREPARE s;
+		SET @stmt = CONCAT(
+			'ALTER TABLE `', tbl, '` MODIFY `', col, '` SMALLINT NOT NULL, ',
+			'ADD CONSTRAINT `', IFNULL(fk, CONCAT('fk_', tbl, '_sensor')), '` ',
+			'FOREIGN KEY (`', col, '`) REFERENCES sensor (sensor_id)'
+		);
+		PREPARE s FROM @stmt;
+		EXECUTE s;
+		DEALLOCATE PREPARE s;
+	END IF;
+END //
+
+DELIMITER ;
+
+-- Sensors are numbered by Type, so the IDs are the same on every Installation.
+CREATE TABLE swa_sensor_id_map (
+	old_id VARCHAR(36) NOT NULL PRIMARY KEY,
+	new_id SMALLINT NOT NULL
+) AS
+SELECT sensor_id AS old_id, ROW_NUMBER() OVER (ORDER BY sensor_type) AS new_id FROM sensor;
+
+CALL swa_drop_foreign_key('sensor_data', 'sensor_id', @sensor_data_sensor_fk);
+CALL swa_drop_foreign_key('sensor_data', 'sensor_station_id', @sensor_data_station_fk);
+CALL swa_drop_foreign_key('sensor_limits', 'sensor_type', @ignored);
+CALL swa_drop_foreign_key('sensor_data_rollup', 'sensor_id', @ignored);
+
+UPDATE sensor s JOIN swa_sensor_id_map m ON s.sensor_id = m.old_id SET s.sensor_id = m.new_id;
+ALTER TABLE sensor MODIFY sensor_id SMALLINT NOT NULL AUTO_INCREMENT;
+
+CALL swa_remap_sensor_column('sensor_limits', 'sensor_type');
+CALL swa_remap_sensor_column('sensor_data_rollup', 'sensor_id');
+
+CREATE TABLE sensor_data_compact (
+	sensor_station_id VARCHAR(36) NOT NULL,
+	sensor_id SMALLINT NOT NULL,
+	time_stamp DATETIME(6) NOT NULL,
+	sensor_value FLOAT NOT NULL,
+	sensor_alarm TINYINT NOT NULL,
+	PRIMARY KEY (sensor_station_id, sensor_id, time_stamp),
+	KEY idx_sensor_data_station_time (sensor_station_id, time_stamp),
+	KEY idx_sensor_data_sensor (sensor_id)
+) ENGINE = InnoDB;
+
+-- Inserting in Key Order fills the Pages of the clustered Index one after the other. Duplicate
+-- Readings (only possible in Databases older than the unique Constraint) are dropped.
+INSERT IGNORE INTO sensor_data_compact
+	(sensor_station_id, sensor_id, time_stamp, sensor_value, sensor_alarm)
+SELECT d.sensor_station_id, m.new_id, d.time_stamp, d.sensor_value,
+	   CASE d.sensor_alarm WHEN 'h' THEN 1 WHEN 'l' THEN 2 ELSE 0 END
+FROM sensor_data d
+JOIN swa_sensor_id_map m ON d.sensor_id = m.old_id
+ORDER BY d.sensor_station_id, m.new_id, d.time_stamp;
+
+DROP TABLE sensor_data;
+RENAME TABLE sensor_data_compact TO sensor_data;
+
+SET @stmt = CONCAT(
+	'ALTER TABLE sensor_data ',
+	'ADD CONSTRAINT `', IFNULL(@sensor_data_sensor_fk, 'fk_sensor_data_sensor'), '` ',
+	'FOREIGN KEY (sensor_id) REFERENCES sensor (sensor_id), ',
+	'ADD CONSTRAINT `', IFNULL(@sensor_data_station_fk, 'fk_sensor_data_sensor_station'), '` ',
+	'FOREIGN KEY (sensor_station_id) REFERENCES sensor_station (device_id)'
+);
+PREPARE s FROM @stmt;
+EXECUTE s;
+DEALLOCATE PREPARE s;
+
+DROP PROCEDURE swa_remap_sensor_column;
+DROP PROCEDURE swa_drop_foreign_key;
+DROP TABLE swa_sensor_id_map;
+
+SET foreign_key_checks = 1;
@@ -20,6 +20,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -27,6 +28,7 @@ import java.util.*;
 import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.Device;
 import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
 import at.ac.uibk.plant_health.models.plant.SensorData;
 import at.ac.uibk.plant_health.models.user.Permission;
 import at.ac.uibk.plant_health.models.user.Person;
@@ -35,6 +37,7 @@ import at.ac.uibk.plant_health.repositories.SensorDataRepository;
 import at.ac.uibk.plant_health.repositories.SensorRepository;
 import at.ac.uibk.plant_health.service.AccessPointService;
 import at.ac.uibk.plant_health.service.PersonService;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
 import at.ac.uibk.plant_health.service.SensorStationService;
 import at.ac.uibk.plant_health.util.AuthGenerator;
 import at.ac.uibk.plant_health.util.MockAuthContext;
@@ -58,6 +61,8 @@ public class TestAccessPointController {
 	private SensorDataRepository sensorDataRepository;
 	@Autowired
 	private SensorRepository sensorRepository;
+	@Autowired
+	private SensorDataBinaryCodec sensorDataBinaryCodec;
 
 	private ObjectMapper mapper = new ObjectMapper();
 	private Random rand = new Random();
@@ -229,6 +234,47 @@ public class TestAccessPointController {
 				.andExpectAll(status().isOk());
 	}
 
+	@Test
+	void foundSensorStationsAgain() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		String bdAddress = StringGenerator.macAddress();
+		accessPointService.foundNewSensorStation(
+				accessPoint, List.of(new SensorStation(bdAddress, 1))
+		);
+
+		ArrayNode sensorStations = mapper.createArrayNode();
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", bdAddress);
+		sensorStation.put("dipSwitchId", 42);
+		sensorStation.put("connected", true);
+		sensorStations.addPOJO(sensorStation);
+		ObjectNode newSensorStation = mapper.createObjectNode();
+		newSensorStation.put("bdAddress", StringGenerator.macAddress());
+		newSensorStation.put("dipSwitchId", 43);
+		sensorStations.addPOJO(newSensorStation);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/found-sensor-stations")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + accessPoint.getAccessToken().toString()
+												+ "\"}")
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(status().isOk());
+
+		SensorStation dbSensorStation = sensorStationService.findByBdAddress(bdAddress);
+		assertEquals(42, dbSensorStation.getDipSwitchId());
+		assertTrue(dbSensorStation.isConnected());
+		assertEquals(accessPoint.getDeviceId(), dbSensorStation.getAccessPoint().getDeviceId());
+		String newBdAddress = newSensorStation.get("bdAddress").asText();
+		assertFalse(sensorStationService.findByBdAddress(newBdAddress).isConnected());
+	}
+
 	@Test
 	void scanForSensorStations() throws Exception {
 		// precondition AccessPoint is registered and connected
@@ -333,7 +379,13 @@ public class TestAccessPointController {
 												+ "\"}")
 								.content(sensorStations.toString())
 								.contentType(MediaType.APPLICATION_JSON))
-				.andExpectAll(status().isOk());
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$.message").value(
+								"Successfully transfered " + sensorMap.size() * sensorStationsCount
+								+ " SensorData"
+						)
+				);
 
 		List<SensorData> availableData =
 				sensorDataRepository.findAll()
@@ -488,6 +540,102 @@ public class TestAccessPointController {
 				.andExpectAll(status().isConflict());
 	}
 
+	@Test
+	public void testTransferDataTwice() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		SensorStation sS = new SensorStation(StringGenerator.macAddress(), 255);
+		sS.setUnlocked(true);
+		sensorStationService.save(sS);
+
+		int readings = 5;
+		ArrayNode sensorData = mapper.createArrayNode();
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		LocalDateTime now = LocalDateTime.now();
+		for (int i = 0; i < readings; i++) {
+			ObjectNode data = mapper.createObjectNode();
+			data.put("timeStamp", now.minusMinutes(i).format(formatter));
+			data.put("value", rand.nextDouble());
+			data.put("alarm", "n");
+			ObjectNode sensor = mapper.createObjectNode();
+			sensor.put("type", "TEMPERATURE");
+			sensor.put("unit", "C");
+			data.set("sensor", sensor);
+			sensorData.add(data);
+		}
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", sS.getBdAddress());
+		sensorStation.put("dipSwitchId", 255);
+		sensorStation.set("sensorData", sensorData);
+		String body = mapper.createArrayNode().add(sensorStation).toString();
+		String token = "{ \"token\":\"" + accessPoint.getAccessToken().toString() + "\"}";
+		String batchId = UUID.randomUUID().toString();
+
+		// Retry with the same Batch-Id, then resend the same Data as a new Batch
+		int[] expectedWritten = {readings, 0, 0};
+		String[] batchIds = {batchId, batchId, UUID.randomUUID().toString()};
+		for (int i = 0; i < expectedWritten.length; i++) {
+			mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+									.header(HttpHeaders.USER_AGENT, "AccessPoint")
+									.header(HttpHeaders.AUTHORIZATION, token)
+									.header("X-Batch-Id", batchIds[i])
+									.content(body)
+									.contentType(MediaType.APPLICATION_JSON))
+					.andExpectAll(
+							status().isOk(),
+							jsonPath("$.message").value(
+									"Successfully transfered " + expectedWritten[i] + " SensorData"
+							)
+					);
+		}
+
+		long stored = sensorDataRepository.findAll()
+							  .stream()
+							  .filter(d -> sS.getBdAddress().equals(d.getSensorStation().getBdAddress()))
+							  .count();
+		assertEquals(readings, stored);
+	}
+
+	@Test
+	public void testTransferDataBinary() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		SensorStation sS = new SensorStation(StringGenerator.macAddress(), 255);
+		sS.setUnlocked(true);
+		sensorStationService.save(sS);
+
+		SensorStation sent = new SensorStation(sS.getBdAddress(), 255);
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			sensorData.add(new SensorData(now.minusMinutes(i), i, "n", sensor, null));
+		}
+		sent.setSensorData(sensorData);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		sensorDataBinaryCodec.write(List.of(sent), body);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + accessPoint.getAccessToken().toString()
+												+ "\"}")
+								.content(body.toByteArray())
+								.contentType(SensorDataBinaryCodec.MEDIA_TYPE))
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$.message").value("Successfully transfered 10 SensorData")
+				);
+	}
+
 	@Test
 	public void testTransferDataWithoutSensorStation() throws Exception {
 		UUID selfAssignedId = UUID.randomUUID();
@@ -0,0 +1,265 @@
+package at.ac.uibk.plant_health.controllers.access_point_controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.service.AccessPointService;
+import at.ac.uibk.plant_health.service.SensorDataIngestQueue;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.service.TransferBatchCache;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest(properties = {"swa.ingest.async.enabled=true", "swa.ingest.async.capacity=1"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class TestAccessPointControllerAsync {
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataIngestQueue sensorDataIngestQueue;
+	@Autowired
+	private MockMvc mockMvc;
+
+	private ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void transferDataIsQueued() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sS = new SensorStation(bdAddress, 255);
+		sS.setUnlocked(true);
+		sensorStationService.save(sS);
+
+		int readings = 10;
+		ArrayNode sensorData = mapper.createArrayNode();
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		for (int i = 0; i < readings; i++) {
+			ObjectNode data = mapper.createObjectNode();
+			data.put("timeStamp", LocalDateTime.now().minusMinutes(i).format(formatter));
+			data.put("value", i);
+			data.put("alarm", "n");
+			ObjectNode sensor = mapper.createObjectNode();
+			sensor.put("type", "TEMPERATURE");
+			sensor.put("unit", "C");
+			data.set("sensor", sensor);
+			sensorData.add(data);
+		}
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", bdAddress);
+		sensorStation.put("dipSwitchId", 255);
+		sensorStation.set("sensorData", sensorData);
+		ArrayNode sensorStations = mapper.createArrayNode().add(sensorStation);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + accessPoint.getAccessToken().toString()
+												+ "\"}")
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isAccepted(),
+						jsonPath("$.message").value("Accepted " + readings + " SensorData")
+				);
+
+		// The Data is written in the Background, so wait for the Writers.
+		long written = 0;
+		for (int i = 0; i < 100 && written < readings; i++) {
+			Thread.sleep(100);
+			written = sensorDataRepository.findAll()
+							  .stream()
+							  .filter(d -> bdAddress.equals(d.getSensorStation().getBdAddress()))
+							  .count();
+		}
+		assertEquals(readings, written);
+	}
+
+	@Test
+	void retryOfWrittenBatchIsNotQueuedAgain() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sS = new SensorStation(bdAddress, 255);
+		sS.setUnlocked(true);
+		sensorStationService.save(sS);
+
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		ObjectNode data = mapper.createObjectNode();
+		data.put("timeStamp", LocalDateTime.now().format(formatter));
+		data.put("value", 1);
+		data.put("alarm", "n");
+		ObjectNode sensor = mapper.createObjectNode();
+		sensor.put("type", "TEMPERATURE");
+		sensor.put("unit", "C");
+		data.set("sensor", sensor);
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", bdAddress);
+		sensorStation.put("dipSwitchId", 255);
+		sensorStation.set("sensorData", mapper.createArrayNode().add(data));
+		ArrayNode sensorStations = mapper.createArrayNode().add(sensorStation);
+		String batchId = UUID.randomUUID().toString();
+		String token = accessPoint.getAccessToken().toString();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + token + "\"}")
+								.header(TransferBatchCache.BATCH_ID_HEADER, batchId)
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isAccepted(), jsonPath("$.message").value("Accepted 1 SensorData")
+				);
+
+		// The Batch is only completed once it has been written.
+		long written = 0;
+		for (int i = 0; i < 100 && written < 1; i++) {
+			Thread.sleep(100);
+			written = sensorDataRepository.findAll()
+							  .stream()
+							  .filter(d -> bdAddress.equals(d.getSensorStation().getBdAddress()))
+							  .count();
+		}
+		assertEquals(1, written);
+		Thread.sleep(100);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + token + "\"}")
+								.header(TransferBatchCache.BATCH_ID_HEADER, batchId)
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isAccepted(), jsonPath("$.message").value("Accepted 0 SensorData")
+				);
+	}
+
+	@Test
+	void transferDataOfUnknownSensorStationIsRejected() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		ObjectNode data = mapper.createObjectNode();
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		data.put("timeStamp", LocalDateTime.now().format(formatter));
+		data.put("value", 1);
+		data.put("alarm", "n");
+		ObjectNode sensor = mapper.createObjectNode();
+		sensor.put("type", "TEMPERATURE");
+		sensor.put("unit", "C");
+		data.set("sensor", sensor);
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", StringGenerator.macAddress());
+		sensorStation.put("dipSwitchId", 255);
+		sensorStation.set("sensorData", mapper.createArrayNode().add(data));
+		ArrayNode sensorStations = mapper.createArrayNode().add(sensorStation);
+
+		// Unknown SensorStations are rejected before the Payload is queued.
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + accessPoint.getAccessToken().toString()
+												+ "\"}")
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@DirtiesContext
+	void transferDataIsRejectedIfQueueIsFull() throws Exception {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office1");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sS = new SensorStation(bdAddress, 255);
+		sS.setUnlocked(true);
+		sensorStationService.save(sS);
+
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		ObjectNode data = mapper.createObjectNode();
+		data.put("timeStamp", LocalDateTime.now().format(formatter));
+		data.put("value", 1);
+		data.put("alarm", "n");
+		ObjectNode sensor = mapper.createObjectNode();
+		sensor.put("type", "TEMPERATURE");
+		sensor.put("unit", "C");
+		data.set("sensor", sensor);
+		ObjectNode sensorStation = mapper.createObjectNode();
+		sensorStation.put("bdAddress", bdAddress);
+		sensorStation.put("dipSwitchId", 255);
+		sensorStation.set("sensorData", mapper.createArrayNode().add(data));
+		ArrayNode sensorStations = mapper.createArrayNode().add(sensorStation);
+		String token = accessPoint.getAccessToken().toString();
+
+		// Stop the Writers, so the first Transfer fills the Queue (Capacity 1).
+		sensorDataIngestQueue.shutdown();
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + token + "\"}")
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpect(status().isAccepted());
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/transfer-data")
+								.header(HttpHeaders.USER_AGENT, "AccessPoint")
+								.header(HttpHeaders.AUTHORIZATION,
+										"{ \"token\":\"" + token + "\"}")
+								.content(sensorStations.toString())
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isTooManyRequests(),
+						header().string(
+								HttpHeaders.RETRY_AFTER,
+								String.valueOf(sensorDataIngestQueue.getRetryAfterSeconds())
+						),
+						jsonPath("$.message").value("Too many transfers, try again later")
+				);
+	}
+}
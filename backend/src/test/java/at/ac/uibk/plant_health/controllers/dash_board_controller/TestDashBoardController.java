@@ -18,14 +18,19 @@ import org.springframework.http.MediaType;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
+import at.ac.uibk.plant_health.models.SensorStationPersonReference;
 import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
 import at.ac.uibk.plant_health.models.plant.Sensor;
@@ -40,6 +45,7 @@ import at.ac.uibk.plant_health.util.AuthGenerator;
 import at.ac.uibk.plant_health.util.LocalDateTimeJsonParser;
 import at.ac.uibk.plant_health.util.MockAuthContext;
 import at.ac.uibk.plant_health.util.StringGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -56,6 +62,10 @@ public class TestDashBoardController {
 	@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
 	@Autowired
 	private MockMvc mockMvc;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
 
 	private static final int TIME_TOLERANCE = 1;
 
@@ -165,9 +175,7 @@ public class TestDashBoardController {
 								.contentType(MediaType.APPLICATION_JSON))
 				.andExpectAll(status().isOk());
 
-		person = personService.findById(person.getPersonId()).get();
-
-		var references = person.getSensorStationPersonReferences();
+		var references = findReferences(person);
 
 		assertEquals(1, references.size());
 		assertEquals(true, references.get(0).isInDashboard());
@@ -200,10 +208,89 @@ public class TestDashBoardController {
 								.contentType(MediaType.APPLICATION_JSON))
 				.andExpectAll(status().isOk());
 
-		person = personService.findById(person.getPersonId()).get();
-
-		var references = person.getSensorStationPersonReferences();
+		var references = findReferences(person);
 
 		assertEquals(0, references.size());
 	}
+
+	/**
+	 * The References of the Person, loaded while the Session is open.
+	 */
+	private List<SensorStationPersonReference> findReferences(Person person) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Person found = personService.findById(person.getPersonId()).get();
+			return new ArrayList<>(found.getSensorStationPersonReferences());
+		});
+	}
+
+	private ResultActions getDashboard(Person person) throws Exception {
+		return mockMvc.perform(MockMvcRequestBuilders.get("/get-dashboard")
+									   .header(HttpHeaders.USER_AGENT, "MockTests")
+									   .header(HttpHeaders.AUTHORIZATION,
+											   AuthGenerator.generateToken(person))
+									   .contentType(MediaType.APPLICATION_JSON));
+	}
+
+	@Test
+	public void dashboardIsCachedUntilItChanges() throws Exception {
+		Person person = createUserAndLogin(false);
+		SensorStation s1 = new SensorStation(StringGenerator.macAddress(), 1);
+		s1.setName("SensorStation 1");
+		s1 = sensorStationService.save(s1);
+		sensorStationPersonReferenceService.addPlantToDashboard(person, s1);
+
+		getDashboard(person).andExpectAll(
+				status().isOk(), jsonPath("$.sensorStations[0].name").value("SensorStation 1")
+		);
+		double hits = meterRegistry.get("swa.dashboard.cache.hits").functionCounter().count();
+		getDashboard(person).andExpectAll(
+				status().isOk(), jsonPath("$.sensorStations[0].name").value("SensorStation 1")
+		);
+		assertEquals(
+				hits + 1, meterRegistry.get("swa.dashboard.cache.hits").functionCounter().count()
+		);
+
+		// a changed SensorStation is shown
+		sensorStationService.updateSensorStation(s1, "Renamed", null);
+		getDashboard(person).andExpectAll(
+				status().isOk(), jsonPath("$.sensorStations[0].name").value("Renamed")
+		);
+
+		// new Readings are shown
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		sensorStationService.addSensorData(
+				s1, new SensorData(LocalDateTime.now(), 40, "h", sensor, s1)
+		);
+		getDashboard(person).andExpectAll(
+				status().isOk(), jsonPath("$.sensorStations[0].alarms[0].alarm").value("h")
+		);
+
+		// a removed SensorStation is not shown
+		sensorStationPersonReferenceService.removePlantFromDashboard(person, s1);
+		getDashboard(person).andExpectAll(
+				status().isOk(), jsonPath("$.sensorStations[0]").doesNotExist()
+		);
+	}
+
+	@Test
+	public void adminDashboardCountsDevicesAndPersons() throws Exception {
+		Person admin = createUserAndLogin(true);
+		long users = personService.countPersons();
+		long sensorStations = sensorStationService.countConnected();
+
+		SensorStation connected = new SensorStation(StringGenerator.macAddress(), 1);
+		connected.setConnected(true);
+		sensorStationService.save(connected);
+		SensorStation deleted = new SensorStation(StringGenerator.macAddress(), 2);
+		deleted.setConnected(true);
+		deleted = sensorStationService.save(deleted);
+		sensorStationService.deleteSensorStation(deleted.getDeviceId());
+
+		getDashboard(admin).andExpectAll(
+				status().isOk(), jsonPath("$.numOfUsers").value(users),
+				jsonPath("$.numOfConnectedSensorStations").value(sensorStations + 1),
+				jsonPath("$.numOfConnectedAccessPoints")
+						.value(accessPointService.countConnected())
+		);
+	}
 }
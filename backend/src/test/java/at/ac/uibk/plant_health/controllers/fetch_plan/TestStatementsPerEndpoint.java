@@ -0,0 +1,311 @@
+package at.ac.uibk.plant_health.controllers.fetch_plan;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.models.plant.SensorStationPicture;
+import at.ac.uibk.plant_health.models.user.Permission;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.PlantPictureRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorLimitsRepository;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.util.AuthGenerator;
+import at.ac.uibk.plant_health.util.MockAuthContext;
+import at.ac.uibk.plant_health.util.StringGenerator;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the Number of Statements of an Endpoint does not grow with the Number of
+ * SensorStations (or Limits, Pictures and References) it shows, so every Endpoint loads what it
+ * shows with its Fetch Plan instead of one Statement per Entity.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class TestStatementsPerEndpoint {
+	// No Endpoint needs more (Authentication, the Fetch Plan and the Queries of the Response).
+	private static final long MAX_STATEMENTS = 12;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private PersonService personService;
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorStationPersonReferenceService sensorStationPersonReferenceService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private PlantPictureRepository plantPictureRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private List<Sensor> sensors;
+
+	@DynamicPropertySource
+	static void statisticsProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+		// Every Dashboard is built, not answered from the Cache.
+		registry.add("swa.dashboard.cache.enabled", () -> "false");
+		// No scheduled Statements while counting.
+		registry.add("swa.scheduling.rate.in.seconds", () -> "3600");
+		registry.add("swa.scheduling.disconnect.tick.in.seconds", () -> "3600");
+	}
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		// Test Contexts started since this one was cached recreate the shared in-memory Database.
+		sensorTypeRegistry.invalidate();
+		sensors = List.of(
+				sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C")),
+				sensorTypeRegistry.getOrCreate(new Sensor("HUMIDITY", "%"))
+		);
+	}
+
+	/**
+	 * The Number of Statements of a Request. It is sent once before, so the Statements of a
+	 * first Request (e.g. marking the SensorStations of a List as reported) are not counted.
+	 */
+	private long statements(MockHttpServletRequestBuilder request) throws Exception {
+		mockMvc.perform(request).andExpect(status().isOk());
+		statistics.clear();
+		mockMvc.perform(request).andExpect(status().isOk());
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements <= MAX_STATEMENTS, statements + " Statements");
+		return statements;
+	}
+
+	private MockHttpServletRequestBuilder get(String endpoint, Person person) throws Exception {
+		return MockMvcRequestBuilders.get(endpoint)
+				.header(HttpHeaders.USER_AGENT, "MockTests")
+				.header(HttpHeaders.AUTHORIZATION, AuthGenerator.generateToken(person));
+	}
+
+	private Person createUserAndLogin(Permission... permissions) {
+		String username = StringGenerator.username();
+		String password = StringGenerator.password();
+		Person person =
+				new Person(username, StringGenerator.email(), password, Set.of(permissions));
+		assertTrue(personService.create(person), "Unable to create user");
+		return (Person
+		) MockAuthContext.setLoggedInUser(personService.login(username, password).orElse(null));
+	}
+
+	private AccessPoint createAccessPoint() {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		// Unlocking gives the AccessPoint its Token.
+		accessPointService.setUnlocked(true, accessPoint.getDeviceId());
+		return accessPointService.findBySelfAssignedId(selfAssignedId);
+	}
+
+	/**
+	 * An unlocked SensorStation with Limits and a Reading of every Sensor.
+	 */
+	private SensorStation createSensorStation(AccessPoint accessPoint, Person gardener) {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setAccessPoint(accessPoint);
+		sensorStation.setGardener(gardener);
+		sensorStation.setUnlocked(true);
+		sensorStation = sensorStationService.save(sensorStation);
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		for (Sensor sensor : sensors) {
+			sensorLimitsRepository.save(
+					new SensorLimits(now, 30, 10, 60, sensor, gardener, sensorStation)
+			);
+			sensorDataRepository.save(new SensorData(now, 20, "n", sensor, sensorStation));
+		}
+		return sensorStation;
+	}
+
+	private List<SensorStation>
+	createSensorStations(int count, AccessPoint accessPoint, Person gardener) {
+		List<SensorStation> sensorStations = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			sensorStations.add(createSensorStation(accessPoint, gardener));
+		}
+		return sensorStations;
+	}
+
+	@Test
+	public void dashboardsDoNotGrowWithTheirSensorStations() throws Exception {
+		for (Permission permission : List.of(Permission.USER, Permission.ADMIN)) {
+			// given: a Person with SensorStations on the Dashboard
+			Person person = createUserAndLogin(permission);
+			Person gardener = createUserAndLogin(Permission.GARDENER);
+			AccessPoint accessPoint = createAccessPoint();
+			for (SensorStation s : createSensorStations(2, accessPoint, gardener)) {
+				sensorStationPersonReferenceService.addPlantToDashboard(person, s);
+			}
+			long before = statements(get("/get-dashboard", person));
+
+			// when: more SensorStations are added to the Dashboard
+			for (SensorStation s : createSensorStations(5, accessPoint, gardener)) {
+				sensorStationPersonReferenceService.addPlantToDashboard(person, s);
+			}
+
+			// then: the Dashboard needs as many Statements as before
+			assertEquals(before, statements(get("/get-dashboard", person)), permission.name());
+		}
+	}
+
+	@Test
+	public void gardenerDashboardDoesNotGrowWithAssignedSensorStations() throws Exception {
+		// given: a Gardener assigned to SensorStations, one of them on the Dashboard
+		Person gardener = createUserAndLogin(Permission.GARDENER);
+		AccessPoint accessPoint = createAccessPoint();
+		List<SensorStation> assigned = createSensorStations(2, accessPoint, gardener);
+		sensorStationPersonReferenceService.addPlantToDashboard(gardener, assigned.get(0));
+		long before = statements(get("/get-dashboard", gardener));
+
+		// when: more SensorStations are assigned and added to the Dashboard
+		for (SensorStation s : createSensorStations(5, accessPoint, gardener)) {
+			sensorStationPersonReferenceService.addPlantToDashboard(gardener, s);
+		}
+
+		// then: the Dashboard needs as many Statements as before
+		assertEquals(before, statements(get("/get-dashboard", gardener)));
+	}
+
+	@Test
+	public void sensorStationDoesNotGrowWithItsCollections() throws Exception {
+		// given: a SensorStation with a Picture, on the Dashboard of a User
+		Person admin = createUserAndLogin(Permission.ADMIN);
+		Person gardener = createUserAndLogin(Permission.GARDENER);
+		SensorStation sensorStation = createSensorStation(createAccessPoint(), gardener);
+		plantPictureRepository.save(
+				new SensorStationPicture(sensorStation, "picture.png", LocalDateTime.now())
+		);
+		sensorStationPersonReferenceService.addPlantToDashboard(
+				createUserAndLogin(Permission.USER), sensorStation
+		);
+		String from = LocalDateTime.now().minusDays(1).format(
+				DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
+		);
+		String to = LocalDateTime.now().plusDays(1).format(
+				DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
+		);
+		String id = sensorStation.getDeviceId().toString();
+		long detail = statements(get("/get-sensor-station", admin).param("sensorStationId", id));
+		long data = statements(get("/get-sensor-station-data", admin)
+									   .param("sensorStationId", id)
+									   .param("from", from)
+									   .param("to", to));
+
+		// when: it has more Pictures, References and Limits
+		for (int i = 0; i < 5; i++) {
+			plantPictureRepository.save(
+					new SensorStationPicture(sensorStation, "picture.png", LocalDateTime.now())
+			);
+			sensorStationPersonReferenceService.addPlantToDashboard(
+					createUserAndLogin(Permission.USER), sensorStation
+			);
+			for (Sensor sensor : sensors) {
+				sensorLimitsRepository.save(new SensorLimits(
+						LocalDateTime.now().minusDays(i + 1), 30, 10, 60, sensor, gardener,
+						sensorStation
+				));
+			}
+		}
+
+		// then: it needs as many Statements as before
+		assertEquals(
+				detail,
+				statements(get("/get-sensor-station", admin).param("sensorStationId", id))
+		);
+		assertEquals(
+				data,
+				statements(get("/get-sensor-station-data", admin)
+								   .param("sensorStationId", id)
+								   .param("from", from)
+								   .param("to", to))
+		);
+	}
+
+	@Test
+	public void accessPointConfigDoesNotGrowWithItsSensorStations() throws Exception {
+		// given: an AccessPoint with SensorStations and their Limits
+		Person gardener = createUserAndLogin(Permission.GARDENER);
+		AccessPoint accessPoint = createAccessPoint();
+		createSensorStations(2, accessPoint, gardener);
+		MockHttpServletRequestBuilder config =
+				MockMvcRequestBuilders.get("/get-access-point-config")
+						.header(HttpHeaders.USER_AGENT, "AccessPoint")
+						.header(HttpHeaders.AUTHORIZATION,
+								"{ \"token\":\"" + accessPoint.getAccessToken() + "\"}");
+		long before = statements(config);
+
+		// when: it has more SensorStations
+		createSensorStations(5, accessPoint, gardener);
+
+		// then: the Config needs as many Statements as before
+		assertEquals(before, statements(config));
+	}
+
+	@Test
+	public void listsDoNotGrowWithTheirSensorStations() throws Exception {
+		// given: SensorStations of an AccessPoint
+		Person admin = createUserAndLogin(Permission.ADMIN);
+		Person user = createUserAndLogin(Permission.USER);
+		Person gardener = createUserAndLogin(Permission.GARDENER);
+		AccessPoint accessPoint = createAccessPoint();
+		createSensorStations(2, accessPoint, gardener);
+		Map<String, MockHttpServletRequestBuilder> lists = new LinkedHashMap<>();
+		lists.put("/get-sensor-stations", get("/get-sensor-stations", user));
+		lists.put("/get-all-sensor-stations", get("/get-all-sensor-stations", admin));
+		lists.put("/get-access-points", get("/get-access-points", admin));
+		lists.put(
+				"/get-access-point-sensor-stations",
+				get("/get-access-point-sensor-stations", admin)
+						.param("accessPointId", accessPoint.getDeviceId().toString())
+		);
+		Map<String, Long> before = new HashMap<>();
+		for (var list : lists.entrySet()) {
+			before.put(list.getKey(), statements(list.getValue()));
+		}
+
+		// when: there are more SensorStations with other Gardeners
+		createSensorStations(3, accessPoint, gardener);
+		createSensorStations(3, accessPoint, createUserAndLogin(Permission.GARDENER));
+
+		// then: every List needs as many Statements as before
+		for (var list : lists.entrySet()) {
+			assertEquals(before.get(list.getKey()), statements(list.getValue()), list.getKey());
+		}
+	}
+}
@@ -1,11 +1,13 @@
 package at.ac.uibk.plant_health.controllers.sensor_station_controller;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -22,15 +24,19 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import at.ac.uibk.plant_health.models.device.AccessPoint;
 import at.ac.uibk.plant_health.models.device.SensorStation;
@@ -384,7 +390,7 @@ public class TestSensorStationController {
 				.andExpectAll(status().isOk());
 
 		Optional<SensorStation> maybeSensorStation =
-				sensorStationRepository.findById(sensorStation.getDeviceId());
+				sensorStationRepository.findWithSensorLimitsByDeviceId(sensorStation.getDeviceId());
 		if (maybeSensorStation.isEmpty()) {
 			fail("SensorStation not found");
 		}
@@ -392,7 +398,9 @@ public class TestSensorStationController {
 		assertEquals(sensorMap.size(), sensorStation.getSensorLimits().size());
 
 		// check other sensor station
-		maybeSensorStation = sensorStationRepository.findById(otherSensorStation.getDeviceId());
+		maybeSensorStation = sensorStationRepository.findWithSensorLimitsByDeviceId(
+				otherSensorStation.getDeviceId()
+		);
 		if (maybeSensorStation.isEmpty()) {
 			fail("Other SensorStation not found");
 		}
@@ -455,7 +463,7 @@ public class TestSensorStationController {
 
 		// verify that only single limit got updated
 		Optional<SensorStation> maybeSensorStation =
-				sensorStationRepository.findById(sensorStation.getDeviceId());
+				sensorStationRepository.findWithSensorLimitsByDeviceId(sensorStation.getDeviceId());
 		if (maybeSensorStation.isEmpty()) {
 			fail("SensorStation not found");
 		}
@@ -529,6 +537,228 @@ public class TestSensorStationController {
 				.andExpectAll(status().isOk());
 	}
 
+	@Test
+	void getSensorStationDataPerDay() throws Exception {
+		Person person = createUserAndLogin(true, false);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sensorStation = new SensorStation(bdAddress, 1);
+		sensorStationService.save(sensorStation);
+
+		// two Readings a Day for two Weeks
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		LocalDateTime start = LocalDateTime.of(2023, 3, 1, 0, 0);
+		for (int d = 0; d < 14; d++) {
+			sensorStationService.addSensorData(
+					sensorStation,
+					new SensorData(start.plusDays(d).plusHours(6), 10, "n", sensor, null)
+			);
+			sensorStationService.addSensorData(
+					sensorStation,
+					new SensorData(start.plusDays(d).plusHours(18), 20, "h", sensor, null)
+			);
+		}
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/get-sensor-station-data")
+								.header(HttpHeaders.USER_AGENT, "MockTests")
+								.header(HttpHeaders.AUTHORIZATION,
+										AuthGenerator.generateToken(person))
+								.param("sensorStationId",
+									   String.valueOf(sensorStation.getDeviceId()))
+								.param("from", "2023-03-02T00:00:00")
+								.param("to", "2023-03-14T00:00:00")
+								.param("resolution", "day")
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isOk(), jsonPath("$.resolution").value("day"),
+						jsonPath("$.data[0].values.length()").value(12),
+						jsonPath("$.data[0].values[0].timeStamp").value("2023-03-02T00:00:00"),
+						jsonPath("$.data[0].values[0].value").value(15.0),
+						jsonPath("$.data[0].values[0].min").value(10.0),
+						jsonPath("$.data[0].values[0].max").value(20.0),
+						jsonPath("$.data[0].values[0].alarm").value("h")
+				);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/get-sensor-station-data")
+								.header(HttpHeaders.USER_AGENT, "MockTests")
+								.header(HttpHeaders.AUTHORIZATION,
+										AuthGenerator.generateToken(person))
+								.param("sensorStationId",
+									   String.valueOf(sensorStation.getDeviceId()))
+								.param("from", "2023-03-02T00:00:00")
+								.param("to", "2023-03-14T00:00:00")
+								.param("resolution", "week")
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(status().isBadRequest());
+	}
+
+	@Test
+	void getSensorStationDataWithMaxPoints() throws Exception {
+		Person person = createUserAndLogin(true, false);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sensorStation = new SensorStation(bdAddress, 1);
+		sensorStationService.save(sensorStation);
+
+		// one Reading an Hour for two Days, with a single Spike
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		LocalDateTime start = LocalDateTime.of(2023, 3, 1, 0, 0);
+		for (int h = 0; h < 48; h++) {
+			sensorStationService.addSensorData(
+					sensorStation,
+					new SensorData(start.plusHours(h), h == 17 ? 40 : 20, "n", sensor, null)
+			);
+		}
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/get-sensor-station-data")
+								.header(HttpHeaders.USER_AGENT, "MockTests")
+								.header(HttpHeaders.AUTHORIZATION,
+										AuthGenerator.generateToken(person))
+								.param("sensorStationId",
+									   String.valueOf(sensorStation.getDeviceId()))
+								.param("from", "2023-02-28T23:00:00")
+								.param("to", "2023-03-03T00:00:00")
+								.param("maxPoints", "10")
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(
+						status().isOk(), jsonPath("$.data[0].values.length()").value(10),
+						jsonPath("$.data[0].values[0].timeStamp").value("2023-03-01T00:00:00"),
+						jsonPath("$.data[0].values[9].timeStamp").value("2023-03-02T23:00:00"),
+						jsonPath("$.data[0].values[*].value").value(hasItem(40.0))
+				);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/get-sensor-station-data")
+								.header(HttpHeaders.USER_AGENT, "MockTests")
+								.header(HttpHeaders.AUTHORIZATION,
+										AuthGenerator.generateToken(person))
+								.param("sensorStationId",
+									   String.valueOf(sensorStation.getDeviceId()))
+								.param("from", "2023-02-28T23:00:00")
+								.param("to", "2023-03-03T00:00:00")
+								.param("maxPoints", "2")
+								.contentType(MediaType.APPLICATION_JSON))
+				.andExpectAll(status().isBadRequest());
+	}
+
+	@Test
+	void getSensorDataPage() throws Exception {
+		Person person = createUserAndLogin(true, false);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sensorStation = new SensorStation(bdAddress, 1);
+		sensorStationService.save(sensorStation);
+
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		LocalDateTime start = LocalDateTime.of(2023, 3, 1, 0, 0);
+		for (int h = 0; h < 25; h++) {
+			sensorStationService.addSensorData(
+					sensorStation, new SensorData(start.plusHours(h), h, "n", sensor, null)
+			);
+		}
+		Integer sensorId = sensorRepository.findByType("TEMPERATURE").orElseThrow().getSensorId();
+
+		// the first Page is requested by SensorStation and Sensor, the following by Cursor
+		List<Integer> pageSizes = new ArrayList<>();
+		String cursor = null;
+		do {
+			var request = MockMvcRequestBuilders.get("/get-sensor-data-page")
+								  .header(HttpHeaders.USER_AGENT, "MockTests")
+								  .header(HttpHeaders.AUTHORIZATION,
+										  AuthGenerator.generateToken(person))
+								  .param("limit", "10");
+			if (cursor == null) {
+				request.param("sensorStationId", String.valueOf(sensorStation.getDeviceId()))
+						.param("sensorId", String.valueOf(sensorId))
+						.param("from", "2023-02-28T23:00:00");
+			} else {
+				request.param("cursor", cursor);
+			}
+			String body = mockMvc.perform(request)
+								  .andExpectAll(
+										  status().isOk(),
+										  jsonPath("$.sensorType").value("TEMPERATURE"),
+										  jsonPath("$.values[0].value").value(pageSizes.size() * 10)
+								  )
+								  .andReturn()
+								  .getResponse()
+								  .getContentAsString();
+			JsonNode page = mapper.readTree(body);
+			pageSizes.add(page.get("values").size());
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while (cursor != null);
+		assertEquals(List.of(10, 10, 5), pageSizes);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/get-sensor-data-page")
+								.header(HttpHeaders.USER_AGENT, "MockTests")
+								.header(HttpHeaders.AUTHORIZATION,
+										AuthGenerator.generateToken(person))
+								.param("cursor", "invalid"))
+				.andExpectAll(status().isBadRequest());
+	}
+
+	@Test
+	void exportSensorStationData() throws Exception {
+		Person person = createUserAndLogin(true, false);
+
+		String bdAddress = StringGenerator.macAddress();
+		SensorStation sensorStation = new SensorStation(bdAddress, 1);
+		sensorStationService.save(sensorStation);
+
+		Sensor sensor = new Sensor("TEMPERATURE", "C");
+		LocalDateTime start = LocalDateTime.of(2023, 3, 1, 0, 0);
+		for (int h = 0; h < 48; h++) {
+			sensorStationService.addSensorData(
+					sensorStation, new SensorData(start.plusHours(h), h, "n", sensor, null)
+			);
+		}
+
+		MvcResult result =
+				mockMvc.perform(MockMvcRequestBuilders.get("/export-sensor-station-data")
+										.header(HttpHeaders.USER_AGENT, "MockTests")
+										.header(HttpHeaders.AUTHORIZATION,
+												AuthGenerator.generateToken(person))
+										.param("sensorStationId",
+											   String.valueOf(sensorStation.getDeviceId()))
+										.param("from", "2023-02-28T23:00:00")
+										.param("to", "2023-03-03T00:00:00")
+										.param("format", "csv")
+										.param("gzip", "true"))
+						.andExpect(request().asyncStarted())
+						.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(result))
+							  .andExpectAll(
+									  status().isOk(),
+									  header().string(HttpHeaders.CONTENT_ENCODING, "gzip"),
+									  content().contentType("text/csv")
+							  )
+							  .andReturn()
+							  .getResponse()
+							  .getContentAsByteArray();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			List<String> lines =
+					new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+			assertEquals(1 + 48, lines.size());
+			assertEquals("2023-03-01T00:00:00,TEMPERATURE,C,0.0,n", lines.get(1));
+		}
+
+		result = mockMvc.perform(MockMvcRequestBuilders.get("/export-sensor-station-data")
+										 .header(HttpHeaders.USER_AGENT, "MockTests")
+										 .header(HttpHeaders.AUTHORIZATION,
+												 AuthGenerator.generateToken(person))
+										 .param("sensorStationId",
+												String.valueOf(sensorStation.getDeviceId()))
+										 .param("from", "2023-02-28T23:00:00")
+										 .param("to", "2023-03-03T00:00:00")
+										 .param("format", "xml"))
+						 .andExpect(status().isBadRequest())
+						 .andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpectAll(
+						status().isBadRequest(),
+						jsonPath("$.message").value("Unknown format xml")
+				);
+	}
+
 	private void createPicture(SensorStation sensorStation) {
 		List<SensorStationPicture> plantPictures = new ArrayList<>();
 		try {
@@ -550,14 +780,14 @@ public class TestSensorStationController {
 	}
 
 	private void deleteAllPictures(SensorStation sensorStation) throws Exception {
-		List<SensorStationPicture> pictures = sensorStation.getSensorStationPictures();
+		List<SensorStationPicture> pictures =
+				plantPictureRepository.findBySensorStation(sensorStation);
 		try {
 			for (SensorStationPicture picture1 : pictures) {
 				Path path = Paths.get(picture1.getPicturePath());
 				Files.delete(path);
 			}
-			sensorStation.setSensorStationPictures(new ArrayList<>());
-			sensorStationService.save(sensorStation);
+			plantPictureRepository.deleteAll(pictures);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -581,10 +811,10 @@ public class TestSensorStationController {
 				.andExpectAll(status().isOk());
 
 		sensorStation = sensorStationService.findByBdAddress(bdAddress);
-		assertEquals(1, sensorStation.getSensorStationPictures().size());
+		assertEquals(1, plantPictureRepository.findBySensorStation(sensorStation).size());
 
 		deleteAllPictures(sensorStation);
-		assertEquals(0, sensorStation.getSensorStationPictures().size());
+		assertEquals(0, plantPictureRepository.findBySensorStation(sensorStation).size());
 	}
 
 	@Test
@@ -614,7 +844,7 @@ public class TestSensorStationController {
 				);
 
 		sensorStation = sensorStationService.findByBdAddress(bdAddress);
-		assertEquals(1, sensorStation.getSensorStationPictures().size());
+		assertEquals(1, plantPictureRepository.findBySensorStation(sensorStation).size());
 	}
 
 	@Test
@@ -638,7 +868,7 @@ public class TestSensorStationController {
 				.andExpectAll(status().isOk());
 
 		sensorStation = sensorStationService.findByBdAddress(bdAddress);
-		assertEquals(1, sensorStation.getSensorStationPictures().size());
+		assertEquals(1, plantPictureRepository.findBySensorStation(sensorStation).size());
 	}
 
 	@Test
@@ -670,7 +900,7 @@ public class TestSensorStationController {
 			fail("SensorStation not found");
 		}
 		sensorStation = maybeSensorStation.get();
-		assertEquals(0, sensorStation.getSensorStationPictures().size());
+		assertEquals(0, plantPictureRepository.findBySensorStation(sensorStation).size());
 	}
 
 	@Test
@@ -726,7 +956,7 @@ public class TestSensorStationController {
 			fail("SensorStation not found");
 		}
 		testSensorStation = maybeSensorStation.get();
-		assertEquals(0, testSensorStation.getSensorStationPictures().size());
+		assertEquals(0, plantPictureRepository.findBySensorStation(testSensorStation).size());
 	}
 
 	@Test
@@ -98,7 +98,9 @@ public class TestAccessPointModel {
 
 		assertEquals(
 				sensorStations,
-				accessPointRepository.findById(accessPoint.getDeviceId()).get().getSensorStations()
+				accessPointRepository.findConfigByDeviceId(accessPoint.getDeviceId())
+						.get()
+						.getSensorStations()
 		);
 	}
 
@@ -129,14 +131,14 @@ public class TestAccessPointModel {
 
 		// remove sensor station from access point
 		AccessPoint foundAccessPoint2 =
-				accessPointRepository.findById(accessPoint.getDeviceId()).get();
+				accessPointRepository.findConfigByDeviceId(accessPoint.getDeviceId()).get();
 		foundAccessPoint2.getSensorStations().remove(2);
 		foundAccessPoint2.getSensorStations().get(2).setAccessPoint(null);
 		sensorStationRepository.save(foundAccessPoint2.getSensorStations().get(2));
 
 		assertEquals(
 				4,
-				accessPointRepository.findById(accessPoint.getDeviceId())
+				accessPointRepository.findConfigByDeviceId(accessPoint.getDeviceId())
 						.get()
 						.getSensorStations()
 						.size()
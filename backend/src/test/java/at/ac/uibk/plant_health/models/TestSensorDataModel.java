@@ -68,7 +68,30 @@ public class TestSensorDataModel {
 
 		assertEquals(
 				sensorDataList,
-				sensorStationRepository.findById(station.getDeviceId()).get().getSensorData()
+				sensorDataRepository.findInWindow(
+						station.getDeviceId(), sensorD.getTimeStamp().minusSeconds(1),
+						sensorD.getTimeStamp().plusSeconds(1)
+				)
 		);
 	}
+
+	@Test
+	void testFindSensorDataByKey() {
+		SensorStation station = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStationRepository.save(station);
+		Sensor sensor = sensorRepository.findByType("TEMPERATURE").orElseGet(
+				() -> sensorRepository.save(new Sensor("TEMPERATURE", "C"))
+		);
+		LocalDateTime timeStamp = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+		sensorDataRepository.save(new SensorData(timeStamp, 1, "n", sensor, station));
+
+		SensorData.Key key =
+				new SensorData.Key(station.getDeviceId(), sensor.getSensorId(), timeStamp);
+		Optional<SensorData> found = sensorDataRepository.findById(key);
+		assertTrue(found.isPresent());
+		assertEquals(1, found.get().getValue());
+
+		sensorDataRepository.deleteById(key);
+		assertFalse(sensorDataRepository.existsById(key));
+	}
 }
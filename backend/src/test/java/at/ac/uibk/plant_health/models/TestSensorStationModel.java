@@ -104,7 +104,9 @@ public class TestSensorStationModel {
 		assertNotNull(sensorRepository.findAll());
 		assertNotNull(sensorLimitsRepository.findAll());
 
-		sensorStation = sensorStationRepository.findByBdAddress(sensorStation.getBdAddress()).get();
+		sensorStation =
+				sensorStationRepository.findWithSensorLimitsByDeviceId(sensorStation.getDeviceId())
+						.get();
 		assertEquals(sensorMap.size(), sensorStation.getSensorLimits().size());
 	}
 }
@@ -0,0 +1,87 @@
+package at.ac.uibk.plant_health.service.access_point_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.service.AccessPointHeartbeatTracker;
+import at.ac.uibk.plant_health.service.AccessPointService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestAccessPointHeartbeatTracker {
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private AccessPointHeartbeatTracker heartbeatTracker;
+
+	private AccessPoint createAccessPoint() {
+		AccessPoint accessPoint = new AccessPoint(UUID.randomUUID(), "Office1", false);
+		accessPoint.setLastConnection(LocalDateTime.now().minusDays(1));
+		return accessPointRepository.save(accessPoint);
+	}
+
+	@Test
+	public void heartbeatIsNotWrittenPerRequest() {
+		// given: a disconnected AccessPoint
+		AccessPoint accessPoint = createAccessPoint();
+		LocalDateTime before = accessPoint.getLastConnection();
+
+		// when: it polls the Server many Times
+		for (int i = 0; i < 100; i++) {
+			AccessPoint polling = accessPointService.findById(accessPoint.getDeviceId());
+			accessPointService.setLastConnection(polling);
+		}
+
+		// then: the Database is untouched, but the Service reports it as connected
+		AccessPoint dbAccessPoint = accessPointRepository.findById(accessPoint.getDeviceId()).get();
+		assertFalse(dbAccessPoint.isConnected());
+		assertEquals(before.withNano(0), dbAccessPoint.getLastConnection().withNano(0));
+
+		AccessPoint viewed = accessPointService.findById(accessPoint.getDeviceId());
+		assertTrue(viewed.isConnected());
+		assertTrue(viewed.getLastConnection().isAfter(before));
+	}
+
+	@Test
+	public void flushWritesAllHeartbeatsAtOnce() {
+		// given: several AccessPoints that contacted the Server
+		AccessPoint first = createAccessPoint();
+		AccessPoint second = createAccessPoint();
+		heartbeatTracker.beat(first);
+		heartbeatTracker.beat(second);
+		heartbeatTracker.beat(first);
+
+		// when: the Heartbeats are flushed
+		int updated = accessPointService.flushHeartbeats();
+
+		// then: both are written and nothing is left for the next Flush
+		assertTrue(updated >= 2);
+		for (AccessPoint accessPoint : new AccessPoint[] {first, second}) {
+			AccessPoint dbAccessPoint =
+					accessPointRepository.findById(accessPoint.getDeviceId()).get();
+			assertTrue(dbAccessPoint.isConnected());
+			assertTrue(dbAccessPoint.getLastConnection().isAfter(accessPoint.getLastConnection()));
+		}
+		assertEquals(0, accessPointService.flushHeartbeats());
+	}
+
+	@Test
+	public void unseenAccessPointUsesDatabaseState() {
+		AccessPoint accessPoint = createAccessPoint();
+
+		AccessPoint viewed = accessPointService.findById(accessPoint.getDeviceId());
+
+		assertFalse(viewed.isConnected());
+	}
+}
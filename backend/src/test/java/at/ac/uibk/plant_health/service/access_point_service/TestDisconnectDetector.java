@@ -0,0 +1,69 @@
+package at.ac.uibk.plant_health.service.access_point_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.service.AccessPointService;
+import at.ac.uibk.plant_health.service.DisconnectDetector;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestDisconnectDetector {
+	@Autowired
+	private DisconnectDetector disconnectDetector;
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+
+	@Test
+	public void silentDevicesAreDisconnected() {
+		// given: a connected AccessPoint with one connected SensorStation
+		AccessPoint accessPoint = new AccessPoint(UUID.randomUUID(), "Office1", 1, false);
+		accessPoint = accessPointRepository.save(accessPoint);
+		accessPointService.setLastConnection(accessPoint);
+		accessPointService.flushHeartbeats();
+
+		String bdAddress = StringGenerator.macAddress();
+		accessPointService.foundNewSensorStation(
+				accessPoint, List.of(new SensorStation(bdAddress, 1))
+		);
+		SensorStation sensorStation = sensorStationRepository.findByBdAddress(bdAddress).get();
+		sensorStationRepository.updateIsConnected(sensorStation.getDeviceId(), true);
+		disconnectDetector.sensorStationHeartbeat(sensorStation.getDeviceId(), 1);
+
+		// when: nothing is heard from them for less than 5 Transfer Intervals
+		long now = System.nanoTime();
+		disconnectDetector.expire(now + TimeUnit.SECONDS.toNanos(3));
+
+		// then: they are still connected
+		assertTrue(accessPointRepository.findById(accessPoint.getDeviceId()).get().isConnected());
+		assertTrue(
+				sensorStationRepository.findById(sensorStation.getDeviceId()).get().isConnected()
+		);
+
+		// when: nothing is heard from them for more than 5 Transfer Intervals
+		disconnectDetector.expire(now + TimeUnit.SECONDS.toNanos(7));
+
+		// then: both are disconnected
+		assertFalse(accessPointRepository.findById(accessPoint.getDeviceId()).get().isConnected());
+		assertFalse(
+				sensorStationRepository.findById(sensorStation.getDeviceId()).get().isConnected()
+		);
+	}
+}
@@ -0,0 +1,65 @@
+package at.ac.uibk.plant_health.service.access_point_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.service.TransferBatchCache;
+
+@SpringBootTest(properties = "swa.ingest.idempotency.max-size=10")
+@ActiveProfiles("test")
+public class TestTransferBatchCache {
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private TransferBatchCache transferBatchCache;
+
+	private AccessPoint createAccessPoint() {
+		return accessPointRepository.save(new AccessPoint(UUID.randomUUID(), "Office1", false));
+	}
+
+	@Test
+	public void fullCacheForgetsOldestWrittenBatches() {
+		// given: a Cache full of written Batches
+		AccessPoint accessPoint = createAccessPoint();
+		for (int i = 0; i < 10; i++) {
+			assertNull(transferBatchCache.begin(accessPoint, "batch-" + i));
+			transferBatchCache.complete(accessPoint, "batch-" + i, i);
+		}
+
+		// when: another Batch is sent
+		assertNull(transferBatchCache.begin(accessPoint, "batch-10"));
+
+		// then: the oldest Batch is forgotten, the newest is still known
+		assertNull(transferBatchCache.begin(accessPoint, "batch-0"));
+		assertEquals(9, transferBatchCache.begin(accessPoint, "batch-9"));
+	}
+
+	@Test
+	public void fullCacheRejectsBatchesWhileAllAreProcessed() {
+		// given: a Cache full of Batches that are still being processed
+		AccessPoint accessPoint = createAccessPoint();
+		for (int i = 0; i < 10; i++) {
+			assertNull(transferBatchCache.begin(accessPoint, "batch-" + i));
+		}
+
+		// then: new Batches are rejected until one of them is done
+		ServiceException e = assertThrows(
+				ServiceException.class, () -> transferBatchCache.begin(accessPoint, "batch-10")
+		);
+		assertEquals(429, e.getStatusCode());
+
+		transferBatchCache.complete(accessPoint, "batch-0", 1);
+		assertNull(transferBatchCache.begin(accessPoint, "batch-10"));
+
+		for (int i = 1; i <= 10; i++) transferBatchCache.abort(accessPoint, "batch-" + i);
+	}
+}
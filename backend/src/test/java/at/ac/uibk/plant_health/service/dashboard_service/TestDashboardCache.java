@@ -0,0 +1,131 @@
+package at.ac.uibk.plant_health.service.dashboard_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.rest_responses.MessageResponse;
+import at.ac.uibk.plant_health.models.rest_responses.RestResponse;
+import at.ac.uibk.plant_health.service.DashboardCache;
+import at.ac.uibk.plant_health.service.DashboardCache.Dashboard;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestDashboardCache {
+	@Autowired
+	private DashboardCache dashboardCache;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@DynamicPropertySource
+	static void cacheProperties(DynamicPropertyRegistry registry) {
+		registry.add("swa.dashboard.cache.max-size", () -> "3");
+	}
+
+	/**
+	 * Counts how often the Dashboard of every Person was built.
+	 */
+	private final Map<UUID, Integer> builds = new HashMap<>();
+
+	private RestResponse get(UUID personId, Set<UUID> sensorStationIds, boolean admin) {
+		return dashboardCache.get(personId, () -> build(personId, sensorStationIds, admin));
+	}
+
+	private Dashboard build(UUID personId, Set<UUID> sensorStationIds, boolean admin) {
+		builds.merge(personId, 1, Integer::sum);
+		RestResponse response = MessageResponse.builder().message(personId.toString()).build();
+		return new Dashboard(response, sensorStationIds, admin);
+	}
+
+	@Test
+	public void changesOnlyDropTheDashboardsShowingThem() {
+		dashboardCache.clear();
+		UUID user = UUID.randomUUID();
+		UUID gardener = UUID.randomUUID();
+		UUID admin = UUID.randomUUID();
+		UUID s1 = UUID.randomUUID();
+		UUID s2 = UUID.randomUUID();
+
+		Runnable getAll = () -> {
+			get(user, Set.of(s1), false);
+			get(gardener, Set.of(s2), false);
+			get(admin, Set.of(), true);
+		};
+		getAll.run();
+		RestResponse cached = get(user, Set.of(s1), false);
+		assertSame(cached, get(user, Set.of(s1), false));
+		assertEquals(Map.of(user, 1, gardener, 1, admin, 1), builds);
+
+		dashboardCache.sensorStationChanged(s1);
+		getAll.run();
+		assertEquals(Map.of(user, 2, gardener, 1, admin, 1), builds);
+
+		dashboardCache.inventoryChanged();
+		getAll.run();
+		assertEquals(Map.of(user, 2, gardener, 1, admin, 2), builds);
+
+		dashboardCache.personChanged(gardener);
+		dashboardCache.sensorStationsChanged(List.of(UUID.randomUUID()));
+		getAll.run();
+		assertEquals(Map.of(user, 2, gardener, 2, admin, 2), builds);
+		assertTrue(dashboardCache.hitRatio() > 0);
+	}
+
+	@Test
+	public void leastRecentlyUsedDashboardsAreEvicted() {
+		dashboardCache.clear();
+		List<UUID> persons = List.of(
+				UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()
+		);
+		for (UUID person : persons) get(person, Set.of(), false);
+		assertEquals(3, dashboardCache.size());
+
+		// the first Dashboard was evicted, the others are still cached
+		get(persons.get(0), Set.of(), false);
+		get(persons.get(3), Set.of(), false);
+		assertEquals(2, builds.get(persons.get(0)));
+		assertEquals(1, builds.get(persons.get(3)));
+	}
+
+	@Test
+	public void dashboardsBuiltWhileTheyChangeAreNotCached() {
+		UUID person = UUID.randomUUID();
+		UUID shown = UUID.randomUUID();
+
+		// a Change of another SensorStation while building does not matter
+		dashboardCache.get(person, () -> {
+			dashboardCache.sensorStationChanged(UUID.randomUUID());
+			return build(person, Set.of(shown), false);
+		});
+		get(person, Set.of(shown), false);
+		assertEquals(1, builds.get(person));
+
+		// a Change of a shown SensorStation while building does
+		dashboardCache.personChanged(person);
+		dashboardCache.get(person, () -> {
+			dashboardCache.sensorStationChanged(shown);
+			return build(person, Set.of(shown), false);
+		});
+		get(person, Set.of(shown), false);
+		assertEquals(3, builds.get(person));
+
+		// a Dashboard built before a Change was committed is dropped on Commit
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			dashboardCache.sensorStationChanged(shown);
+			get(person, Set.of(shown), false);
+			get(person, Set.of(shown), false);
+			assertEquals(4, builds.get(person));
+		});
+		get(person, Set.of(shown), false);
+		assertEquals(5, builds.get(person));
+	}
+}
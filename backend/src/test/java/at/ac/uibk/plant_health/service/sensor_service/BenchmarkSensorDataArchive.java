@@ -0,0 +1,102 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import at.ac.uibk.plant_health.util.BlockSegmentStore;
+import at.ac.uibk.plant_health.util.GorillaBlock;
+
+/**
+ * Measures the Size per Reading and the Scan Throughput of the SensorData Archive on a synthetic
+ * History (Readings every 30 Seconds with Jitter, Values changing in Steps of 0.01).
+ * Run with {@code mvn test -Dtest=BenchmarkSensorDataArchive -Dswa.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkSensorDataArchive {
+	private static final int STATIONS = 20;
+	private static final int SENSORS = 7;
+	private static final int DAYS = 30;
+	private static final int SECONDS_BETWEEN_READINGS = 30;
+	private static final long START = 1_672_531_200L;
+	// sensor_data Columns: Station ID, Sensor ID, Time Stamp, Value and Alarm
+	private static final int ROW_BYTES = 16 + 2 + 8 + 4 + 1;
+	private static final int SCANS = 3;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	public void sizeAndScanThroughput() throws IOException {
+		Random random = new Random(42);
+		long readings = 0;
+		List<BlockSegmentStore.BlockRef> refs = new ArrayList<>();
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 64 << 20)) {
+			store.open();
+			long start = System.nanoTime();
+			for (int station = 0; station < STATIONS; station++) {
+				UUID sensorStationId = UUID.randomUUID();
+				for (int sensor = 0; sensor < SENSORS; sensor++) {
+					int sensorId = sensor + 1;
+					float value = 20 + random.nextInt(50);
+					for (int day = 0; day < DAYS; day++) {
+						GorillaBlock.Encoder block = new GorillaBlock.Encoder();
+						long first = START + day * 86_400L;
+						long time = first;
+						while (time < first + 86_400L) {
+							if (random.nextInt(3) == 0) value += (random.nextInt(21) - 10) / 100f;
+							byte alarm = (byte) (value > 60 ? 'h' : 'n');
+							block.add(time, value, alarm);
+							time += SECONDS_BETWEEN_READINGS + random.nextInt(3) - 1;
+						}
+						refs.add(store.append(
+								sensorStationId, sensorId, first, time, block.count(),
+								block.toByteArray()
+						));
+						readings += block.count();
+					}
+				}
+			}
+			store.sync();
+			double encodeSeconds = (System.nanoTime() - start) / 1e9;
+			long bytes = store.sizeOnDisk();
+
+			System.out.printf(
+					"%d Readings in %d Blocks: %d Bytes on Disk, %.2f Bytes/Reading "
+							+ "(%d Bytes of Columns per Row in sensor_data, %.0fx smaller)%n",
+					readings, refs.size(), bytes, (double) bytes / readings, ROW_BYTES,
+					(double) ROW_BYTES * readings / bytes
+			);
+			System.out.printf(
+					"Encoded and appended %.1f M Readings/s%n", readings / encodeSeconds / 1e6
+			);
+
+			for (int scan = 0; scan < SCANS; scan++) {
+				start = System.nanoTime();
+				long decoded = 0;
+				double sum = 0;
+				for (BlockSegmentStore.BlockRef ref : refs) {
+					GorillaBlock.Decoder decoder =
+							new GorillaBlock.Decoder(store.read(ref), ref.count());
+					while (decoder.next()) {
+						sum += decoder.value();
+						decoded++;
+					}
+				}
+				double seconds = (System.nanoTime() - start) / 1e9;
+				assertEquals(readings, decoded);
+				assertTrue(sum > 0);
+				System.out.printf(
+						"Scan %d: %.1f M Readings/s (%.0f MB/s of Segments)%n", scan,
+						decoded / seconds / 1e6, bytes / seconds / 1e6
+				);
+			}
+		}
+	}
+}
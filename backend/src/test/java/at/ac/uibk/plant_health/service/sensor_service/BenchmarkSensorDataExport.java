@@ -0,0 +1,152 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.service.SensorDataExportService;
+import at.ac.uibk.plant_health.service.SensorDataExportService.Format;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.service.SensorTypeRegistry;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+/**
+ * Measures the Throughput of the Export (Readings per Second) for every Format with and without
+ * gzip, and the Growth of the Heap while exporting, for a growing History.
+ * Run with {@code mvn test -Dtest=BenchmarkSensorDataExport -Dswa.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkSensorDataExport {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+	private static final int SECONDS_BETWEEN_READINGS = 30;
+	private static final int[] HISTORY = {100_000, 1_000_000};
+	private static final int INSERT_BATCH = 10_000;
+
+	@Autowired
+	private SensorDataExportService sensorDataExportService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Counts the written Bytes and tracks the largest Heap still used after a Garbage Collection
+	 * every 8 MB written (the Garbage of the written Lines is not counted).
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long bytes;
+		private long maxHeap = heapUsed();
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			bytes += len;
+			if (bytes / (8 << 20) != (bytes - len) / (8 << 20)) {
+				System.gc();
+				maxHeap = Math.max(maxHeap, heapUsed());
+			}
+		}
+	}
+
+	private static long heapUsed() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Test
+	public void exportThroughput() throws IOException {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation = sensorStationService.save(sensorStation);
+		List<Sensor> sensors = List.of(
+				sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C")),
+				sensorTypeRegistry.getOrCreate(new Sensor("HUMIDITY", "%"))
+		);
+		LocalDateTime to = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+		int stored = 0;
+		for (int history : HISTORY) {
+			while (stored < history) {
+				int count = Math.min(INSERT_BATCH, history - stored);
+				stored += insert(sensorStation, sensors, stored, count);
+			}
+			for (Format format : Format.values()) {
+				for (boolean gzip : new boolean[] {false, true}) {
+					// The in-memory Database lives on the same Heap, only the Growth is reported.
+					System.gc();
+					long heap = heapUsed();
+					CountingOutputStream sent =
+							new CountingOutputStream(OutputStream.nullOutputStream());
+					GZIPOutputStream compressed =
+							gzip ? new GZIPOutputStream(sent, 64 * 1024) : null;
+					CountingOutputStream written =
+							gzip ? new CountingOutputStream(compressed) : sent;
+
+					long start = System.nanoTime();
+					long rows = sensorDataExportService.export(
+							sensorStation, START, to, format, written
+					);
+					if (gzip) compressed.finish();
+					double seconds = (System.nanoTime() - start) / 1e9;
+
+					assertEquals(stored, rows);
+					System.out.printf(
+							"%8d Readings %-6s %-4s: %9.0f Readings/s, %6.1f MB written, %6.1f MB "
+									+ "sent, %5.1f MB Heap Growth%n",
+							stored, format.getExtension(), gzip ? "gzip" : "", rows / seconds,
+							written.bytes / 1e6, sent.bytes / 1e6, (written.maxHeap - heap) / 1e6
+					);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Insert Readings of all Sensors, continuing after the ones already stored.
+	 */
+	private int insert(SensorStation sensorStation, List<Sensor> sensors, int offset, int count) {
+		List<Object[]> rows = new ArrayList<>(count);
+		for (int i = offset; i < offset + count; i++) {
+			Sensor sensor = sensors.get(i % sensors.size());
+			LocalDateTime timeStamp =
+					START.plusSeconds((long) (i / sensors.size() + 1) * SECONDS_BETWEEN_READINGS);
+			rows.add(new Object[] {
+					sensorStation.getDeviceId(), sensor.getSensorId(), Timestamp.valueOf(timeStamp),
+					20f + i % 100 / 10f});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO sensor_data (sensor_station_id, sensor_id, time_stamp, sensor_value, "
+						+ "sensor_alarm) VALUES (?, ?, ?, ?, 0)",
+				rows
+		);
+		return count;
+	}
+}
@@ -0,0 +1,119 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+
+/**
+ * Measures the Insert Rate of Transfers and the Size of the sensor_data Table (as reported by a
+ * file-based H2 Database) while the Table grows.
+ * Run with {@code mvn test -Dtest=BenchmarkSensorDataLayout -Dswa.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkSensorDataLayout {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+	private static final int STATIONS = 20;
+	private static final int READINGS_PER_TRANSFER = 60;
+	private static final int ROUNDS = 4;
+	private static final int TRANSFERS_PER_ROUND = 5;
+	private static final String[][] SENSORS = {
+		{"TEMPERATURE", "C"},
+		{"HUMIDITY", "%"},
+		{"PRESSURE", "hPa"},
+		{"SOIL_HUMIDITY", "%"},
+		{"LIGHT_INTENSITY", "lux"},
+		{"AIR_QUALITY", "ppm"},
+		{"GAS_PRESSURE", "ppm"}};
+
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// H2 only reports the Size of Tables stored in a File.
+	@DynamicPropertySource
+	static void fileDatabase(DynamicPropertyRegistry registry) throws IOException {
+		Path directory = Files.createTempDirectory("layout");
+		registry.add(
+				"spring.datasource.url",
+				() -> "jdbc:h2:file:" + directory.resolve("db") + ";DB_CLOSE_ON_EXIT=FALSE"
+		);
+	}
+
+	@Test
+	public void insertRateAndTableSize() {
+		List<SensorStation> sensorStations = new ArrayList<>();
+		for (int i = 0; i < STATIONS; i++) {
+			sensorStations.add(SensorDataGenerator.sensorStation(sensorStationService));
+		}
+
+		Random random = new Random(42);
+		int transfer = 0;
+		long rows = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long nanos = 0;
+			int inserted = 0;
+			for (int t = 0; t < TRANSFERS_PER_ROUND; t++, transfer++) {
+				List<SensorStation> sent = new ArrayList<>();
+				for (SensorStation sensorStation : sensorStations) {
+					sent.add(transfer(sensorStation, transfer, random));
+				}
+				long start = System.nanoTime();
+				inserted += sensorDataIngestService.ingest(sent);
+				nanos += System.nanoTime() - start;
+			}
+			rows += inserted;
+			assertEquals((long) STATIONS * SENSORS.length * READINGS_PER_TRANSFER
+								 * TRANSFERS_PER_ROUND,
+						 inserted);
+
+			Long bytes = jdbcTemplate.queryForObject(
+					"CALL DISK_SPACE_USED('SENSOR_DATA')", Long.class
+			);
+			System.out.printf(
+					"%8d Rows: %8.0f Rows/s inserted, %6.1f MB (%.1f Bytes/Row)%n", rows,
+					inserted / (nanos / 1e9), bytes / 1e6, (double) bytes / rows
+			);
+		}
+	}
+
+	private SensorStation transfer(SensorStation sensorStation, int transfer, Random random) {
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 0; i < READINGS_PER_TRANSFER; i++) {
+			LocalDateTime timeStamp =
+					START.plusSeconds(30L * (transfer * READINGS_PER_TRANSFER + i));
+			for (String[] sensor : SENSORS) {
+				String alarm = random.nextInt(20) == 0 ? "h" : "n";
+				sensorData.add(new SensorData(
+						timeStamp, 20 + random.nextInt(1000) / 100f, alarm,
+						new Sensor(sensor[0], sensor[1]), null
+				));
+			}
+		}
+		return SensorDataGenerator.transfer(sensorStation, sensorData);
+	}
+}
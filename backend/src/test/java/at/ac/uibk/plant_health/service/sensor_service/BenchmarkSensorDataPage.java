@@ -0,0 +1,126 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.service.SensorDataPageService;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Cursor;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.service.SensorTypeRegistry;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+/**
+ * Compares the Time to get a Page at a growing Depth through the Service (Cursor), with the same
+ * Keyset Query in SQL and with an OFFSET Query in SQL.
+ * Run with {@code mvn test -Dtest=BenchmarkSensorDataPage -Dswa.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkSensorDataPage {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+	private static final int READINGS = 1_000_000;
+	private static final int INSERT_BATCH = 10_000;
+	private static final int PAGE_SIZE = 1000;
+	private static final int[] DEPTHS = {0, 10_000, 100_000, 500_000, 990_000};
+	private static final int REPETITIONS = 20;
+
+	@Autowired
+	private SensorDataPageService sensorDataPageService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void pageAtDepth() throws ServiceException {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation = sensorStationService.save(sensorStation);
+		Sensor sensor = sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C"));
+
+		for (int offset = 0; offset < READINGS; offset += INSERT_BATCH) {
+			List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+			for (int i = offset; i < offset + INSERT_BATCH; i++) {
+				rows.add(new Object[] {
+						sensorStation.getDeviceId(), sensor.getSensorId(),
+						Timestamp.valueOf(timeStamp(i)), 20f + i % 100 / 10f});
+			}
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO sensor_data (sensor_station_id, sensor_id, time_stamp, "
+							+ "sensor_value, sensor_alarm) VALUES (?, ?, ?, ?, 0)",
+					rows
+			);
+		}
+
+		// Warm up, so the first Depth is not measured with cold Code.
+		Cursor first = Cursor.first(sensorStation.getDeviceId(), sensor.getSensorId(), null, null);
+		for (int r = 0; r < REPETITIONS; r++) {
+			sensorDataPageService.getPage(sensorStation, first, PAGE_SIZE);
+		}
+
+		for (int depth : DEPTHS) {
+			// The Cursor after the last Reading of the previous Page.
+			Cursor cursor = Cursor.first(
+					sensorStation.getDeviceId(), sensor.getSensorId(),
+					depth == 0 ? null : timeStamp(depth - 1), null
+			);
+			long service = 0;
+			long keyset = 0;
+			long offset = 0;
+			for (int r = 0; r < REPETITIONS; r++) {
+				long start = System.nanoTime();
+				var page = sensorDataPageService.getPage(sensorStation, cursor, PAGE_SIZE);
+				service += System.nanoTime() - start;
+				assertEquals(timeStamp(depth), page.readings().get(0).getTimeStamp());
+
+				start = System.nanoTime();
+				List<Timestamp> rows = jdbcTemplate.queryForList(
+						"SELECT time_stamp FROM sensor_data WHERE sensor_station_id = ? AND "
+								+ "sensor_id = ? AND time_stamp > ? ORDER BY sensor_station_id, "
+								+ "sensor_id, time_stamp LIMIT ?",
+						Timestamp.class, sensorStation.getDeviceId(), sensor.getSensorId(),
+						Timestamp.valueOf(cursor.after()), PAGE_SIZE
+				);
+				keyset += System.nanoTime() - start;
+				assertEquals(PAGE_SIZE, rows.size());
+
+				start = System.nanoTime();
+				rows = jdbcTemplate.queryForList(
+						"SELECT time_stamp FROM sensor_data WHERE sensor_station_id = ? AND "
+								+ "sensor_id = ? ORDER BY sensor_station_id, sensor_id, "
+								+ "time_stamp LIMIT ? OFFSET ?",
+						Timestamp.class, sensorStation.getDeviceId(), sensor.getSensorId(),
+						PAGE_SIZE, depth
+				);
+				offset += System.nanoTime() - start;
+				assertEquals(PAGE_SIZE, rows.size());
+			}
+			System.out.printf(
+					"Page at %7d Readings: Service %6.2f ms, Keyset SQL %6.2f ms, OFFSET SQL %6.2f "
+							+ "ms%n",
+					depth, service / 1e6 / REPETITIONS, keyset / 1e6 / REPETITIONS,
+					offset / 1e6 / REPETITIONS
+			);
+		}
+	}
+
+	private static LocalDateTime timeStamp(int i) {
+		return START.plusSeconds(30L * i);
+	}
+}
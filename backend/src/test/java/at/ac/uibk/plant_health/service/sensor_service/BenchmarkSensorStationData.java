@@ -0,0 +1,106 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationDataResponse;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.service.SensorTypeRegistry;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+/**
+ * Measures the Latency of {@code /get-sensor-station-data} for a fixed Window of one Hour while
+ * the History of the SensorStation grows.
+ * Run with {@code mvn test -Dtest=BenchmarkSensorStationData -Dswa.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkSensorStationData {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+	private static final int SECONDS_BETWEEN_READINGS = 30;
+	private static final int[] HISTORY = {1_000, 10_000, 100_000};
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 100;
+
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void latencyWithGrowingHistory() {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation = sensorStationService.save(sensorStation);
+		List<Sensor> sensors = List.of(
+				sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C")),
+				sensorTypeRegistry.getOrCreate(new Sensor("HUMIDITY", "%"))
+		);
+
+		int stored = 0;
+		for (int history : HISTORY) {
+			stored += insert(sensorStation, sensors, stored, history - stored);
+
+			// The newest Hour of the History (Bounds between two Readings, they are exclusive).
+			LocalDateTime to = START.plusSeconds(
+					(long) (stored / sensors.size()) * SECONDS_BETWEEN_READINGS
+					+ SECONDS_BETWEEN_READINGS / 2
+			);
+			LocalDateTime from = to.minusHours(1);
+			int expected = sensors.size() * 3600 / SECONDS_BETWEEN_READINGS;
+			assertEquals(expected, query(sensorStation, from, to));
+
+			for (int i = 0; i < WARMUP; i++) query(sensorStation, from, to);
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) query(sensorStation, from, to);
+			double micros = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+			System.out.printf(
+					"%7d Readings stored, %4d in Window: %9.1f us/Request%n", stored, expected,
+					micros
+			);
+		}
+	}
+
+	private int query(SensorStation sensorStation, LocalDateTime from, LocalDateTime to) {
+		SensorStation loaded = sensorStationService.findById(sensorStation.getDeviceId());
+		var data = sensorStationService.getSensorData(loaded, from, to);
+		new SensorStationDataResponse(loaded, data, from, to, null);
+		return data.size();
+	}
+
+	/**
+	 * Insert Readings of all Sensors, continuing after the ones already stored.
+	 */
+	private int insert(SensorStation sensorStation, List<Sensor> sensors, int offset, int count) {
+		List<Object[]> rows = new ArrayList<>(count);
+		for (int i = offset; i < offset + count; i++) {
+			Sensor sensor = sensors.get(i % sensors.size());
+			LocalDateTime timeStamp =
+					START.plusSeconds((long) (i / sensors.size() + 1) * SECONDS_BETWEEN_READINGS);
+			rows.add(new Object[] {
+					sensorStation.getDeviceId(), sensor.getSensorId(), Timestamp.valueOf(timeStamp),
+					20f});
+		}
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO sensor_data (sensor_station_id, sensor_id, time_stamp, sensor_value, "
+						+ "sensor_alarm) VALUES (?, ?, ?, ?, 0)",
+				rows
+		);
+		return count;
+	}
+}
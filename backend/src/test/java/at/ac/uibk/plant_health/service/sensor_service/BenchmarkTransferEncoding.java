@@ -0,0 +1,166 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
+import at.ac.uibk.plant_health.service.SensorStationStreamReader;
+
+/**
+ * Compares Size and Parse Time of the JSON and the binary Transfer Format.
+ * Run with {@code mvn test -Dtest=BenchmarkTransferEncoding -Dswa.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkTransferEncoding {
+	private static final int STATIONS = 10;
+	private static final int READINGS_PER_SENSOR = 500;
+	private static final String[][] SENSORS = {
+		{"TEMPERATURE", "C"},
+		{"HUMIDITY", "%"},
+		{"PRESSURE", "hPa"},
+		{"SOIL_HUMIDITY", "%"},
+		{"LIGHT_INTENSITY", "lux"},
+		{"AIR_QUALITY", "ppm"},
+		{"GAS_PRESSURE", "ppm"}};
+	private static final int WARMUP = 5;
+	private static final int ITERATIONS = 20;
+
+	private final SensorDataBinaryCodec codec = new SensorDataBinaryCodec();
+	private final SensorStationStreamReader reader = new SensorStationStreamReader(
+			JsonMapper.builder()
+					.findAndAddModules()
+					.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+					.build(),
+			codec
+	);
+
+	@Test
+	public void compareEncodings() throws Exception {
+		List<SensorStation> sensorStations = generate();
+		int readings = STATIONS * SENSORS.length * READINGS_PER_SENSOR;
+
+		byte[] json = toJson(sensorStations);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(sensorStations, out);
+		byte[] binary = out.toByteArray();
+
+		assertEquals(readings, parse(json, null));
+		assertEquals(readings, parse(binary, SensorDataBinaryCodec.MEDIA_TYPE_VALUE));
+
+		System.out.printf("Transfer of %d Readings%n", readings);
+		report("JSON", json, null, readings);
+		report("Binary", binary, SensorDataBinaryCodec.MEDIA_TYPE_VALUE, readings);
+	}
+
+	private void report(String name, byte[] body, String contentType, int readings)
+			throws IOException {
+		for (int i = 0; i < WARMUP; i++) parse(body, contentType);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) parse(body, contentType);
+		double nanosPerReading = (System.nanoTime() - start) / (double) ITERATIONS / readings;
+
+		System.out.printf(
+				"%-7s %10d Bytes (%6.2f B/Reading, %6.2f B/Reading gzipped) %8.1f ns/Reading%n",
+				name, body.length, body.length / (double) readings,
+				gzip(body).length / (double) readings, nanosPerReading
+		);
+	}
+
+	private int parse(byte[] body, String contentType) {
+		int[] readings = {0};
+		SensorStationStreamReader.Handler handler = new SensorStationStreamReader.Handler() {
+			@Override
+			public void startStation(SensorStation sensorStation) {}
+
+			@Override
+			public void reading(SensorData data) {
+				readings[0]++;
+			}
+
+			@Override
+			public void endStation(SensorStation sensorStation) {}
+		};
+		reader.read(new ByteArrayInputStream(body), contentType, handler);
+		return readings[0];
+	}
+
+	private static List<SensorStation> generate() {
+		Random random = new Random(42);
+		LocalDateTime start = LocalDateTime.of(2023, 5, 6, 17, 34, 44);
+		List<SensorStation> sensorStations = new ArrayList<>();
+		for (int s = 0; s < STATIONS; s++) {
+			SensorStation sensorStation =
+					new SensorStation(String.format("00:11:22:33:44:%02x", s), s);
+			List<SensorData> data = new ArrayList<>();
+			for (String[] type : SENSORS) {
+				Sensor sensor = new Sensor(type[0], type[1]);
+				for (int r = 0; r < READINGS_PER_SENSOR; r++) {
+					// Values as sent by the AccessPoints (rounded to two Decimals)
+					float value = Math.round(random.nextFloat() * 10000) / 100f;
+					data.add(new SensorData(start.plusSeconds(30L * r), value, "n", sensor, null));
+				}
+			}
+			sensorStation.setSensorData(data);
+			sensorStations.add(sensorStation);
+		}
+		return sensorStations;
+	}
+
+	/**
+	 * Builds the same JSON the AccessPoints send.
+	 */
+	private static byte[] toJson(List<SensorStation> sensorStations) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+		StringBuilder sb = new StringBuilder("[");
+		for (SensorStation sensorStation : sensorStations) {
+			if (sb.length() > 1) sb.append(',');
+			sb.append("{\"bdAddress\": \"")
+					.append(sensorStation.getBdAddress())
+					.append("\", \"connected\": true, \"dipSwitchId\": ")
+					.append(sensorStation.getDipSwitchId())
+					.append(", \"sensorData\": [");
+			boolean first = true;
+			for (SensorData data : sensorStation.getSensorData()) {
+				if (!first) sb.append(", ");
+				first = false;
+				sb.append("{\"timeStamp\": \"")
+						.append(data.getTimeStamp().format(formatter))
+						.append("\", \"value\": ")
+						.append(data.getValue())
+						.append(", \"alarm\": \"")
+						.append(data.getAlarm())
+						.append("\", \"sensor\": {\"type\": \"")
+						.append(data.getSensor().getType())
+						.append("\", \"unit\": \"")
+						.append(data.getSensor().getUnit())
+						.append("\"}}");
+			}
+			sb.append("]}");
+		}
+		return sb.append(']').toString().getBytes();
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		return out.toByteArray();
+	}
+}
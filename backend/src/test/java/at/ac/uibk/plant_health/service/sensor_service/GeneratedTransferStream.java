@@ -0,0 +1,77 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates a /transfer-data Body on the fly, so arbitrarily large Payloads can be sent without
+ * holding them in Memory.
+ */
+public class GeneratedTransferStream extends InputStream {
+	private static final DateTimeFormatter FORMATTER =
+			DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+	private final String[] bdAddresses;
+	private final int readingsPerStation;
+
+	private int station = 0;
+	private int reading = -1;
+	private boolean done = false;
+	private byte[] chunk = "[".getBytes(StandardCharsets.UTF_8);
+	private int position = 0;
+
+	public GeneratedTransferStream(String[] bdAddresses, int readingsPerStation) {
+		this.bdAddresses = bdAddresses;
+		this.readingsPerStation = readingsPerStation;
+	}
+
+	@Override
+	public int read() {
+		if (position >= chunk.length && !nextChunk()) return -1;
+		return chunk[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) return 0;
+		if (position >= chunk.length && !nextChunk()) return -1;
+		int n = Math.min(len, chunk.length - position);
+		System.arraycopy(chunk, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	private boolean nextChunk() {
+		if (done) return false;
+		StringBuilder sb = new StringBuilder(128);
+		if (reading < 0) {
+			if (station > 0) sb.append(',');
+			sb.append("{\"bdAddress\":\"")
+					.append(bdAddresses[station])
+					.append("\",\"connected\":true,\"dipSwitchId\":")
+					.append(station)
+					.append(",\"sensorData\":[");
+		} else {
+			if (reading > 0) sb.append(',');
+			sb.append("{\"timeStamp\":\"")
+					.append(START.plusSeconds(reading).format(FORMATTER))
+					.append("\",\"value\":")
+					.append(reading % 100)
+					.append(".5,\"alarm\":\"n\",\"sensor\":{\"type\":\"TEMPERATURE\",\"unit\":\"C\"}}");
+		}
+		if (++reading >= readingsPerStation) {
+			sb.append("]}");
+			reading = -1;
+			if (++station >= bdAddresses.length) {
+				sb.append(']');
+				done = true;
+			}
+		}
+		chunk = sb.toString().getBytes(StandardCharsets.UTF_8);
+		position = 0;
+		return true;
+	}
+}
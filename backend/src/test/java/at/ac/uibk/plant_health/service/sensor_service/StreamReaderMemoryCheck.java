@@ -0,0 +1,48 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
+import at.ac.uibk.plant_health.service.SensorStationStreamReader;
+
+/**
+ * Reads a generated Transfer with the {@link SensorStationStreamReader} and prints the Number of
+ * Readings. Started in its own JVM with a small Heap by {@link TestSensorStationStreamReader}.
+ */
+public class StreamReaderMemoryCheck {
+	public static void main(String[] args) {
+		int stations = Integer.parseInt(args[0]);
+		int readingsPerStation = Integer.parseInt(args[1]);
+
+		String[] bdAddresses = new String[stations];
+		for (int i = 0; i < stations; i++) bdAddresses[i] = String.format("00:00:00:00:00:%02x", i);
+
+		SensorStationStreamReader reader = new SensorStationStreamReader(
+				JsonMapper.builder()
+						.findAndAddModules()
+						.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+						.build(),
+				new SensorDataBinaryCodec()
+		);
+		long[] readings = {0};
+		reader.read(
+				new GeneratedTransferStream(bdAddresses, readingsPerStation),
+				new SensorStationStreamReader.Handler() {
+					@Override
+					public void startStation(SensorStation sensorStation) {}
+
+					@Override
+					public void reading(SensorData data) {
+						readings[0]++;
+					}
+
+					@Override
+					public void endStation(SensorStation sensorStation) {}
+				}
+		);
+		System.out.println("readings=" + readings[0]);
+	}
+}
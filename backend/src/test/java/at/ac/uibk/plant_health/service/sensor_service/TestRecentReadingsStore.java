@@ -0,0 +1,89 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.RecentReadingsStore;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.ReadingRingBuffer;
+import at.ac.uibk.plant_health.util.StringGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestRecentReadingsStore {
+	@Autowired
+	private RecentReadingsStore recentReadingsStore;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	public void ingestedReadingsAreServedFromMemory() {
+		// given: a SensorStation that sent the last two Hours and one Reading from two Days ago
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setUnlocked(true);
+		sensorStation = sensorStationService.save(sensorStation);
+
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+		SensorStation sent = new SensorStation(sensorStation.getBdAddress(), 1);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			sensorData.add(new SensorData(
+					now.minusMinutes(i), i, i == 0 ? "h" : "n", new Sensor("TEMPERATURE", "C"),
+					null
+			));
+			sensorData.add(new SensorData(
+					now.minusMinutes(i), 2 * i, "n", new Sensor("HUMIDITY", "%"), null
+			));
+		}
+		sensorData.add(new SensorData(
+				now.minusDays(2), 0, "n", new Sensor("TEMPERATURE", "C"), null
+		));
+		sent.setSensorData(sensorData);
+		sensorDataIngestService.ingest(List.of(sent));
+
+		// when: the last three Hours are requested
+		Optional<Map<Sensor, ReadingRingBuffer.Slice>> recent = recentReadingsStore.find(
+				sensorStation.getDeviceId(), now.minusHours(3), now.plusMinutes(1)
+		);
+
+		// then: they are answered from Memory, without the Reading outside of the Horizon
+		assertTrue(recent.isPresent());
+		assertEquals(2, recent.get().size());
+		for (var entry : recent.get().entrySet()) {
+			ReadingRingBuffer.Slice slice = entry.getValue();
+			assertEquals(120, slice.size());
+			assertEquals(
+					ReadingRingBuffer.toEpochSecond(now), slice.epochSeconds()[slice.size() - 1]
+			);
+			if (entry.getKey().getType().equals("TEMPERATURE")) {
+				assertEquals(0, slice.values()[slice.size() - 1]);
+				assertEquals('h', slice.alarms()[slice.size() - 1]);
+			}
+		}
+
+		// and: a Window reaching beyond the Horizon has to go to the Database
+		assertTrue(recentReadingsStore
+						   .find(sensorStation.getDeviceId(), now.minusDays(3), now)
+						   .isEmpty());
+
+		assertTrue(meterRegistry.get("swa.recent.memory").gauge().value() > 0);
+		assertTrue(meterRegistry.get("swa.recent.readings").gauge().value() >= 240);
+	}
+}
@@ -0,0 +1,221 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
+import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRollupRepository;
+import at.ac.uibk.plant_health.repositories.SensorLimitsRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestRetentionService {
+	private static final LocalDateTime START =
+			LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(10);
+
+	@Autowired
+	private RetentionService retentionService;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataRollupRepository sensorDataRollupRepository;
+	@Autowired
+	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void retentionProperties(DynamicPropertyRegistry registry) {
+		registry.add("swa.retention.enabled", () -> "true");
+		// Small Chunks, so every Purge takes several Transactions.
+		registry.add("swa.retention.chunk-size", () -> "7");
+		registry.add("swa.retention.pause", () -> "0ms");
+	}
+
+	/**
+	 * One Reading per Hour and Sensor for the last ten Days.
+	 */
+	private SensorStation createSensorStation() {
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int h = 0; h < 10 * 24; h++) {
+			LocalDateTime timeStamp = START.plusHours(h);
+			sensorData.add(new SensorData(timeStamp, h, "n", new Sensor("TEMPERATURE", "C"), null));
+			sensorData.add(new SensorData(timeStamp, h, "n", new Sensor("HUMIDITY", "%"), null));
+		}
+		sensorDataIngestService.ingest(
+				List.of(SensorDataGenerator.transfer(sensorStation, sensorData))
+		);
+		return sensorStation;
+	}
+
+	private int countReadings(SensorStation sensorStation) {
+		return sensorDataRepository
+				.findInWindow(sensorStation.getDeviceId(), START.minusDays(1), START.plusDays(11))
+				.size();
+	}
+
+	@Test
+	public void oldReadingsAndRollupsArePurged() {
+		SensorStation sensorStation = createSensorStation();
+		LocalDateTime cutoff = START.plusDays(5);
+
+		// when: the Readings and Minute Rollups of the first five Days are purged
+		assertEquals(2 * 5 * 24, retentionService.purgeReadings(cutoff));
+		assertEquals(2 * 5 * 24, retentionService.purgeRollups(Resolution.MINUTE, cutoff));
+
+		// then: only the newer Readings are left
+		assertEquals(2 * 5 * 24, countReadings(sensorStation));
+		// and: the Hour Rollups still cover the whole History
+		assertEquals(
+				2 * 10 * 24,
+				sensorDataRollupService
+						.getRollups(sensorStation, Resolution.HOUR, START, START.plusDays(10))
+						.size()
+		);
+		assertEquals(
+				2 * 5 * 24,
+				sensorDataRollupService
+						.getRollups(sensorStation, Resolution.MINUTE, START, START.plusDays(10))
+						.size()
+		);
+		// and: the Progress is published
+		assertTrue(meterRegistry.get("swa.retention.deleted").tag("kind", "readings").counter()
+						   .count()
+				   >= 2 * 5 * 24);
+
+		// and: purging again finds nothing
+		assertEquals(0, retentionService.purgeReadings(cutoff));
+	}
+
+	@Test
+	public void readingsWithoutRollupsAreRolledUpBeforeTheyArePurged() {
+		// given: Readings of the first two Days that were stored before the Rollups existed
+		SensorStation sensorStation = createSensorStation();
+		for (Resolution resolution : Resolution.values()) {
+			sensorDataRollupRepository.deleteAll(sensorDataRollupService.getRollups(
+					sensorStation, resolution, START, START.plusDays(2)
+			));
+		}
+
+		// when: the Readings of the first five Days are purged
+		retentionService.purgeReadings(START.plusDays(5));
+
+		// then: the Rollups of the first two Days were rebuilt before the Readings were removed
+		assertEquals(2 * 5 * 24, countReadings(sensorStation));
+		List<SensorDataRollup> days = sensorDataRollupService.getRollups(
+				sensorStation, Resolution.DAY, START, START.plusDays(2)
+		);
+		assertEquals(2 * 2, days.size());
+		days.forEach(day -> assertEquals(24, day.getCount()));
+		assertEquals(
+				2 * 2 * 24,
+				sensorDataRollupService
+						.getRollups(sensorStation, Resolution.HOUR, START, START.plusDays(2))
+						.size()
+		);
+
+		// The other Tests count all Minute Rollups before the Cutoff.
+		retentionService.purgeRollups(Resolution.MINUTE, START.plusDays(5));
+	}
+
+	@Test
+	public void readingsOlderThanTheRetentionAreNotStoredAgain() {
+		// given: a Reading older than the raw Readings are kept (already purged and rolled up)
+		//        and a new one (after the Cutoffs of the other Tests)
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		LocalDateTime expired = retentionService.getRawReadingsCutoff().minusDays(1);
+		SensorStation sent = SensorDataGenerator.transfer(
+				sensorStation,
+				List.of(new SensorData(expired, 1, "n", new Sensor("TEMPERATURE", "C"), null),
+						new SensorData(
+								START.plusDays(10), 1, "n", new Sensor("TEMPERATURE", "C"), null
+						))
+		);
+
+		// when: both are sent
+		int written = sensorDataIngestService.ingest(List.of(sent));
+
+		// then: only the new one is stored and rolled up
+		assertEquals(1, written);
+		assertTrue(sensorDataRepository
+						   .findInWindow(
+								   sensorStation.getDeviceId(), expired.minusDays(1),
+								   expired.plusDays(1)
+						   )
+						   .isEmpty());
+	}
+
+	@Test
+	public void deletedEntitiesAreCompactedAfterTheGracePeriod() {
+		// given: a deleted SensorStation with Readings and Limits and a deleted AccessPoint
+		SensorStation kept = createSensorStation();
+		SensorStation deleted = createSensorStation();
+		Sensor sensor = sensorTypeRegistry.find("TEMPERATURE").orElseThrow();
+		sensorLimitsRepository.save(
+				new SensorLimits(LocalDateTime.now(), 30, 10, 60, sensor, null, deleted)
+		);
+		sensorStationService.deleteSensorStation(deleted.getDeviceId());
+
+		AccessPoint accessPoint = new AccessPoint(UUID.randomUUID(), "Retention", 10, false);
+		accessPoint.setDeleted(true);
+		accessPoint = accessPointRepository.save(accessPoint);
+
+		// when: the Grace Period has not passed yet
+		retentionService.compactDeleted(LocalDateTime.now().minusDays(1));
+
+		// then: the deleted SensorStation is untouched
+		assertEquals(2 * 10 * 24, countReadings(deleted));
+
+		// when: the Grace Period has passed
+		retentionService.compactDeleted(LocalDateTime.now().plusSeconds(1));
+
+		// then: the History of the deleted SensorStation is gone, but it still exists
+		assertEquals(0, countReadings(deleted));
+		assertTrue(sensorDataRollupService
+						   .getRollups(deleted, Resolution.DAY, START, START.plusDays(10))
+						   .isEmpty());
+		assertTrue(sensorStationRepository.findById(deleted.getDeviceId()).isPresent());
+		assertTrue(sensorStationService.findWithSensorLimits(deleted.getDeviceId())
+						   .getSensorLimits()
+						   .isEmpty());
+		// and: other SensorStations keep theirs
+		assertEquals(2 * 10 * 24, countReadings(kept));
+		// and: the deleted AccessPoint is removed
+		assertTrue(accessPointRepository.findById(accessPoint.getDeviceId()).isEmpty());
+	}
+}
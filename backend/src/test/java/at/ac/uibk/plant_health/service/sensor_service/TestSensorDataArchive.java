@@ -0,0 +1,154 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse.AlarmResponse;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.service.DeviceListService;
+import at.ac.uibk.plant_health.service.SensorDataArchive;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataArchive {
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private DeviceListService deviceListService;
+
+	@DynamicPropertySource
+	static void archiveProperties(DynamicPropertyRegistry registry) throws IOException {
+		String path = Files.createTempDirectory("archive").toString();
+		registry.add("swa.archive.enabled", () -> "true");
+		registry.add("swa.archive.path", () -> path);
+	}
+
+	@Test
+	public void archivedReadingsAreMergedWithStoredReadings() {
+		// given: a SensorStation that sent Readings every ten Minutes for the last 40 Days
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setUnlocked(true);
+		sensorStation = sensorStationService.save(sensorStation);
+
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+		SensorStation sent = new SensorStation(sensorStation.getBdAddress(), 1);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (LocalDateTime t = now.minusDays(40); t.isBefore(now); t = t.plusMinutes(10)) {
+			float value = t.getHour() + t.getMinute() / 100f;
+			String alarm = t.getHour() == 12 ? "h" : "n";
+			sensorData.add(new SensorData(t, value, alarm, new Sensor("TEMPERATURE", "C"), null));
+			sensorData.add(new SensorData(t, 2 * value, "n", new Sensor("HUMIDITY", "%"), null));
+		}
+		sent.setSensorData(sensorData);
+		sensorDataIngestService.ingest(List.of(sent));
+
+		LocalDateTime from = now.minusDays(41);
+		LocalDateTime to = now.plusMinutes(1);
+		List<SensorData> before = sensorStationService.getSensorData(sensorStation, from, to);
+		assertEquals(sensorData.size(), before.size());
+
+		// when: the Readings older than 30 Days are archived
+		int blocks = sensorDataArchive.countBlocks();
+		int archived = sensorDataArchive.archive(now.minusDays(30));
+
+		// then: they are no longer in the Database, but are still returned
+		LocalDateTime cutoff = now.minusDays(30).truncatedTo(ChronoUnit.DAYS);
+		assertTrue(archived > 0);
+		assertTrue(sensorDataArchive.countBlocks() - blocks >= 2 * 10);
+		assertTrue(sensorDataRepository.findInWindow(sensorStation.getDeviceId(), from, cutoff)
+						   .isEmpty());
+		assertEquals(
+				sensorData.size() - archived,
+				sensorDataRepository.findInWindow(sensorStation.getDeviceId(), from, to).size()
+		);
+
+		List<SensorData> after = sensorStationService.getSensorData(sensorStation, from, to);
+		assertEquals(before.size(), after.size());
+		for (int i = 0; i < before.size(); i++) {
+			SensorData expected = before.get(i);
+			SensorData actual = after.get(i);
+			assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+			assertEquals(expected.getValue(), actual.getValue());
+			assertEquals(expected.getAlarm(), actual.getAlarm());
+		}
+
+		// and: a Window inside the Archive only returns its Readings
+		List<SensorData> day = sensorStationService.getSensorData(
+				sensorStation, now.minusDays(35), now.minusDays(34)
+		);
+		assertEquals(2 * (6 * 24 - 1), day.size());
+
+		// and: an archived Reading that is sent again is not stored (or rolled up) again
+		SensorStation resent = new SensorStation(sensorStation.getBdAddress(), 1);
+		resent.setSensorData(List.of(new SensorData(
+				now.minusDays(35), 1, "n", new Sensor("TEMPERATURE", "C"), null
+		)));
+		assertEquals(0, sensorDataIngestService.ingest(List.of(resent)));
+		assertTrue(sensorDataRepository.findInWindow(sensorStation.getDeviceId(), from, cutoff)
+						   .isEmpty());
+		assertEquals(
+				before.size(), sensorStationService.getSensorData(sensorStation, from, to).size()
+		);
+	}
+
+	@Test
+	public void alarmsOfArchivedSensorStationsAreListed() {
+		// given: a SensorStation whose Readings are all archived, the last one with an Alarm
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+		LocalDateTime last = now.minusDays(35);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (LocalDateTime t = now.minusDays(40); !t.isAfter(last); t = t.plusHours(1)) {
+			String alarm = t.equals(last) ? "h" : "n";
+			sensorData.add(new SensorData(t, 1, alarm, new Sensor("TEMPERATURE", "C"), null));
+		}
+		sensorDataIngestService.ingest(
+				List.of(SensorDataGenerator.transfer(sensorStation, sensorData))
+		);
+		sensorDataArchive.archive(now.minusDays(30));
+		assertTrue(sensorDataRepository
+						   .findInWindow(sensorStation.getDeviceId(), now.minusDays(41), now)
+						   .isEmpty());
+
+		// when: the SensorStations are listed
+		SensorStationBaseResponse listed =
+				deviceListService.getSensorStations()
+						.stream()
+						.filter(s -> s.getSensorStationId().equals(sensorStation.getDeviceId()))
+						.findFirst()
+						.orElseThrow();
+
+		// then: the Alarm of the newest archived Reading is shown
+		List<AlarmResponse> alarms = listed.getAlarms();
+		assertEquals(1, alarms.size());
+		assertEquals("TEMPERATURE", alarms.get(0).getSensor().getType());
+		assertEquals("h", alarms.get(0).getAlarm());
+	}
+}
@@ -0,0 +1,202 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataBucket;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse.AlarmResponse;
+import at.ac.uibk.plant_health.repositories.SensorDataBucketRepository;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.service.DeviceListService;
+import at.ac.uibk.plant_health.service.SensorDataBucketService;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorDataPageService;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Cursor;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Page;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.service.SensorTypeRegistry;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataBucketService {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 0, 0);
+	private static final int MINUTES = 180;
+
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataBucketRepository sensorDataBucketRepository;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataPageService sensorDataPageService;
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private SensorDataBucketService sensorDataBucketService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+
+	@DynamicPropertySource
+	static void bucketProperties(DynamicPropertyRegistry registry) {
+		registry.add("swa.buckets.enabled", () -> "true");
+		// The other Tests share the Database, so only the Rows of this Test are moved.
+		registry.add("swa.buckets.migrate", () -> "false");
+	}
+
+	/**
+	 * One Reading per Minute and Sensor with the Value {@code i % 60}, every tenth is above the
+	 * Limit. Only every {@code step}-th Minute is sent.
+	 */
+	private SensorStation transfer(SensorStation sensorStation, int step) {
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 0; i < MINUTES; i += step) {
+			String alarm = i % 10 == 0 ? "h" : "n";
+			sensorData.add(new SensorData(
+					START.plusMinutes(i), i % 60, alarm, new Sensor("TEMPERATURE", "C"), null
+			));
+			sensorData.add(new SensorData(
+					START.plusMinutes(i), -(i % 60), "n", new Sensor("HUMIDITY", "%"), null
+			));
+		}
+		return SensorDataGenerator.transfer(sensorStation, sensorData);
+	}
+
+	@Test
+	public void readingsArePackedIntoHourlyBuckets() throws ServiceException {
+		// given: every second Minute, then every Minute again (Duplicates and Readings that are
+		//        older than the newest one in their Bucket)
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		assertEquals(MINUTES, sensorDataIngestService.ingest(List.of(transfer(sensorStation, 2))));
+		assertEquals(MINUTES, sensorDataIngestService.ingest(List.of(transfer(sensorStation, 1))));
+
+		// then: every Sensor has one Bucket per Hour holding all of its Readings
+		UUID deviceId = sensorStation.getDeviceId();
+		List<SensorDataBucket> buckets = sensorDataBucketRepository.findInWindow(
+				deviceId, START, START.plusHours(3)
+		);
+		assertEquals(6, buckets.size());
+		for (SensorDataBucket bucket : buckets) {
+			assertEquals(60, bucket.getCount());
+			assertEquals(59, bucket.getMaxValue() - bucket.getMinValue());
+		}
+		// and: nothing is stored as Rows
+		LocalDateTime end = START.plusDays(1);
+		assertTrue(sensorDataRepository.findInWindow(deviceId, START.minusDays(1), end).isEmpty());
+
+		// and: the Readings are unpacked in Order
+		List<SensorData> sensorData = sensorStationService.getSensorData(
+				sensorStation, START.minusMinutes(1), START.plusMinutes(MINUTES)
+		);
+		assertEquals(2 * MINUTES, sensorData.size());
+		for (int i = 0; i < sensorData.size(); i++) {
+			SensorData data = sensorData.get(i);
+			int minute = i / 2;
+			assertEquals(START.plusMinutes(minute), data.getTimeStamp());
+			float expected = "TEMPERATURE".equals(data.getSensor().getType()) ? minute % 60
+																			   : -(minute % 60);
+			assertEquals(expected, data.getValue());
+		}
+		assertEquals(18, sensorData.stream().filter(SensorData::isAboveLimit).count());
+
+		// and: a Window inside an Hour only returns its Readings
+		assertEquals(
+				2 * 9,
+				sensorStationService
+						.getSensorData(
+								sensorStation, START.plusMinutes(70), START.plusMinutes(80)
+						)
+						.size()
+		);
+
+		// and: the newest Reading of every Sensor is known
+		List<SensorData> newest = sensorStationService.findDetail(deviceId).getNewestSensorData();
+		assertEquals(2, newest.size());
+		for (SensorData data : newest) {
+			assertEquals(START.plusMinutes(MINUTES - 1), data.getTimeStamp());
+		}
+		// and: the List of SensorStations reads the same Alarms from the newest Buckets
+		SensorStationBaseResponse listed =
+				deviceListService.getSensorStations()
+						.stream()
+						.filter(s -> s.getSensorStationId().equals(deviceId))
+						.findFirst()
+						.orElseThrow();
+		assertEquals(2, listed.getAlarms().size());
+		for (AlarmResponse alarm : listed.getAlarms()) {
+			SensorData data = newest.stream()
+									  .filter(d -> d.getSensor().equals(alarm.getSensor()))
+									  .findFirst()
+									  .orElseThrow();
+			assertEquals(data.getAlarm(), alarm.getAlarm());
+		}
+
+		// and: Pages of one Sensor span several Buckets
+		Integer sensorId = newest.get(0).getSensor().getSensorId();
+		Cursor cursor = Cursor.first(deviceId, sensorId, null, null);
+		List<SensorData> paged = new ArrayList<>();
+		while (cursor != null) {
+			Page page = sensorDataPageService.getPage(sensorStation, cursor, 70);
+			paged.addAll(page.readings());
+			cursor = page.next();
+		}
+		assertEquals(MINUTES, paged.size());
+		for (int i = 0; i < MINUTES; i++) {
+			assertEquals(START.plusMinutes(i), paged.get(i).getTimeStamp());
+			assertEquals(sensorId, paged.get(i).getSensor().getSensorId());
+		}
+	}
+
+	@Test
+	public void storedRowsAreMovedIntoBuckets() throws ServiceException {
+		// given: Readings stored as Rows before the Buckets were enabled, one of them is also in
+		//        its Bucket already
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		Sensor sensor = sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C"));
+		for (int i = 0; i < MINUTES; i++) {
+			sensorDataRepository.save(
+					new SensorData(START.plusMinutes(i), i % 60, "n", sensor, sensorStation)
+			);
+		}
+		SensorStation sent = SensorDataGenerator.transfer(
+				sensorStation,
+				List.of(new SensorData(START, 0, "n", new Sensor("TEMPERATURE", "C"), null))
+		);
+		assertEquals(1, sensorDataIngestService.ingest(List.of(sent)));
+
+		// when: the Rows are moved
+		UUID deviceId = sensorStation.getDeviceId();
+		long moved = sensorDataBucketService.migrate(deviceId, sensor.getSensorId());
+
+		// then: every Reading is in its Bucket exactly once and no Rows are left
+		assertEquals(MINUTES - 1, moved);
+		LocalDateTime end = START.plusDays(1);
+		assertTrue(sensorDataRepository.findInWindow(deviceId, START.minusDays(1), end).isEmpty());
+		List<SensorDataBucket> buckets = sensorDataBucketRepository.findInWindow(
+				deviceId, START, START.plusHours(3)
+		);
+		assertEquals(3, buckets.size());
+		for (SensorDataBucket bucket : buckets) assertEquals(60, bucket.getCount());
+		assertEquals(
+				MINUTES,
+				sensorStationService.getSensorData(sensorStation, START.minusMinutes(1), end).size()
+		);
+	}
+}
@@ -0,0 +1,144 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorDataArchive;
+import at.ac.uibk.plant_health.service.SensorDataExportService;
+import at.ac.uibk.plant_health.service.SensorDataExportService.Format;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataExportService {
+	@Autowired
+	private SensorDataExportService sensorDataExportService;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@DynamicPropertySource
+	static void archiveProperties(DynamicPropertyRegistry registry) throws IOException {
+		String path = Files.createTempDirectory("archive").toString();
+		registry.add("swa.archive.enabled", () -> "true");
+		registry.add("swa.archive.path", () -> path);
+	}
+
+	private List<String> export(
+			SensorStation sensorStation, LocalDateTime from, LocalDateTime to, Format format
+	) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = sensorDataExportService.export(sensorStation, from, to, format, out);
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(format == Format.CSV ? rows + 1 : rows, lines.size());
+		return lines;
+	}
+
+	@Test
+	public void archivedAndStoredReadingsAreExportedInOrder() throws IOException {
+		// given: a SensorStation that sent Readings every ten Minutes for the last 40 Days, the
+		//        older ones are archived
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setUnlocked(true);
+		sensorStation = sensorStationService.save(sensorStation);
+
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+		SensorStation sent = new SensorStation(sensorStation.getBdAddress(), 1);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (LocalDateTime t = now.minusDays(40); t.isBefore(now); t = t.plusMinutes(10)) {
+			float value = t.getHour() + t.getMinute() / 100f;
+			String alarm = t.getHour() == 12 ? "h" : "n";
+			sensorData.add(new SensorData(t, value, alarm, new Sensor("TEMPERATURE", "C"), null));
+			sensorData.add(new SensorData(t, 2 * value, "n", new Sensor("HUMIDITY", "%"), null));
+		}
+		sent.setSensorData(sensorData);
+		sensorDataIngestService.ingest(List.of(sent));
+		assertTrue(sensorDataArchive.archive(now.minusDays(30)) > 0);
+
+		LocalDateTime from = now.minusDays(41);
+		LocalDateTime to = now.plusMinutes(1);
+		List<SensorData> expected = sensorStationService.getSensorData(sensorStation, from, to);
+		assertEquals(sensorData.size(), expected.size());
+
+		// when: the Window is exported as NDJSON
+		List<String> lines = export(sensorStation, from, to, Format.NDJSON);
+
+		// then: every Reading is exported once, in the Order of its Time Stamp
+		assertEquals(expected.size(), lines.size());
+		String previous = "";
+		for (int i = 0; i < lines.size(); i++) {
+			JsonNode line = mapper.readTree(lines.get(i));
+			String timeStamp = line.get("timeStamp").asText();
+			assertTrue(timeStamp.compareTo(previous) >= 0);
+			previous = timeStamp;
+
+			LocalDateTime time = LocalDateTime.parse(timeStamp);
+			float value = time.getHour() + time.getMinute() / 100f;
+			if ("TEMPERATURE".equals(line.get("sensorType").asText())) {
+				assertEquals("C", line.get("sensorUnit").asText());
+				assertEquals(value, line.get("value").floatValue());
+				assertEquals(time.getHour() == 12 ? "h" : "n", line.get("alarm").asText());
+			} else {
+				assertEquals(2 * value, line.get("value").floatValue());
+			}
+		}
+
+		// when: a Window of one Hour starting at a Reading is exported as CSV
+		LocalDateTime start = now.minusDays(2);
+		lines = export(sensorStation, start, start.plusHours(1), Format.CSV);
+
+		// then: the Header is followed by the five Readings of each Sensor after the exclusive
+		//       Start of the Window
+		assertEquals("timeStamp,sensorType,sensorUnit,value,alarm", lines.get(0));
+		assertEquals(1 + 2 * 5, lines.size());
+		assertTrue(lines.get(1).startsWith(start.plusMinutes(10) + ":00,"));
+	}
+
+	@Test
+	public void csvFieldsWithLineBreaksAreQuoted() throws IOException {
+		// given: a Reading of a Sensor whose Unit contains a Carriage Return
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+		sensorDataIngestService.ingest(List.of(SensorDataGenerator.transfer(
+				sensorStation, List.of(new SensorData(now, 1, "n", new Sensor("CSV", "m\rs"), null))
+		)));
+
+		// when: it is exported as CSV
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sensorDataExportService.export(
+				sensorStation, now.minusMinutes(1), now.plusMinutes(1), Format.CSV, out
+		);
+
+		// then: the Unit is quoted, so the Row is not split
+		assertTrue(out.toString(StandardCharsets.UTF_8).endsWith(",CSV,\"m\rs\",1.0,n\n"));
+	}
+}
@@ -0,0 +1,185 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.repositories.SensorDataRepository;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataIngestService {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataRepository sensorDataRepository;
+	@Autowired
+	private SensorDataBinaryCodec sensorDataBinaryCodec;
+
+	private SensorStation transfer(SensorStation sensorStation, int readings) {
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 0; i < readings; i++) {
+			sensorData.add(new SensorData(
+					START.plusMinutes(i), i, "n", new Sensor("TEMPERATURE", "C"), null
+			));
+		}
+		return SensorDataGenerator.transfer(sensorStation, sensorData);
+	}
+
+	private int stored(SensorStation sensorStation) {
+		return sensorDataRepository
+				.findReadingKeys(sensorStation.getDeviceId(), START, START.plusYears(1))
+				.size();
+	}
+
+	@Test
+	public void writeManySensorStations() {
+		// given: a Transfer with many SensorStations
+		List<SensorStation> sensorStations = new ArrayList<>();
+		List<SensorStation> transfer = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+			sensorStations.add(sensorStation);
+			transfer.add(transfer(sensorStation, 333));
+		}
+
+		// when: it is written
+		int written = sensorDataIngestService.ingest(transfer);
+
+		// then: all Readings of all SensorStations are stored
+		assertEquals(8 * 333, written);
+		for (SensorStation sensorStation : sensorStations) assertEquals(333, stored(sensorStation));
+	}
+
+	@Test
+	public void concurrentTransfersToSameSensorStation() throws Exception {
+		// given: one SensorStation and several Transfers of the same Readings
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		int transfers = 6;
+		ExecutorService executor = Executors.newFixedThreadPool(transfers);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// when: they are written at the same Time
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < transfers; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return sensorDataIngestService.ingest(List.of(transfer(sensorStation, 200)));
+			}));
+		}
+		start.countDown();
+		int written = 0;
+		for (Future<Integer> future : futures) written += future.get(60, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		// then: every Reading is stored exactly once
+		assertEquals(200, written);
+		assertEquals(200, stored(sensorStation));
+	}
+
+	@Test
+	public void lastConnectedStateOfASensorStationIsStored() {
+		// given: a disconnected SensorStation that is sent twice, first connected, then not
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		SensorStation connected = transfer(sensorStation, 10);
+		connected.setConnected(true);
+		SensorStation disconnected = transfer(sensorStation, 10);
+		disconnected.setConnected(false);
+
+		// when: the Transfer is written
+		sensorDataIngestService.ingest(List.of(connected, disconnected));
+
+		// then: the SensorStation is disconnected again
+		assertFalse(sensorStationService.findById(sensorStation.getDeviceId()).isConnected());
+	}
+
+	@Test
+	public void unknownSensorStation() {
+		SensorStation unknown = new SensorStation(StringGenerator.macAddress(), 1);
+		List<SensorStation> transfer = List.of(transfer(unknown, 10));
+
+		ServiceException e = assertThrows(
+				ServiceException.class, () -> sensorDataIngestService.ingest(transfer)
+		);
+		assertEquals(404, e.getStatusCode());
+	}
+
+	@Test
+	public void nothingIsWrittenIfALaterSensorStationIsRejected() {
+		// given: a Transfer whose last SensorStation is locked
+		SensorStation first = SensorDataGenerator.sensorStation(sensorStationService);
+		SensorStation locked = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStationService.save(locked);
+		List<SensorStation> transfer = List.of(transfer(first, 500), transfer(locked, 10));
+
+		// when: it is written
+		ServiceException e = assertThrows(
+				ServiceException.class, () -> sensorDataIngestService.ingest(transfer)
+		);
+
+		// then: it is rejected as a whole
+		assertEquals(409, e.getStatusCode());
+		assertEquals(0, stored(first));
+	}
+
+	@Test
+	public void streamedTransferCanBeResentAfterALaterSensorStationIsRejected()
+			throws IOException {
+		// given: a streamed Transfer whose last SensorStation is unknown
+		SensorStation first = SensorDataGenerator.sensorStation(sensorStationService);
+		SensorStation unknown = new SensorStation(StringGenerator.macAddress(), 1);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		sensorDataBinaryCodec.write(List.of(transfer(first, 500), transfer(unknown, 10)), body);
+		byte[] bytes = body.toByteArray();
+
+		// when: it is written
+		ServiceException e = assertThrows(
+				ServiceException.class,
+				()
+						-> sensorDataIngestService.ingest(
+								new ByteArrayInputStream(bytes),
+								SensorDataBinaryCodec.MEDIA_TYPE_VALUE, bytes.length, null
+						)
+		);
+
+		// then: it is rejected, but the Chunks of the first SensorStation may be committed
+		assertEquals(404, e.getStatusCode());
+		int committed = stored(first);
+		assertTrue(committed <= 500);
+
+		// when: the Transfer is sent again without the unknown SensorStation
+		body.reset();
+		sensorDataBinaryCodec.write(List.of(transfer(first, 500)), body);
+		int written = sensorDataIngestService.ingest(
+				new ByteArrayInputStream(body.toByteArray()),
+				SensorDataBinaryCodec.MEDIA_TYPE_VALUE, body.size(), null
+		);
+
+		// then: only the missing Readings are written
+		assertEquals(500 - committed, written);
+		assertEquals(500, stored(first));
+	}
+}
@@ -0,0 +1,141 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Cursor;
+import at.ac.uibk.plant_health.service.SensorDataPageService.Page;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataPageService {
+	@Autowired
+	private SensorDataPageService sensorDataPageService;
+	@Autowired
+	private SensorDataArchive sensorDataArchive;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+
+	@DynamicPropertySource
+	static void archiveProperties(DynamicPropertyRegistry registry) throws IOException {
+		String path = Files.createTempDirectory("archive").toString();
+		registry.add("swa.archive.enabled", () -> "true");
+		registry.add("swa.archive.path", () -> path);
+	}
+
+	/**
+	 * Follow the Cursors from the given one until the last Page.
+	 */
+	private List<SensorData> pageThrough(SensorStation sensorStation, Cursor cursor, int limit)
+			throws ServiceException {
+		List<SensorData> readings = new ArrayList<>();
+		while (cursor != null) {
+			// The Cursor is handed to the Client and back as its Token.
+			Page page = sensorDataPageService.getPage(
+					sensorStation, Cursor.decode(cursor.encode()), limit
+			);
+			assertTrue(page.readings().size() <= limit);
+			readings.addAll(page.readings());
+			cursor = page.next();
+		}
+		return readings;
+	}
+
+	@Test
+	public void pagesCoverArchivedAndStoredReadings() throws ServiceException {
+		// given: a SensorStation that sent Readings every ten Minutes for the last 40 Days, the
+		//        older ones are archived
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setUnlocked(true);
+		sensorStation = sensorStationService.save(sensorStation);
+
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+		SensorStation sent = new SensorStation(sensorStation.getBdAddress(), 1);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (LocalDateTime t = now.minusDays(40); t.isBefore(now); t = t.plusMinutes(10)) {
+			float value = t.getHour() + t.getMinute() / 100f;
+			sensorData.add(new SensorData(t, value, "n", new Sensor("TEMPERATURE", "C"), null));
+			sensorData.add(new SensorData(t, 2 * value, "n", new Sensor("HUMIDITY", "%"), null));
+		}
+		sent.setSensorData(sensorData);
+		sensorDataIngestService.ingest(List.of(sent));
+		assertTrue(sensorDataArchive.archive(now.minusDays(30)) > 0);
+		Sensor temperature = sensorTypeRegistry.find("TEMPERATURE").orElseThrow();
+
+		// when: all Readings of one Sensor are paged through
+		List<SensorData> readings = pageThrough(
+				sensorStation,
+				Cursor.first(sensorStation.getDeviceId(), temperature.getSensorId(), null, null),
+				500
+		);
+
+		// then: they are the same as in one Window
+		List<SensorData> expected =
+				sensorStationService
+						.getSensorData(sensorStation, now.minusDays(41), now.plusMinutes(1))
+						.stream()
+						.filter(data -> data.getSensor().equals(temperature))
+						.toList();
+		assertEquals(sensorData.size() / 2, expected.size());
+		assertEquals(expected.size(), readings.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getTimeStamp(), readings.get(i).getTimeStamp());
+			assertEquals(expected.get(i).getValue(), readings.get(i).getValue());
+			assertEquals(temperature, readings.get(i).getSensor());
+		}
+
+		// and: a Window is paged through up to its exclusive End
+		LocalDateTime from = now.minusDays(31);
+		readings = pageThrough(
+				sensorStation,
+				Cursor.first(
+						sensorStation.getDeviceId(), temperature.getSensorId(), from,
+						from.plusDays(2)
+				),
+				7
+		);
+		assertEquals(2 * 144 - 1, readings.size());
+	}
+
+	@Test
+	public void invalidRequestsAreRejected() {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		SensorStation saved = sensorStationService.save(sensorStation);
+		Cursor cursor = Cursor.first(saved.getDeviceId(), 1, null, null);
+
+		assertThrows(ServiceException.class, () -> Cursor.decode("not a cursor"));
+		assertThrows(ServiceException.class, () -> Cursor.decode("AAAA"));
+		assertThrows(ServiceException.class, () -> sensorDataPageService.getPage(saved, cursor, 0));
+		assertThrows(
+				ServiceException.class,
+				()
+						-> sensorDataPageService.getPage(
+								saved, Cursor.first(UUID.randomUUID(), 1, null, null), 10
+						)
+		);
+	}
+}
@@ -0,0 +1,180 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup;
+import at.ac.uibk.plant_health.models.plant.SensorDataRollup.Resolution;
+import at.ac.uibk.plant_health.repositories.SensorDataRollupRepository;
+import at.ac.uibk.plant_health.service.SensorDataIngestService;
+import at.ac.uibk.plant_health.service.SensorDataRollupService;
+import at.ac.uibk.plant_health.service.SensorStationService;
+import at.ac.uibk.plant_health.util.SensorDataGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorDataRollupService {
+	private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 0, 0);
+
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorDataRollupService sensorDataRollupService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorDataRollupRepository sensorDataRollupRepository;
+
+	/**
+	 * One Reading per Minute with the Value {@code i % 60}, every tenth is above the Limit.
+	 */
+	private SensorStation transfer(SensorStation sensorStation, int from, int to) {
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			sensorData.add(new SensorData(
+					START.plusMinutes(i), i % 60, i % 10 == 0 ? "h" : "n",
+					new Sensor("TEMPERATURE", "C"), null
+			));
+		}
+		return SensorDataGenerator.transfer(sensorStation, sensorData);
+	}
+
+	@Test
+	public void rollupsAreUpdatedIncrementally() {
+		// given: two Days of Readings, written in two overlapping Transfers
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		sensorDataIngestService.ingest(List.of(transfer(sensorStation, 0, 1800)));
+		sensorDataIngestService.ingest(List.of(transfer(sensorStation, 1200, 2880)));
+
+		// then: every Hour holds all of its Readings exactly once
+		List<SensorDataRollup> hours = sensorDataRollupService.getRollups(
+				sensorStation, Resolution.HOUR, START, START.plusDays(2)
+		);
+		assertEquals(48, hours.size());
+		for (int h = 0; h < 48; h++) {
+			SensorDataRollup hour = hours.get(h);
+			assertEquals(START.plusHours(h), hour.getBucketStart());
+			assertEquals(60, hour.getCount());
+			assertEquals(0, hour.getMinValue());
+			assertEquals(59, hour.getMaxValue());
+			assertEquals(29.5, hour.getAverage(), 1e-6);
+			assertEquals(0, hour.getFirstValue());
+			assertEquals(59, hour.getLastValue());
+			assertEquals(START.plusHours(h).plusMinutes(59), hour.getLastTimeStamp());
+			assertEquals(6, hour.getAboveLimitCount());
+			assertEquals(0, hour.getBelowLimitCount());
+		}
+
+		// and: the Days and Minutes as well
+		List<SensorDataRollup> days = sensorDataRollupService.getRollups(
+				sensorStation, Resolution.DAY, START, START.plusDays(2)
+		);
+		assertEquals(2, days.size());
+		assertEquals(1440, days.get(0).getCount());
+		assertEquals(144, days.get(1).getAboveLimitCount());
+		assertEquals(
+				2880,
+				sensorDataRollupService
+						.getRollups(sensorStation, Resolution.MINUTE, START, START.plusDays(2))
+						.size()
+		);
+	}
+
+	@Test
+	public void backfillRollsUpStoredReadings() {
+		// given: two Days of Readings, the Rollups of the second Day are missing
+		SensorStation sensorStation = SensorDataGenerator.sensorStation(sensorStationService);
+		sensorDataIngestService.ingest(List.of(transfer(sensorStation, 0, 2880)));
+		Integer sensorId = sensorDataRollupService
+								   .getRollups(sensorStation, Resolution.DAY, START, START.plusDays(1))
+								   .get(0)
+								   .getSensor()
+								   .getSensorId();
+		for (Resolution resolution : Resolution.values()) {
+			sensorDataRollupRepository.deleteAll(sensorDataRollupService.getRollups(
+					sensorStation, resolution, START.plusDays(1), START.plusDays(2)
+			));
+		}
+
+		// when: the Rollups are backfilled
+		int days = sensorDataRollupService.backfill(
+				sensorStation.getDeviceId(), sensorId, START, START.plusDays(2)
+		);
+
+		// then: only the second Day is rebuilt, all Rollups are complete again
+		assertEquals(1, days);
+		List<SensorDataRollup> hours = sensorDataRollupService.getRollups(
+				sensorStation, Resolution.HOUR, START.plusDays(1), START.plusDays(2)
+		);
+		assertEquals(24, hours.size());
+		for (SensorDataRollup hour : hours) {
+			assertEquals(60, hour.getCount());
+			assertEquals(29.5, hour.getAverage(), 1e-6);
+			assertEquals(6, hour.getAboveLimitCount());
+		}
+		List<SensorDataRollup> rebuiltDays = sensorDataRollupService.getRollups(
+				sensorStation, Resolution.DAY, START, START.plusDays(2)
+		);
+		assertEquals(2, rebuiltDays.size());
+		assertEquals(1440, rebuiltDays.get(1).getCount());
+		assertEquals(
+				1440,
+				sensorDataRollupService
+						.getRollups(
+								sensorStation, Resolution.MINUTE, START.plusDays(1),
+								START.plusDays(2)
+						)
+						.size()
+		);
+
+		// and: a Day with a complete Day Rollup is not rebuilt again
+		assertEquals(
+				0,
+				sensorDataRollupService.backfill(
+						sensorStation.getDeviceId(), sensorId, START, START.plusDays(2)
+				)
+		);
+	}
+
+	@Test
+	public void resolveResolution() {
+		LocalDateTime to = START.plusYears(1);
+		assertEquals(Optional.empty(), sensorDataRollupService.resolve("raw", START, to));
+		assertEquals(
+				Optional.of(Resolution.HOUR), sensorDataRollupService.resolve("Hour", START, to)
+		);
+
+		// auto: the coarsest Resolution with enough Points
+		assertEquals(
+				Optional.of(Resolution.DAY), sensorDataRollupService.resolve("auto", START, to)
+		);
+		assertEquals(
+				Optional.of(Resolution.HOUR),
+				sensorDataRollupService.resolve("auto", START, START.plusMonths(1))
+		);
+		assertEquals(
+				Optional.of(Resolution.MINUTE),
+				sensorDataRollupService.resolve("auto", START, START.plusDays(1))
+		);
+		assertEquals(
+				Optional.empty(),
+				sensorDataRollupService.resolve("auto", START, START.plusMinutes(30))
+		);
+
+		ServiceException e = assertThrows(
+				ServiceException.class, () -> sensorDataRollupService.resolve("week", START, to)
+		);
+		assertEquals(400, e.getStatusCode());
+	}
+}
@@ -0,0 +1,184 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorDataBinaryCodec;
+import at.ac.uibk.plant_health.service.SensorStationStreamReader;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorStationStreamReader {
+	@Autowired
+	private SensorStationStreamReader sensorStationStreamReader;
+	@Autowired
+	private SensorDataBinaryCodec sensorDataBinaryCodec;
+
+	@Test
+	public void readFieldsInAnyOrder() {
+		// given: a SensorStation whose SensorData is sent before its bdAddress
+		String body = """
+			[{"sensorData":[
+				{"timeStamp":"2023-05-01T12:00:00","value":1.5,"alarm":"n","sensor":{"type":"T","unit":"C"}},
+				{"timeStamp":"2023-05-01T12:01:00","value":2.5,"alarm":"h","sensor":{"type":"T","unit":"C"}}
+			],"bdAddress":"00:11:22:33:44:55","connected":true,"dipSwitchId":3}]""";
+
+		// when: reading the Body
+		List<SensorStation> sensorStations = sensorStationStreamReader.readAll(
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))
+		);
+
+		// then: all Fields are read
+		assertEquals(1, sensorStations.size());
+		SensorStation sensorStation = sensorStations.get(0);
+		assertEquals("00:11:22:33:44:55", sensorStation.getBdAddress());
+		assertEquals(3, sensorStation.getDipSwitchId());
+		assertTrue(sensorStation.isConnected());
+		assertEquals(2, sensorStation.getSensorData().size());
+		assertEquals(2.5f, sensorStation.getSensorData().get(1).getValue());
+		assertEquals("T", sensorStation.getSensorData().get(1).getSensor().getType());
+	}
+
+	@Test
+	public void readBinaryFormat() throws Exception {
+		// given: a SensorStation with unordered Readings of two Sensors
+		SensorStation sent = new SensorStation("00:11:22:33:44:66", 7);
+		sent.setConnected(true);
+		Sensor temperature = new Sensor("TEMPERATURE", "C");
+		Sensor humidity = new Sensor("HUMIDITY", "%");
+		LocalDateTime now = LocalDateTime.of(2023, 5, 6, 17, 34, 44);
+		sent.setSensorData(List.of(
+				new SensorData(now, 21.5f, "n", temperature, null),
+				new SensorData(now, 40.25f, "l", humidity, null),
+				new SensorData(now.minusSeconds(30), 22.75f, "h", temperature, null)
+		));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		sensorDataBinaryCodec.write(List.of(sent), out);
+
+		// when: reading the encoded Body
+		List<SensorStation> sensorStations = sensorStationStreamReader.readAll(
+				new ByteArrayInputStream(out.toByteArray()), SensorDataBinaryCodec.MEDIA_TYPE_VALUE
+		);
+
+		// then: all Readings are decoded (grouped by Sensor)
+		assertEquals(1, sensorStations.size());
+		SensorStation read = sensorStations.get(0);
+		assertEquals(sent.getBdAddress(), read.getBdAddress());
+		assertEquals(7, read.getDipSwitchId());
+		assertTrue(read.isConnected());
+		List<SensorData> data = read.getSensorData();
+		assertEquals(3, data.size());
+		assertEquals(now.minusSeconds(30), data.get(1).getTimeStamp());
+		assertEquals(22.75f, data.get(1).getValue());
+		assertTrue(data.get(1).isAboveLimit());
+		assertEquals("HUMIDITY", data.get(2).getSensor().getType());
+		assertEquals("%", data.get(2).getSensor().getUnit());
+		assertTrue(data.get(2).isBelowLimit());
+	}
+
+	@Test
+	public void rejectInvalidBody() {
+		ServiceException e = assertThrows(
+				ServiceException.class,
+				()
+						-> sensorStationStreamReader.readAll(new ByteArrayInputStream(
+								"[{\"bdAddress\":".getBytes(StandardCharsets.UTF_8)
+						))
+		);
+		assertEquals(400, e.getStatusCode());
+	}
+
+	@Test
+	public void rejectCountsTheBinaryBodyCanNotHold() {
+		// given: a Series claiming 2^24 Readings and one with a Count above Integer.MAX_VALUE
+		byte[] series = {
+			'P', 'H', 'S', 'D', 1, 1, 0, 1, 'A', 0, 0, 1, 0, 1, 'T', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+		};
+		byte[] huge = Arrays.copyOf(series, series.length + 4);
+		huge[series.length] = (byte) 0x80;
+		huge[series.length + 1] = (byte) 0x80;
+		huge[series.length + 2] = (byte) 0x80;
+		huge[series.length + 3] = 0x08;
+		byte[] negative = Arrays.copyOf(series, series.length + 10);
+		Arrays.fill(negative, series.length, negative.length - 1, (byte) 0xFF);
+		negative[negative.length - 1] = 0x01;
+
+		// then: both are rejected as invalid before anything is allocated for them
+		for (byte[] body : List.of(huge, negative)) {
+			ServiceException e = assertThrows(
+					ServiceException.class,
+					()
+							-> sensorStationStreamReader.readAll(
+									new ByteArrayInputStream(body),
+									SensorDataBinaryCodec.MEDIA_TYPE_VALUE, body.length
+							)
+			);
+			assertEquals(400, e.getStatusCode());
+		}
+	}
+
+	@Test
+	public void rejectTimeStampsOutOfRange() {
+		// given: a Reading whose Time Stamp is beyond the Year 999999999
+		byte[] series = {
+			'P', 'H', 'S', 'D', 1, 1, 0, 1, 'A', 0, 0, 1, 0, 1, 'T', 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+		};
+		byte[] body = Arrays.copyOf(series, series.length + 7);
+		Arrays.fill(body, series.length - 8, series.length, (byte) 0xFF);
+		body[series.length - 8] = 0x7F;
+		body[series.length] = 1;
+		body[body.length - 1] = 'n';
+
+		// then: it is rejected as invalid
+		ServiceException e = assertThrows(
+				ServiceException.class,
+				()
+						-> sensorStationStreamReader.readAll(
+								new ByteArrayInputStream(body),
+								SensorDataBinaryCodec.MEDIA_TYPE_VALUE, body.length
+						)
+		);
+		assertEquals(400, e.getStatusCode());
+	}
+
+	@Test
+	public void readOneMillionReadingsWithSmallHeap() throws Exception {
+		// given: a JVM whose Heap could not hold 1M SensorData Objects at once
+		String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator
+				+ "java";
+		String classPath = System.getProperty(
+				"surefire.test.class.path", System.getProperty("java.class.path")
+		);
+		Process process = new ProcessBuilder(
+								  javaBin, "-Xmx32m", "-cp", classPath,
+								  StreamReaderMemoryCheck.class.getName(), "10", "100000"
+		)
+								  .redirectErrorStream(true)
+								  .start();
+
+		// when: streaming a 1M Reading Transfer through the Reader
+		String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertTrue(process.waitFor(2, TimeUnit.MINUTES), "Reader did not finish");
+
+		// then: all Readings were read without running out of Memory
+		assertEquals(0, process.exitValue(), output);
+		assertTrue(output.contains("readings=1000000"), output);
+	}
+}
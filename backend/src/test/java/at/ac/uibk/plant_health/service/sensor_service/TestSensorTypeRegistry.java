@@ -0,0 +1,70 @@
+package at.ac.uibk.plant_health.service.sensor_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.repositories.SensorRepository;
+import at.ac.uibk.plant_health.service.SensorTypeRegistry;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestSensorTypeRegistry {
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorRepository sensorRepository;
+
+	@Test
+	public void createUnknownTypeOnce() throws Exception {
+		// given: a Sensor Type that does not exist yet
+		String type = StringGenerator.username();
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// when: many Threads ask for it at the same time
+		List<Future<Sensor>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return sensorTypeRegistry.getOrCreate(new Sensor(type, "C"));
+			}));
+		}
+		start.countDown();
+
+		Set<Integer> ids = new HashSet<>();
+		for (Future<Sensor> future : futures) {
+			ids.add(future.get(10, TimeUnit.SECONDS).getSensorId());
+		}
+		executor.shutdown();
+
+		// then: exactly one Sensor has been created
+		assertEquals(1, ids.size());
+		assertTrue(sensorRepository.findByType(type).isPresent());
+		assertEquals(ids.iterator().next(), sensorRepository.findByType(type).get().getSensorId());
+	}
+
+	@Test
+	public void knownTypeIsAnsweredFromMemory() {
+		// given: a Sensor Type that is known to the Registry
+		String type = StringGenerator.username();
+		sensorTypeRegistry.getOrCreate(new Sensor(type, "C"));
+		long misses = sensorTypeRegistry.getMisses();
+
+		// when: looking it up again
+		Optional<Sensor> sensor = sensorTypeRegistry.find(type);
+
+		// then: no further Database Lookup is needed
+		assertTrue(sensor.isPresent());
+		assertEquals(misses, sensorTypeRegistry.getMisses());
+	}
+}
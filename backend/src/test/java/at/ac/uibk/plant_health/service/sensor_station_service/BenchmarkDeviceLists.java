@@ -0,0 +1,303 @@
+package at.ac.uibk.plant_health.service.sensor_station_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import at.ac.uibk.plant_health.models.user.Permission;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.AccessPointRepository;
+import at.ac.uibk.plant_health.repositories.SensorLimitsRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+/**
+ * Compares the Rows and Bytes read from the Database by the List Endpoints when they load the
+ * Entities (before) and when they read the Rows of the Read Model (after).
+ * Run with {@code mvn test -Dtest=BenchmarkDeviceLists -Dswa.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkDeviceLists {
+	private static final int ACCESS_POINTS = 20;
+	private static final int SENSOR_STATIONS_PER_ACCESS_POINT = 50;
+	private static final int GARDENERS = 10;
+	private static final int READINGS_PER_SENSOR = 20;
+
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private PersonService personService;
+	@Autowired
+	private SensorStationPersonReferenceService sensorStationPersonReferenceService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private AccessPointRepository accessPointRepository;
+	@Autowired
+	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private static final AtomicLong statements = new AtomicLong();
+	private static final AtomicLong rows = new AtomicLong();
+	private static final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Counts the Statements, Rows and Bytes (of the Values read) of the DataSource.
+	 */
+	@TestConfiguration
+	static class FetchCounting {
+		@Bean
+		static BeanPostProcessor countingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource
+							? counting(dataSource, DataSource.class)
+							: bean;
+				}
+			};
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T counting(T target, Class<T> type) {
+		return (T) Proxy.newProxyInstance(
+				type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(target, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					String name = method.getName();
+					if (type == ResultSet.class) {
+						if (name.equals("next") && Boolean.TRUE.equals(result)) {
+							rows.incrementAndGet();
+						} else if (name.startsWith("get")) {
+							bytes.addAndGet(size(result));
+						}
+						return result;
+					}
+					if (name.startsWith("execute")) statements.incrementAndGet();
+					if (result instanceof ResultSet resultSet)
+						return counting(resultSet, ResultSet.class);
+					if (result instanceof CallableStatement) return result;
+					if (result instanceof PreparedStatement statement)
+						return counting(statement, PreparedStatement.class);
+					if (result instanceof Statement statement)
+						return counting(statement, Statement.class);
+					if (result instanceof Connection connection)
+						return counting(connection, Connection.class);
+					return result;
+				}
+		);
+	}
+
+	private static long size(Object value) throws SQLException {
+		if (value == null) return 0;
+		if (value instanceof byte[] array) return array.length;
+		if (value instanceof Blob blob) return blob.length();
+		if (value instanceof String string)
+			return string.getBytes(StandardCharsets.UTF_8).length;
+		if (value instanceof UUID) return 16;
+		if (value instanceof Boolean || value instanceof Byte) return 1;
+		if (value instanceof Short) return 2;
+		if (value instanceof Integer || value instanceof Float) return 4;
+		if (value instanceof Number || value instanceof Temporal
+			|| value instanceof java.util.Date)
+			return 8;
+		return 0;
+	}
+
+	private record Fetched(long statements, long rows, long bytes, double millis) {}
+
+	private Fetched measure(Supplier<?> request) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		// Warm up, so the Time is not measured with cold Code.
+		transaction.execute(status -> request.get());
+		statements.set(0);
+		rows.set(0);
+		bytes.set(0);
+		long start = System.nanoTime();
+		// The Requests ran inside one Session (Open Session in View), like this Transaction.
+		transaction.execute(status -> request.get());
+		return new Fetched(
+				statements.get(), rows.get(), bytes.get(), (System.nanoTime() - start) / 1e6
+		);
+	}
+
+	private void print(String endpoint, Supplier<?> before, Supplier<?> after) {
+		Fetched b = measure(before);
+		Fetched a = measure(after);
+		System.out.printf(
+				"%-34s before %5d statements %7d rows %9d bytes %8.2f ms | after %5d statements "
+						+ "%7d rows %9d bytes %8.2f ms%n",
+				endpoint, b.statements(), b.rows(), b.bytes(), b.millis(), a.statements(),
+				a.rows(), a.bytes(), a.millis()
+		);
+	}
+
+	@Test
+	public void rowsAndBytesPerRequest() throws Exception {
+		// given: AccessPoints with SensorStations, their Gardeners, Limits and Readings, and a
+		//        User that added some of them to the Dashboard
+		List<Person> gardeners = new ArrayList<>();
+		for (int i = 0; i < GARDENERS; i++) {
+			Person gardener = new Person(
+					StringGenerator.username(), StringGenerator.email(),
+					StringGenerator.password(), Set.of(Permission.GARDENER)
+			);
+			assertTrue(personService.create(gardener));
+			gardeners.add(gardener);
+		}
+		Person user = new Person(
+				StringGenerator.username(), StringGenerator.email(), StringGenerator.password(),
+				Set.of(Permission.USER)
+		);
+		assertTrue(personService.create(user));
+		Sensor temperature = sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C"));
+		Sensor humidity = sensorTypeRegistry.getOrCreate(new Sensor("HUMIDITY", "%"));
+
+		List<AccessPoint> accessPoints = new ArrayList<>();
+		List<SensorStation> sensorStations = new ArrayList<>();
+		for (int a = 0; a < ACCESS_POINTS; a++) {
+			UUID selfAssignedId = UUID.randomUUID();
+			accessPointService.register(selfAssignedId, "Office" + a);
+			AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+			accessPoint.setUnlocked(true);
+			accessPoint = accessPointService.save(accessPoint);
+			accessPoints.add(accessPoint);
+			for (int s = 0; s < SENSOR_STATIONS_PER_ACCESS_POINT; s++) {
+				SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), s);
+				sensorStation.setAccessPoint(accessPoint);
+				sensorStation.setUnlocked(true);
+				sensorStation.setGardener(gardeners.get(sensorStations.size() % GARDENERS));
+				sensorStations.add(sensorStationRepository.save(sensorStation));
+			}
+		}
+
+		List<SensorLimits> limits = new ArrayList<>();
+		List<Object[]> readings = new ArrayList<>();
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		for (SensorStation sensorStation : sensorStations) {
+			for (Sensor sensor : List.of(temperature, humidity)) {
+				limits.add(new SensorLimits(
+						now, 30, 10, 60, sensor, sensorStation.getGardener(), sensorStation
+				));
+				for (int r = 0; r < READINGS_PER_SENSOR; r++) {
+					readings.add(new Object[] {
+							sensorStation.getDeviceId(), sensor.getSensorId(),
+							Timestamp.valueOf(now.minusMinutes(r)), 20f + r});
+				}
+			}
+		}
+		sensorLimitsRepository.saveAll(limits);
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO sensor_data (sensor_station_id, sensor_id, time_stamp, "
+						+ "sensor_value, sensor_alarm) VALUES (?, ?, ?, ?, 0)",
+				readings
+		);
+		for (int i = 0; i < sensorStations.size(); i += 10) {
+			sensorStationPersonReferenceService.addPlantToDashboard(user, sensorStations.get(i));
+		}
+		// Mark the SensorStations as reported, so the Lists do not update them while measured.
+		deviceListService.getAccessPoints();
+		UUID accessPointId = accessPoints.get(0).getDeviceId();
+		// The Principal of a Request is loaded with its References.
+		Person principal = personService.findById(user.getPersonId()).orElseThrow();
+
+		// when: every List is requested the old and the new Way
+		print(
+				"/get-sensor-stations", () -> loadAvailable(principal),
+				() -> deviceListService.getAvailableSensorStations(principal)
+		);
+		print(
+				"/get-all-sensor-stations", () -> toResponses(sensorStationRepository.findAll()),
+				() -> deviceListService.getSensorStations()
+		);
+		print(
+				"/get-access-points", this::loadAccessPoints,
+				() -> deviceListService.getAccessPoints()
+		);
+		print(
+				"/get-access-point-sensor-stations",
+				()
+						-> toResponses(accessPointRepository.findById(accessPointId)
+											   .orElseThrow()
+											   .getSensorStations()),
+				() -> deviceListService.getSensorStations(accessPointId)
+		);
+	}
+
+	// region The old Endpoints, which loaded the Entities
+	private List<String> loadAvailable(Person user) {
+		// Stations without an AccessPoint (left by other Tests) made the old Endpoint fail.
+		return sensorStationRepository.findAll()
+				.stream()
+				.filter(s -> s.getAccessPoint() != null)
+				.filter(s -> !s.isDeleted() && s.isUnlocked() && s.getAccessPoint().isUnlocked())
+				.filter(s
+						-> user.getSensorStationPersonReferences().stream().noneMatch(
+								r -> r.getSensorStation().equals(s)
+						))
+				.map(s -> s.getAccessPoint().getRoomName() + s.getName())
+				.toList();
+	}
+
+	private List<SensorStationBaseResponse> loadAccessPoints() {
+		// The old Endpoint loaded all AccessPoints twice (once to mark them reported).
+		accessPointRepository.findAll();
+		return toResponses(accessPointRepository.findAll()
+								   .stream()
+								   .flatMap(a -> a.getSensorStations().stream())
+								   .toList());
+	}
+
+	private List<SensorStationBaseResponse> toResponses(List<SensorStation> sensorStations) {
+		return sensorStationService.loadNewestSensorData(sensorStations)
+				.stream()
+				.filter(s -> !s.isDeleted())
+				.map(SensorStationBaseResponse::new)
+				.toList();
+	}
+	// endregion
+}
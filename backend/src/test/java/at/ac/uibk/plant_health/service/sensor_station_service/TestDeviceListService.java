@@ -0,0 +1,200 @@
+package at.ac.uibk.plant_health.service.sensor_station_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.models.rest_responses.AccessPointListResponse;
+import at.ac.uibk.plant_health.models.rest_responses.SensorStationBaseResponse;
+import at.ac.uibk.plant_health.models.user.Permission;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.util.StringGenerator;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestDeviceListService {
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private PersonService personService;
+	@Autowired
+	private SensorDataIngestService sensorDataIngestService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void reloadSensors() {
+		// Test Contexts started since this one was cached recreate the shared in-memory Database.
+		sensorTypeRegistry.invalidate();
+	}
+
+	/**
+	 * An AccessPoint with three SensorStations: one with a Gardener and Readings (the newest
+	 * Temperature is above the Limit), one without Readings and a deleted one.
+	 */
+	private AccessPoint createAccessPoint() throws ServiceException {
+		Person gardener = new Person(
+				StringGenerator.username(), StringGenerator.email(), StringGenerator.password(),
+				Set.of(Permission.GARDENER)
+		);
+		assertTrue(personService.create(gardener));
+
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPoint.setUnlocked(true);
+		accessPoint = accessPointService.save(accessPoint);
+
+		SensorStation withReadings = new SensorStation(StringGenerator.macAddress(), 1);
+		withReadings.setAccessPoint(accessPoint);
+		withReadings.setGardener(gardener);
+		withReadings.setUnlocked(true);
+		withReadings = sensorStationService.save(withReadings);
+		SensorStation withoutReadings = new SensorStation(StringGenerator.macAddress(), 2);
+		withoutReadings.setAccessPoint(accessPoint);
+		sensorStationService.save(withoutReadings);
+		SensorStation deleted = new SensorStation(StringGenerator.macAddress(), 3);
+		deleted.setAccessPoint(accessPoint);
+		deleted.setDeleted(true);
+		sensorStationService.save(deleted);
+
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+		SensorStation sent = new SensorStation(withReadings.getBdAddress(), 1);
+		List<SensorData> sensorData = new ArrayList<>();
+		for (int i = 10; i > 0; i--) {
+			String alarm = i == 1 ? "h" : "n";
+			sensorData.add(new SensorData(
+					now.minusMinutes(i), 20 + i, alarm, new Sensor("TEMPERATURE", "C"), null
+			));
+			sensorData.add(new SensorData(
+					now.minusMinutes(i), 50, "l", new Sensor("HUMIDITY", "%"), null
+			));
+		}
+		sent.setSensorData(sensorData);
+		sensorDataIngestService.ingest(List.of(sent));
+		return accessPoint;
+	}
+
+	/**
+	 * The Responses built from the loaded SensorStations of the AccessPoint.
+	 */
+	private Map<UUID, SensorStationBaseResponse> fromEntities(AccessPoint accessPoint) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Map<UUID, SensorStationBaseResponse> responses = new HashMap<>();
+			sensorStationService
+					.loadNewestSensorData(
+							accessPointService.findById(accessPoint.getDeviceId()).getSensorStations()
+					)
+					.stream()
+					.filter(s -> !s.isDeleted())
+					.forEach(s -> responses.put(s.getDeviceId(), new SensorStationBaseResponse(s)));
+			return responses;
+		});
+	}
+
+	private static void
+	assertSameResponse(SensorStationBaseResponse expected, SensorStationBaseResponse actual) {
+		assertEquals(expected.getSensorStationId(), actual.getSensorStationId());
+		assertEquals(expected.getBdAddress(), actual.getBdAddress());
+		assertEquals(expected.getDipSwitchId(), actual.getDipSwitchId());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getRoomName(), actual.getRoomName());
+		assertEquals(expected.getTransferInterval(), actual.getTransferInterval());
+		assertEquals(expected.getGardener(), actual.getGardener());
+		assertEquals(expected.isUnlocked(), actual.isUnlocked());
+		assertEquals(expected.isAccessPointUnlocked(), actual.isAccessPointUnlocked());
+		assertEquals(expected.isConnected(), actual.isConnected());
+		assertEquals(expected.isDeleted(), actual.isDeleted());
+		assertEquals(alarms(expected), alarms(actual));
+	}
+
+	private static Map<String, String> alarms(SensorStationBaseResponse response) {
+		Map<String, String> alarms = new HashMap<>();
+		response.getAlarms().forEach(a -> alarms.put(a.getSensor().getType(), a.getAlarm()));
+		return alarms;
+	}
+
+	@Test
+	public void sensorStationsAreReadAsRows() throws ServiceException {
+		// given: an AccessPoint with SensorStations
+		AccessPoint accessPoint = createAccessPoint();
+
+		// when: its SensorStations are read as Rows
+		List<SensorStationBaseResponse> rows =
+				deviceListService.getSensorStations(accessPoint.getDeviceId());
+
+		// then: they are the same as built from the Entities
+		Map<UUID, SensorStationBaseResponse> expected = fromEntities(accessPoint);
+		assertEquals(expected.size(), rows.size());
+		assertEquals(2, rows.size());
+		for (SensorStationBaseResponse row : rows) {
+			assertSameResponse(expected.get(row.getSensorStationId()), row);
+		}
+		assertTrue(rows.stream().anyMatch(
+				r -> Map.of("TEMPERATURE", "h", "HUMIDITY", "l").equals(alarms(r))
+		));
+
+		// and: they are part of the List of all SensorStations
+		Set<UUID> all = new HashSet<>();
+		deviceListService.getSensorStations().forEach(r -> all.add(r.getSensorStationId()));
+		assertTrue(all.containsAll(expected.keySet()));
+
+		// and: an unknown AccessPoint is rejected
+		assertThrows(
+				ServiceException.class,
+				() -> deviceListService.getSensorStations(UUID.randomUUID())
+		);
+	}
+
+	@Test
+	public void accessPointsShowTheirSensorStationsAsNewOnce() throws ServiceException {
+		// given: an AccessPoint with SensorStations that were not reported yet
+		AccessPoint accessPoint = createAccessPoint();
+		Map<UUID, SensorStationBaseResponse> expected = fromEntities(accessPoint);
+
+		// when: the AccessPoints are listed twice
+		var first = find(deviceListService.getAccessPoints(), accessPoint);
+		var second = find(deviceListService.getAccessPoints(), accessPoint);
+
+		// then: the AccessPoint shows its SensorStations that are not deleted
+		assertEquals(accessPoint.getRoomName(), first.getRoomName());
+		assertEquals(accessPoint.isUnlocked(), first.isUnlocked());
+		assertEquals(expected.size(), first.getSensorStations().size());
+		for (var sensorStation : first.getSensorStations()) {
+			assertSameResponse(expected.get(sensorStation.getSensorStationId()), sensorStation);
+		}
+		// and: they are only new the first time
+		assertTrue(first.getSensorStations().stream().noneMatch(s -> s.isReported()));
+		assertTrue(second.getSensorStations().stream().allMatch(s -> s.isReported()));
+	}
+
+	private static AccessPointListResponse.InnerAccessPoint
+	find(List<AccessPointListResponse.InnerAccessPoint> accessPoints, AccessPoint accessPoint) {
+		return accessPoints.stream()
+				.filter(a -> a.getAccessPointId().equals(accessPoint.getDeviceId()))
+				.findFirst()
+				.orElseThrow();
+	}
+}
@@ -0,0 +1,228 @@
+package at.ac.uibk.plant_health.service.sensor_station_service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+import at.ac.uibk.plant_health.models.device.AccessPoint;
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.exceptions.ServiceException;
+import at.ac.uibk.plant_health.models.plant.Sensor;
+import at.ac.uibk.plant_health.models.plant.SensorLimits;
+import at.ac.uibk.plant_health.models.user.Permission;
+import at.ac.uibk.plant_health.models.user.Person;
+import at.ac.uibk.plant_health.repositories.SensorLimitsRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationPersonReferenceRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository;
+import at.ac.uibk.plant_health.repositories.SensorStationRepository.SensorStationRow;
+import at.ac.uibk.plant_health.service.*;
+import at.ac.uibk.plant_health.util.StringGenerator;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the SensorStations of a Person are found in the Database, so the Number of
+ * Statements and loaded SensorStations does not grow with the SensorStations the Person can not
+ * see.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TestScopedSensorStationQueries {
+	@Autowired
+	private SensorStationService sensorStationService;
+	@Autowired
+	private DeviceListService deviceListService;
+	@Autowired
+	private SensorStationPersonReferenceService sensorStationPersonReferenceService;
+	@Autowired
+	private AccessPointService accessPointService;
+	@Autowired
+	private PersonService personService;
+	@Autowired
+	private SensorTypeRegistry sensorTypeRegistry;
+	@Autowired
+	private SensorStationRepository sensorStationRepository;
+	@Autowired
+	private SensorLimitsRepository sensorLimitsRepository;
+	@Autowired
+	private SensorStationPersonReferenceRepository sensorStationPersonReferenceRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@DynamicPropertySource
+	static void statisticsProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+		// No scheduled Statements while counting.
+		registry.add("swa.scheduling.rate.in.seconds", () -> "3600");
+		registry.add("swa.scheduling.disconnect.tick.in.seconds", () -> "3600");
+	}
+
+	@BeforeEach
+	void getStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	/**
+	 * The Number of Statements and loaded SensorStations of a Query.
+	 */
+	private record Cost(long statements, long sensorStations) {}
+
+	private <T> Cost measure(Supplier<T> query) {
+		statistics.clear();
+		query.get();
+		return new Cost(
+				statistics.getPrepareStatementCount(),
+				statistics.getEntityStatistics(SensorStation.class.getName()).getLoadCount()
+		);
+	}
+
+	private Person createPerson(Permission permission) {
+		Person person = new Person(
+				StringGenerator.username(), StringGenerator.email(), StringGenerator.password(),
+				Set.of(permission)
+		);
+		assertTrue(personService.create(person), "Unable to create user");
+		return person;
+	}
+
+	private AccessPoint createAccessPoint(boolean unlocked) throws ServiceException {
+		UUID selfAssignedId = UUID.randomUUID();
+		accessPointService.register(selfAssignedId, "Office");
+		AccessPoint accessPoint = accessPointService.findBySelfAssignedId(selfAssignedId);
+		accessPoint.setUnlocked(unlocked);
+		return accessPointService.save(accessPoint);
+	}
+
+	private SensorStation createSensorStation(
+			AccessPoint accessPoint, Person gardener, boolean unlocked, boolean deleted
+	) {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setAccessPoint(accessPoint);
+		sensorStation.setGardener(gardener);
+		sensorStation.setUnlocked(unlocked);
+		sensorStation.setDeleted(deleted);
+		return sensorStationService.save(sensorStation);
+	}
+
+	private static Set<UUID> ids(List<SensorStation> sensorStations) {
+		Set<UUID> ids = new HashSet<>();
+		sensorStations.forEach(s -> ids.add(s.getDeviceId()));
+		return ids;
+	}
+
+	@Test
+	public void gardenerLoadsOnlyAssignedSensorStations() {
+		// given: a Gardener assigned to two SensorStations and a deleted one
+		Person gardener = createPerson(Permission.GARDENER);
+		Person otherGardener = createPerson(Permission.GARDENER);
+		Set<UUID> assigned = Set.of(
+				createSensorStation(null, gardener, true, false).getDeviceId(),
+				createSensorStation(null, gardener, false, false).getDeviceId()
+		);
+		createSensorStation(null, gardener, true, true);
+		for (int i = 0; i < 10; i++) createSensorStation(null, otherGardener, true, false);
+
+		// when: the assigned SensorStations are found
+		Cost cost = measure(() -> sensorStationService.findAssigned(gardener));
+
+		// then: only they are loaded
+		assertEquals(assigned, ids(sensorStationService.findAssigned(gardener)));
+		assertEquals(assigned.size(), cost.sensorStations());
+
+		// and: other SensorStations do not cost anything
+		for (int i = 0; i < 20; i++) createSensorStation(null, otherGardener, true, false);
+		assertEquals(cost, measure(() -> sensorStationService.findAssigned(gardener)));
+	}
+
+	@Test
+	public void availableSensorStationsAreFoundInTheDatabase() throws ServiceException {
+		// given: SensorStations of an unlocked AccessPoint, one of them referenced by the Person
+		Person person = createPerson(Permission.USER);
+		AccessPoint unlockedAccessPoint = createAccessPoint(true);
+		AccessPoint lockedAccessPoint = createAccessPoint(false);
+		Set<UUID> available = Set.of(
+				createSensorStation(unlockedAccessPoint, null, true, false).getDeviceId(),
+				createSensorStation(unlockedAccessPoint, null, true, false).getDeviceId()
+		);
+		sensorStationPersonReferenceService.addPlantToDashboard(
+				person, createSensorStation(unlockedAccessPoint, null, true, false)
+		);
+		createSensorStation(unlockedAccessPoint, null, false, false);
+		createSensorStation(unlockedAccessPoint, null, true, true);
+		createSensorStation(lockedAccessPoint, null, true, false);
+		createSensorStation(null, null, true, false);
+
+		// when: the SensorStations the Person can add are found
+		Cost cost = measure(() -> deviceListService.getAvailableSensorStations(person));
+
+		// then: they are read without loading any SensorStation
+		assertEquals(new Cost(1, 0), cost);
+
+		// and: they are the unlocked, not referenced ones of the unlocked AccessPoint
+		List<SensorStationRow> found = deviceListService.getAvailableSensorStations(person);
+		Set<UUID> foundIds = new HashSet<>();
+		found.forEach(s -> foundIds.add(s.deviceId()));
+		assertTrue(foundIds.containsAll(available));
+		for (SensorStationRow sensorStation : found) {
+			assertTrue(sensorStation.unlocked() && !sensorStation.deleted());
+			assertTrue(sensorStation.accessPointUnlocked());
+			SensorStation loaded =
+					sensorStationRepository.findById(sensorStation.deviceId()).orElseThrow();
+			assertTrue(sensorStationPersonReferenceRepository
+							   .findByPersonAndSensorStation(person, loaded)
+							   .isEmpty());
+		}
+
+		// and: SensorStations the Person can not add do not cost anything
+		for (int i = 0; i < 10; i++) {
+			createSensorStation(lockedAccessPoint, null, true, false);
+			createSensorStation(null, null, true, false);
+		}
+		assertEquals(cost, measure(() -> deviceListService.getAvailableSensorStations(person)));
+	}
+
+	@Test
+	public void deletingAGardenerDoesNotLoadSensorStations() {
+		// given: a Gardener assigned to SensorStations and the Limits they set
+		Person gardener = createPerson(Permission.GARDENER);
+		Sensor sensor = sensorTypeRegistry.getOrCreate(new Sensor("TEMPERATURE", "C"));
+		List<SensorStation> sensorStations = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			SensorStation sensorStation = createSensorStation(null, gardener, true, false);
+			sensorLimitsRepository.save(new SensorLimits(
+					LocalDateTime.now(), 30, 10, 60, sensor, gardener, sensorStation
+			));
+			sensorStations.add(sensorStation);
+		}
+
+		// when: the Gardener is deleted
+		Cost cost = measure(() -> personService.delete(gardener.getPersonId()));
+
+		// then: the Assignments and Limits are cleared without loading the SensorStations
+		assertEquals(0, cost.sensorStations());
+		assertTrue(sensorStationService.findAssigned(gardener).isEmpty());
+		for (SensorStation sensorStation : sensorStations) {
+			SensorStation found =
+					sensorStationRepository
+							.findWithSensorLimitsByDeviceId(sensorStation.getDeviceId())
+							.orElseThrow();
+			assertNull(found.getGardener());
+			assertEquals(1, found.getSensorLimits().size());
+			found.getSensorLimits().forEach(limits -> assertNull(limits.getGardener()));
+		}
+		assertFalse(personService.findById(gardener.getPersonId()).isPresent());
+	}
+}
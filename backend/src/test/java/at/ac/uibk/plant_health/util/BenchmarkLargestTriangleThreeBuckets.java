@@ -0,0 +1,60 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measures the Time and the Allocations of {@link LargestTriangleThreeBuckets} for a Series of one
+ * Million Readings (about a Year of one Sensor sending every 30 Seconds).
+ * Run with {@code mvn test -Dtest=BenchmarkLargestTriangleThreeBuckets -Dswa.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "swa.benchmark", matches = "true")
+public class BenchmarkLargestTriangleThreeBuckets {
+	private static final int POINTS = 1_000_000;
+	private static final int[] MAX_POINTS = {100, 1_000, 10_000};
+	private static final int WARMUP = 20;
+	private static final int ITERATIONS = 20;
+
+	@Test
+	public void downsampleOneMillionPoints() {
+		long[] times = new long[POINTS];
+		float[] values = new float[POINTS];
+		Random random = new Random(42);
+		for (int i = 0; i < POINTS; i++) {
+			times[i] = 1_672_531_200L + i * 30L;
+			values[i] = (float) (20 + 5 * Math.sin(i / 2880.0) + random.nextGaussian());
+		}
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		for (int maxPoints : MAX_POINTS) {
+			int checksum = 0;
+			for (int i = 0; i < WARMUP; i++) {
+				checksum += LargestTriangleThreeBuckets
+									.select(POINTS, j -> times[j], j -> values[j], maxPoints)
+									.length;
+			}
+
+			long allocated = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; i++) {
+				checksum += LargestTriangleThreeBuckets
+									.select(POINTS, j -> times[j], j -> values[j], maxPoints)
+									.length;
+			}
+			double millis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+			allocated = (threads.getThreadAllocatedBytes(thread) - allocated) / ITERATIONS;
+
+			assertEquals((WARMUP + ITERATIONS) * maxPoints, checksum);
+			System.out.printf(
+					"%7d -> %5d Points: %7.2f ms/Call, %5.1f ns/Point, %7d Bytes allocated/Call%n",
+					POINTS, maxPoints, millis, millis * 1e6 / POINTS, allocated
+			);
+		}
+	}
+}
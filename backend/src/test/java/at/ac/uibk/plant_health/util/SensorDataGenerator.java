@@ -0,0 +1,29 @@
+package at.ac.uibk.plant_health.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import at.ac.uibk.plant_health.models.device.SensorStation;
+import at.ac.uibk.plant_health.models.plant.SensorData;
+import at.ac.uibk.plant_health.service.SensorStationService;
+
+public class SensorDataGenerator {
+	/**
+	 * Save a new unlocked SensorStation (without AccessPoint), whose Transfers are accepted.
+	 */
+	public static SensorStation sensorStation(SensorStationService sensorStationService) {
+		SensorStation sensorStation = new SensorStation(StringGenerator.macAddress(), 1);
+		sensorStation.setUnlocked(true);
+		return sensorStationService.save(sensorStation);
+	}
+
+	/**
+	 * @return The SensorStation as an AccessPoint sends it in a Transfer, with the given Readings
+	 *     (their Sensors only need a Type and Unit).
+	 */
+	public static SensorStation transfer(SensorStation sensorStation, List<SensorData> sensorData) {
+		SensorStation sent = new SensorStation(sensorStation.getBdAddress(), 1);
+		sent.setSensorData(new ArrayList<>(sensorData));
+		return sent;
+	}
+}
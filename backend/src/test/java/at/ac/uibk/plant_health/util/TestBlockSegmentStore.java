@@ -0,0 +1,83 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+public class TestBlockSegmentStore {
+	@TempDir
+	private Path directory;
+
+	@Test
+	public void blocksSurviveReopening() throws IOException {
+		UUID sensorStationId = UUID.randomUUID();
+		int sensorId = 3;
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 200)) {
+			assertTrue(store.open().isEmpty());
+			for (int i = 0; i < 5; i++) {
+				BlockSegmentStore.BlockRef ref =
+						store.append(sensorStationId, sensorId, i * 10, i * 10 + 9, 2, bytes(i));
+				assertEquals(ByteBuffer.wrap(bytes(i)), store.read(ref));
+			}
+			store.sync();
+		}
+		// Every Block of 112 Bytes needs a Segment of its own.
+		try (var files = Files.list(directory)) {
+			assertEquals(5, files.count());
+		}
+
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 200)) {
+			List<BlockSegmentStore.BlockRef> refs = store.open();
+			assertEquals(5, refs.size());
+			for (int i = 0; i < refs.size(); i++) {
+				BlockSegmentStore.BlockRef ref = refs.get(i);
+				assertEquals(sensorStationId, ref.sensorStationId());
+				assertEquals(sensorId, ref.sensorId());
+				assertEquals(i * 10, ref.start());
+				assertEquals(2, ref.count());
+				assertEquals(ByteBuffer.wrap(bytes(i)), store.read(ref));
+			}
+			assertTrue(refs.get(1).overlaps(9, 11));
+			assertFalse(refs.get(1).overlaps(19, 30));
+		}
+	}
+
+	@Test
+	public void tornBlockIsCutOff() throws IOException {
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 1 << 20)) {
+			store.open();
+			store.append(UUID.randomUUID(), 1, 0, 1, 2, bytes(1));
+			store.append(UUID.randomUUID(), 1, 2, 3, 2, bytes(2));
+		}
+		Path segment = directory.resolve("segment-000000.blk");
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 10);
+		}
+
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 1 << 20)) {
+			assertEquals(1, store.open().size());
+			assertEquals(112, Files.size(segment));
+			// Appending continues after the last complete Block.
+			store.append(UUID.randomUUID(), 1, 2, 3, 2, bytes(3));
+		}
+		try (BlockSegmentStore store = new BlockSegmentStore(directory, 1 << 20)) {
+			assertEquals(2, store.open().size());
+		}
+	}
+
+	private static byte[] bytes(int seed) {
+		byte[] bytes = new byte[64];
+		for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) (seed * 31 + i);
+		return bytes;
+	}
+}
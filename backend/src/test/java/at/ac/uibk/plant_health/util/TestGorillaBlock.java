@@ -0,0 +1,66 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class TestGorillaBlock {
+	@Test
+	public void roundTrip() {
+		Random random = new Random(42);
+		int count = 5000;
+		long[] times = new long[count];
+		float[] values = new float[count];
+		byte[] alarms = new byte[count];
+		long time = 1_700_000_000L;
+		float value = 21.5f;
+		for (int i = 0; i < count; i++) {
+			// Mostly regular Intervals with Jitter, some Gaps and Readings in the same Second.
+			time += switch (i % 500) {
+				case 100 -> 0;
+				case 200 -> 86_400;
+				case 300 -> 5_000;
+				default -> 30 + random.nextInt(3) - 1;
+			};
+			if (random.nextInt(4) == 0) value += Math.round(random.nextGaussian() * 100) / 100f;
+			times[i] = time;
+			values[i] = i == 4000 ? Float.NaN : value;
+			alarms[i] = (byte) (i % 700 < 20 ? 'h' : i % 900 < 10 ? 'l' : 'n');
+		}
+
+		GorillaBlock.Encoder encoder = new GorillaBlock.Encoder();
+		for (int i = 0; i < count; i++) encoder.add(times[i], values[i], alarms[i]);
+		byte[] block = encoder.toByteArray();
+		assertEquals(count, encoder.count());
+		assertTrue(block.length < count * 4, "Block should take less than 4 Bytes per Reading");
+
+		GorillaBlock.Decoder decoder = new GorillaBlock.Decoder(ByteBuffer.wrap(block), count);
+		for (int i = 0; i < count; i++) {
+			assertTrue(decoder.next());
+			assertEquals(times[i], decoder.epochSecond());
+			assertEquals(
+					Float.floatToRawIntBits(values[i]), Float.floatToRawIntBits(decoder.value())
+			);
+			assertEquals(alarms[i], decoder.alarm());
+		}
+		assertFalse(decoder.next());
+	}
+
+	@Test
+	public void constantReadingsTakeFewBitsEach() {
+		GorillaBlock.Encoder encoder = new GorillaBlock.Encoder();
+		for (int i = 0; i < 1000; i++) encoder.add(i * 60L, 50, (byte) 'n');
+		// Header of 98 Bits, the first Delta and then three Bits per Reading.
+		assertTrue(encoder.toByteArray().length <= 400);
+	}
+
+	@Test
+	public void readingsHaveToBeOrdered() {
+		GorillaBlock.Encoder encoder = new GorillaBlock.Encoder();
+		encoder.add(100, 1, (byte) 'n');
+		assertThrows(IllegalArgumentException.class, () -> encoder.add(99, 1, (byte) 'n'));
+	}
+}
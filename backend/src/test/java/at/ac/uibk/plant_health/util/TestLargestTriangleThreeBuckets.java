@@ -0,0 +1,54 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TestLargestTriangleThreeBuckets {
+	private static int[] select(float[] values, int maxPoints) {
+		return LargestTriangleThreeBuckets.select(
+				values.length, i -> i * 60, i -> values[i], maxPoints
+		);
+	}
+
+	@Test
+	public void shortSeriesIsKept() {
+		assertArrayEquals(new int[] {0, 1, 2, 3}, select(new float[] {4, 3, 2, 1}, 10));
+		assertArrayEquals(new int[0], select(new float[0], 3));
+	}
+
+	@Test
+	public void keepsFirstAndLastAndAscendingIndices() {
+		float[] values = new float[1000];
+		for (int i = 0; i < values.length; i++) values[i] = (float) Math.sin(i / 25.0);
+
+		int[] kept = select(values, 100);
+
+		assertEquals(100, kept.length);
+		assertEquals(0, kept[0]);
+		assertEquals(999, kept[99]);
+		for (int i = 1; i < kept.length; i++) assertTrue(kept[i] > kept[i - 1]);
+	}
+
+	@Test
+	public void peaksSurvive() {
+		// given: a flat Series with a single Spike and a single Dip
+		float[] values = new float[10_000];
+		values[2_345] = 100;
+		values[7_890] = -100;
+
+		int[] kept = select(values, 50);
+
+		assertEquals(50, kept.length);
+		int peaks = 0;
+		for (int i : kept) {
+			if (i == 2_345 || i == 7_890) peaks++;
+		}
+		assertEquals(2, peaks);
+	}
+
+	@Test
+	public void tooFewPointsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> select(new float[10], 2));
+	}
+}
@@ -0,0 +1,50 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TestReadingRingBuffer {
+	@Test
+	public void wrapsAroundAndGrows() {
+		ReadingRingBuffer buffer = new ReadingRingBuffer(4);
+		for (int i = 0; i < 3; i++) buffer.add(i, i, (byte) 'n');
+		assertEquals(2, buffer.evictBefore(2));
+
+		// The Tail wraps around the End of the Arrays before the Buffer has to grow.
+		for (int i = 3; i < 20; i++) buffer.add(i, i, (byte) 'n');
+		assertEquals(18, buffer.size());
+
+		ReadingRingBuffer.Slice slice = buffer.slice(1, 20);
+		assertEquals(18, slice.size());
+		for (int i = 0; i < slice.size(); i++) {
+			assertEquals(i + 2, slice.epochSeconds()[i]);
+			assertEquals(i + 2, slice.values()[i]);
+		}
+	}
+
+	@Test
+	public void outOfOrderAndDuplicateReadings() {
+		ReadingRingBuffer buffer = new ReadingRingBuffer(2);
+		buffer.add(10, 1, (byte) 'n');
+		buffer.add(30, 3, (byte) 'n');
+		buffer.add(20, 2, (byte) 'h');
+		buffer.add(30, 4, (byte) 'l');
+		buffer.add(5, 0, (byte) 'n');
+
+		ReadingRingBuffer.Slice slice = buffer.slice(0, 100);
+		assertArrayEquals(new long[] {5, 10, 20, 30}, slice.epochSeconds());
+		assertArrayEquals(new float[] {0, 1, 2, 4}, slice.values());
+		assertArrayEquals(new byte[] {'n', 'n', 'h', 'l'}, slice.alarms());
+	}
+
+	@Test
+	public void sliceBoundsAreExclusive() {
+		ReadingRingBuffer buffer = new ReadingRingBuffer(8);
+		for (int i = 0; i < 8; i++) buffer.add(i * 10, i, (byte) 'n');
+
+		assertArrayEquals(new long[] {20, 30, 40}, buffer.slice(10, 50).epochSeconds());
+		assertEquals(0, buffer.slice(70, 100).size());
+		assertEquals(0, buffer.slice(40, 20).size());
+	}
+}
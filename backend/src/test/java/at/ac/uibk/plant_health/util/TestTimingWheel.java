@@ -0,0 +1,59 @@
+package at.ac.uibk.plant_health.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TestTimingWheel {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void expiresOnlyDueKeys() {
+		TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 8, 0);
+		wheel.schedule("a", 3 * SECOND);
+		wheel.schedule("b", 5 * SECOND);
+
+		assertTrue(wheel.advance(3 * SECOND).isEmpty());
+		assertEquals(List.of("a"), wheel.advance(4 * SECOND));
+		assertEquals(List.of("b"), wheel.advance(6 * SECOND));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void rearmedKeyDoesNotExpire() {
+		TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 8, 0);
+		wheel.schedule("a", 3 * SECOND);
+		// Heartbeats keep moving the Deadline back.
+		for (int i = 1; i <= 20; i++) {
+			wheel.schedule("a", (i + 3) * SECOND);
+			assertTrue(wheel.advance(i * SECOND).isEmpty());
+		}
+
+		assertEquals(List.of("a"), wheel.advance(25 * SECOND));
+	}
+
+	@Test
+	public void deadlinesLongerThanOneRound() {
+		TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 4, 0);
+		wheel.schedule("a", 10 * SECOND);
+
+		for (int i = 1; i <= 10; i++) assertTrue(wheel.advance(i * SECOND).isEmpty());
+		assertEquals(List.of("a"), wheel.advance(11 * SECOND));
+	}
+
+	@Test
+	public void earlierDeadlineAndCancel() {
+		TimingWheel<String> wheel = new TimingWheel<>(Duration.ofSeconds(1), 8, 0);
+		wheel.schedule("a", 6 * SECOND);
+		wheel.schedule("a", 2 * SECOND);
+		wheel.schedule("b", 2 * SECOND);
+		wheel.cancel("b");
+
+		assertEquals(List.of("a"), wheel.advance(3 * SECOND));
+		assertTrue(wheel.advance(10 * SECOND).isEmpty());
+	}
+}
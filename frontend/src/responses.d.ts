@@ -10,7 +10,6 @@ declare namespace Responses {
     token: string;
     permissions: GrantedAuthority[];
     email: string;
-    sensorStationPersonReferences: SensorStationPersonReference[];
     /** Format: uuid */
     personId: string;
   }
@@ -28,8 +27,7 @@ declare namespace Responses {
   }
 
   declare interface Sensor {
-    /** Format: uuid */
-    sensorId: string;
+    sensorId: number;
     type: string;
     unit: string;
   }
@@ -235,8 +233,7 @@ declare namespace Responses {
   }
 
   declare interface InnerSensors {
-    /** Format: uuid */
-    sensorId: string;
+    sensorId: number;
     sensorType: string;
     sensorUnit: string;
     values: TimeStampedSensorData[];